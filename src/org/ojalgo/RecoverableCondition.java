@@ -31,6 +31,10 @@ import org.ojalgo.type.TypeUtils;
  */
 public final class RecoverableCondition extends Exception implements EffectiveThrowable {
 
+    public static RecoverableCondition newDecompositionFailed() {
+        return new RecoverableCondition("Decomposition Failed!");
+    }
+
     public static RecoverableCondition newEquationSystemNotSolvable() {
         return new RecoverableCondition("Equation System Not Solvable!");
     }
@@ -0,0 +1,372 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+
+/**
+ * Decomposes (and solves with) a whole batch of same-sized small matrices in one pass, without creating any
+ * per-matrix objects. The matrices are stored interleaved (structure-of-arrays) in one double[] - element
+ * (row,col) of batch entry b is at index b + batchSize * (row + col * dim) - and are decomposed in place. The
+ * batch entries are processed in parallel.
+ * <p>
+ * Right hand sides are stored the same way, element row of entry b at index b + batchSize * row, and are
+ * overwritten by the solutions. Entries that could not be decomposed get NaN solutions.
+ *
+ * @author apete
+ */
+public abstract class BatchedDecomposition {
+
+    static final class CholeskyBatch extends BatchedDecomposition {
+
+        CholeskyBatch(final int dim, final int batchSize) {
+            super(dim, batchSize);
+        }
+
+        @Override
+        boolean decompose(final double[] data, final int entry, final int dim, final int stride) {
+
+            final int colStride = stride * dim;
+
+            for (int j = 0; j < dim; j++) {
+
+                final int colJ = entry + (j * colStride);
+
+                double diagonal = data[colJ + (j * stride)];
+                if (!(diagonal > ZERO)) {
+                    return false;
+                }
+                diagonal = Math.sqrt(diagonal);
+                data[colJ + (j * stride)] = diagonal;
+
+                for (int i = j + 1; i < dim; i++) {
+                    data[colJ + (i * stride)] /= diagonal;
+                }
+
+                for (int k = j + 1; k < dim; k++) {
+                    final double multiplier = data[colJ + (k * stride)];
+                    final int colK = entry + (k * colStride);
+                    for (int i = k; i < dim; i++) {
+                        data[colK + (i * stride)] -= data[colJ + (i * stride)] * multiplier;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        double determinant(final double[] data, final int entry, final int dim, final int stride) {
+            double retVal = ONE;
+            for (int ij = 0; ij < dim; ij++) {
+                final double diagonal = data[entry + (stride * (ij + (ij * dim)))];
+                retVal *= diagonal * diagonal;
+            }
+            return retVal;
+        }
+
+        @Override
+        void solve(final double[] data, final double[] rhs, final int entry, final int dim, final int stride) {
+
+            final int colStride = stride * dim;
+
+            for (int j = 0; j < dim; j++) {
+                final int colJ = entry + (j * colStride);
+                final double value = rhs[entry + (j * stride)] /= data[colJ + (j * stride)];
+                for (int i = j + 1; i < dim; i++) {
+                    rhs[entry + (i * stride)] -= data[colJ + (i * stride)] * value;
+                }
+            }
+
+            for (int j = dim - 1; j >= 0; j--) {
+                final int colJ = entry + (j * colStride);
+                double value = rhs[entry + (j * stride)];
+                for (int i = j + 1; i < dim; i++) {
+                    value -= data[colJ + (i * stride)] * rhs[entry + (i * stride)];
+                }
+                rhs[entry + (j * stride)] = value / data[colJ + (j * stride)];
+            }
+        }
+
+    }
+
+    static final class LUBatch extends BatchedDecomposition {
+
+        /**
+         * The row interchanges, same layout as a right hand side: pivot row k of entry b at b + batchSize * k
+         */
+        private final int[] myPivots;
+
+        LUBatch(final int dim, final int batchSize) {
+            super(dim, batchSize);
+            myPivots = new int[dim * batchSize];
+        }
+
+        @Override
+        boolean decompose(final double[] data, final int entry, final int dim, final int stride) {
+
+            final int colStride = stride * dim;
+
+            for (int k = 0; k < dim; k++) {
+
+                final int colK = entry + (k * colStride);
+
+                int p = k;
+                double largest = Math.abs(data[colK + (k * stride)]);
+                for (int i = k + 1; i < dim; i++) {
+                    final double candidate = Math.abs(data[colK + (i * stride)]);
+                    if (candidate > largest) {
+                        largest = candidate;
+                        p = i;
+                    }
+                }
+                myPivots[entry + (k * stride)] = p;
+
+                if (largest == ZERO) {
+                    return false;
+                }
+
+                if (p != k) {
+                    for (int j = 0; j < dim; j++) {
+                        final int colJ = entry + (j * colStride);
+                        final double tmp = data[colJ + (k * stride)];
+                        data[colJ + (k * stride)] = data[colJ + (p * stride)];
+                        data[colJ + (p * stride)] = tmp;
+                    }
+                }
+
+                final double pivot = data[colK + (k * stride)];
+                for (int i = k + 1; i < dim; i++) {
+                    data[colK + (i * stride)] /= pivot;
+                }
+
+                for (int j = k + 1; j < dim; j++) {
+                    final int colJ = entry + (j * colStride);
+                    final double multiplier = data[colJ + (k * stride)];
+                    if (multiplier != ZERO) {
+                        for (int i = k + 1; i < dim; i++) {
+                            data[colJ + (i * stride)] -= data[colK + (i * stride)] * multiplier;
+                        }
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        double determinant(final double[] data, final int entry, final int dim, final int stride) {
+            double retVal = ONE;
+            for (int ij = 0; ij < dim; ij++) {
+                retVal *= data[entry + (stride * (ij + (ij * dim)))];
+                if (myPivots[entry + (ij * stride)] != ij) {
+                    retVal = -retVal;
+                }
+            }
+            return retVal;
+        }
+
+        @Override
+        void solve(final double[] data, final double[] rhs, final int entry, final int dim, final int stride) {
+
+            final int colStride = stride * dim;
+
+            for (int j = 0; j < dim; j++) {
+                final int p = myPivots[entry + (j * stride)];
+                if (p != j) {
+                    final double tmp = rhs[entry + (j * stride)];
+                    rhs[entry + (j * stride)] = rhs[entry + (p * stride)];
+                    rhs[entry + (p * stride)] = tmp;
+                }
+            }
+
+            for (int j = 0; j < dim; j++) {
+                final int colJ = entry + (j * colStride);
+                final double value = rhs[entry + (j * stride)];
+                if (value != ZERO) {
+                    for (int i = j + 1; i < dim; i++) {
+                        rhs[entry + (i * stride)] -= data[colJ + (i * stride)] * value;
+                    }
+                }
+            }
+
+            for (int j = dim - 1; j >= 0; j--) {
+                final int colJ = entry + (j * colStride);
+                final double value = rhs[entry + (j * stride)] /= data[colJ + (j * stride)];
+                if (value != ZERO) {
+                    for (int i = 0; i < j; i++) {
+                        rhs[entry + (i * stride)] -= data[colJ + (i * stride)] * value;
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Batch entries per parallel task
+     */
+    public static int THRESHOLD = 128;
+
+    /**
+     * Cholesky decomposition of symmetric positive definite matrices. Only the lower triangular part of each
+     * matrix is used, and on return it contains L.
+     */
+    public static BatchedDecomposition makeCholesky(final int dim, final int batchSize) {
+        return new CholeskyBatch(dim, batchSize);
+    }
+
+    /**
+     * LU decomposition with partial pivoting. On return each matrix contains (the row permuted) L and U with
+     * L's unit diagonal implied.
+     */
+    public static BatchedDecomposition makeLU(final int dim, final int batchSize) {
+        return new LUBatch(dim, batchSize);
+    }
+
+    private final int myBatchSize;
+    private final int myDim;
+    private final boolean[] mySolvable;
+
+    BatchedDecomposition(final int dim, final int batchSize) {
+
+        super();
+
+        myDim = dim;
+        myBatchSize = batchSize;
+        mySolvable = new boolean[batchSize];
+    }
+
+    /**
+     * @return The number of batch entries that were successfully decomposed
+     */
+    public final int countSolvable() {
+        int retVal = 0;
+        for (int b = 0; b < myBatchSize; b++) {
+            if (mySolvable[b]) {
+                retVal++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Decomposes all batch entries in place.
+     *
+     * @param data dim * dim * batchSize elements
+     * @return true if all batch entries were successfully decomposed
+     */
+    public final boolean decompose(final double[] data) {
+
+        this.check(data, myDim * myDim);
+
+        final int dim = myDim;
+        final int stride = myBatchSize;
+
+        new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int b = first; b < limit; b++) {
+                    mySolvable[b] = BatchedDecomposition.this.decompose(data, b, dim, stride);
+                }
+            }
+
+        }.invoke(0, myBatchSize, THRESHOLD);
+
+        return this.countSolvable() == myBatchSize;
+    }
+
+    public final int getBatchSize() {
+        return myBatchSize;
+    }
+
+    /**
+     * @param data The already decomposed batch
+     * @return The determinant of the (original) matrix of that batch entry, or 0.0 if it is not solvable
+     */
+    public final double getDeterminant(final double[] data, final int entry) {
+        return mySolvable[entry] ? this.determinant(data, entry, myDim, myBatchSize) : ZERO;
+    }
+
+    public final int getDim() {
+        return myDim;
+    }
+
+    /**
+     * @return The index, in the batch data array, of element (row,col) of batch entry
+     */
+    public final int index(final int entry, final int row, final int col) {
+        return entry + (myBatchSize * (row + (col * myDim)));
+    }
+
+    public final boolean isSolvable(final int entry) {
+        return mySolvable[entry];
+    }
+
+    /**
+     * Solves (in place) one right hand side per batch entry.
+     *
+     * @param data The already decomposed batch
+     * @param rhs dim * batchSize elements, overwritten with the solutions
+     */
+    public final void solve(final double[] data, final double[] rhs) {
+
+        this.check(data, myDim * myDim);
+        this.check(rhs, myDim);
+
+        final int dim = myDim;
+        final int stride = myBatchSize;
+
+        new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int b = first; b < limit; b++) {
+                    if (mySolvable[b]) {
+                        BatchedDecomposition.this.solve(data, rhs, b, dim, stride);
+                    } else {
+                        for (int i = 0; i < dim; i++) {
+                            rhs[b + (i * stride)] = NaN;
+                        }
+                    }
+                }
+            }
+
+        }.invoke(0, myBatchSize, THRESHOLD);
+    }
+
+    private void check(final double[] array, final int elementsPerEntry) {
+        if (array.length != (elementsPerEntry * myBatchSize)) {
+            throw new IllegalArgumentException("Wrong array length: " + array.length + " != " + (elementsPerEntry * myBatchSize));
+        }
+    }
+
+    abstract boolean decompose(double[] data, int entry, int dim, int stride);
+
+    abstract double determinant(double[] data, int entry, int dim, int stride);
+
+    abstract void solve(double[] data, double[] rhs, int entry, int dim, int stride);
+
+}
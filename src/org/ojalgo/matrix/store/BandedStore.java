@@ -0,0 +1,218 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.array.DenseArray;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.scalar.Quaternion;
+import org.ojalgo.scalar.RationalNumber;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Mutate2D;
+
+/**
+ * A banded matrix with explicit lower and upper bandwidths. Only the elements within the band are stored,
+ * using the same (column major) layout as LAPACK's band storage: element (i,j) is stored at row
+ * upperBandwidth+i-j of a (lowerBandwidth+upperBandwidth+1) x columnsCount array. Elements outside the band
+ * are always zero and cannot be set to anything else.
+ *
+ * @author apete
+ */
+public final class BandedStore<N extends Number> extends FactoryStore<N> implements Mutate2D {
+
+    public static interface Factory<N extends Number> {
+
+        BandedStore<N> make(long rowsCount, long columnsCount, int lowerBandwidth, int upperBandwidth);
+
+    }
+
+    public static final BandedStore.Factory<ComplexNumber> COMPLEX = (rowsCount, columnsCount, lowerBandwidth,
+            upperBandwidth) -> new BandedStore<>(GenericDenseStore.COMPLEX, (int) rowsCount, (int) columnsCount, lowerBandwidth, upperBandwidth);
+
+    public static final BandedStore.Factory<Double> PRIMITIVE = (rowsCount, columnsCount, lowerBandwidth,
+            upperBandwidth) -> new BandedStore<>(PrimitiveDenseStore.FACTORY, (int) rowsCount, (int) columnsCount, lowerBandwidth, upperBandwidth);
+
+    public static final BandedStore.Factory<Quaternion> QUATERNION = (rowsCount, columnsCount, lowerBandwidth,
+            upperBandwidth) -> new BandedStore<>(GenericDenseStore.QUATERNION, (int) rowsCount, (int) columnsCount, lowerBandwidth, upperBandwidth);
+
+    public static final BandedStore.Factory<RationalNumber> RATIONAL = (rowsCount, columnsCount, lowerBandwidth,
+            upperBandwidth) -> new BandedStore<>(GenericDenseStore.RATIONAL, (int) rowsCount, (int) columnsCount, lowerBandwidth, upperBandwidth);
+
+    private final int myBandRows;
+    private final DenseArray<N> myElements;
+    private final int myLowerBandwidth;
+    private final int myUpperBandwidth;
+    private final N myZero;
+
+    BandedStore(final PhysicalStore.Factory<N, ?> factory, final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+
+        super(factory, rowsCount, columnsCount);
+
+        if ((lowerBandwidth < 0) || (upperBandwidth < 0)) {
+            throw new IllegalArgumentException("Bandwidths must be non-negative!");
+        }
+
+        myLowerBandwidth = Math.min(lowerBandwidth, Math.max(0, rowsCount - 1));
+        myUpperBandwidth = Math.min(upperBandwidth, Math.max(0, columnsCount - 1));
+        myBandRows = myLowerBandwidth + myUpperBandwidth + 1;
+
+        myElements = factory.array().makeZero((long) myBandRows * columnsCount);
+        myZero = factory.scalar().zero().get();
+    }
+
+    public void add(final long row, final long col, final double addend) {
+        myElements.add(this.index(row, col), addend);
+    }
+
+    public void add(final long row, final long col, final Number addend) {
+        myElements.add(this.index(row, col), addend);
+    }
+
+    public double doubleValue(final long row, final long col) {
+        if (this.isInBand(row, col)) {
+            return myElements.doubleValue(this.offset(row, col));
+        } else {
+            return ZERO;
+        }
+    }
+
+    @Override
+    public int firstInColumn(final int col) {
+        return Math.max(0, col - myUpperBandwidth);
+    }
+
+    @Override
+    public int firstInRow(final int row) {
+        return Math.max(0, row - myLowerBandwidth);
+    }
+
+    public N get(final long row, final long col) {
+        if (this.isInBand(row, col)) {
+            return myElements.get(this.offset(row, col));
+        } else {
+            return myZero;
+        }
+    }
+
+    /**
+     * @return The number of sub-diagonals
+     */
+    public int getLowerBandwidth() {
+        return myLowerBandwidth;
+    }
+
+    /**
+     * @return The number of super-diagonals
+     */
+    public int getUpperBandwidth() {
+        return myUpperBandwidth;
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        return Math.min(this.getRowDim(), col + myLowerBandwidth + 1);
+    }
+
+    @Override
+    public int limitOfRow(final int row) {
+        return Math.min(this.getColDim(), row + myUpperBandwidth + 1);
+    }
+
+    @Override
+    public void multiply(final Access1D<N> right, final ElementsConsumer<N> target) {
+
+        if (this.isPrimitive()) {
+
+            final int numbRows = this.getRowDim();
+            final int complexity = this.getColDim();
+            final int numbCols = (int) (right.count() / complexity);
+
+            final double[] column = new double[numbRows];
+
+            for (int c = 0; c < numbCols; c++) {
+
+                final int base = c * complexity;
+
+                for (int i = 0; i < numbRows; i++) {
+                    column[i] = ZERO;
+                }
+
+                for (int j = 0; j < complexity; j++) {
+                    final double value = right.doubleValue(base + j);
+                    if (value != ZERO) {
+                        final int offset = (myUpperBandwidth - j) + (j * myBandRows);
+                        for (int i = this.firstInColumn(j), limit = this.limitOfColumn(j); i < limit; i++) {
+                            column[i] += myElements.doubleValue(offset + i) * value;
+                        }
+                    }
+                }
+
+                for (int i = 0; i < numbRows; i++) {
+                    target.set(i, c, column[i]);
+                }
+            }
+
+        } else {
+
+            super.multiply(right, target);
+        }
+    }
+
+    public void set(final long row, final long col, final double value) {
+        myElements.set(this.index(row, col), value);
+    }
+
+    public void set(final long row, final long col, final Number value) {
+        myElements.set(this.index(row, col), value);
+    }
+
+    @Override
+    public void supplyTo(final ElementsConsumer<N> receiver) {
+
+        receiver.reset();
+
+        for (int j = 0, numbCols = this.getColDim(); j < numbCols; j++) {
+            final int offset = (myUpperBandwidth - j) + (j * myBandRows);
+            for (int i = this.firstInColumn(j), limit = this.limitOfColumn(j); i < limit; i++) {
+                receiver.set(i, j, myElements.get(offset + i));
+            }
+        }
+    }
+
+    private long index(final long row, final long col) {
+        if (this.isInBand(row, col)) {
+            return this.offset(row, col);
+        } else {
+            throw new IllegalArgumentException("(" + row + "," + col + ") is outside the band!");
+        }
+    }
+
+    private boolean isInBand(final long row, final long col) {
+        return ((row - col) <= myLowerBandwidth) && ((col - row) <= myUpperBandwidth);
+    }
+
+    private long offset(final long row, final long col) {
+        return (myUpperBandwidth + row - col) + (col * myBandRows);
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A block diagonal matrix. All elements outside the (not necessarily square) diagonal blocks are zero.
+ * Multiplication is done per block, with the blocks processed in parallel. The matrix tasks in
+ * {@link org.ojalgo.matrix.task} recognise this structure and solve/invert/decompose the blocks
+ * independently.
+ *
+ * @author apete
+ */
+public final class BlockDiagonalStore<N extends Number> extends FactoryStore<N> {
+
+    public static <N extends Number> BlockDiagonalStore<N> of(final List<? extends MatrixStore<N>> blocks) {
+
+        if (blocks.size() == 0) {
+            throw new IllegalArgumentException("Must have at least 1 block!");
+        }
+
+        return new BlockDiagonalStore<>(blocks.get(0).physical(), new ArrayList<>(blocks));
+    }
+
+    @SafeVarargs
+    public static <N extends Number> BlockDiagonalStore<N> of(final MatrixStore<N>... blocks) {
+
+        final List<MatrixStore<N>> tmpBlocks = new ArrayList<>(blocks.length);
+        for (int b = 0; b < blocks.length; b++) {
+            tmpBlocks.add(blocks[b]);
+        }
+
+        return BlockDiagonalStore.of(tmpBlocks);
+    }
+
+    private static int blockOf(final int[] offsets, final long index) {
+        final int found = Arrays.binarySearch(offsets, (int) index);
+        if (found >= 0) {
+            // Empty (0-sized) blocks share offsets - move to the last one
+            int retVal = found;
+            while (((retVal + 1) < (offsets.length - 1)) && (offsets[retVal + 1] == offsets[retVal])) {
+                retVal++;
+            }
+            return Math.min(retVal, offsets.length - 2);
+        } else {
+            return -found - 2;
+        }
+    }
+
+    private static int[] offsets(final List<? extends MatrixStore<?>> blocks, final boolean rows) {
+        final int[] retVal = new int[blocks.size() + 1];
+        for (int b = 0; b < blocks.size(); b++) {
+            retVal[b + 1] = retVal[b] + (int) (rows ? blocks.get(b).countRows() : blocks.get(b).countColumns());
+        }
+        return retVal;
+    }
+
+    private final List<MatrixStore<N>> myBlocks;
+    private final int[] myColumnOffsets;
+    private final int[] myRowOffsets;
+    private final N myZero;
+
+    BlockDiagonalStore(final PhysicalStore.Factory<N, ?> factory, final List<MatrixStore<N>> blocks) {
+
+        super(factory, BlockDiagonalStore.offsets(blocks, true)[blocks.size()], BlockDiagonalStore.offsets(blocks, false)[blocks.size()]);
+
+        myBlocks = blocks;
+        myRowOffsets = BlockDiagonalStore.offsets(blocks, true);
+        myColumnOffsets = BlockDiagonalStore.offsets(blocks, false);
+        myZero = factory.scalar().zero().get();
+    }
+
+    public int countBlocks() {
+        return myBlocks.size();
+    }
+
+    public double doubleValue(final long row, final long col) {
+        final int block = this.blockOfRow(row);
+        final long localCol = col - myColumnOffsets[block];
+        if ((localCol >= 0L) && (localCol < myBlocks.get(block).countColumns())) {
+            return myBlocks.get(block).doubleValue(row - myRowOffsets[block], localCol);
+        } else {
+            return ZERO;
+        }
+    }
+
+    @Override
+    public int firstInColumn(final int col) {
+        return myRowOffsets[this.blockOfColumn(col)];
+    }
+
+    @Override
+    public int firstInRow(final int row) {
+        return myColumnOffsets[this.blockOfRow(row)];
+    }
+
+    public N get(final long row, final long col) {
+        final int block = this.blockOfRow(row);
+        final long localCol = col - myColumnOffsets[block];
+        if ((localCol >= 0L) && (localCol < myBlocks.get(block).countColumns())) {
+            return myBlocks.get(block).get(row - myRowOffsets[block], localCol);
+        } else {
+            return myZero;
+        }
+    }
+
+    public MatrixStore<N> getBlock(final int block) {
+        return myBlocks.get(block);
+    }
+
+    /**
+     * @return The column index (in this matrix) of the first column of the block
+     */
+    public int getColumnOffset(final int block) {
+        return myColumnOffsets[block];
+    }
+
+    /**
+     * @return The row index (in this matrix) of the first row of the block
+     */
+    public int getRowOffset(final int block) {
+        return myRowOffsets[block];
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        return myRowOffsets[this.blockOfColumn(col) + 1];
+    }
+
+    @Override
+    public int limitOfRow(final int row) {
+        return myColumnOffsets[this.blockOfRow(row) + 1];
+    }
+
+    @Override
+    public void multiply(final Access1D<N> right, final ElementsConsumer<N> target) {
+
+        final int complexity = this.getColDim();
+        final int numbCols = (int) (right.count() / complexity);
+
+        final List<MatrixStore<N>> products = new ArrayList<>(Collections.nCopies(myBlocks.size(), null));
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int b = first; b < limit; b++) {
+                    final int offset = myColumnOffsets[b];
+                    final int rows = (int) myBlocks.get(b).countColumns();
+                    final PhysicalStore<N> slice = BlockDiagonalStore.this.physical().makeZero(rows, numbCols);
+                    for (int j = 0; j < numbCols; j++) {
+                        for (int i = 0; i < rows; i++) {
+                            slice.set(i, j, right.get(offset + i + (j * (long) complexity)));
+                        }
+                    }
+                    products.set(b, myBlocks.get(b).multiply(slice));
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, myBlocks.size(), 1);
+
+        for (int b = 0; b < products.size(); b++) {
+            final MatrixStore<N> product = products.get(b);
+            final int offset = myRowOffsets[b];
+            for (int j = 0; j < numbCols; j++) {
+                for (int i = 0, limit = (int) product.countRows(); i < limit; i++) {
+                    target.set(offset + i, j, product.get(i, j));
+                }
+            }
+        }
+    }
+
+    @Override
+    public MatrixStore<N> transpose() {
+        final List<MatrixStore<N>> transposed = new ArrayList<>(myBlocks.size());
+        for (final MatrixStore<N> block : myBlocks) {
+            transposed.add(block.transpose());
+        }
+        return new BlockDiagonalStore<>(this.physical(), transposed);
+    }
+
+    private int blockOfColumn(final long col) {
+        return BlockDiagonalStore.blockOf(myColumnOffsets, col);
+    }
+
+    private int blockOfRow(final long row) {
+        return BlockDiagonalStore.blockOf(myRowOffsets, row);
+    }
+
+}
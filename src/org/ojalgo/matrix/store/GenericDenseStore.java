@@ -99,6 +99,10 @@ public final class GenericDenseStore<N extends Number & Scalar<N>> extends Scala
         public MatrixStore.Factory<N> builder() {
             return new MatrixStore.Factory<N>() {
 
+                public BandedStore<N> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+                    return new BandedStore<>(GenericDenseStore.Factory.this, rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+                }
+
                 public LogicalBuilder<N> makeIdentity(final int dimension) {
                     return new LogicalBuilder<>(new IdentityStore<>(GenericDenseStore.Factory.this, dimension));
                 }
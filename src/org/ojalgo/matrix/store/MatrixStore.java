@@ -67,6 +67,13 @@ public interface MatrixStore<N extends Number> extends ElementsSupplier<N>, Acce
 
     public static interface Factory<N extends Number> {
 
+        /**
+         * The default implementation derives the element factory from {@link #makeZero(int, int)}.
+         */
+        default BandedStore<N> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+            return new BandedStore<>(this.makeZero(rowsCount, columnsCount).physical(), rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+        }
+
         MatrixStore.LogicalBuilder<N> makeIdentity(int dimension);
 
         MatrixStore.LogicalBuilder<N> makeSingle(N element);
@@ -408,6 +415,10 @@ public interface MatrixStore<N extends Number> extends ElementsSupplier<N>, Acce
 
     public static final Factory<ComplexNumber> COMPLEX = new Factory<ComplexNumber>() {
 
+        public BandedStore<ComplexNumber> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+            return BandedStore.COMPLEX.make(rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+        }
+
         public LogicalBuilder<ComplexNumber> makeIdentity(final int dimension) {
             return new LogicalBuilder<>(new IdentityStore<>(GenericDenseStore.COMPLEX, dimension));
         }
@@ -432,6 +443,10 @@ public interface MatrixStore<N extends Number> extends ElementsSupplier<N>, Acce
 
     public static final Factory<Double> PRIMITIVE = new Factory<Double>() {
 
+        public BandedStore<Double> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+            return BandedStore.PRIMITIVE.make(rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+        }
+
         public LogicalBuilder<Double> makeIdentity(final int dimension) {
             return new LogicalBuilder<>(new IdentityStore<>(PrimitiveDenseStore.FACTORY, dimension));
         }
@@ -456,6 +471,10 @@ public interface MatrixStore<N extends Number> extends ElementsSupplier<N>, Acce
 
     public static final Factory<Quaternion> QUATERNION = new Factory<Quaternion>() {
 
+        public BandedStore<Quaternion> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+            return BandedStore.QUATERNION.make(rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+        }
+
         public LogicalBuilder<Quaternion> makeIdentity(final int dimension) {
             return new LogicalBuilder<>(new IdentityStore<>(GenericDenseStore.QUATERNION, dimension));
         }
@@ -480,6 +499,10 @@ public interface MatrixStore<N extends Number> extends ElementsSupplier<N>, Acce
 
     public static final Factory<RationalNumber> RATIONAL = new Factory<RationalNumber>() {
 
+        public BandedStore<RationalNumber> makeBanded(final int rowsCount, final int columnsCount, final int lowerBandwidth, final int upperBandwidth) {
+            return BandedStore.RATIONAL.make(rowsCount, columnsCount, lowerBandwidth, upperBandwidth);
+        }
+
         public LogicalBuilder<RationalNumber> makeIdentity(final int dimension) {
             return new LogicalBuilder<>(new IdentityStore<>(GenericDenseStore.RATIONAL, dimension));
         }
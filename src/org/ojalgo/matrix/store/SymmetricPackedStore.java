@@ -0,0 +1,231 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.operation.MultiplyPackedSymmetric;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Mutate2D;
+
+/**
+ * A symmetric matrix that only stores (owns) its lower triangular part, using the same packed (column major)
+ * layout as LAPACK - element (i,j), i &ge; j, is stored at index i + j*(2n-j-1)/2. Setting (i,j) also sets
+ * (j,i). Compared to {@link PrimitiveDenseStore} it needs half the memory.
+ * <p>
+ * Multiplication with a vector or matrix is done directly on the packed elements (SYMV/SYMM), and when
+ * supplied to a decomposition (like {@link org.ojalgo.matrix.decomposition.Cholesky} or
+ * {@link org.ojalgo.matrix.decomposition.Eigenvalue}) the elements are written directly to its internal
+ * storage, without any intermediate unpacked copy.
+ *
+ * @author apete
+ */
+public final class SymmetricPackedStore extends FactoryStore<Double> implements Mutate2D {
+
+    public static SymmetricPackedStore copy(final Access2D<?> source) {
+
+        final int dim = (int) source.countRows();
+
+        final SymmetricPackedStore retVal = new SymmetricPackedStore(dim);
+
+        final double[] data = retVal.myElements;
+        for (int j = 0, k = 0; j < dim; j++) {
+            for (int i = j; i < dim; i++, k++) {
+                data[k] = source.doubleValue(i, j);
+            }
+        }
+
+        return retVal;
+    }
+
+    public static SymmetricPackedStore make(final int dimension) {
+        return new SymmetricPackedStore(dimension);
+    }
+
+    private final double[] myElements;
+
+    SymmetricPackedStore(final int dimension) {
+
+        super(PrimitiveDenseStore.FACTORY, dimension, dimension);
+
+        myElements = new double[Math.toIntExact(((long) dimension * (dimension + 1L)) / 2L)];
+    }
+
+    public void add(final long row, final long col, final double addend) {
+        myElements[this.index(row, col)] += addend;
+    }
+
+    public void add(final long row, final long col, final Number addend) {
+        this.add(row, col, addend.doubleValue());
+    }
+
+    @Override
+    public MatrixStore<Double> conjugate() {
+        return this;
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return myElements[this.index(row, col)];
+    }
+
+    public Double get(final long row, final long col) {
+        return this.doubleValue(row, col);
+    }
+
+    @Override
+    public void multiply(final Access1D<Double> right, final ElementsConsumer<Double> target) {
+
+        final int dim = this.getRowDim();
+        final int numbCols = (int) (right.count() / dim);
+
+        final boolean direct = (target instanceof PrimitiveDenseStore) && (target.countRows() == dim);
+        final double[] product = direct ? ((PrimitiveDenseStore) target).data : new double[dim * numbCols];
+
+        if (numbCols > MultiplyPackedSymmetric.THRESHOLD) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    MultiplyPackedSymmetric.invoke(product, first, limit, myElements, dim, right);
+                }
+
+            };
+
+            conquerer.invoke(0, numbCols, MultiplyPackedSymmetric.THRESHOLD);
+
+        } else {
+
+            MultiplyPackedSymmetric.invoke(product, 0, numbCols, myElements, dim, right);
+        }
+
+        if (!direct) {
+            for (int j = 0; j < numbCols; j++) {
+                for (int i = 0; i < dim; i++) {
+                    target.set(i, j, product[i + (j * dim)]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public SymmetricPackedStore multiply(final double scalar) {
+
+        final SymmetricPackedStore retVal = new SymmetricPackedStore(this.getRowDim());
+
+        for (int k = 0; k < myElements.length; k++) {
+            retVal.myElements[k] = scalar * myElements[k];
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public SymmetricPackedStore multiply(final Double scalar) {
+        return this.multiply(scalar.doubleValue());
+    }
+
+    @Override
+    public Double multiplyBoth(final Access1D<Double> leftAndRight) {
+
+        final int dim = this.getRowDim();
+
+        final double[] vector = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            vector[i] = leftAndRight.doubleValue(i);
+        }
+
+        final double[] product = new double[dim];
+        MultiplyPackedSymmetric.invoke(product, 0, myElements, dim, vector);
+
+        double retVal = ZERO;
+        for (int i = 0; i < dim; i++) {
+            retVal += vector[i] * product[i];
+        }
+        return retVal;
+    }
+
+    public void set(final long row, final long col, final double value) {
+        myElements[this.index(row, col)] = value;
+    }
+
+    public void set(final long row, final long col, final Number value) {
+        this.set(row, col, value.doubleValue());
+    }
+
+    @Override
+    public void supplyTo(final ElementsConsumer<Double> receiver) {
+
+        final int dim = this.getRowDim();
+
+        if (receiver instanceof PrimitiveDenseStore) {
+
+            final double[] data = ((PrimitiveDenseStore) receiver).data;
+            final int structure = (int) receiver.countRows();
+
+            for (int j = 0, k = 0; j < dim; j++) {
+                for (int i = j; i < dim; i++, k++) {
+                    data[i + (j * structure)] = data[j + (i * structure)] = myElements[k];
+                }
+            }
+
+        } else if (receiver instanceof RawStore) {
+
+            final double[][] data = ((RawStore) receiver).data;
+
+            for (int j = 0, k = 0; j < dim; j++) {
+                for (int i = j; i < dim; i++, k++) {
+                    data[i][j] = data[j][i] = myElements[k];
+                }
+            }
+
+        } else {
+
+            for (int j = 0, k = 0; j < dim; j++) {
+                for (int i = j; i < dim; i++, k++) {
+                    final double value = myElements[k];
+                    receiver.set(i, j, value);
+                    if (i != j) {
+                        receiver.set(j, i, value);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MatrixStore<Double> transpose() {
+        return this;
+    }
+
+    private int index(final long row, final long col) {
+        final long dim = this.countRows();
+        if (row >= col) {
+            return (int) ((row + ((col * ((dim + dim) - col - 1L)) / 2L)));
+        } else {
+            return (int) ((col + ((row * ((dim + dim) - row - 1L)) / 2L)));
+        }
+    }
+
+}
@@ -61,6 +61,7 @@ public abstract class MatrixOperation {
         MultiplyBoth.THRESHOLD = Math.min(maxValue, MultiplyBoth.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.min(maxValue, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.min(maxValue, MultiplyLeft.THRESHOLD);
+        MultiplyPackedSymmetric.THRESHOLD = Math.min(maxValue, MultiplyPackedSymmetric.THRESHOLD);
         MultiplyRight.THRESHOLD = Math.min(maxValue, MultiplyRight.THRESHOLD);
         RotateLeft.THRESHOLD = Math.min(maxValue, RotateLeft.THRESHOLD);
         RotateRight.THRESHOLD = Math.min(maxValue, RotateRight.THRESHOLD);
@@ -90,6 +91,7 @@ public abstract class MatrixOperation {
         MultiplyBoth.THRESHOLD = Math.max(minValue, MultiplyBoth.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.max(minValue, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.max(minValue, MultiplyLeft.THRESHOLD);
+        MultiplyPackedSymmetric.THRESHOLD = Math.max(minValue, MultiplyPackedSymmetric.THRESHOLD);
         MultiplyRight.THRESHOLD = Math.max(minValue, MultiplyRight.THRESHOLD);
         RotateLeft.THRESHOLD = Math.max(minValue, RotateLeft.THRESHOLD);
         RotateRight.THRESHOLD = Math.max(minValue, RotateRight.THRESHOLD);
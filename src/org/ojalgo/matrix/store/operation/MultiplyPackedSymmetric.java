@@ -0,0 +1,101 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store.operation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.structure.Access1D;
+
+/**
+ * SYMV/SYMM with a symmetric matrix in (lower, column major) packed storage - element (i,j), i &ge; j, is
+ * stored at index i + j*(2n-j-1)/2. Each column of the right matrix is multiplied independently, and the
+ * packed matrix is only traversed in storage order.
+ *
+ * @author apete
+ */
+public final class MultiplyPackedSymmetric extends MatrixOperation {
+
+    public static final MultiplyPackedSymmetric SETUP = new MultiplyPackedSymmetric();
+
+    public static int THRESHOLD = 32;
+
+    /**
+     * @param product Column major, dim rows, to receive the columns [firstColumn,columnLimit)
+     * @param firstColumn The first column of right (and product) to calculate
+     * @param columnLimit The column limit
+     * @param packed The packed symmetric matrix
+     * @param dim The dimension of the symmetric matrix
+     * @param right Column major, dim rows
+     */
+    public static void invoke(final double[] product, final int firstColumn, final int columnLimit, final double[] packed, final int dim,
+            final Access1D<?> right) {
+
+        final double[] vector = new double[dim];
+
+        for (int c = firstColumn; c < columnLimit; c++) {
+
+            final int offset = c * dim;
+
+            for (int i = 0; i < dim; i++) {
+                vector[i] = right.doubleValue(offset + i);
+                product[offset + i] = ZERO;
+            }
+
+            MultiplyPackedSymmetric.invoke(product, offset, packed, dim, vector);
+        }
+    }
+
+    /**
+     * Single vector (SYMV) version: product[offset + i] += sum_j A(i,j) * vector[j]
+     */
+    public static void invoke(final double[] product, final int offset, final double[] packed, final int dim, final double[] vector) {
+
+        int base = 0;
+
+        for (int j = 0; j < dim; j++) {
+
+            final double value = vector[j];
+
+            double sum = packed[base] * value;
+
+            for (int i = j + 1, k = base + 1; i < dim; i++, k++) {
+                final double element = packed[k];
+                product[offset + i] += element * value;
+                sum += element * vector[i];
+            }
+
+            product[offset + j] += sum;
+
+            base += dim - j;
+        }
+    }
+
+    private MultiplyPackedSymmetric() {
+        super();
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
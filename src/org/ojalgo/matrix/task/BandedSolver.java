@@ -0,0 +1,286 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.matrix.store.BandedStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Solves banded equation systems in O(n·b<sup>2</sup>) using a banded LU decomposition with partial pivoting
+ * (as LAPACK's DGBTF2/DGBTRS), or a banded Cholesky decomposition (as DPBTF2/DPBTRS) if the body is specified
+ * as positive definite. The bandwidths are taken from the body if it is a {@link BandedStore}, otherwise they
+ * are found by scanning the body for nonzero elements.
+ *
+ * @author apete
+ */
+public final class BandedSolver implements SolverTask<Double> {
+
+    private static void factorCholesky(final double[] data, final int dim, final int bandRows) throws RecoverableCondition {
+
+        final int kd = bandRows - 1;
+
+        for (int j = 0; j < dim; j++) {
+
+            final int colJ = j * bandRows;
+
+            double diagonal = data[colJ];
+            if (!(diagonal > ZERO)) {
+                throw RecoverableCondition.newEquationSystemNotSolvable();
+            }
+            diagonal = Math.sqrt(diagonal);
+            data[colJ] = diagonal;
+
+            final int kn = Math.min(kd, dim - 1 - j);
+
+            for (int t = 1; t <= kn; t++) {
+                data[colJ + t] /= diagonal;
+            }
+
+            for (int c = 1; c <= kn; c++) {
+                final double multiplier = data[colJ + c];
+                if (multiplier != ZERO) {
+                    final int colC = (j + c) * bandRows;
+                    for (int r = c; r <= kn; r++) {
+                        data[(colC + r) - c] -= data[colJ + r] * multiplier;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void factorLU(final double[] data, final int dim, final int bandRows, final int lower, final int upper, final int[] pivots)
+            throws RecoverableCondition {
+
+        final int kv = upper + lower;
+
+        int ju = 0;
+
+        for (int j = 0; j < dim; j++) {
+
+            final int colJ = j * bandRows;
+            final int km = Math.min(lower, dim - 1 - j);
+
+            int jp = 0;
+            double largest = Math.abs(data[colJ + kv]);
+            for (int t = 1; t <= km; t++) {
+                final double candidate = Math.abs(data[colJ + kv + t]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    jp = t;
+                }
+            }
+            pivots[j] = j + jp;
+
+            if (largest == ZERO) {
+                throw RecoverableCondition.newEquationSystemNotSolvable();
+            }
+
+            ju = Math.max(ju, Math.min(j + upper + jp, dim - 1));
+
+            if (jp != 0) {
+                for (int c = j; c <= ju; c++) {
+                    final int colC = c * bandRows;
+                    final int rowJ = (colC + kv + j) - c;
+                    final double tmp = data[rowJ];
+                    data[rowJ] = data[rowJ + jp];
+                    data[rowJ + jp] = tmp;
+                }
+            }
+
+            if (km > 0) {
+
+                final double pivot = data[colJ + kv];
+                for (int t = 1; t <= km; t++) {
+                    data[colJ + kv + t] /= pivot;
+                }
+
+                for (int c = j + 1; c <= ju; c++) {
+                    final int rowJ = ((c * bandRows) + kv + j) - c;
+                    final double multiplier = data[rowJ];
+                    if (multiplier != ZERO) {
+                        for (int t = 1; t <= km; t++) {
+                            data[rowJ + t] -= data[colJ + kv + t] * multiplier;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void substituteCholesky(final double[] data, final int dim, final int bandRows, final double[] vector) {
+
+        final int kd = bandRows - 1;
+
+        for (int j = 0; j < dim; j++) {
+            final int colJ = j * bandRows;
+            final double value = vector[j] /= data[colJ];
+            for (int t = 1, kn = Math.min(kd, dim - 1 - j); t <= kn; t++) {
+                vector[j + t] -= data[colJ + t] * value;
+            }
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            final int colJ = j * bandRows;
+            double value = vector[j];
+            for (int t = 1, kn = Math.min(kd, dim - 1 - j); t <= kn; t++) {
+                value -= data[colJ + t] * vector[j + t];
+            }
+            vector[j] = value / data[colJ];
+        }
+    }
+
+    private static void substituteLU(final double[] data, final int dim, final int bandRows, final int lower, final int upper, final int[] pivots,
+            final double[] vector) {
+
+        final int kv = upper + lower;
+
+        if (lower > 0) {
+            for (int j = 0; j < (dim - 1); j++) {
+                final int p = pivots[j];
+                if (p != j) {
+                    final double tmp = vector[p];
+                    vector[p] = vector[j];
+                    vector[j] = tmp;
+                }
+                final int colJ = j * bandRows;
+                final double value = vector[j];
+                if (value != ZERO) {
+                    for (int t = 1, lm = Math.min(lower, dim - 1 - j); t <= lm; t++) {
+                        vector[j + t] -= data[colJ + kv + t] * value;
+                    }
+                }
+            }
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            final int colJ = j * bandRows;
+            final double value = vector[j] /= data[colJ + kv];
+            if (value != ZERO) {
+                for (int i = Math.max(0, j - kv); i < j; i++) {
+                    vector[i] -= data[(colJ + kv + i) - j] * value;
+                }
+            }
+        }
+    }
+
+    private final boolean myPositiveDefinite;
+
+    /**
+     * @param positiveDefinite If true the body is assumed to be symmetric positive definite and (only the lower
+     *        part of the band is used with) Cholesky rather than LU.
+     */
+    public BandedSolver(final boolean positiveDefinite) {
+        super();
+        myPositiveDefinite = positiveDefinite;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return PrimitiveDenseStore.FACTORY.makeZero(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final int dim = (int) body.countRows();
+        if (dim != body.countColumns()) {
+            throw new IllegalArgumentException("The body must be square!");
+        }
+
+        int lower = 0;
+        int upper = 0;
+        if (body instanceof BandedStore<?>) {
+            lower = ((BandedStore<?>) body).getLowerBandwidth();
+            upper = ((BandedStore<?>) body).getUpperBandwidth();
+        } else {
+            for (int j = 0; j < dim; j++) {
+                for (int i = 0; i < dim; i++) {
+                    if (body.doubleValue(i, j) != ZERO) {
+                        lower = Math.max(lower, i - j);
+                        upper = Math.max(upper, j - i);
+                    }
+                }
+            }
+        }
+
+        final double[] vector = new double[dim];
+        final int numberOfSolutions = (int) rhs.countColumns();
+
+        if (myPositiveDefinite) {
+
+            final int bandRows = Math.max(lower, upper) + 1;
+            final double[] data = new double[bandRows * dim];
+
+            for (int j = 0; j < dim; j++) {
+                for (int i = j, limit = Math.min(dim, j + bandRows); i < limit; i++) {
+                    data[(i - j) + (j * bandRows)] = body.doubleValue(i, j);
+                }
+            }
+
+            BandedSolver.factorCholesky(data, dim, bandRows);
+
+            for (int s = 0; s < numberOfSolutions; s++) {
+                for (int i = 0; i < dim; i++) {
+                    vector[i] = rhs.doubleValue(i, s);
+                }
+                BandedSolver.substituteCholesky(data, dim, bandRows, vector);
+                for (int i = 0; i < dim; i++) {
+                    preallocated.set(i, s, vector[i]);
+                }
+            }
+
+        } else {
+
+            // Room for lower additional super-diagonals of fill-in from the row interchanges
+            final int kv = upper + lower;
+            final int bandRows = kv + lower + 1;
+            final double[] data = new double[bandRows * dim];
+            final int[] pivots = new int[dim];
+
+            for (int j = 0; j < dim; j++) {
+                for (int i = Math.max(0, j - upper), limit = Math.min(dim, j + lower + 1); i < limit; i++) {
+                    data[((kv + i) - j) + (j * bandRows)] = body.doubleValue(i, j);
+                }
+            }
+
+            BandedSolver.factorLU(data, dim, bandRows, lower, upper, pivots);
+
+            for (int s = 0; s < numberOfSolutions; s++) {
+                for (int i = 0; i < dim; i++) {
+                    vector[i] = rhs.doubleValue(i, s);
+                }
+                BandedSolver.substituteLU(data, dim, bandRows, lower, upper, pivots, vector);
+                for (int i = 0; i < dim; i++) {
+                    preallocated.set(i, s, vector[i]);
+                }
+            }
+        }
+
+        return preallocated;
+    }
+
+}
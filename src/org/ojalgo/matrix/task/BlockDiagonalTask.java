@@ -0,0 +1,228 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.decomposition.Eigenvalue;
+import org.ojalgo.matrix.store.BlockDiagonalStore;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Solves, inverts, calculates the determinant and/or the eigenvalues of a {@link BlockDiagonalStore} one
+ * (square) block at the time, with the blocks processed in parallel. The cost scales with the sum of the
+ * cubed block sizes rather than with the cubed total size. Matrices that are not {@link BlockDiagonalStore}
+ * instances are treated as consisting of one single block.
+ *
+ * @author apete
+ */
+public final class BlockDiagonalTask implements SolverTask<Double>, InverterTask<Double>, DeterminantTask<Double> {
+
+    @FunctionalInterface
+    interface BlockOperation {
+
+        void execute(int block, MatrixStore<Double> body, int rowOffset, int columnOffset) throws RecoverableCondition;
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BlockDiagonalStore<Double> blocks(final Access2D<?> matrix) {
+        if (matrix instanceof BlockDiagonalStore<?>) {
+            return (BlockDiagonalStore<Double>) matrix;
+        } else {
+            return BlockDiagonalStore.of(MatrixStore.PRIMITIVE.makeWrapper(matrix).get());
+        }
+    }
+
+    private static void execute(final BlockDiagonalStore<Double> matrix, final BlockOperation operation) throws RecoverableCondition {
+
+        final RecoverableCondition[] failure = new RecoverableCondition[1];
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int b = first; b < limit; b++) {
+                    try {
+                        operation.execute(b, matrix.getBlock(b), matrix.getRowOffset(b), matrix.getColumnOffset(b));
+                    } catch (final RecoverableCondition cause) {
+                        failure[0] = cause;
+                    }
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, matrix.countBlocks(), 1);
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private final boolean myPositiveDefinite;
+    private final boolean mySymmetric;
+
+    public BlockDiagonalTask(final boolean symmetric, final boolean positiveDefinite) {
+        super();
+        mySymmetric = symmetric;
+        myPositiveDefinite = positiveDefinite;
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+
+        final BlockDiagonalStore<Double> blocks = BlockDiagonalTask.blocks(matrix);
+
+        final double[] determinants = new double[blocks.countBlocks()];
+
+        try {
+            BlockDiagonalTask.execute(blocks, (block, body, rowOffset, columnOffset) -> {
+                determinants[block] = DeterminantTask.PRIMITIVE.make(body, mySymmetric, myPositiveDefinite).calculateDeterminant(body);
+            });
+        } catch (final RecoverableCondition cause) {
+            return NaN;
+        }
+
+        double retVal = ONE;
+        for (int b = 0; b < determinants.length; b++) {
+            retVal *= determinants[b];
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The eigenvalues of each of the blocks, in block order.
+     */
+    public Array1D<ComplexNumber> calculateEigenvalues(final Access2D<?> matrix) {
+
+        final BlockDiagonalStore<Double> blocks = BlockDiagonalTask.blocks(matrix);
+
+        final Array1D<ComplexNumber> retVal = Array1D.COMPLEX.makeZero(blocks.countRows());
+
+        try {
+            BlockDiagonalTask.execute(blocks, (block, body, rowOffset, columnOffset) -> {
+                final Eigenvalue<Double> evd = Eigenvalue.PRIMITIVE.make(body, mySymmetric);
+                if (!evd.decompose(body)) {
+                    throw RecoverableCondition.newDecompositionFailed();
+                }
+                final Array1D<ComplexNumber> values = evd.getEigenvalues();
+                for (int i = 0, limit = (int) values.count(); i < limit; i++) {
+                    retVal.set(rowOffset + i, values.get(i));
+                }
+            });
+        } catch (final RecoverableCondition cause) {
+            retVal.fillAll(ComplexNumber.NaN);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return The eigenvectors of each of the blocks as a block diagonal matrix, with columns matching the
+     *         order of {@link #calculateEigenvalues(Access2D)}.
+     */
+    public BlockDiagonalStore<ComplexNumber> calculateEigenvectors(final Access2D<?> matrix) throws RecoverableCondition {
+
+        final BlockDiagonalStore<Double> blocks = BlockDiagonalTask.blocks(matrix);
+
+        final List<MatrixStore<ComplexNumber>> vectors = new ArrayList<>(Collections.nCopies(blocks.countBlocks(), null));
+
+        BlockDiagonalTask.execute(blocks, (block, body, rowOffset, columnOffset) -> {
+            final Eigenvalue<Double> evd = Eigenvalue.PRIMITIVE.make(body, mySymmetric);
+            if (!evd.decompose(body)) {
+                throw RecoverableCondition.newDecompositionFailed();
+            }
+            vectors.set(block, evd.getEigenvectors());
+        });
+
+        return BlockDiagonalStore.of(vectors);
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final BlockDiagonalStore<Double> blocks = BlockDiagonalTask.blocks(original);
+
+        preallocated.fillAll(ZERO);
+
+        BlockDiagonalTask.execute(blocks, (block, body, rowOffset, columnOffset) -> {
+            final MatrixStore<Double> inverse = InverterTask.PRIMITIVE.make(body, mySymmetric, myPositiveDefinite).invert(body);
+            for (int j = 0, limit = (int) inverse.countColumns(); j < limit; j++) {
+                for (int i = 0, structure = (int) inverse.countRows(); i < structure; i++) {
+                    // Transposed offsets, the inverse of an [m x n] block is [n x m]
+                    preallocated.set(columnOffset + i, rowOffset + j, inverse.doubleValue(i, j));
+                }
+            }
+        });
+
+        return preallocated;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return PrimitiveDenseStore.FACTORY.makeZero(template.countColumns(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return PrimitiveDenseStore.FACTORY.makeZero(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final BlockDiagonalStore<Double> blocks = BlockDiagonalTask.blocks(body);
+
+        final int numberOfSolutions = (int) rhs.countColumns();
+
+        BlockDiagonalTask.execute(blocks, (block, blockBody, rowOffset, columnOffset) -> {
+
+            final int numberOfEquations = (int) blockBody.countRows();
+
+            final PrimitiveDenseStore blockRHS = PrimitiveDenseStore.FACTORY.makeZero(numberOfEquations, numberOfSolutions);
+            for (int j = 0; j < numberOfSolutions; j++) {
+                for (int i = 0; i < numberOfEquations; i++) {
+                    blockRHS.set(i, j, rhs.doubleValue(rowOffset + i, j));
+                }
+            }
+
+            final MatrixStore<Double> solution = SolverTask.PRIMITIVE.make(blockBody, blockRHS, mySymmetric, myPositiveDefinite).solve(blockBody, blockRHS);
+
+            for (int j = 0; j < numberOfSolutions; j++) {
+                for (int i = 0, limit = (int) solution.countRows(); i < limit; i++) {
+                    preallocated.set(columnOffset + i, j, solution.doubleValue(i, j));
+                }
+            }
+        });
+
+        return preallocated;
+    }
+
+}
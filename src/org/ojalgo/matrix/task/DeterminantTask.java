@@ -24,6 +24,7 @@ package org.ojalgo.matrix.task;
 import org.ojalgo.matrix.MatrixUtils;
 import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.BlockDiagonalStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
@@ -76,6 +77,9 @@ public interface DeterminantTask<N extends Number> extends MatrixTask<N> {
 
         @Override
         public DeterminantTask<Double> make(final Structure2D template, final boolean symmetric, final boolean positiveDefinite) {
+            if (template instanceof BlockDiagonalStore<?>) {
+                return new BlockDiagonalTask(symmetric, positiveDefinite);
+            }
             final long tmpDim = template.countRows();
             if (tmpDim == 1L) {
                 return AbstractDeterminator.FULL_1X1;
@@ -27,6 +27,7 @@ import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.LU;
 import org.ojalgo.matrix.decomposition.QR;
 import org.ojalgo.matrix.decomposition.SingularValue;
+import org.ojalgo.matrix.store.BlockDiagonalStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.scalar.ComplexNumber;
@@ -85,6 +86,10 @@ public interface InverterTask<N extends Number> extends MatrixTask<N> {
         @Override
         public InverterTask<Double> make(final Structure2D template, final boolean symmetric, final boolean positiveDefinite) {
 
+            if (template instanceof BlockDiagonalStore<?>) {
+                return new BlockDiagonalTask(symmetric, positiveDefinite);
+            }
+
             final long tmpDim = template.countRows();
 
             if (symmetric) {
@@ -0,0 +1,369 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.Primitive32Array;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Mixed precision iterative refinement. The body is factored (LU with partial pivoting, or Cholesky if
+ * specified as positive definite) in single precision, stored in a {@link Primitive32Array}. The solution is
+ * then refined using residuals calculated in double precision. If the single precision factorisation fails,
+ * or the refinement does not converge, the solver falls back to a full double precision {@link LU} or
+ * {@link Cholesky} solve.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Iterative_refinement">Iterative refinement</a>
+ * @author apete
+ */
+public final class MixedPrecisionSolver implements SolverTask<Double> {
+
+    /**
+     * Non-square systems are delegated to {@link SolverTask#PRIMITIVE}.
+     */
+    public static final SolverTask.Factory<Double> FACTORY = new SolverTask.Factory<Double>() {
+
+        @Override
+        public SolverTask<Double> make(final Structure2D templateBody, final Structure2D templateRHS, final boolean symmetric,
+                final boolean positiveDefinite) {
+            if (templateBody.isSquare()) {
+                return new MixedPrecisionSolver(symmetric && positiveDefinite);
+            } else {
+                return SolverTask.PRIMITIVE.make(templateBody, templateRHS, symmetric, positiveDefinite);
+            }
+        }
+
+    };
+
+    /**
+     * Same as LAPACK's DSGESV/DSPOSV
+     */
+    private static final int ITERATIONS_LIMIT = 30;
+
+    private static void copy(final Access2D<?> body, final float[] data, final int dim) {
+        for (int j = 0; j < dim; j++) {
+            final int base = j * dim;
+            for (int i = 0; i < dim; i++) {
+                data[base + i] = (float) body.doubleValue(i, j);
+            }
+        }
+    }
+
+    /**
+     * Right-looking (outer product) Cholesky in single precision, column major and lower triangular.
+     */
+    private static boolean factorCholesky(final float[] data, final int dim) {
+
+        for (int j = 0; j < dim; j++) {
+
+            final int colJ = j * dim;
+
+            float diagonal = data[colJ + j];
+            if (!(diagonal > 0F) || Float.isInfinite(diagonal)) {
+                return false;
+            }
+            diagonal = (float) Math.sqrt(diagonal);
+            data[colJ + j] = diagonal;
+
+            for (int i = j + 1; i < dim; i++) {
+                data[colJ + i] /= diagonal;
+            }
+
+            for (int k = j + 1; k < dim; k++) {
+                final float multiplier = data[colJ + k];
+                if (multiplier != 0F) {
+                    final int colK = k * dim;
+                    for (int i = k; i < dim; i++) {
+                        data[colK + i] -= data[colJ + i] * multiplier;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Right-looking LU with partial pivoting in single precision, column major.
+     */
+    private static boolean factorLU(final float[] data, final int dim, final int[] order) {
+
+        for (int i = 0; i < dim; i++) {
+            order[i] = i;
+        }
+
+        for (int k = 0; k < dim; k++) {
+
+            final int colK = k * dim;
+
+            int p = k;
+            float largest = Math.abs(data[colK + k]);
+            for (int i = k + 1; i < dim; i++) {
+                final float candidate = Math.abs(data[colK + i]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    p = i;
+                }
+            }
+
+            if (!(largest > 0F) || Float.isInfinite(largest)) {
+                return false;
+            }
+
+            if (p != k) {
+                for (int j = 0; j < dim; j++) {
+                    final int colJ = j * dim;
+                    final float tmp = data[colJ + k];
+                    data[colJ + k] = data[colJ + p];
+                    data[colJ + p] = tmp;
+                }
+                final int tmp = order[k];
+                order[k] = order[p];
+                order[p] = tmp;
+            }
+
+            final float pivot = data[colK + k];
+            for (int i = k + 1; i < dim; i++) {
+                data[colK + i] /= pivot;
+            }
+
+            for (int j = k + 1; j < dim; j++) {
+                final int colJ = j * dim;
+                final float multiplier = data[colJ + k];
+                if (multiplier != 0F) {
+                    for (int i = k + 1; i < dim; i++) {
+                        data[colJ + i] -= data[colK + i] * multiplier;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static void substituteCholesky(final float[] data, final int dim, final float[] vector) {
+
+        for (int j = 0; j < dim; j++) {
+            final int colJ = j * dim;
+            final float value = vector[j] /= data[colJ + j];
+            for (int i = j + 1; i < dim; i++) {
+                vector[i] -= data[colJ + i] * value;
+            }
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            final int colJ = j * dim;
+            float value = vector[j];
+            for (int i = j + 1; i < dim; i++) {
+                value -= data[colJ + i] * vector[i];
+            }
+            vector[j] = value / data[colJ + j];
+        }
+    }
+
+    private static void substituteLU(final float[] data, final int dim, final float[] vector) {
+
+        for (int j = 0; j < dim; j++) {
+            final int colJ = j * dim;
+            final float value = vector[j];
+            for (int i = j + 1; i < dim; i++) {
+                vector[i] -= data[colJ + i] * value;
+            }
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            final int colJ = j * dim;
+            final float value = vector[j] /= data[colJ + j];
+            for (int i = 0; i < j; i++) {
+                vector[i] -= data[colJ + i] * value;
+            }
+        }
+    }
+
+    private int myIterations = 0;
+    private final boolean myPositiveDefinite;
+    private Primitive32Array myFactors = null;
+    private int[] myPivotOrder = null;
+
+    /**
+     * @param positiveDefinite If true the body is assumed to be symmetric positive definite and Cholesky is
+     *        used rather than LU.
+     */
+    public MixedPrecisionSolver(final boolean positiveDefinite) {
+        super();
+        myPositiveDefinite = positiveDefinite;
+    }
+
+    /**
+     * @return The total number of refinement iterations performed by the latest call to solve, or -1 if that
+     *         call had to fall back to a double precision factorisation.
+     */
+    public int getIterations() {
+        return myIterations;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return PrimitiveDenseStore.FACTORY.makeZero(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final int dim = (int) body.countRows();
+        if (dim != body.countColumns()) {
+            throw new IllegalArgumentException("The body must be square!");
+        }
+
+        final float[] factors = this.factors(dim);
+        MixedPrecisionSolver.copy(body, factors, dim);
+
+        final boolean factored = myPositiveDefinite ? MixedPrecisionSolver.factorCholesky(factors, dim)
+                : MixedPrecisionSolver.factorLU(factors, dim, myPivotOrder);
+
+        if (!factored) {
+            return this.fallback(body, rhs, preallocated);
+        }
+
+        double normBody = ZERO;
+        for (int i = 0; i < dim; i++) {
+            double rowSum = ZERO;
+            for (int j = 0; j < dim; j++) {
+                rowSum += Math.abs(body.doubleValue(i, j));
+            }
+            normBody = Math.max(normBody, rowSum);
+        }
+        final double tolerance = Math.sqrt(dim) * MACHINE_EPSILON * normBody;
+
+        final double[] solution = new double[dim];
+        final double[] residual = new double[dim];
+        final float[] correction = new float[dim];
+
+        myIterations = 0;
+
+        for (int s = 0, limit = (int) rhs.countColumns(); s < limit; s++) {
+
+            for (int i = 0; i < dim; i++) {
+                solution[i] = ZERO;
+                residual[i] = rhs.doubleValue(i, s);
+            }
+
+            boolean converged = false;
+
+            for (int iter = 0; !converged && (iter < ITERATIONS_LIMIT); iter++) {
+
+                double scale = ZERO;
+                for (int i = 0; i < dim; i++) {
+                    scale = Math.max(scale, Math.abs(residual[i]));
+                }
+                if (scale == ZERO) {
+                    converged = true;
+                    break;
+                }
+
+                if (myPositiveDefinite) {
+                    for (int i = 0; i < dim; i++) {
+                        correction[i] = (float) (residual[i] / scale);
+                    }
+                    MixedPrecisionSolver.substituteCholesky(factors, dim, correction);
+                } else {
+                    for (int i = 0; i < dim; i++) {
+                        correction[i] = (float) (residual[myPivotOrder[i]] / scale);
+                    }
+                    MixedPrecisionSolver.substituteLU(factors, dim, correction);
+                }
+
+                double normSolution = ZERO;
+                for (int i = 0; i < dim; i++) {
+                    solution[i] += scale * correction[i];
+                    normSolution = Math.max(normSolution, Math.abs(solution[i]));
+                }
+
+                double normResidual = ZERO;
+                for (int i = 0; i < dim; i++) {
+                    residual[i] = rhs.doubleValue(i, s);
+                }
+                for (int j = 0; j < dim; j++) {
+                    final double value = solution[j];
+                    if (value != ZERO) {
+                        for (int i = 0; i < dim; i++) {
+                            residual[i] -= body.doubleValue(i, j) * value;
+                        }
+                    }
+                }
+                for (int i = 0; i < dim; i++) {
+                    normResidual = Math.max(normResidual, Math.abs(residual[i]));
+                }
+
+                if (Double.isNaN(normResidual) || Double.isInfinite(normResidual)) {
+                    break;
+                }
+
+                myIterations++;
+
+                converged = normResidual <= (tolerance * normSolution);
+            }
+
+            if (!converged) {
+                return this.fallback(body, rhs, preallocated);
+            }
+
+            for (int i = 0; i < dim; i++) {
+                preallocated.set(i, s, solution[i]);
+            }
+        }
+
+        return preallocated;
+    }
+
+    private float[] factors(final int dim) {
+        final int size = dim * dim;
+        if ((myFactors == null) || (myFactors.count() != size)) {
+            myFactors = Primitive32Array.make(size);
+            myPivotOrder = new int[dim];
+        }
+        return myFactors.data;
+    }
+
+    private MatrixStore<Double> fallback(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        myIterations = -1;
+
+        final MatrixStore<Double> wrappedBody = MatrixStore.PRIMITIVE.makeWrapper(body).get();
+
+        if (myPositiveDefinite) {
+            final Cholesky<Double> cholesky = Cholesky.PRIMITIVE.make(wrappedBody);
+            if (cholesky.decompose(wrappedBody) && cholesky.isSolvable()) {
+                return cholesky.getSolution(MatrixStore.PRIMITIVE.makeWrapper(rhs).get(), preallocated);
+            }
+        }
+
+        return LU.PRIMITIVE.make(wrappedBody).solve(body, rhs, preallocated);
+    }
+
+}
@@ -27,6 +27,8 @@ import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.LU;
 import org.ojalgo.matrix.decomposition.QR;
 import org.ojalgo.matrix.decomposition.SingularValue;
+import org.ojalgo.matrix.store.BandedStore;
+import org.ojalgo.matrix.store.BlockDiagonalStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.scalar.ComplexNumber;
@@ -104,6 +106,14 @@ public interface SolverTask<N extends Number> extends MatrixTask<N> {
 
             final long tmpColDim = templateBody.countColumns();
 
+            if ((templateBody instanceof BandedStore<?>) && templateBody.isSquare()) {
+                return new BandedSolver(symmetric && positiveDefinite);
+            }
+
+            if (templateBody instanceof BlockDiagonalStore<?>) {
+                return new BlockDiagonalTask(symmetric, positiveDefinite);
+            }
+
             if (templateBody.isSquare()) {
 
                 if (symmetric) {
@@ -0,0 +1,368 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A smoothed aggregation algebraic multigrid hierarchy, and the V-cycle using it. Each level is a
+ * {@link List} of {@link Equation}:s, same as everywhere else in this package, and the smoother is
+ * (symmetric) Gauss-Seidel using {@link Equation#adjust(PhysicalStore, double, double)}.
+ * <ol>
+ * <li>Aggregate strongly connected nodes: j is strongly connected to i if |a<sub>ij</sub>| &ge; θ
+ * sqrt(|a<sub>ii</sub>a<sub>jj</sub>|)</li>
+ * <li>Smooth the piecewise constant tentative prolongator: P = (I - ω D<sup>-1</sup>A) P<sub>0</sub>, with
+ * ω = 4/(3ρ) and ρ estimated by Gershgorin's bound</li>
+ * <li>Galerkin coarse operator: A<sub>c</sub> = P<sup>T</sup>AP</li>
+ * </ol>
+ * The coarsest level is solved with a dense LU decomposition.
+ *
+ * @see <a href="https://doi.org/10.1007/BF02238511">Vaněk, Mandel, Brezina (1996)</a>
+ * @author apete
+ */
+final class AlgebraicMultigrid {
+
+    static final class Level {
+
+        final List<Equation> equations;
+        /**
+         * Only the finer levels have a prolongator - a row per node (at this level)
+         */
+        final Equation[] prolongator;
+        final PrimitiveDenseStore residual;
+        final PrimitiveDenseStore rhs;
+        final int size;
+        final PrimitiveDenseStore solution;
+
+        Level(final List<Equation> equations, final int size, final Equation[] prolongator) {
+            super();
+            this.equations = equations;
+            this.size = size;
+            this.prolongator = prolongator;
+            rhs = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+            solution = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+            residual = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+        }
+
+    }
+
+    /**
+     * Never factor a coarsest level larger than this - smooth it instead
+     */
+    private static final int DIRECT_LIMIT = 1000;
+    private static final int MAX_LEVELS = 20;
+    /**
+     * Stop coarsening when the number of nodes is at most this
+     */
+    private static final int MIN_COARSE = 64;
+    private static final int SMOOTHING_SWEEPS = 1;
+    private static final double STRENGTH = 0.08;
+
+    static int[] aggregate(final List<Equation> equations, final int size, final double theta) {
+
+        final double[] diagonal = new double[size];
+        final boolean[] hasRow = new boolean[size];
+        for (final Equation equation : equations) {
+            diagonal[equation.index] = Math.abs(equation.getPivot());
+            hasRow[equation.index] = true;
+        }
+
+        final int[][] strong = new int[size][];
+        final int[] buffer = new int[size];
+        for (final Equation equation : equations) {
+            final int i = equation.index;
+            int count = 0;
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int j = (int) element.index();
+                if ((j != i) && hasRow[j] && (Math.abs(element.doubleValue()) >= (theta * Math.sqrt(diagonal[i] * diagonal[j])))) {
+                    buffer[count++] = j;
+                }
+            }
+            final int[] neighbours = new int[count];
+            System.arraycopy(buffer, 0, neighbours, 0, count);
+            strong[i] = neighbours;
+        }
+
+        final int[] retVal = new int[size];
+        Arrays.fill(retVal, -1);
+        int numberOfAggregates = 0;
+
+        // 1) Nodes with a completely unaggregated neighbourhood start new aggregates
+        for (int i = 0; i < size; i++) {
+            if (hasRow[i] && (retVal[i] < 0)) {
+                boolean free = true;
+                for (final int j : strong[i]) {
+                    free &= retVal[j] < 0;
+                }
+                if (free) {
+                    retVal[i] = numberOfAggregates;
+                    for (final int j : strong[i]) {
+                        retVal[j] = numberOfAggregates;
+                    }
+                    numberOfAggregates++;
+                }
+            }
+        }
+
+        // 2) Remaining nodes join a neighbouring aggregate from step 1
+        final int[] first = retVal.clone();
+        for (int i = 0; i < size; i++) {
+            if (hasRow[i] && (retVal[i] < 0)) {
+                for (final int j : strong[i]) {
+                    if (first[j] >= 0) {
+                        retVal[i] = first[j];
+                        break;
+                    }
+                }
+            }
+        }
+
+        // 3) Whatever is left forms new aggregates with its unaggregated neighbours
+        for (int i = 0; i < size; i++) {
+            if (hasRow[i] && (retVal[i] < 0)) {
+                retVal[i] = numberOfAggregates;
+                for (final int j : strong[i]) {
+                    if (retVal[j] < 0) {
+                        retVal[j] = numberOfAggregates;
+                    }
+                }
+                numberOfAggregates++;
+            }
+        }
+
+        return retVal;
+    }
+
+    private static List<Equation> coarsen(final List<Equation> equations, final Equation[] prolongator, final int coarseSize) {
+
+        final Equation[] coarse = new Equation[coarseSize];
+        for (int c = 0; c < coarseSize; c++) {
+            coarse[c] = new Equation(c, coarseSize, ZERO);
+        }
+
+        // A_c = P^T (A P), one row of A P at the time
+        for (final Equation equation : equations) {
+
+            final Equation productRow = new Equation(equation.index, coarseSize, ZERO);
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final double a = element.doubleValue();
+                for (final NonzeroView<Double> p : prolongator[(int) element.index()].nonzeros()) {
+                    productRow.add(p.index(), a * p.doubleValue());
+                }
+            }
+
+            for (final NonzeroView<Double> p : prolongator[equation.index].nonzeros()) {
+                final Equation target = coarse[(int) p.index()];
+                final double weight = p.doubleValue();
+                for (final NonzeroView<Double> element : productRow.nonzeros()) {
+                    target.add(element.index(), weight * element.doubleValue());
+                }
+            }
+        }
+
+        final List<Equation> retVal = new ArrayList<>(coarseSize);
+        for (int c = 0; c < coarseSize; c++) {
+            retVal.add(coarse[c]);
+        }
+        return retVal;
+    }
+
+    private static Equation[] prolongator(final List<Equation> equations, final int size, final int[] aggregates, final int coarseSize) {
+
+        double spectralRadius = ZERO;
+        for (final Equation equation : equations) {
+            double sum = ZERO;
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                sum += Math.abs(element.doubleValue());
+            }
+            spectralRadius = Math.max(spectralRadius, sum / Math.abs(equation.getPivot()));
+        }
+        final double omega = (FOUR / THREE) / spectralRadius;
+
+        final Equation[] retVal = new Equation[size];
+        for (int i = 0; i < size; i++) {
+            retVal[i] = new Equation(i, coarseSize, ZERO);
+        }
+
+        for (final Equation equation : equations) {
+            final int i = equation.index;
+            final Equation row = retVal[i];
+            row.add(aggregates[i], ONE);
+            final double scale = omega / equation.getPivot();
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int k = (int) element.index();
+                if (aggregates[k] >= 0) {
+                    row.add(aggregates[k], -scale * element.doubleValue());
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private final List<Level> myLevels = new ArrayList<>();
+    private final LU<Double> myCoarsestLU;
+    private final double myRelaxation;
+
+    AlgebraicMultigrid(final List<Equation> equations, final int size, final double relaxation) {
+
+        super();
+
+        myRelaxation = relaxation;
+
+        List<Equation> tmpEquations = equations;
+        int tmpSize = size;
+        double tmpTheta = STRENGTH;
+
+        while ((tmpSize > MIN_COARSE) && (myLevels.size() < (MAX_LEVELS - 1))) {
+
+            final int[] tmpAggregates = AlgebraicMultigrid.aggregate(tmpEquations, tmpSize, tmpTheta);
+            int tmpCoarseSize = 0;
+            for (int i = 0; i < tmpSize; i++) {
+                tmpCoarseSize = Math.max(tmpCoarseSize, tmpAggregates[i] + 1);
+            }
+
+            if ((tmpCoarseSize == 0) || (tmpCoarseSize > (0.9 * tmpSize))) {
+                break; // Coarsening stalled
+            }
+
+            final Equation[] tmpProlongator = AlgebraicMultigrid.prolongator(tmpEquations, tmpSize, tmpAggregates, tmpCoarseSize);
+            myLevels.add(new Level(tmpEquations, tmpSize, tmpProlongator));
+
+            tmpEquations = AlgebraicMultigrid.coarsen(tmpEquations, tmpProlongator, tmpCoarseSize);
+            tmpSize = tmpCoarseSize;
+            tmpTheta /= TWO;
+        }
+
+        myLevels.add(new Level(tmpEquations, tmpSize, null));
+
+        LU<Double> tmpLU = null;
+        if (tmpSize <= DIRECT_LIMIT) {
+            final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.makeEye(tmpSize, tmpSize);
+            for (final Equation equation : tmpEquations) {
+                tmpBody.set(equation.index, equation.index, ZERO);
+                for (final NonzeroView<Double> element : equation.nonzeros()) {
+                    tmpBody.set(equation.index, element.index(), element.doubleValue());
+                }
+            }
+            tmpLU = LU.PRIMITIVE.make(tmpBody);
+            if (!tmpLU.decompose(tmpBody) || !tmpLU.isSolvable()) {
+                tmpLU = null;
+            }
+        }
+        myCoarsestLU = tmpLU;
+    }
+
+    int countLevels() {
+        return myLevels.size();
+    }
+
+    /**
+     * One V-cycle for [A]x = b, updating x
+     */
+    void cycle(final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+        this.cycle(0, rhs, solution);
+    }
+
+    private void cycle(final int level, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final Level tmpLevel = myLevels.get(level);
+        final List<Equation> tmpEquations = tmpLevel.equations;
+        final int tmpCount = tmpEquations.size();
+
+        if (tmpLevel.prolongator == null) {
+
+            if (myCoarsestLU != null) {
+                solution.fillMatching(myCoarsestLU.getSolution(PrimitiveDenseStore.FACTORY.columns(rhs)));
+            } else {
+                for (int s = 0; s < (10 * SMOOTHING_SWEEPS); s++) {
+                    this.smooth(tmpEquations, rhs, solution, s % 2 == 1);
+                }
+            }
+
+            return;
+        }
+
+        for (int s = 0; s < SMOOTHING_SWEEPS; s++) {
+            this.smooth(tmpEquations, rhs, solution, false);
+        }
+
+        final PrimitiveDenseStore tmpResidual = tmpLevel.residual;
+        tmpResidual.fillAll(ZERO);
+        for (int r = 0; r < tmpCount; r++) {
+            final Equation tmpRow = tmpEquations.get(r);
+            tmpResidual.set(tmpRow.index, rhs.doubleValue(tmpRow.index) - tmpRow.dot(solution));
+        }
+
+        final Level tmpCoarse = myLevels.get(level + 1);
+        final PrimitiveDenseStore tmpCoarseRHS = tmpCoarse.rhs;
+        final PrimitiveDenseStore tmpCoarseSolution = tmpCoarse.solution;
+        tmpCoarseRHS.fillAll(ZERO);
+        tmpCoarseSolution.fillAll(ZERO);
+
+        final Equation[] tmpProlongator = tmpLevel.prolongator;
+        for (int i = 0; i < tmpLevel.size; i++) {
+            final double tmpValue = tmpResidual.doubleValue(i);
+            if (tmpValue != ZERO) {
+                for (final NonzeroView<Double> p : tmpProlongator[i].nonzeros()) {
+                    tmpCoarseRHS.add(p.index(), p.doubleValue() * tmpValue);
+                }
+            }
+        }
+
+        this.cycle(level + 1, tmpCoarseRHS, tmpCoarseSolution);
+
+        for (int i = 0; i < tmpLevel.size; i++) {
+            solution.add(i, tmpProlongator[i].dot(tmpCoarseSolution));
+        }
+
+        for (int s = 0; s < SMOOTHING_SWEEPS; s++) {
+            this.smooth(tmpEquations, rhs, solution, true);
+        }
+    }
+
+    private void smooth(final List<Equation> equations, final Access1D<?> rhs, final PhysicalStore<Double> solution, final boolean backwards) {
+        final int tmpCount = equations.size();
+        if (backwards) {
+            for (int r = tmpCount - 1; r >= 0; r--) {
+                final Equation tmpRow = equations.get(r);
+                tmpRow.adjust(solution, rhs.doubleValue(tmpRow.index), myRelaxation);
+            }
+        } else {
+            for (int r = 0; r < tmpCount; r++) {
+                final Equation tmpRow = equations.get(r);
+                tmpRow.adjust(solution, rhs.doubleValue(tmpRow.index), myRelaxation);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Repeated {@link AlgebraicMultigrid} V-cycles (smoothed aggregation) for symmetric positive definite sparse
+ * systems. The relaxation factor is used by the Gauss-Seidel smoother. To use multigrid as a preconditioner
+ * for {@link ConjugateGradientSolver} instead, configure it with {@link Preconditioner#newAlgebraicMultigrid()}.
+ *
+ * @author apete
+ */
+public final class AlgebraicMultigridSolver extends StationaryIterativeSolver implements IterativeSolverTask.SparseDelegate {
+
+    public AlgebraicMultigridSolver() {
+        super();
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.count();
+        final int tmpCountRows = equations.size();
+
+        final AlgebraicMultigrid tmpHierarchy = new AlgebraicMultigrid(equations, tmpSize, this.getRelaxationFactor());
+
+        final PrimitiveDenseStore tmpRHS = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        double tmpNormRHS = ZERO;
+        for (int r = 0; r < tmpCountRows; r++) {
+            final Equation tmpRow = equations.get(r);
+            tmpRHS.set(tmpRow.index, tmpRow.getRHS());
+            tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, tmpRow.getRHS());
+        }
+
+        double tmpNormErr = POSITIVE_INFINITY;
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        do {
+
+            tmpHierarchy.cycle(tmpRHS, solution);
+
+            tmpNormErr = ZERO;
+            for (int r = 0; r < tmpCountRows; r++) {
+                final Equation tmpRow = equations.get(r);
+                tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, tmpRow.getRHS() - tmpRow.dot(solution));
+            }
+
+            tmpIterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+
+        } while ((tmpIterations < tmpLimit) && !Double.isNaN(tmpNormErr) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr));
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) throws RecoverableCondition {
+
+        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(tmpRows, current);
+
+        return current;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Right preconditioned BiCGSTAB for general (non-symmetric) systems. Needs 2 matrix-vector multiplications
+ * and 2 preconditioner applications per iteration, but (unlike GMRES) no storage growing with the number of
+ * iterations.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method">BiCGSTAB</a>
+ * @author apete
+ */
+public final class BiCGStabSolver extends KrylovSubspaceSolver {
+
+    public BiCGStabSolver() {
+        super();
+    }
+
+    @Override
+    double iterate(final LinearOperator operator, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.count();
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+
+        final PrimitiveDenseStore tmpResidual = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpShadow = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpDirection = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpPrecDirection = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpV = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpPrecS = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpT = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+
+        final double[] r = tmpResidual.data;
+        final double[] p = tmpDirection.data;
+        final double[] v = tmpV.data;
+        final double[] t = tmpT.data;
+
+        double tmpNormRHS = KrylovSubspaceSolver.residual(operator, rhs, solution, tmpResidual);
+        if (tmpNormRHS == ZERO) {
+            tmpNormRHS = ONE;
+        }
+        double tmpNormErr = KrylovSubspaceSolver.norm(r);
+
+        tmpShadow.fillMatching(tmpResidual);
+
+        double rho0 = ONE;
+        double alpha = ONE;
+        double omega = ONE;
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        while ((tmpIterations < tmpLimit) && !Double.isNaN(tmpNormErr) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+
+            final double rho1 = tmpShadow.dot(tmpResidual);
+            if (rho1 == ZERO) {
+                // Breakdown - restart with the current residual as shadow
+                tmpShadow.fillMatching(tmpResidual);
+                tmpDirection.fillAll(ZERO);
+                tmpV.fillAll(ZERO);
+                rho0 = alpha = omega = ONE;
+                tmpIterations++;
+                continue;
+            }
+
+            final double beta = (rho1 / rho0) * (alpha / omega);
+            for (int i = 0; i < tmpSize; i++) {
+                p[i] = r[i] + (beta * (p[i] - (omega * v[i])));
+            }
+
+            tmpPreconditioner.apply(tmpDirection, tmpPrecDirection);
+            operator.apply(tmpPrecDirection, tmpV);
+
+            alpha = rho1 / tmpShadow.dot(tmpV);
+
+            // r becomes s
+            tmpV.axpy(-alpha, tmpResidual);
+            tmpPrecDirection.axpy(alpha, solution);
+
+            tmpNormErr = KrylovSubspaceSolver.norm(r);
+            tmpIterations++;
+
+            if (!tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+
+                tmpPreconditioner.apply(tmpResidual, tmpPrecS);
+                operator.apply(tmpPrecS, tmpT);
+
+                final double tt = tmpT.dot(tmpT);
+                omega = tt != ZERO ? tmpT.dot(tmpResidual) / tt : ZERO;
+
+                tmpPrecS.axpy(omega, solution);
+                tmpT.axpy(-omega, tmpResidual);
+
+                tmpNormErr = KrylovSubspaceSolver.norm(r);
+
+                if (omega == ZERO) {
+                    tmpShadow.fillMatching(tmpResidual);
+                    tmpDirection.fillAll(ZERO);
+                    tmpV.fillAll(ZERO);
+                    rho0 = alpha = omega = ONE;
+                } else {
+                    rho0 = rho1;
+                }
+            }
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+        }
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Block preconditioned conjugate gradient (O'Leary) for symmetric positive definite systems with many RHS
+ * columns. All (not yet converged) columns are iterated together, and each iteration searches the combined
+ * Krylov subspace of all columns, typically requiring fewer iterations than solving the columns one at the
+ * time. The block vectors are stored row major so that the products with the (sparse) body are
+ * matrix-matrix kernels.
+ * <p>
+ * When some columns have converged they are dropped and the iteration restarts with the remaining ones. If
+ * the block search directions become (numerically) linearly dependent the remaining columns are solved
+ * individually.
+ *
+ * @author apete
+ */
+public final class BlockConjugateGradientSolver extends KrylovSubspaceSolver {
+
+    @FunctionalInterface
+    static interface BlockOperator {
+
+        /**
+         * product = [A]x, both row major with width columns
+         */
+        void apply(double[] x, double[] product, int width);
+
+    }
+
+    /**
+     * In place Cholesky solve of the width x width SPD system with rhsWidth RHS columns (all row major)
+     */
+    static boolean solveSPD(final double[] system, final int width, final double[] rhs, final int rhsWidth) {
+
+        for (int j = 0; j < width; j++) {
+            double diagonal = system[(j * width) + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= system[(j * width) + k] * system[(j * width) + k];
+            }
+            if (!(diagonal > ZERO)) {
+                return false;
+            }
+            diagonal = Math.sqrt(diagonal);
+            system[(j * width) + j] = diagonal;
+            for (int i = j + 1; i < width; i++) {
+                double value = system[(i * width) + j];
+                for (int k = 0; k < j; k++) {
+                    value -= system[(i * width) + k] * system[(j * width) + k];
+                }
+                system[(i * width) + j] = value / diagonal;
+            }
+        }
+
+        for (int c = 0; c < rhsWidth; c++) {
+            for (int i = 0; i < width; i++) {
+                double value = rhs[(i * rhsWidth) + c];
+                for (int k = 0; k < i; k++) {
+                    value -= system[(i * width) + k] * rhs[(k * rhsWidth) + c];
+                }
+                rhs[(i * rhsWidth) + c] = value / system[(i * width) + i];
+            }
+            for (int i = width - 1; i >= 0; i--) {
+                double value = rhs[(i * rhsWidth) + c];
+                for (int k = i + 1; k < width; k++) {
+                    value -= system[(k * width) + i] * rhs[(k * rhsWidth) + c];
+                }
+                rhs[(i * rhsWidth) + c] = value / system[(i * width) + i];
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * target += sign * left * right, with left size x width and right width x width (all row major)
+     */
+    private static void multiplyAdd(final double[] target, final double[] left, final double[] right, final int size, final int width, final double sign) {
+        for (int i = 0; i < size; i++) {
+            final int row = i * width;
+            for (int k = 0; k < width; k++) {
+                final double value = sign * left[row + k];
+                if (value != ZERO) {
+                    final int rowK = k * width;
+                    for (int c = 0; c < width; c++) {
+                        target[row + c] += value * right[rowK + c];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * left<sup>T</sup>right, width x width
+     */
+    private static double[] transposeMultiply(final double[] left, final double[] right, final int size, final int width) {
+        final double[] retVal = new double[width * width];
+        for (int i = 0; i < size; i++) {
+            final int row = i * width;
+            for (int r = 0; r < width; r++) {
+                final double value = left[row + r];
+                if (value != ZERO) {
+                    for (int c = 0; c < width; c++) {
+                        retVal[(r * width) + c] += value * right[row + c];
+                    }
+                }
+            }
+        }
+        return retVal;
+    }
+
+    public BlockConjugateGradientSolver() {
+        super();
+    }
+
+    @Override
+    double iterate(final LinearOperator operator, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.count();
+
+        final PrimitiveDenseStore tmpX = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final PrimitiveDenseStore tmpProduct = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        final BlockOperator tmpOperator = (x, product, width) -> {
+            System.arraycopy(x, 0, tmpX.data, 0, tmpSize);
+            operator.apply(tmpX, tmpProduct);
+            System.arraycopy(tmpProduct.data, 0, product, 0, tmpSize);
+        };
+
+        final double[] tmpRHS = new double[tmpSize];
+        final double[] tmpSolution = new double[tmpSize];
+        for (int i = 0; i < tmpSize; i++) {
+            tmpRHS[i] = rhs.doubleValue(i);
+            tmpSolution[i] = solution.doubleValue(i);
+        }
+
+        final double retVal = this.iterate(tmpOperator, tmpRHS, tmpSolution, tmpSize, 1)[0];
+
+        for (int i = 0; i < tmpSize; i++) {
+            solution.set(i, tmpSolution[i]);
+        }
+
+        return retVal;
+    }
+
+    @Override
+    void resolve(final List<Equation> equations, final Access2D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.countRows();
+        final int tmpWidth = (int) rhs.countColumns();
+
+        this.getPreconditioner().prepare(equations, tmpSize);
+
+        final BlockOperator tmpOperator = (x, product, width) -> {
+            for (int i = 0, limit = tmpSize * width; i < limit; i++) {
+                product[i] = ZERO;
+            }
+            for (int r = 0, limit = equations.size(); r < limit; r++) {
+                final Equation tmpRow = equations.get(r);
+                final int tmpOffset = tmpRow.index * width;
+                for (final NonzeroView<Double> tmpElement : tmpRow.nonzeros()) {
+                    final double tmpValue = tmpElement.doubleValue();
+                    final int tmpOffsetX = (int) tmpElement.index() * width;
+                    for (int c = 0; c < width; c++) {
+                        product[tmpOffset + c] += tmpValue * x[tmpOffsetX + c];
+                    }
+                }
+            }
+        };
+
+        final double[] tmpRHS = new double[tmpSize * tmpWidth];
+        final double[] tmpSolution = new double[tmpSize * tmpWidth];
+        for (int i = 0; i < tmpSize; i++) {
+            for (int j = 0; j < tmpWidth; j++) {
+                tmpRHS[(i * tmpWidth) + j] = rhs.doubleValue(i, j);
+                tmpSolution[(i * tmpWidth) + j] = solution.doubleValue(i, j);
+            }
+        }
+
+        this.iterate(tmpOperator, tmpRHS, tmpSolution, tmpSize, tmpWidth);
+
+        for (int i = 0; i < tmpSize; i++) {
+            for (int j = 0; j < tmpWidth; j++) {
+                solution.set(i, j, tmpSolution[(i * tmpWidth) + j]);
+            }
+        }
+    }
+
+    /**
+     * @return The relative error per column
+     */
+    private double[] iterate(final BlockOperator operator, final double[] rhs, final double[] solution, final int size, final int width) {
+
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+        final int tmpLimit = this.getIterationsLimit();
+        int tmpIterations = 0;
+
+        final double[] tmpNormRHS = new double[width];
+        final double[] tmpNormErr = new double[width];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < width; j++) {
+                final double value = rhs[(i * width) + j];
+                tmpNormRHS[j] += value * value;
+            }
+        }
+        for (int j = 0; j < width; j++) {
+            tmpNormRHS[j] = Math.max(ONE, Math.sqrt(tmpNormRHS[j]));
+        }
+
+        final boolean[] tmpStuck = new boolean[width];
+        boolean tmpIndividually = false;
+
+        int[] tmpActive = this.active(operator, rhs, solution, size, width, tmpNormRHS, tmpNormErr, tmpStuck);
+
+        while ((tmpActive.length > 0) && (tmpIterations < tmpLimit)) {
+
+            final int k = tmpIndividually ? 1 : tmpActive.length;
+            final int[] tmpColumns = tmpIndividually ? new int[] { tmpActive[0] } : tmpActive;
+
+            final double[] tmpR = new double[size * k];
+            final double[] tmpX = new double[size * k];
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < k; c++) {
+                    tmpX[(i * k) + c] = solution[(i * width) + tmpColumns[c]];
+                }
+            }
+            operator.apply(tmpX, tmpR, k);
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < k; c++) {
+                    tmpR[(i * k) + c] = rhs[(i * width) + tmpColumns[c]] - tmpR[(i * k) + c];
+                }
+            }
+
+            final double[] tmpZ = new double[size * k];
+            this.precondition(tmpR, tmpZ, size, k);
+            final double[] tmpP = tmpZ.clone();
+            final double[] tmpQ = new double[size * k];
+
+            boolean tmpRestart = false;
+
+            while (!tmpRestart && (tmpIterations < tmpLimit)) {
+
+                operator.apply(tmpP, tmpQ, k);
+
+                final double[] tmpPtQ = BlockConjugateGradientSolver.transposeMultiply(tmpP, tmpQ, size, k);
+                final double[] tmpAlpha = BlockConjugateGradientSolver.transposeMultiply(tmpP, tmpR, size, k);
+                if (!BlockConjugateGradientSolver.solveSPD(tmpPtQ.clone(), k, tmpAlpha, k)) {
+                    tmpIndividually = k > 1;
+                    if (!tmpIndividually) {
+                        // A 1x1 breakdown means there is nothing more to gain
+                        tmpStuck[tmpColumns[0]] = true;
+                    }
+                    break;
+                }
+
+                BlockConjugateGradientSolver.multiplyAdd(tmpX, tmpP, tmpAlpha, size, k, ONE);
+                BlockConjugateGradientSolver.multiplyAdd(tmpR, tmpQ, tmpAlpha, size, k, -ONE);
+
+                tmpIterations++;
+
+                for (int c = 0; c < k; c++) {
+                    double tmpNorm = ZERO;
+                    for (int i = 0; i < size; i++) {
+                        final double value = tmpR[(i * k) + c];
+                        tmpNorm += value * value;
+                    }
+                    tmpNorm = Math.sqrt(tmpNorm);
+                    tmpNormErr[tmpColumns[c]] = tmpNorm;
+                    tmpRestart |= Double.isNaN(tmpNorm) || tmpCntxt.isSmall(tmpNormRHS[tmpColumns[c]], tmpNorm);
+                }
+
+                if (!tmpRestart) {
+
+                    this.precondition(tmpR, tmpZ, size, k);
+
+                    // β = -(PᵀAP)⁻¹(AP)ᵀZ makes the new directions A-conjugate to the previous
+                    final double[] tmpBeta = BlockConjugateGradientSolver.transposeMultiply(tmpQ, tmpZ, size, k);
+                    if (!BlockConjugateGradientSolver.solveSPD(tmpPtQ, k, tmpBeta, k)) {
+                        tmpIndividually = k > 1;
+                        tmpRestart = true;
+                    } else {
+                        final double[] tmpNewP = tmpZ.clone();
+                        BlockConjugateGradientSolver.multiplyAdd(tmpNewP, tmpP, tmpBeta, size, k, -ONE);
+                        System.arraycopy(tmpNewP, 0, tmpP, 0, tmpP.length);
+                    }
+                }
+            }
+
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < k; c++) {
+                    solution[(i * width) + tmpColumns[c]] = tmpX[(i * k) + c];
+                }
+            }
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, PrimitiveDenseStore.FACTORY.columns(tmpNormErr));
+            }
+
+            tmpActive = this.active(operator, rhs, solution, size, width, tmpNormRHS, tmpNormErr, tmpStuck);
+        }
+
+        final double[] retVal = new double[width];
+        for (int j = 0; j < width; j++) {
+            retVal[j] = tmpNormErr[j] / tmpNormRHS[j];
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The (indices of the) columns that have not yet converged
+     */
+    private int[] active(final BlockOperator operator, final double[] rhs, final double[] solution, final int size, final int width,
+            final double[] normRHS, final double[] normErr, final boolean[] stuck) {
+
+        final double[] tmpProduct = new double[size * width];
+        operator.apply(solution, tmpProduct, width);
+
+        final double[] tmpNorms = new double[width];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < width; j++) {
+                final double value = rhs[(i * width) + j] - tmpProduct[(i * width) + j];
+                tmpNorms[j] += value * value;
+            }
+        }
+
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        int count = 0;
+        final int[] tmpActive = new int[width];
+        for (int j = 0; j < width; j++) {
+            normErr[j] = Math.sqrt(tmpNorms[j]);
+            if (!stuck[j] && !Double.isNaN(normErr[j]) && !tmpCntxt.isSmall(normRHS[j], normErr[j])) {
+                tmpActive[count++] = j;
+            }
+        }
+
+        final int[] retVal = new int[count];
+        System.arraycopy(tmpActive, 0, retVal, 0, count);
+        return retVal;
+    }
+
+    private void precondition(final double[] residual, final double[] preconditioned, final int size, final int width) {
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+
+        final PrimitiveDenseStore tmpResidual = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+        final PrimitiveDenseStore tmpPreconditioned = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+
+        for (int c = 0; c < width; c++) {
+            for (int i = 0; i < size; i++) {
+                tmpResidual.data[i] = residual[(i * width) + c];
+            }
+            tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
+            for (int i = 0; i < size; i++) {
+                preconditioned[(i * width) + c] = tmpPreconditioned.data[i];
+            }
+        }
+    }
+
+}
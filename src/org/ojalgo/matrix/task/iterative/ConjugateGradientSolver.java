@@ -23,23 +23,20 @@ package org.ojalgo.matrix.task.iterative;
 
 import static org.ojalgo.constant.PrimitiveMath.*;
 
-import java.util.List;
-
-import org.ojalgo.RecoverableCondition;
 import org.ojalgo.function.PrimitiveFunction;
-import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Structure1D;
 import org.ojalgo.type.context.NumberContext;
 
 /**
- * A (Jacobi) preconditioned conjugate gradient solver.
+ * A preconditioned conjugate gradient solver. By default Jacobi preconditioning is used - set another
+ * {@link Preconditioner} using the {@link IterativeSolverTask.Configurator}.
  *
  * @author apete
  */
-public final class ConjugateGradientSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+public final class ConjugateGradientSolver extends KrylovSubspaceSolver {
 
     private transient PrimitiveDenseStore myDirection = null;
     private transient PrimitiveDenseStore myPreconditioned = null;
@@ -50,9 +47,8 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         super();
     }
 
-    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
-
-        final int tmpCountRows = equations.size();
+    @Override
+    double iterate(final LinearOperator operator, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
 
         double tmpNormErr = POSITIVE_INFINITY;
         double tmpNormRHS = ONE;
@@ -62,6 +58,8 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         final PrimitiveDenseStore tmpPreconditioned = this.preconditioned(solution);
         final PrimitiveDenseStore tmpVector = this.vector(solution);
 
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+
         double tmpStepLength;
         double tmpGradientCorrectionFactor;
 
@@ -69,14 +67,9 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         double zr1 = 1;
         double pAp0 = 0;
 
-        for (int r = 0; r < tmpCountRows; r++) {
-            final Equation tmpRow = equations.get(r);
-            double tmpVal = tmpRow.getRHS();
-            tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, tmpVal);
-            tmpVal -= tmpRow.dot(solution);
-            tmpResidual.set(tmpRow.index, tmpVal);
-            tmpPreconditioned.set(tmpRow.index, tmpVal / tmpRow.getPivot()); // precondition
-        }
+        tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, KrylovSubspaceSolver.residual(operator, rhs, solution, tmpResidual));
+
+        tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
 
         tmpDirection.fillMatching(tmpPreconditioned); // tmpPreconditioned.supplyNonZerosTo(tmpDirection);
 
@@ -91,11 +84,7 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
 
             zr0 = zr1;
 
-            for (int i = 0; i < tmpCountRows; i++) {
-                final Equation tmpRow = equations.get(i);
-                final double tmpVal = tmpRow.dot(tmpDirection);
-                tmpVector.set(tmpRow.index, tmpVal);
-            }
+            operator.apply(tmpDirection, tmpVector);
 
             // pAp0 = tmpVector.multiplyLeft(tmpDirection.transpose()).get().doubleValue(0L);
             pAp0 = tmpDirection.dot(tmpVector);
@@ -111,14 +100,9 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
                 tmpVector.axpy(-tmpStepLength, tmpResidual);
             }
 
-            tmpNormErr = ZERO;
+            tmpNormErr = KrylovSubspaceSolver.norm(tmpResidual.data);
 
-            for (int r = 0; r < tmpCountRows; r++) {
-                final Equation tmpRow = equations.get(r);
-                final double tmpValue = tmpResidual.doubleValue(tmpRow.index);
-                tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, tmpValue);
-                tmpPreconditioned.set(tmpRow.index, tmpValue / tmpRow.getPivot());
-            }
+            tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
 
             zr1 = tmpPreconditioned.dot(tmpResidual);
             tmpGradientCorrectionFactor = zr1 / zr0;
@@ -139,15 +123,6 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         return tmpNormErr / tmpNormRHS;
     }
 
-    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
-
-        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
-
-        this.resolve(tmpRows, preallocated);
-
-        return preallocated;
-    }
-
     private PrimitiveDenseStore direction(final Structure1D structure) {
         if ((myDirection == null) || (myDirection.count() != structure.count())) {
             myDirection = PrimitiveDenseStore.FACTORY.makeZero(structure.count(), 1L);
@@ -25,6 +25,7 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 
 import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.array.SparseArray;
+import org.ojalgo.array.SparseArray.NonzeroView;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Mutate1D;
@@ -78,6 +79,14 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         return this.calculate(x, myRHS, relaxation);
     }
 
+    /**
+     * Same as {@link #adjust(PhysicalStore, double)} but with a different RHS (used by the multigrid
+     * smoothers, where the RHS changes every cycle).
+     */
+    double adjust(final PhysicalStore<Double> x, final double rhs, final double relaxation) {
+        return this.calculate(x, rhs, relaxation);
+    }
+
     public int compareTo(final Equation other) {
         return Integer.compare(index, other.index);
     }
@@ -142,6 +151,11 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         this.calculate(x, ZERO, ONE);
     }
 
+    @Override
+    public NonzeroView<Double> nonzeros() {
+        return myElements.nonzeros();
+    }
+
     public void set(final long index, final double value) {
         myElements.set(index, value);
         if (index == this.index) {
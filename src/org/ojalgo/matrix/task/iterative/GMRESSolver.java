@@ -0,0 +1,176 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Restarted GMRES(m) for general (non-symmetric) systems. Uses right preconditioning, and modified
+ * Gram-Schmidt orthogonalisation with Givens rotations so that the residual norm is available every
+ * iteration without forming the solution.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Generalized_minimal_residual_method">GMRES</a>
+ * @author apete
+ */
+public final class GMRESSolver extends KrylovSubspaceSolver {
+
+    private static final int DEFAULT_RESTART = 30;
+
+    private final int myRestart;
+
+    public GMRESSolver() {
+        this(DEFAULT_RESTART);
+    }
+
+    /**
+     * @param restart The max dimension of the Krylov subspace before restarting
+     */
+    public GMRESSolver(final int restart) {
+        super();
+        myRestart = restart;
+    }
+
+    @Override
+    double iterate(final LinearOperator operator, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.count();
+        final int m = Math.max(1, Math.min(myRestart, tmpSize));
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+
+        final PrimitiveDenseStore[] tmpBasis = new PrimitiveDenseStore[m + 1];
+        for (int i = 0; i <= m; i++) {
+            tmpBasis[i] = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+        }
+        final PrimitiveDenseStore tmpPreconditioned = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+
+        final double[][] tmpHessenberg = new double[m + 1][m];
+        final double[] tmpCos = new double[m];
+        final double[] tmpSin = new double[m];
+        final double[] tmpG = new double[m + 1];
+        final double[] tmpY = new double[m];
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        double tmpNormRHS = KrylovSubspaceSolver.residual(operator, rhs, solution, tmpBasis[0]);
+        if (tmpNormRHS == ZERO) {
+            tmpNormRHS = ONE;
+        }
+        double tmpNormErr = KrylovSubspaceSolver.norm(tmpBasis[0].data);
+
+        while ((tmpIterations < tmpLimit) && !Double.isNaN(tmpNormErr) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+
+            tmpBasis[0].modifyAll(PrimitiveFunction.DIVIDE.second(tmpNormErr));
+            tmpG[0] = tmpNormErr;
+            for (int i = 1; i <= m; i++) {
+                tmpG[i] = ZERO;
+            }
+
+            int k = 0;
+
+            while ((k < m) && (tmpIterations < tmpLimit)) {
+
+                final PrimitiveDenseStore tmpW = tmpBasis[k + 1];
+
+                tmpPreconditioner.apply(tmpBasis[k], tmpPreconditioned);
+                operator.apply(tmpPreconditioned, tmpW);
+
+                for (int i = 0; i <= k; i++) {
+                    final double h = tmpW.dot(tmpBasis[i]);
+                    tmpHessenberg[i][k] = h;
+                    tmpBasis[i].axpy(-h, tmpW);
+                }
+
+                final double tmpNormW = KrylovSubspaceSolver.norm(tmpW.data);
+                tmpHessenberg[k + 1][k] = tmpNormW;
+                if (tmpNormW != ZERO) {
+                    tmpW.modifyAll(PrimitiveFunction.DIVIDE.second(tmpNormW));
+                }
+
+                for (int i = 0; i < k; i++) {
+                    final double h0 = tmpHessenberg[i][k];
+                    final double h1 = tmpHessenberg[i + 1][k];
+                    tmpHessenberg[i][k] = (tmpCos[i] * h0) + (tmpSin[i] * h1);
+                    tmpHessenberg[i + 1][k] = (tmpCos[i] * h1) - (tmpSin[i] * h0);
+                }
+
+                final double tmpHypot = Math.hypot(tmpHessenberg[k][k], tmpHessenberg[k + 1][k]);
+                if (tmpHypot == ZERO) {
+                    tmpCos[k] = ONE;
+                    tmpSin[k] = ZERO;
+                } else {
+                    tmpCos[k] = tmpHessenberg[k][k] / tmpHypot;
+                    tmpSin[k] = tmpHessenberg[k + 1][k] / tmpHypot;
+                }
+                tmpHessenberg[k][k] = tmpHypot;
+                tmpHessenberg[k + 1][k] = ZERO;
+
+                tmpG[k + 1] = -tmpSin[k] * tmpG[k];
+                tmpG[k] = tmpCos[k] * tmpG[k];
+
+                tmpNormErr = Math.abs(tmpG[k + 1]);
+
+                k++;
+                tmpIterations++;
+
+                if ((tmpNormW == ZERO) || tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+                    break;
+                }
+            }
+
+            for (int i = k - 1; i >= 0; i--) {
+                double tmpVal = tmpG[i];
+                for (int j = i + 1; j < k; j++) {
+                    tmpVal -= tmpHessenberg[i][j] * tmpY[j];
+                }
+                tmpY[i] = tmpHessenberg[i][i] != ZERO ? tmpVal / tmpHessenberg[i][i] : ZERO;
+            }
+
+            // Reuse the last basis vector (not needed any more) to accumulate the update
+            final PrimitiveDenseStore tmpUpdate = tmpBasis[m];
+            tmpUpdate.fillAll(ZERO);
+            for (int i = 0; i < k; i++) {
+                tmpBasis[i].axpy(tmpY[i], tmpUpdate);
+            }
+            tmpPreconditioner.apply(tmpUpdate, tmpPreconditioned);
+            tmpPreconditioned.axpy(ONE, solution);
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+
+            KrylovSubspaceSolver.residual(operator, rhs, solution, tmpBasis[0]);
+            tmpNormErr = KrylovSubspaceSolver.norm(tmpBasis[0].data);
+        }
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * IC(0) - Cholesky restricted to the nonzero pattern of the lower triangular part of the body. L overwrites
+ * the stored lower triangular elements (the upper part is ignored). If the factorisation breaks down (a
+ * non-positive pivot) it is restarted with the diagonal scaled by 1+α, doubling α each time, as suggested by
+ * Manteuffel.
+ *
+ * @author apete
+ */
+final class IncompleteCholeskyPreconditioner extends SparsePreconditioner {
+
+    private static final int ATTEMPTS = 32;
+    private static final double INITIAL_SHIFT = 0.001;
+
+    IncompleteCholeskyPreconditioner() {
+        super();
+    }
+
+    @Override
+    void factor() {
+
+        final double[] original = values.clone();
+
+        double shift = ZERO;
+
+        for (int a = 0; a < ATTEMPTS; a++) {
+
+            if (a > 0) {
+                System.arraycopy(original, 0, values, 0, original.length);
+                for (int i = 0; i < diagonals.length; i++) {
+                    values[diagonals[i]] *= ONE + shift;
+                }
+            }
+
+            if (this.attempt()) {
+                return;
+            }
+
+            shift = shift == ZERO ? INITIAL_SHIFT : TWO * shift;
+        }
+
+        // Give up - degenerate to (something like) Jacobi
+        System.arraycopy(original, 0, values, 0, original.length);
+        for (int i = 0; i < diagonals.length; i++) {
+            final double diagonal = Math.abs(values[diagonals[i]]);
+            values[diagonals[i]] = diagonal > ZERO ? Math.sqrt(diagonal) : ONE;
+            for (int p = pointers[i]; p < diagonals[i]; p++) {
+                values[p] = ZERO;
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        final int size = diagonals.length;
+
+        for (int i = 0; i < size; i++) {
+            double sum = vector[i];
+            for (int p = pointers[i], limit = diagonals[i]; p < limit; p++) {
+                sum -= values[p] * vector[columns[p]];
+            }
+            vector[i] = sum / values[diagonals[i]];
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            final double value = vector[i] /= values[diagonals[i]];
+            for (int p = pointers[i], limit = diagonals[i]; p < limit; p++) {
+                vector[columns[p]] -= values[p] * value;
+            }
+        }
+    }
+
+    private boolean attempt() {
+
+        final int size = diagonals.length;
+
+        final int[] positions = new int[size];
+        Arrays.fill(positions, -1);
+
+        for (int i = 0; i < size; i++) {
+
+            final int first = pointers[i];
+            final int diagonal = diagonals[i];
+
+            for (int p = first; p < diagonal; p++) {
+                positions[columns[p]] = p;
+            }
+
+            double pivot = values[diagonal];
+
+            for (int p = first; p < diagonal; p++) {
+
+                final int k = columns[p];
+
+                double sum = values[p];
+                for (int q = pointers[k], limitK = diagonals[k]; q < limitK; q++) {
+                    final int position = positions[columns[q]];
+                    if (position >= 0) {
+                        sum -= values[q] * values[position];
+                    }
+                }
+
+                final double element = values[p] = sum / values[diagonals[k]];
+                pivot -= element * element;
+            }
+
+            for (int p = first; p < diagonal; p++) {
+                positions[columns[p]] = -1;
+            }
+
+            if (!(pivot > ZERO)) {
+                return false;
+            }
+
+            values[diagonal] = Math.sqrt(pivot);
+        }
+
+        return true;
+    }
+
+}
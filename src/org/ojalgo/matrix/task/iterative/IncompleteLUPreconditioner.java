@@ -0,0 +1,100 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * ILU(0) - the IKJ variant of Gaussian elimination restricted to the nonzero pattern of the body. L (with
+ * implied unit diagonal) and U overwrite the stored elements.
+ *
+ * @author apete
+ */
+final class IncompleteLUPreconditioner extends SparsePreconditioner {
+
+    IncompleteLUPreconditioner() {
+        super();
+    }
+
+    @Override
+    void factor() {
+
+        final int size = diagonals.length;
+
+        final int[] positions = new int[size];
+        Arrays.fill(positions, -1);
+
+        for (int i = 0; i < size; i++) {
+
+            final int first = pointers[i];
+            final int limit = pointers[i + 1];
+
+            for (int p = first; p < limit; p++) {
+                positions[columns[p]] = p;
+            }
+
+            for (int p = first, diagonal = diagonals[i]; p < diagonal; p++) {
+                final int k = columns[p];
+                final double multiplier = values[p] /= values[diagonals[k]];
+                for (int q = diagonals[k] + 1, limitK = pointers[k + 1]; q < limitK; q++) {
+                    final int position = positions[columns[q]];
+                    if (position >= 0) {
+                        values[position] -= multiplier * values[q];
+                    }
+                }
+            }
+
+            if (values[diagonals[i]] == ZERO) {
+                values[diagonals[i]] = ONE;
+            }
+
+            for (int p = first; p < limit; p++) {
+                positions[columns[p]] = -1;
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        final int size = diagonals.length;
+
+        for (int i = 0; i < size; i++) {
+            double sum = vector[i];
+            for (int p = pointers[i], limit = diagonals[i]; p < limit; p++) {
+                sum -= values[p] * vector[columns[p]];
+            }
+            vector[i] = sum;
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            double sum = vector[i];
+            for (int p = diagonals[i] + 1, limit = pointers[i + 1]; p < limit; p++) {
+                sum -= values[p] * vector[columns[p]];
+            }
+            vector[i] = sum / values[diagonals[i]];
+        }
+    }
+
+}
@@ -33,11 +33,13 @@ import org.ojalgo.array.Array1D;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.ElementView2D;
 import org.ojalgo.structure.Structure2D;
 import org.ojalgo.type.context.NumberContext;
 
@@ -69,6 +71,18 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
             return this;
         }
 
+        /**
+         * Only used by the {@link KrylovSubspaceSolver}:s. Null resets to the default, Jacobi, preconditioner.
+         */
+        public Configurator preconditioner(final Preconditioner preconditioner) {
+            if (preconditioner != null) {
+                mySolver.setPreconditioner(preconditioner);
+            } else {
+                mySolver.setPreconditioner(Preconditioner.newJacobi());
+            }
+            return this;
+        }
+
         /**
          * To get debug print per iteration
          */
@@ -102,6 +116,22 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
 
         final List<Equation> retVal = new ArrayList<>(numbEquations);
 
+        if (body instanceof SparseStore<?>) {
+
+            for (int i = 0; i < numbEquations; i++) {
+                retVal.add(new Equation(i, numbVariables, rhs.doubleValue(i)));
+            }
+
+            for (final ElementView2D<?, ?> element : ((SparseStore<?>) body).nonzeros()) {
+                final double tmpVal = element.doubleValue();
+                if (!PrimitiveScalar.isSmall(ONE, tmpVal)) {
+                    retVal.get((int) element.row()).set(element.column(), tmpVal);
+                }
+            }
+
+            return retVal;
+        }
+
         for (int i = 0; i < numbEquations; i++) {
             final Equation tmpRow = new Equation(i, numbVariables, rhs.doubleValue(i));
             for (int j = 0; j < numbVariables; j++) {
@@ -129,7 +159,7 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
         return new Configurator(this);
     }
 
-    public final PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
         if (templateRHS.countColumns() != 1L) {
             throw new IllegalArgumentException("The RHS must have precisely 1 column!");
         }
@@ -166,6 +196,12 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
         myAccuracyContext = accuracyContext;
     }
 
+    /**
+     * Only the {@link KrylovSubspaceSolver}:s use a preconditioner - the others ignore this.
+     */
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+    }
+
     protected void setDebugPrinter(final BasicLogger.Printer debugPrinter) {
         myDebugPrinter = debugPrinter;
     }
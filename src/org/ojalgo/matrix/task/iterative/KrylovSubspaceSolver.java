@@ -21,10 +21,154 @@
  */
 package org.ojalgo.matrix.task.iterative;
 
-abstract class KrylovSubspaceSolver extends IterativeSolverTask {
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Krylov subspace solvers only need to calculate matrix-vector products, and can therefore also solve
+ * matrix-free systems specified by a {@link LinearOperator}.
+ *
+ * @author apete
+ */
+public abstract class KrylovSubspaceSolver extends IterativeSolverTask implements IterativeSolverTask.SparseDelegate {
+
+    static double norm(final double[] vector) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector.length; i++) {
+            retVal += vector[i] * vector[i];
+        }
+        return Math.sqrt(retVal);
+    }
+
+    /**
+     * residual = rhs - [A]x
+     *
+     * @return The norm of rhs
+     */
+    static double residual(final LinearOperator operator, final Access1D<?> rhs, final Access1D<?> x, final PrimitiveDenseStore residual) {
+
+        operator.apply(x, residual);
+
+        final double[] tmpResidual = residual.data;
+
+        double retVal = ZERO;
+        for (int i = 0; i < tmpResidual.length; i++) {
+            final double tmpRHS = rhs.doubleValue(i);
+            retVal += tmpRHS * tmpRHS;
+            tmpResidual[i] = tmpRHS - tmpResidual[i];
+        }
+        return Math.sqrt(retVal);
+    }
+
+    private Preconditioner myPreconditioner = Preconditioner.newJacobi();
+    private transient PrimitiveDenseStore myRHS = null;
 
     protected KrylovSubspaceSolver() {
         super();
     }
 
+    public final Preconditioner getPreconditioner() {
+        return myPreconditioner;
+    }
+
+    /**
+     * Solve a matrix-free system. The preconditioner is prepared without any equations - the built-in ones
+     * then degenerate to the identity.
+     *
+     * @param operator The system body, [A]
+     * @param rhs The system RHS, b
+     * @param solution The initial guess, will be updated with the solution
+     * @return The relative error
+     */
+    public final double resolve(final LinearOperator operator, final Access1D<?> rhs, final PhysicalStore<Double> solution) {
+        this.getPreconditioner().prepare(Collections.emptyList(), (int) solution.count());
+        return this.iterate(operator, rhs, solution);
+    }
+
+    public final double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final PrimitiveDenseStore tmpRHS = this.rhs(solution.count());
+        for (int r = 0, limit = equations.size(); r < limit; r++) {
+            final Equation tmpRow = equations.get(r);
+            tmpRHS.set(tmpRow.index, tmpRow.getRHS());
+        }
+
+        this.getPreconditioner().prepare(equations, (int) solution.count());
+        return this.iterate(LinearOperator.of(equations), tmpRHS, solution);
+    }
+
+    /**
+     * Krylov subspace solvers accept any number of RHS columns
+     */
+    @Override
+    public final PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return PrimitiveDenseStore.FACTORY.makeZero(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    public final MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        if (rhs.countColumns() == 1L) {
+            this.resolve(tmpRows, preallocated);
+        } else {
+            this.resolve(tmpRows, rhs, preallocated);
+        }
+
+        return preallocated;
+    }
+
+    /**
+     * Multiple RHS columns. The default implementation prepares the preconditioner once and then solves one
+     * column at the time.
+     */
+    void resolve(final List<Equation> equations, final Access2D<?> rhs, final PhysicalStore<Double> solution) {
+
+        final int tmpSize = (int) solution.countRows();
+
+        this.getPreconditioner().prepare(equations, tmpSize);
+        final LinearOperator tmpOperator = LinearOperator.of(equations);
+
+        final PrimitiveDenseStore tmpRHS = this.rhs(tmpSize);
+        final PrimitiveDenseStore tmpSolution = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+
+        for (int j = 0, limit = (int) rhs.countColumns(); j < limit; j++) {
+            for (int i = 0; i < tmpSize; i++) {
+                tmpRHS.set(i, rhs.doubleValue(i, j));
+                tmpSolution.set(i, solution.doubleValue(i, j));
+            }
+            this.iterate(tmpOperator, tmpRHS, tmpSolution);
+            solution.fillColumn(0L, j, tmpSolution);
+        }
+    }
+
+    @Override
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        myPreconditioner = preconditioner;
+    }
+
+    private PrimitiveDenseStore rhs(final long size) {
+        if ((myRHS == null) || (myRHS.count() != size)) {
+            myRHS = PrimitiveDenseStore.FACTORY.makeZero(size, 1L);
+        } else {
+            myRHS.fillAll(ZERO);
+        }
+        return myRHS;
+    }
+
+    /**
+     * The preconditioner is already prepared
+     */
+    abstract double iterate(LinearOperator operator, Access1D<?> rhs, PhysicalStore<Double> solution);
+
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A matrix-free representation of a (square) system body, [A]. Only needs to be able to calculate [A]x.
+ * Pass one to
+ * {@link KrylovSubspaceSolver#resolve(LinearOperator, Access1D, PhysicalStore)} to solve without ever
+ * materialising [A].
+ *
+ * @author apete
+ */
+@FunctionalInterface
+public interface LinearOperator {
+
+    /**
+     * The rows are not copied - changes to the equations are reflected in the operator.
+     */
+    static LinearOperator of(final List<Equation> equations) {
+
+        return new LinearOperator() {
+
+            public void apply(final Access1D<?> x, final PhysicalStore<Double> product) {
+                product.fillAll(ZERO);
+                for (int r = 0, limit = equations.size(); r < limit; r++) {
+                    final Equation tmpRow = equations.get(r);
+                    product.set(tmpRow.index, tmpRow.dot(x));
+                }
+            }
+
+        };
+    }
+
+    static LinearOperator of(final MatrixStore<Double> body) {
+
+        return new LinearOperator() {
+
+            @SuppressWarnings("unchecked")
+            public void apply(final Access1D<?> x, final PhysicalStore<Double> product) {
+                body.multiply((Access1D<Double>) x, product);
+            }
+
+        };
+    }
+
+    /**
+     * product = [A]x
+     */
+    void apply(Access1D<?> x, PhysicalStore<Double> product);
+
+}
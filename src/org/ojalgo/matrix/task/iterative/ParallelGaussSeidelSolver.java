@@ -0,0 +1,198 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Multi-coloured Gauss-Seidel (SOR if the relaxation factor is set). The equations are (greedily) coloured so
+ * that no equation references a variable belonging to another equation of the same colour. Each colour class
+ * is then relaxed in parallel, one class after the other. For the usual 5-point grid stencils the greedy
+ * colouring is the classic red-black ordering.
+ *
+ * @author apete
+ */
+public final class ParallelGaussSeidelSolver extends StationaryIterativeSolver implements IterativeSolverTask.SparseDelegate {
+
+    /**
+     * Equations per parallel task
+     */
+    public static int THRESHOLD = 256;
+
+    /**
+     * @return The equations' positions (in the list), grouped by colour
+     */
+    static int[][] colour(final List<Equation> equations, final int size) {
+
+        final int numberOfEquations = equations.size();
+
+        final int[] positions = new int[size];
+        Arrays.fill(positions, -1);
+        for (int e = 0; e < numberOfEquations; e++) {
+            positions[equations.get(e).index] = e;
+        }
+
+        // Row e references the variables of these other equations; count, then fill, both directions
+        final int[] counts = new int[numberOfEquations + 1];
+        for (int e = 0; e < numberOfEquations; e++) {
+            final Equation equation = equations.get(e);
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int other = positions[(int) element.index()];
+                if ((other >= 0) && (other != e)) {
+                    counts[e + 1]++;
+                    counts[other + 1]++;
+                }
+            }
+        }
+        for (int e = 0; e < numberOfEquations; e++) {
+            counts[e + 1] += counts[e];
+        }
+        final int[] neighbours = new int[counts[numberOfEquations]];
+        final int[] cursor = Arrays.copyOf(counts, numberOfEquations);
+        for (int e = 0; e < numberOfEquations; e++) {
+            final Equation equation = equations.get(e);
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int other = positions[(int) element.index()];
+                if ((other >= 0) && (other != e)) {
+                    neighbours[cursor[e]++] = other;
+                    neighbours[cursor[other]++] = e;
+                }
+            }
+        }
+
+        final int[] colours = new int[numberOfEquations];
+        Arrays.fill(colours, -1);
+        final int[] forbidden = new int[numberOfEquations + 1];
+        Arrays.fill(forbidden, -1);
+
+        int numberOfColours = 0;
+        for (int e = 0; e < numberOfEquations; e++) {
+            for (int n = counts[e]; n < counts[e + 1]; n++) {
+                final int colour = colours[neighbours[n]];
+                if (colour >= 0) {
+                    forbidden[colour] = e;
+                }
+            }
+            int colour = 0;
+            while (forbidden[colour] == e) {
+                colour++;
+            }
+            colours[e] = colour;
+            numberOfColours = Math.max(numberOfColours, colour + 1);
+        }
+
+        final int[] classSizes = new int[numberOfColours];
+        for (int e = 0; e < numberOfEquations; e++) {
+            classSizes[colours[e]]++;
+        }
+        final int[][] retVal = new int[numberOfColours][];
+        for (int c = 0; c < numberOfColours; c++) {
+            retVal[c] = new int[classSizes[c]];
+            classSizes[c] = 0;
+        }
+        for (int e = 0; e < numberOfEquations; e++) {
+            final int colour = colours[e];
+            retVal[colour][classSizes[colour]++] = e;
+        }
+
+        return retVal;
+    }
+
+    public ParallelGaussSeidelSolver() {
+        super();
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        double tmpNormErr = POSITIVE_INFINITY;
+        double tmpNormRHS = ZERO;
+
+        final int tmpCountRows = equations.size();
+        for (int r = 0; r < tmpCountRows; r++) {
+            tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, equations.get(r).getRHS());
+        }
+
+        final int[][] tmpClasses = ParallelGaussSeidelSolver.colour(equations, (int) solution.count());
+        final double[] tmpErrors = new double[tmpCountRows];
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+        final double tmpRelaxationFactor = this.getRelaxationFactor();
+
+        do {
+
+            for (final int[] tmpClass : tmpClasses) {
+
+                final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int first, final int limit) {
+                        for (int p = first; p < limit; p++) {
+                            final int e = tmpClass[p];
+                            tmpErrors[e] = equations.get(e).adjust(solution, tmpRelaxationFactor);
+                        }
+                    }
+
+                };
+
+                tmpConquerer.invoke(0, tmpClass.length, THRESHOLD);
+            }
+
+            tmpNormErr = ZERO;
+            for (int r = 0; r < tmpCountRows; r++) {
+                tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, tmpErrors[r]);
+            }
+
+            tmpIterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+
+        } while ((tmpIterations < tmpLimit) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr));
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) throws RecoverableCondition {
+
+        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(tmpRows, current);
+
+        return current;
+    }
+
+}
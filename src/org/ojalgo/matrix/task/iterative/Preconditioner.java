@@ -0,0 +1,89 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import java.util.List;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A preconditioner, M, used by the {@link KrylovSubspaceSolver}:s. Each iteration the solver calls
+ * {@link #apply(Access1D, PhysicalStore)} to calculate M<sup>-1</sup>r for the current residual r.
+ *
+ * @author apete
+ */
+public interface Preconditioner {
+
+    /**
+     * One smoothed aggregation algebraic multigrid V-cycle, for symmetric positive definite systems.
+     */
+    static Preconditioner newAlgebraicMultigrid() {
+        return new MultigridPreconditioner();
+    }
+
+    /**
+     * Zero fill-in incomplete Cholesky, IC(0), for symmetric positive definite systems. If the factorisation
+     * breaks down the diagonal is successively shifted until it succeeds.
+     */
+    static Preconditioner newIncompleteCholesky() {
+        return new IncompleteCholeskyPreconditioner();
+    }
+
+    /**
+     * Zero fill-in incomplete LU, ILU(0)
+     */
+    static Preconditioner newIncompleteLU() {
+        return new IncompleteLUPreconditioner();
+    }
+
+    /**
+     * Diagonal scaling - this is the default.
+     */
+    static Preconditioner newJacobi() {
+        return new JacobiPreconditioner();
+    }
+
+    /**
+     * Symmetric successive over-relaxation
+     *
+     * @param relaxation Should be between 0.0 and 2.0 (1.0 gives symmetric Gauss-Seidel)
+     */
+    static Preconditioner newSSOR(final double relaxation) {
+        return new SSORPreconditioner(relaxation);
+    }
+
+    /**
+     * @param residual The current residual, r
+     * @param preconditioned Will be set to M<sup>-1</sup>r
+     */
+    void apply(Access1D<?> residual, PhysicalStore<Double> preconditioned);
+
+    /**
+     * Called once per solve, before the iterations start.
+     *
+     * @param equations The body rows
+     * @param size The number of variables
+     */
+    void prepare(List<Equation> equations, int size);
+
+}
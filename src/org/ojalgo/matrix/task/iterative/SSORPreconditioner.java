@@ -0,0 +1,78 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+/**
+ * M = (D + ωL) D<sup>-1</sup> (D + ωU) / (ω(2-ω))
+ *
+ * @author apete
+ */
+final class SSORPreconditioner extends SparsePreconditioner {
+
+    private final double myRelaxation;
+
+    SSORPreconditioner(final double relaxation) {
+        super();
+        myRelaxation = relaxation;
+    }
+
+    @Override
+    void factor() {
+        for (int i = 0; i < diagonals.length; i++) {
+            if (values[diagonals[i]] == ZERO) {
+                values[diagonals[i]] = ONE;
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] vector) {
+
+        final int size = diagonals.length;
+        final double omega = myRelaxation;
+
+        for (int i = 0; i < size; i++) {
+            double sum = ZERO;
+            for (int p = pointers[i], limit = diagonals[i]; p < limit; p++) {
+                sum += values[p] * vector[columns[p]];
+            }
+            vector[i] = (vector[i] - (omega * sum)) / values[diagonals[i]];
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            final double diagonal = values[diagonals[i]];
+            double sum = ZERO;
+            for (int p = diagonals[i] + 1, limit = pointers[i + 1]; p < limit; p++) {
+                sum += values[p] * vector[columns[p]];
+            }
+            vector[i] = ((diagonal * vector[i]) - (omega * sum)) / diagonal;
+        }
+
+        final double scale = omega * (TWO - omega);
+        for (int i = 0; i < size; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Copies the body to compressed sparse row format (columns sorted, diagonal always present) that the
+ * subclasses then factor/use in place.
+ *
+ * @author apete
+ */
+abstract class SparsePreconditioner implements Preconditioner {
+
+    /**
+     * Column index per stored element
+     */
+    int[] columns;
+    /**
+     * Position (in columns and values) of each row's diagonal element
+     */
+    int[] diagonals;
+    /**
+     * Row i is stored in [pointers[i], pointers[i+1])
+     */
+    int[] pointers;
+    double[] values;
+
+    private double[] myWork;
+
+    SparsePreconditioner() {
+        super();
+    }
+
+    public final void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+
+        final double[] work = myWork;
+
+        for (int i = 0; i < work.length; i++) {
+            work[i] = residual.doubleValue(i);
+        }
+
+        this.solve(work);
+
+        for (int i = 0; i < work.length; i++) {
+            preconditioned.set(i, work[i]);
+        }
+    }
+
+    public final void prepare(final List<Equation> equations, final int size) {
+
+        final Equation[] rows = new Equation[size];
+        for (final Equation equation : equations) {
+            rows[equation.index] = equation;
+        }
+
+        pointers = new int[size + 1];
+        diagonals = new int[size];
+        for (int i = 0; i < size; i++) {
+            int count = 1;
+            if (rows[i] != null) {
+                for (final NonzeroView<Double> element : rows[i].nonzeros()) {
+                    if (element.index() != i) {
+                        count++;
+                    }
+                }
+            }
+            pointers[i + 1] = pointers[i] + count;
+        }
+
+        columns = new int[pointers[size]];
+        values = new double[pointers[size]];
+
+        for (int i = 0; i < size; i++) {
+
+            int position = pointers[i];
+            diagonals[i] = -1;
+
+            if (rows[i] != null) {
+                for (final NonzeroView<Double> element : rows[i].nonzeros()) {
+                    final int col = (int) element.index();
+                    if ((col > i) && (diagonals[i] < 0)) {
+                        diagonals[i] = position;
+                        columns[position++] = i;
+                    }
+                    if (col == i) {
+                        diagonals[i] = position;
+                    }
+                    columns[position] = col;
+                    values[position++] = element.doubleValue();
+                }
+            }
+
+            if (diagonals[i] < 0) {
+                diagonals[i] = position;
+                columns[position] = i;
+                values[position] = rows[i] != null ? ZERO : ONE;
+            }
+        }
+
+        if ((myWork == null) || (myWork.length != size)) {
+            myWork = new double[size];
+        }
+
+        this.factor();
+    }
+
+    /**
+     * Factor the values in place
+     */
+    abstract void factor();
+
+    /**
+     * Solve (in place) with the factored values
+     */
+    abstract void solve(double[] vector);
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Structure1D.IntIndex;
+
+/**
+ * Separates cuts (valid inequalities for the integer solutions) from single linear constraints, violated by
+ * some relaxed solution: Lifted (extended) knapsack covers for constraints with only binary variables, and
+ * otherwise mixed integer rounding (MIR) cuts. Constraints are handled as "less than or equal to", a lower
+ * limit is handled by negating the constraint.
+ *
+ * @author apete
+ */
+abstract class CuttingPlanes {
+
+    /**
+     * The minimum cut efficacy - violation divided by the norm of the coefficients.
+     */
+    private static final double EFFICACY = 1.0E-4;
+    /**
+     * MIR cuts are not generated when the right hand side fractional part is closer to 0 or 1 than this.
+     */
+    private static final double FRACTION = 0.05;
+    /**
+     * The minimum cut violation.
+     */
+    private static final double VIOLATION = 1.0E-6;
+
+    static Expression separate(final ExpressionsBasedModel model, final Expression constraint, final Access1D<?> solution) {
+
+        if (!constraint.isConstraint() || constraint.isRedundant() || !constraint.isLinearAndAnyInteger()) {
+            return null;
+        }
+
+        final int size = constraint.getLinearKeySet().size();
+        final int[] indices = new int[size];
+        final double[] coefficients = new double[size];
+        int j = 0;
+        for (final Entry<IntIndex, BigDecimal> entry : constraint.getLinearEntrySet()) {
+            indices[j] = entry.getKey().index;
+            coefficients[j] = entry.getValue().doubleValue();
+            j++;
+        }
+
+        double[] cut = null;
+
+        if (constraint.isUpperLimitSet()) {
+            cut = CuttingPlanes.separate(model, indices, coefficients, constraint.getUpperLimit().doubleValue(), solution);
+        }
+
+        if ((cut == null) && constraint.isLowerLimitSet()) {
+            final double[] negated = new double[size];
+            for (int i = 0; i < size; i++) {
+                negated[i] = -coefficients[i];
+            }
+            cut = CuttingPlanes.separate(model, indices, negated, -constraint.getLowerLimit().doubleValue(), solution);
+        }
+
+        if (cut != null) {
+
+            // Cuts may have been removed, so the number of expressions alone does not give a unique name
+            int number = model.countExpressions();
+            while (model.getExpression(constraint.getName() + "-CUT" + number) != null) {
+                number++;
+            }
+
+            final Expression retVal = model.addExpression(constraint.getName() + "-CUT" + number);
+            for (int i = 0; i < size; i++) {
+                if (cut[i] != ZERO) {
+                    retVal.set(indices[i], cut[i]);
+                }
+            }
+            retVal.upper(cut[size]);
+
+            return retVal;
+
+        } else {
+
+            return null;
+        }
+    }
+
+    /**
+     * Greedily finds a cover (a set of items that together exceed the capacity), with the items most likely to
+     * be at 1 first, reduces it to a minimal cover and extends it with all items at least as heavy as the
+     * heaviest in the cover. Items with negative coefficients are complemented.
+     */
+    private static double[] cover(final double[] weights, final double capacity, final double[] values) {
+
+        final int size = weights.length;
+
+        final double[] w = new double[size];
+        final double[] x = new double[size];
+        final boolean[] complemented = new boolean[size];
+
+        double b = capacity;
+
+        for (int j = 0; j < size; j++) {
+            if (weights[j] < ZERO) {
+                complemented[j] = true;
+                w[j] = -weights[j];
+                x[j] = ONE - values[j];
+                b -= weights[j];
+            } else {
+                w[j] = weights[j];
+                x[j] = values[j];
+            }
+        }
+
+        if (b < ZERO) {
+            return null;
+        }
+
+        final List<Integer> candidates = new ArrayList<>();
+        for (int j = 0; j < size; j++) {
+            if (w[j] > ZERO) {
+                candidates.add(j);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(j -> (ONE - x[j]) / w[j]));
+
+        final List<Integer> cover = new ArrayList<>();
+        double total = ZERO;
+        for (final Integer j : candidates) {
+            if (total <= b) {
+                cover.add(j);
+                total += w[j];
+            }
+        }
+        if (total <= b) {
+            return null;
+        }
+
+        cover.sort(Comparator.comparingDouble(j -> x[j]));
+        for (int c = 0; c < cover.size();) {
+            final int j = cover.get(c);
+            if ((total - w[j]) > b) {
+                cover.remove(c);
+                total -= w[j];
+            } else {
+                c++;
+            }
+        }
+
+        double heaviest = ZERO;
+        for (final Integer j : cover) {
+            heaviest = Math.max(heaviest, w[j]);
+        }
+
+        final double[] retVal = new double[size + 1];
+        double rhs = cover.size() - 1;
+
+        for (int j = 0; j < size; j++) {
+            if (cover.contains(j) || (w[j] >= heaviest)) {
+                if (complemented[j]) {
+                    retVal[j] = -ONE;
+                    rhs -= ONE;
+                } else {
+                    retVal[j] = ONE;
+                }
+            }
+        }
+        retVal[size] = rhs;
+
+        return retVal;
+    }
+
+    private static double efficacy(final double[] cut, final double[] values) {
+
+        final int size = values.length;
+
+        double activity = ZERO;
+        double norm = ZERO;
+        for (int j = 0; j < size; j++) {
+            activity += cut[j] * values[j];
+            norm += cut[j] * cut[j];
+        }
+
+        final double violation = activity - cut[size];
+
+        if ((violation > VIOLATION) && (norm > ZERO)) {
+            return violation / PrimitiveFunction.SQRT.invoke(norm);
+        } else {
+            return ZERO;
+        }
+    }
+
+    /**
+     * Complements each variable with its closest bound, and then tries the MIR formula with the absolute
+     * values of the coefficients of the integer variables strictly between their bounds (and 1.0) as divisors.
+     * Returns the one with the best efficacy. The continuous variables' positive (after complementing)
+     * coefficients are dropped, and the negative ones make up the continuous part of the cut.
+     */
+    private static double[] mir(final ExpressionsBasedModel model, final int[] indices, final double[] coefficients, final double rhs,
+            final double[] values) {
+
+        final int size = indices.length;
+
+        final double[] a = new double[size];
+        final double[] y = new double[size];
+        final double[] bounds = new double[size];
+        final boolean[] complemented = new boolean[size];
+        final boolean[] integer = new boolean[size];
+
+        double b = rhs;
+
+        for (int j = 0; j < size; j++) {
+
+            final Variable variable = model.getVariable(indices[j]);
+
+            final double lower = variable.isLowerLimitSet() ? variable.getLowerLimit().doubleValue() : NEGATIVE_INFINITY;
+            final double upper = variable.isUpperLimitSet() ? variable.getUpperLimit().doubleValue() : POSITIVE_INFINITY;
+
+            if (Double.isInfinite(lower) && Double.isInfinite(upper)) {
+                return null;
+            }
+
+            integer[j] = variable.isInteger();
+            complemented[j] = Double.isInfinite(lower) || (!Double.isInfinite(upper) && ((upper - values[j]) < (values[j] - lower)));
+
+            if (complemented[j]) {
+                bounds[j] = upper;
+                a[j] = -coefficients[j];
+                y[j] = upper - values[j];
+            } else {
+                bounds[j] = lower;
+                a[j] = coefficients[j];
+                y[j] = values[j] - lower;
+            }
+            b -= coefficients[j] * bounds[j];
+        }
+
+        final List<Double> divisors = new ArrayList<>();
+        divisors.add(ONE);
+        for (int j = 0; j < size; j++) {
+            final double divisor = PrimitiveFunction.ABS.invoke(a[j]);
+            if (integer[j] && (y[j] > VIOLATION) && (divisor > VIOLATION) && !divisors.contains(divisor)) {
+                final Variable variable = model.getVariable(indices[j]);
+                if (!variable.isLowerLimitSet() || !variable.isUpperLimitSet()
+                        || (y[j] < (variable.getUpperLimit().doubleValue() - variable.getLowerLimit().doubleValue() - VIOLATION))) {
+                    divisors.add(divisor);
+                }
+            }
+        }
+
+        double[] retVal = null;
+        double bestEfficacy = EFFICACY;
+
+        for (final double delta : divisors) {
+
+            final double beta = b / delta;
+            final double f = beta - PrimitiveFunction.FLOOR.invoke(beta);
+            if ((f < FRACTION) || (f > (ONE - FRACTION))) {
+                continue;
+            }
+
+            final double[] cut = new double[size + 1];
+            double cutRHS = PrimitiveFunction.FLOOR.invoke(beta);
+
+            for (int j = 0; j < size; j++) {
+
+                double g;
+                if (integer[j]) {
+                    final double scaled = a[j] / delta;
+                    final double fj = scaled - PrimitiveFunction.FLOOR.invoke(scaled);
+                    g = PrimitiveFunction.FLOOR.invoke(scaled) + (Math.max(ZERO, fj - f) / (ONE - f));
+                } else if (a[j] < ZERO) {
+                    g = a[j] / (delta * (ONE - f));
+                } else {
+                    g = ZERO;
+                }
+
+                // Back to the original variables
+                if (complemented[j]) {
+                    cut[j] = -g;
+                    cutRHS -= g * bounds[j];
+                } else {
+                    cut[j] = g;
+                    cutRHS += g * bounds[j];
+                }
+            }
+            cut[size] = cutRHS;
+
+            final double efficacy = CuttingPlanes.efficacy(cut, values);
+            if (efficacy > bestEfficacy) {
+                retVal = cut;
+                bestEfficacy = efficacy;
+            }
+        }
+
+        return retVal;
+    }
+
+    private static double[] separate(final ExpressionsBasedModel model, final int[] indices, final double[] coefficients, final double rhs,
+            final Access1D<?> solution) {
+
+        final int size = indices.length;
+
+        final double[] values = new double[size];
+        boolean binary = true;
+        for (int j = 0; j < size; j++) {
+            values[j] = solution.doubleValue(indices[j]);
+            binary &= model.getVariable(indices[j]).isBinary();
+        }
+
+        final double[] retVal = binary ? CuttingPlanes.cover(coefficients, rhs, values) : CuttingPlanes.mir(model, indices, coefficients, rhs, values);
+
+        if ((retVal != null) && (CuttingPlanes.efficacy(retVal, values) > EFFICACY)) {
+            return retVal;
+        } else {
+            return null;
+        }
+    }
+
+}
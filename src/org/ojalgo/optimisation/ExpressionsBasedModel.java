@@ -35,8 +35,10 @@ import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.constant.BigMath;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.netio.BasicLogger.Printer;
+import org.ojalgo.optimisation.convex.ConvexInteriorPointSolver;
 import org.ojalgo.optimisation.convex.ConvexSolver;
 import org.ojalgo.optimisation.integer.IntegerSolver;
+import org.ojalgo.optimisation.linear.InteriorPointSolver;
 import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Structure1D.IntIndex;
@@ -187,13 +189,21 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
 
         private boolean myInPlaceUpdatesOK = true;
         private transient ExpressionsBasedModel.Integration<?> myIntegration = null;
+        /**
+         * The variable limits when the solver was built (after presolve). Presolve may have tightened them,
+         * and left out constraints implied by them, so in-place updates must stay within these limits.
+         */
+        private transient BigDecimal[] myLowerLimits = null;
         private final ExpressionsBasedModel myModel;
+        private transient ModelScaling myScaling = null;
         private transient Optimisation.Solver mySolver = null;
+        private transient BigDecimal[] myUpperLimits = null;
 
         Intermediate(final ExpressionsBasedModel model) {
             super();
             myModel = model;
             myIntegration = null;
+            myScaling = null;
             mySolver = null;
         }
 
@@ -210,6 +220,7 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
             }
 
             myIntegration = null;
+            myScaling = null;
         }
 
         public ExpressionsBasedModel getModel() {
@@ -262,9 +273,19 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
             final Optimisation.Solver solver = this.getSolver();
 
             Optimisation.Result retVal = candidate != null ? candidate : myModel.getVariableValues();
-            retVal = integration.toSolverState(retVal, myModel);
-            retVal = solver.solve(retVal);
-            retVal = integration.toModelState(retVal, myModel);
+
+            if (myScaling != null) {
+                final ExpressionsBasedModel scaledModel = myScaling.getModel();
+                retVal = myScaling.toScaled(retVal);
+                retVal = integration.toSolverState(retVal, scaledModel);
+                retVal = solver.solve(retVal);
+                retVal = integration.toModelState(retVal, scaledModel);
+                retVal = myScaling.toUnscaled(retVal);
+            } else {
+                retVal = integration.toSolverState(retVal, myModel);
+                retVal = solver.solve(retVal);
+                retVal = integration.toModelState(retVal, myModel);
+            }
 
             return retVal;
         }
@@ -279,17 +300,36 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
 
         public void update(final Variable variable) {
 
-            if (myInPlaceUpdatesOK && (mySolver != null) && (mySolver instanceof UpdatableSolver) && variable.isFixed()) {
+            if (myInPlaceUpdatesOK && (mySolver != null) && (mySolver instanceof UpdatableSolver) && this.isWithinLimits(variable)) {
                 final UpdatableSolver updatableSolver = (UpdatableSolver) mySolver;
 
-                final int indexInSolver = this.getIntegration().getIndexInSolver(myModel, variable);
-                final double fixedValue = variable.getValue().doubleValue();
+                // The solver was built from the scaled model, if there is one
+                final ExpressionsBasedModel solverModel = myScaling != null ? myScaling.getModel() : myModel;
+                final Variable solverVariable = myScaling != null ? myScaling.update(variable) : variable;
+
+                final int indexInSolver = this.getIntegration().getIndexInSolver(solverModel, solverVariable);
+
+                if (solverVariable.isFixed()) {
+
+                    final double fixedValue = solverVariable.getValue().doubleValue();
+
+                    if (updatableSolver.fixVariable(indexInSolver, fixedValue)) {
+                        // Solver updated in-place
+                        return;
+                    } else {
+                        myInPlaceUpdatesOK = false;
+                    }
 
-                if (updatableSolver.fixVariable(indexInSolver, fixedValue)) {
-                    // Solver updated in-place
-                    return;
                 } else {
-                    myInPlaceUpdatesOK = false;
+
+                    final double lower = solverVariable.isLowerLimitSet() ? solverVariable.getLowerLimit().doubleValue() : Double.NEGATIVE_INFINITY;
+                    final double upper = solverVariable.isUpperLimitSet() ? solverVariable.getUpperLimit().doubleValue() : Double.POSITIVE_INFINITY;
+
+                    if (updatableSolver.updateRange(indexInSolver, lower, upper)) {
+                        // Solver updated in-place, and can (re)start from its current basis
+                        return;
+                    }
+                    // Not all solvers can update a range, but (after re-generation) they may still fix variables
                 }
             }
 
@@ -305,6 +345,22 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
             return myModel.validate(solution);
         }
 
+        /**
+         * @return true if the variable's limits are not looser than when the solver was built
+         */
+        private boolean isWithinLimits(final Variable variable) {
+
+            final int index = myModel.indexOf(variable);
+
+            final BigDecimal lower = variable.getLowerLimit();
+            final BigDecimal upper = variable.getUpperLimit();
+
+            final boolean lowerOK = (myLowerLimits[index] == null) || ((lower != null) && (lower.compareTo(myLowerLimits[index]) >= 0));
+            final boolean upperOK = (myUpperLimits[index] == null) || ((upper != null) && (upper.compareTo(myUpperLimits[index]) <= 0));
+
+            return lowerOK && upperOK;
+        }
+
         ExpressionsBasedModel.Integration<?> getIntegration() {
             if (myIntegration == null) {
                 myIntegration = myModel.getIntegration();
@@ -314,7 +370,20 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
 
         Optimisation.Solver getSolver() {
             if (mySolver == null) {
-                mySolver = this.getIntegration().build(myModel);
+                if (myModel.options.scaling != null) {
+                    myScaling = new ModelScaling(myModel, myModel.options.scaling);
+                    mySolver = this.getIntegration().build(myScaling.getModel());
+                } else {
+                    myScaling = null;
+                    mySolver = this.getIntegration().build(myModel);
+                }
+                final List<Variable> variables = myModel.getVariables();
+                myLowerLimits = new BigDecimal[variables.size()];
+                myUpperLimits = new BigDecimal[variables.size()];
+                for (int i = 0; i < myLowerLimits.length; i++) {
+                    myLowerLimits[i] = variables.get(i).getLowerLimit();
+                    myUpperLimits[i] = variables.get(i).getUpperLimit();
+                }
             }
             return mySolver;
         }
@@ -341,6 +410,26 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
 
     }
 
+    /**
+     * How a model is equilibrated before it is handed to a solver.
+     *
+     * @see Optimisation.Options#scaling
+     */
+    public static enum Scaling {
+
+        /**
+         * Alternating row and column passes, each scaling by the inverse geometric mean of the largest and
+         * smallest (absolute) coefficient
+         */
+        GEOMETRIC_MEAN,
+        /**
+         * Ruiz equilibration – iteratively scaling the infinity norms of the rows and columns towards 1. The
+         * column norms include any quadratic objective function factors.
+         */
+        RUIZ;
+
+    }
+
     static abstract class Simplifier<ME extends ModelEntity<?>, S extends Simplifier<?, ?>> implements Comparable<S> {
 
         private final int myExecutionOrder;
@@ -409,8 +498,10 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
     }
 
     private static final ConvexSolver.ModelIntegration CONVEX_INTEGRATION = new ConvexSolver.ModelIntegration();
+    private static final ConvexInteriorPointSolver.ModelIntegration CONVEX_INTERIOR_INTEGRATION = new ConvexInteriorPointSolver.ModelIntegration();
     private static final IntegerSolver.ModelIntegration INTEGER_INTEGRATION = new IntegerSolver.ModelIntegration();
     private static final List<ExpressionsBasedModel.Integration<?>> INTEGRATIONS = new ArrayList<>();
+    private static final InteriorPointSolver.ModelIntegration INTERIOR_INTEGRATION = new InteriorPointSolver.ModelIntegration();
     private static final LinearSolver.ModelIntegration LINEAR_INTEGRATION = new LinearSolver.ModelIntegration();
     private static final String NEW_LINE = "\n";
     private static final String OBJ_FUNC_AS_CONSTR_KEY = UUID.randomUUID().toString();
@@ -688,9 +779,13 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
         myIntegerIndices = null;
     }
 
+    /**
+     * Tries to separate a cut from the constraint - an inequality that all integer solutions satisfy, but the
+     * (relaxed) solution violates. If one is found it is added to this model and returned, otherwise null is
+     * returned.
+     */
     public Expression generateCut(final Expression constraint, final Optimisation.Result solution) {
-
-        return null;
+        return CuttingPlanes.separate(this, constraint, solution);
     }
 
     public Expression getExpression(final String name) {
@@ -1102,6 +1197,13 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
         return retVal;
     }
 
+    /**
+     * @return The removed expression, or null if there was none with that name
+     */
+    public Expression removeExpression(final String name) {
+        return myExpressions.remove(name);
+    }
+
     public ExpressionsBasedModel simplify() {
 
         this.scanEntities();
@@ -1322,8 +1424,12 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
                     retVal = INTEGER_INTEGRATION;
                 }
             } else {
-                if (CONVEX_INTEGRATION.isCapable(this)) {
+                if (CONVEX_INTERIOR_INTEGRATION.isCapable(this)) {
+                    retVal = CONVEX_INTERIOR_INTEGRATION;
+                } else if (CONVEX_INTEGRATION.isCapable(this)) {
                     retVal = CONVEX_INTEGRATION;
+                } else if (INTERIOR_INTEGRATION.isCapable(this)) {
+                    retVal = INTERIOR_INTEGRATION;
                 } else if (LINEAR_INTEGRATION.isCapable(this)) {
                     retVal = LINEAR_INTEGRATION;
                 }
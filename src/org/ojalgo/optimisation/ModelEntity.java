@@ -440,6 +440,14 @@ abstract class ModelEntity<ME extends ModelEntity<ME>> implements Optimisation.C
         return (myLowerLimit != null) && (myUpperLimit != null) && (myLowerLimit.compareTo(myUpperLimit) > 0);
     }
 
+    /**
+     * The adjustment exponent is cached (and copied with the entity). Call this if the parameters are
+     * modified in a way that should change it.
+     */
+    final void resetAdjustmentExponent() {
+        myAdjustmentExponent = Integer.MIN_VALUE;
+    }
+
     void visitAllParameters(final VoidFunction<BigDecimal> largest, final VoidFunction<BigDecimal> smallest) {
         largest.invoke(ONE);
         smallest.invoke(ONE);
@@ -0,0 +1,340 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D.IntRowColumn;
+
+/**
+ * An equilibrated copy of a model – the constraint expressions (rows) and the continuous variables (columns)
+ * are scaled by powers of 2 so that no rounding errors are introduced. A variable x of the original model
+ * corresponds to x/s in the copy, where s is that variable's column factor. The objective function is the
+ * same in both models.
+ *
+ * @author apete
+ */
+final class ModelScaling {
+
+    /**
+     * The number of alternating row/column passes with geometric mean scaling
+     */
+    private static final int GEOMETRIC_PASSES = 4;
+    /**
+     * The number of Ruiz iterations
+     */
+    private static final int RUIZ_ITERATIONS = 10;
+
+    private static void geometric(final int[] entryRows, final int[] entryCols, final double[] entryValues, final double[] rowFactors,
+            final double[] colFactors, final boolean[] scalable) {
+
+        final int numbRows = rowFactors.length;
+        final int numbCols = colFactors.length;
+
+        final double[] largest = new double[Math.max(numbRows, numbCols)];
+        final double[] smallest = new double[largest.length];
+
+        for (int p = 0; p < GEOMETRIC_PASSES; p++) {
+
+            Arrays.fill(largest, ZERO);
+            Arrays.fill(smallest, POSITIVE_INFINITY);
+            for (int e = 0; e < entryValues.length; e++) {
+                final int i = entryRows[e];
+                final double value = entryValues[e] * colFactors[entryCols[e]];
+                largest[i] = Math.max(largest[i], value);
+                smallest[i] = Math.min(smallest[i], value);
+            }
+            for (int i = 0; i < numbRows; i++) {
+                if (largest[i] > ZERO) {
+                    rowFactors[i] = ONE / Math.sqrt(largest[i] * smallest[i]);
+                }
+            }
+
+            Arrays.fill(largest, ZERO);
+            Arrays.fill(smallest, POSITIVE_INFINITY);
+            for (int e = 0; e < entryValues.length; e++) {
+                final int j = entryCols[e];
+                final double value = entryValues[e] * rowFactors[entryRows[e]];
+                largest[j] = Math.max(largest[j], value);
+                smallest[j] = Math.min(smallest[j], value);
+            }
+            for (int j = 0; j < numbCols; j++) {
+                if (scalable[j] && (largest[j] > ZERO)) {
+                    colFactors[j] = ONE / Math.sqrt(largest[j] * smallest[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The nearest power of 2
+     */
+    private static double power(final double factor) {
+        return Math.scalb(ONE, Math.getExponent(factor * SQRT_TWO));
+    }
+
+    private static void ruiz(final int[] entryRows, final int[] entryCols, final double[] entryValues, final int[] quadRows, final int[] quadCols,
+            final double[] quadValues, final double[] rowFactors, final double[] colFactors, final boolean[] scalable) {
+
+        final int numbRows = rowFactors.length;
+        final int numbCols = colFactors.length;
+
+        final double[] rowNorms = new double[numbRows];
+        final double[] colNorms = new double[numbCols];
+
+        for (int k = 0; k < RUIZ_ITERATIONS; k++) {
+
+            Arrays.fill(rowNorms, ZERO);
+            Arrays.fill(colNorms, ZERO);
+
+            for (int e = 0; e < entryValues.length; e++) {
+                final int i = entryRows[e];
+                final int j = entryCols[e];
+                final double value = entryValues[e] * rowFactors[i] * colFactors[j];
+                rowNorms[i] = Math.max(rowNorms[i], value);
+                colNorms[j] = Math.max(colNorms[j], value);
+            }
+
+            // The quadratic objective is part of the KKT matrix, and is included in the column norms
+            for (int e = 0; e < quadValues.length; e++) {
+                final int j1 = quadRows[e];
+                final int j2 = quadCols[e];
+                final double value = quadValues[e] * colFactors[j1] * colFactors[j2];
+                colNorms[j1] = Math.max(colNorms[j1], value);
+                colNorms[j2] = Math.max(colNorms[j2], value);
+            }
+
+            for (int i = 0; i < numbRows; i++) {
+                if (rowNorms[i] > ZERO) {
+                    rowFactors[i] /= Math.sqrt(rowNorms[i]);
+                }
+            }
+            for (int j = 0; j < numbCols; j++) {
+                if (scalable[j] && (colNorms[j] > ZERO)) {
+                    colFactors[j] /= Math.sqrt(colNorms[j]);
+                }
+            }
+        }
+    }
+
+    private final double[] myFactors;
+    private final BigDecimal[] myInverses;
+    private final ExpressionsBasedModel myScaled;
+
+    ModelScaling(final ExpressionsBasedModel model, final ExpressionsBasedModel.Scaling type) {
+
+        super();
+
+        final List<Expression> rows = model.constraints().collect(Collectors.toList());
+        final int numbRows = rows.size();
+        final int numbCols = model.countVariables();
+
+        // Fixed variables are constants to the solver, and integer variables must remain integer
+        final boolean[] included = new boolean[numbCols];
+        final boolean[] scalable = new boolean[numbCols];
+        for (int j = 0; j < numbCols; j++) {
+            final Variable variable = model.getVariable(j);
+            included[j] = !variable.isFixed();
+            scalable[j] = included[j] && !variable.isInteger();
+        }
+
+        int numbEntries = 0;
+        for (final Expression row : rows) {
+            for (final IntIndex key : row.getLinearKeySet()) {
+                if (included[key.index]) {
+                    numbEntries++;
+                }
+            }
+        }
+
+        final int[] entryRows = new int[numbEntries];
+        final int[] entryCols = new int[numbEntries];
+        final double[] entryValues = new double[numbEntries];
+
+        int e = 0;
+        for (int i = 0; i < numbRows; i++) {
+            for (final Entry<IntIndex, BigDecimal> entry : rows.get(i).getLinearEntrySet()) {
+                final int j = entry.getKey().index;
+                if (included[j]) {
+                    entryRows[e] = i;
+                    entryCols[e] = j;
+                    entryValues[e] = Math.abs(entry.getValue().doubleValue());
+                    e++;
+                }
+            }
+        }
+
+        final double[] rowFactors = new double[numbRows];
+        Arrays.fill(rowFactors, ONE);
+        final double[] colFactors = new double[numbCols];
+        Arrays.fill(colFactors, ONE);
+
+        if (type == ExpressionsBasedModel.Scaling.RUIZ) {
+
+            final Expression objective = model.objective();
+
+            int numbQuad = 0;
+            for (final IntRowColumn key : objective.getQuadraticKeySet()) {
+                if (included[key.row] && included[key.column]) {
+                    numbQuad++;
+                }
+            }
+
+            final int[] quadRows = new int[numbQuad];
+            final int[] quadCols = new int[numbQuad];
+            final double[] quadValues = new double[numbQuad];
+
+            int q = 0;
+            for (final Entry<IntRowColumn, BigDecimal> entry : objective.getQuadraticEntrySet()) {
+                final IntRowColumn key = entry.getKey();
+                if (included[key.row] && included[key.column]) {
+                    quadRows[q] = key.row;
+                    quadCols[q] = key.column;
+                    quadValues[q] = Math.abs(entry.getValue().doubleValue());
+                    q++;
+                }
+            }
+
+            ModelScaling.ruiz(entryRows, entryCols, entryValues, quadRows, quadCols, quadValues, rowFactors, colFactors, scalable);
+
+        } else {
+
+            ModelScaling.geometric(entryRows, entryCols, entryValues, rowFactors, colFactors, scalable);
+        }
+
+        myScaled = new ExpressionsBasedModel(model, false, false);
+
+        myFactors = new double[numbCols];
+        myInverses = new BigDecimal[numbCols];
+        final BigDecimal[] multipliers = new BigDecimal[numbCols];
+        for (int j = 0; j < numbCols; j++) {
+            myFactors[j] = ModelScaling.power(colFactors[j]);
+            myInverses[j] = new BigDecimal(ONE / myFactors[j]);
+            multipliers[j] = new BigDecimal(myFactors[j]);
+        }
+
+        final Map<String, Double> rowFactorsByName = new HashMap<>();
+        for (int i = 0; i < numbRows; i++) {
+            rowFactorsByName.put(rows.get(i).getName(), ModelScaling.power(rowFactors[i]));
+        }
+
+        for (final Expression expression : myScaled.getExpressions()) {
+
+            final double factor = rowFactorsByName.getOrDefault(expression.getName(), ONE);
+            final BigDecimal multiplier = new BigDecimal(factor);
+
+            if (expression.isLowerLimitSet()) {
+                expression.lower(expression.getLowerLimit().multiply(multiplier));
+            }
+            if (expression.isUpperLimitSet()) {
+                expression.upper(expression.getUpperLimit().multiply(multiplier));
+            }
+            // The expression's contribution to the objective function must not change
+            if (expression.isContributionWeightSet()) {
+                expression.weight(expression.getContributionWeight().multiply(new BigDecimal(ONE / factor)));
+            }
+
+            for (final Entry<IntIndex, BigDecimal> entry : expression.getLinearEntrySet()) {
+                entry.setValue(entry.getValue().multiply(multiplier).multiply(multipliers[entry.getKey().index]));
+            }
+            for (final Entry<IntRowColumn, BigDecimal> entry : expression.getQuadraticEntrySet()) {
+                final IntRowColumn key = entry.getKey();
+                entry.setValue(entry.getValue().multiply(multiplier).multiply(multipliers[key.row]).multiply(multipliers[key.column]));
+            }
+
+            expression.resetAdjustmentExponent();
+        }
+
+        for (int j = 0; j < numbCols; j++) {
+            final Variable variable = myScaled.getVariable(j);
+            if (variable.isContributionWeightSet()) {
+                variable.weight(variable.getContributionWeight().multiply(multipliers[j]));
+            }
+            this.update(model.getVariable(j));
+        }
+    }
+
+    /**
+     * @return The scaled copy of the model
+     */
+    ExpressionsBasedModel getModel() {
+        return myScaled;
+    }
+
+    /**
+     * Convert a state/solution of the original model to the corresponding one of the scaled model
+     */
+    Optimisation.Result toScaled(final Optimisation.Result modelState) {
+
+        final Primitive64Array solution = Primitive64Array.make(myFactors.length);
+        for (int j = 0; j < myFactors.length; j++) {
+            solution.set(j, modelState.doubleValue(j) / myFactors[j]);
+        }
+
+        return new Optimisation.Result(modelState.getState(), modelState.getValue(), solution);
+    }
+
+    /**
+     * Convert a state/solution of the scaled model to the corresponding one of the original model
+     */
+    Optimisation.Result toUnscaled(final Optimisation.Result scaledState) {
+
+        final Primitive64Array solution = Primitive64Array.make(myFactors.length);
+        for (int j = 0; j < myFactors.length; j++) {
+            solution.set(j, scaledState.doubleValue(j) * myFactors[j]);
+        }
+
+        return new Optimisation.Result(scaledState.getState(), scaledState.getValue(), solution);
+    }
+
+    /**
+     * Copy the limits and value of a variable of the original model to its scaled counterpart.
+     *
+     * @return The corresponding variable of the scaled model
+     */
+    Variable update(final Variable variable) {
+
+        final int index = variable.getIndex().index;
+        final BigDecimal inverse = myInverses[index];
+
+        final Variable retVal = myScaled.getVariable(index);
+
+        retVal.lower(variable.isLowerLimitSet() ? variable.getLowerLimit().multiply(inverse) : null);
+        retVal.upper(variable.isUpperLimitSet() ? variable.getUpperLimit().multiply(inverse) : null);
+        final BigDecimal value = variable.getValue();
+        retVal.setValue(value != null ? value.multiply(inverse) : null);
+        retVal.resetAdjustmentExponent();
+
+        return retVal;
+    }
+
+}
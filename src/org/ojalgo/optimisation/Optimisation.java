@@ -25,11 +25,14 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Optional;
 
+import org.ojalgo.OjAlgoUtils;
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.BigArray;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.optimisation.convex.ConvexSolver;
 import org.ojalgo.optimisation.integer.IntegerSolver;
+import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.CalendarDateUnit;
 import org.ojalgo.type.TypeUtils;
@@ -154,6 +157,28 @@ public interface Optimisation {
 
     public static final class Options implements Optimisation, Cloneable {
 
+        /**
+         * Which algorithm the {@linkplain ConvexSolver} should use. {@link ConvexSolver.Algorithm#ADMM} is a
+         * first-order method that converges to {@link #convex_tolerance} rather than to full precision, but
+         * handles large sparse problems well and is warm started when re-solved.
+         */
+        public ConvexSolver.Algorithm convex_algorithm = ConvexSolver.Algorithm.ACTIVE_SET;
+
+        /**
+         * Convex (quadratic objective, linear constraints) models with at least this many variables are
+         * solved using the {@linkplain org.ojalgo.optimisation.convex.ConvexInteriorPointSolver}, that works
+         * with sparse KKT systems, rather than the (dense) active set solvers. The default,
+         * {@link Integer#MAX_VALUE}, is to never switch - set it to (for instance) 5_000 to opt in. Not used
+         * if {@link #convex_algorithm} is {@link ConvexSolver.Algorithm#ADMM}.
+         */
+        public int convex_interior = Integer.MAX_VALUE;
+
+        /**
+         * The (absolute and relative) primal and dual residual tolerance at which the
+         * {@link ConvexSolver.Algorithm#ADMM} iterations terminate.
+         */
+        public double convex_tolerance = 1.0E-6;
+
         /**
          * Used to determine/validate feasibility. Are the constraints violated or not? Are the variable
          * values integer or not?
@@ -173,6 +198,27 @@ public interface Optimisation {
          */
         public int iterations_suffice = Integer.MAX_VALUE;
 
+        /**
+         * Which algorithm the {@linkplain LinearSolver} should use. The revised simplex keeps a factorised
+         * basis rather than an explicit tableau, and is the better choice for large (sparse) problems.
+         */
+        public LinearSolver.Algorithm linear_algorithm = LinearSolver.Algorithm.TABLEAU;
+
+        /**
+         * Linear (continuous) models with at least this many variables are solved using the
+         * {@linkplain org.ojalgo.optimisation.linear.InteriorPointSolver}, regardless of
+         * {@link #linear_algorithm}. Set it to {@link Integer#MAX_VALUE} to never switch automatically.
+         */
+        public int linear_interior = 10_000;
+
+        /**
+         * The {@linkplain LinearSolver} pricing strategy. On degenerate problems {@link LinearSolver.Pricing#DEVEX}
+         * or {@link LinearSolver.Pricing#STEEPEST_EDGE} typically need far fewer iterations than the default
+         * (Dantzig) rule, and {@link LinearSolver.Pricing#PARTIAL} does less work per iteration on wide
+         * problems.
+         */
+        public LinearSolver.Pricing linear_pricing = LinearSolver.Pricing.DANTZIG;
+
         /**
          * If this is null nothing is printed, if it is not null then progress/debug messages are printed to
          * that {@linkplain org.ojalgo.netio.BasicLogger.Printer}.
@@ -190,6 +236,14 @@ public interface Optimisation {
          */
         public Class<? extends Optimisation.Solver> logger_solver = null;
 
+        /**
+         * The max number of root node cutting plane rounds performed by the {@linkplain IntegerSolver}
+         * before branching. Each round separates (lifted) knapsack cover and mixed integer rounding cuts from
+         * the model's constraints, at the relaxed solution, and adds them to the model. Cuts that stay
+         * non-binding for a few rounds are removed again. The default, 0, is to not generate any cuts.
+         */
+        public int mip_cuts = 0;
+
         /**
          * The branch-and-bound nodes/subproblems come in pairs, and each node has a displacement (the
          * fractional amount removed by the new bound). Every pair's total displacement is always exactly 1.0.
@@ -202,6 +256,16 @@ public interface Optimisation {
          */
         public double mip_defer = 0.99;
 
+        /**
+         * If true the {@linkplain IntegerSolver} explores the branch&bound tree in synchronised epochs. In each
+         * epoch a batch of the best open nodes are evaluated in parallel, with the best integer solution and
+         * the pseudo-costs held constant, and the results are then merged in a well defined order. Results
+         * (which optimal solution, node counts...) are then identical from run to run, regardless of the
+         * number of threads and their timing - as long as no time limit is hit. Node selection is as specified
+         * by {@link #mip_selection}, or best bound if that is not set.
+         */
+        public boolean mip_deterministic = false;
+
         /**
          * The MIP gap is the difference between the best integer solution found so far and a node's
          * non-integer solution. The relative MIP gap is that difference divided by the optimal value
@@ -211,11 +275,51 @@ public interface Optimisation {
          */
         public double mip_gap = 1.0E-4;
 
+        /**
+         * The {@linkplain IntegerSolver} runs primal heuristics (rounding, diving, feasibility pump and RINS) to
+         * find integer solutions early. They are run, by otherwise idle worker threads, at the root node and
+         * then at every n:th evaluated node where n is this value. The default, 0, is to not use any
+         * heuristics.
+         */
+        public int mip_heuristics = 0;
+
+        /**
+         * The number of worker threads the {@linkplain IntegerSolver} uses. Each solve uses its own, dedicated,
+         * thread pool of this size - it does not compete with other work on the common fork/join pool.
+         */
+        public int mip_parallelism = OjAlgoUtils.ENVIRONMENT.threads;
+
+        /**
+         * The {@linkplain IntegerSolver} branches on the variable with the best pseudo-cost score, where the
+         * pseudo-costs are learnt from the objective function degradation of solved nodes. A variable's
+         * pseudo-costs are considered reliable once based on at least this many observations in both directions.
+         * Until then the variable is evaluated using strong branching (solving both child node problems), for a
+         * limited number of candidates per node. The default, 0, is pure pseudo-cost branching - strong
+         * branching is expensive per node, and only pays off on some models.
+         */
+        public int mip_reliability = 0;
+
+        /**
+         * How the {@linkplain IntegerSolver} selects which branch-and-bound node to evaluate next. If null (the
+         * default) the nodes are explored depth first by recursive fork/join tasks, deferring some nodes as
+         * specified by {@link #mip_defer}. Otherwise the open nodes are kept in a shared priority queue, ordered
+         * according to the selected strategy, that a number of worker threads take nodes from.
+         */
+        public IntegerSolver.NodeSelection mip_selection = null;
+
         /**
          * For display only!
          */
         public NumberContext print = NumberContext.getGeneral(8, 10);
 
+        /**
+         * If not null the model is equilibrated before it is handed to the solver, and the solution is unscaled
+         * afterwards. Constraints and continuous variables are scaled by powers of 2 - integer variables keep
+         * their scale. Models mixing coefficients of very different magnitudes may otherwise need extra
+         * iterations, or fail.
+         */
+        public ExpressionsBasedModel.Scaling scaling = null;
+
         /**
          * Used when copying the solver's solution back to the model (converting from double to BigDecimal).
          * Variable values, dual variable values, lagrange multipliers...
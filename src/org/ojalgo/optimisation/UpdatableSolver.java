@@ -32,4 +32,14 @@ public interface UpdatableSolver extends Optimisation.Solver {
         return false;
     }
 
+    /**
+     * @param index The, solver specific, variable index
+     * @param lower The new lower limit, or {@link Double#NEGATIVE_INFINITY} if there is none
+     * @param upper The new upper limit, or {@link Double#POSITIVE_INFINITY} if there is none
+     * @return true if updating the range is supported and was successful, otherwise false
+     */
+    default boolean updateRange(final int index, final double lower, final double upper) {
+        return false;
+    }
+
 }
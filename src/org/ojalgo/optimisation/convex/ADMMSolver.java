@@ -0,0 +1,554 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * First-order (operator splitting) solver in the style of OSQP. The problem is restated as
+ * <p>
+ * min 1/2 [X]<sup>T</sup>[Q][X] - [C]<sup>T</sup>[X]<br>
+ * when [L] &lt;= [A][X] &lt;= [U]
+ * </p>
+ * with [A] = [[AE];[AI]], and solved using the alternating direction method of multipliers (ADMM). Each
+ * iteration solves the quasi-definite KKT system
+ * <p>
+ * [[Q] + &sigma;[I] [A]<sup>T</sup>]<br>
+ * [[A] -diag(1/&rho;)]
+ * </p>
+ * that only changes if the step size &rho; is adapted. It is factorised ({@link SparseLDL}) once and then
+ * reused - also between calls to {@link #solve(Optimisation.Result)}. Only [Q] and [A] are cached; [C],
+ * [BE] and [BI] are reread by each solve, and the previous solution (or the kick starter) is used as a warm
+ * start. That makes it a good fit for repeatedly re-optimising the same model with changing parameters.
+ * <p>
+ * Iterations stop when the primal and dual residuals are within {@link Optimisation.Options#convex_tolerance}
+ * (absolute and relative), or when there is a certificate of primal or dual infeasibility.
+ *
+ * @author apete
+ */
+final class ADMMSolver extends ConvexSolver {
+
+    private static final double ALPHA = 1.6;
+    /**
+     * How often (number of iterations) the residuals are checked
+     */
+    private static final int CHECK = 10;
+    private static final double EQUALITY = 1E3;
+    private static final double INFEASIBILITY = 1E-6;
+    private static final int ITERATIONS = 10_000;
+    private static final double RHO = 0.1;
+    private static final double RHO_MAX = 1E6;
+    private static final double RHO_MIN = 1E-6;
+    private static final double SIGMA = 1E-6;
+
+    private static double infinityNorm(final double[] vector) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector.length; i++) {
+            retVal = Math.max(retVal, Math.abs(vector[i]));
+        }
+        return retVal;
+    }
+
+    private final double[] myAX;
+    private final double[] myATY;
+    /**
+     * [A] by row, in compressed form
+     */
+    private final int[] myColumns;
+    private final double[] myDX;
+    private final double[] myDY;
+    private final double[] myElements;
+    /**
+     * The KKT matrix entries: the diagonal, then the off-diagonal elements of [Q], then the elements of [A]
+     */
+    private final double[] myEntries;
+    private boolean myFactorised = false;
+    /**
+     * The (strictly lower) off-diagonal elements of [Q]
+     */
+    private final int[] myHessianColumns;
+    private final double[] myHessianDiagonal;
+    private final int[] myHessianRows;
+    private final double[] myHessianValues;
+    private final SparseLDL myKKT;
+    private final double[] myLinear;
+    private final double[] myLowers;
+    private final int myNumberOfEqualities;
+    private final double[] myQX;
+    private double myRho = RHO;
+    private final int[] myRowPointers;
+    private final double[] myUppers;
+    private boolean myWarm = false;
+    private final double[] myWork;
+    private final double[] myX;
+    private final double[] myY;
+    private final double[] myZ;
+
+    ADMMSolver(final ConvexSolver.Builder matrices, final Optimisation.Options solverOptions) {
+
+        super(matrices, solverOptions);
+
+        final int numbVars = this.countVariables();
+        final int numbEqus = this.countEqualityConstraints();
+        final int numbInes = this.countInequalityConstraints();
+        final int numbConstr = numbEqus + numbInes;
+
+        myNumberOfEqualities = numbEqus;
+
+        myRowPointers = new int[numbConstr + 1];
+
+        final MatrixStore<Double> mtrxAE = this.getMatrixAE();
+        if (mtrxAE instanceof SparseStore) {
+            ((SparseStore<Double>) mtrxAE).nonzeros().forEach(nz -> myRowPointers[(int) nz.row() + 1]++);
+        } else {
+            for (int i = 0; i < numbEqus; i++) {
+                for (int j = 0; j < numbVars; j++) {
+                    if (mtrxAE.doubleValue(i, j) != ZERO) {
+                        myRowPointers[i + 1]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < numbInes; i++) {
+            myRowPointers[numbEqus + i + 1] = (int) this.getMatrixAI(i).countNonzeros();
+        }
+        for (int i = 0; i < numbConstr; i++) {
+            myRowPointers[i + 1] += myRowPointers[i];
+        }
+
+        myColumns = new int[myRowPointers[numbConstr]];
+        myElements = new double[myRowPointers[numbConstr]];
+
+        final int[] cursors = new int[numbConstr];
+        System.arraycopy(myRowPointers, 0, cursors, 0, numbConstr);
+        if (mtrxAE instanceof SparseStore) {
+            ((SparseStore<Double>) mtrxAE).nonzeros().forEach(nz -> {
+                final int element = cursors[(int) nz.row()]++;
+                myColumns[element] = (int) nz.column();
+                myElements[element] = nz.doubleValue();
+            });
+        } else {
+            for (int i = 0; i < numbEqus; i++) {
+                for (int j = 0; j < numbVars; j++) {
+                    final double value = mtrxAE.doubleValue(i, j);
+                    if (value != ZERO) {
+                        final int element = cursors[i]++;
+                        myColumns[element] = j;
+                        myElements[element] = value;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < numbInes; i++) {
+            int element = cursors[numbEqus + i];
+            for (final NonzeroView<Double> nz : this.getMatrixAI(i).nonzeros()) {
+                myColumns[element] = (int) nz.index();
+                myElements[element++] = nz.doubleValue();
+            }
+        }
+
+        final PhysicalStore<Double> mtrxQ = this.getMatrixQ();
+        myHessianDiagonal = new double[numbVars];
+        int numbOffDiagonal = 0;
+        for (int j = 0; j < numbVars; j++) {
+            myHessianDiagonal[j] = mtrxQ.doubleValue(j, j);
+            for (int i = j + 1; i < numbVars; i++) {
+                if (mtrxQ.doubleValue(i, j) != ZERO) {
+                    numbOffDiagonal++;
+                }
+            }
+        }
+        myHessianRows = new int[numbOffDiagonal];
+        myHessianColumns = new int[numbOffDiagonal];
+        myHessianValues = new double[numbOffDiagonal];
+        int offDiagonal = 0;
+        for (int j = 0; j < numbVars; j++) {
+            for (int i = j + 1; i < numbVars; i++) {
+                final double value = mtrxQ.doubleValue(i, j);
+                if (value != ZERO) {
+                    myHessianRows[offDiagonal] = i;
+                    myHessianColumns[offDiagonal] = j;
+                    myHessianValues[offDiagonal++] = value;
+                }
+            }
+        }
+
+        final int dim = numbVars + numbConstr;
+        final int numbEntries = dim + numbOffDiagonal + myColumns.length;
+        final int[] entryRows = new int[numbEntries];
+        final int[] entryColumns = new int[numbEntries];
+        int entry = 0;
+        for (int d = 0; d < dim; d++, entry++) {
+            entryRows[entry] = d;
+            entryColumns[entry] = d;
+        }
+        for (int h = 0; h < numbOffDiagonal; h++, entry++) {
+            entryRows[entry] = myHessianRows[h];
+            entryColumns[entry] = myHessianColumns[h];
+        }
+        for (int i = 0; i < numbConstr; i++) {
+            for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++, entry++) {
+                entryRows[entry] = numbVars + i;
+                entryColumns[entry] = myColumns[k];
+            }
+        }
+        myEntries = new double[numbEntries];
+        myKKT = new SparseLDL(dim, entryRows, entryColumns);
+
+        myLinear = new double[numbVars];
+        myLowers = new double[numbConstr];
+        myUppers = new double[numbConstr];
+
+        myX = new double[numbVars];
+        myY = new double[numbConstr];
+        myZ = new double[numbConstr];
+        myDX = new double[numbVars];
+        myDY = new double[numbConstr];
+
+        myAX = new double[numbConstr];
+        myATY = new double[numbVars];
+        myQX = new double[numbVars];
+
+        myWork = new double[dim];
+    }
+
+    private void factorise() {
+
+        final int numbVars = myX.length;
+        final int dim = myWork.length;
+        final double[] entries = myEntries;
+
+        int entry = 0;
+        for (int j = 0; j < numbVars; j++, entry++) {
+            entries[entry] = myHessianDiagonal[j] + SIGMA;
+        }
+        for (int i = 0; numbVars + i < dim; i++, entry++) {
+            entries[entry] = -ONE / this.rho(i);
+        }
+        System.arraycopy(myHessianValues, 0, entries, entry, myHessianValues.length);
+        entry += myHessianValues.length;
+        System.arraycopy(myElements, 0, entries, entry, myElements.length);
+
+        myKKT.factorise(entries);
+
+        myFactorised = true;
+    }
+
+    /**
+     * Primal infeasibility certificate: [A]<sup>T</sup>&delta;[Y] == 0 and [U]<sup>T</sup>max(&delta;[Y],0)
+     * + [L]<sup>T</sup>min(&delta;[Y],0) &lt; 0
+     */
+    private boolean isPrimalInfeasible() {
+
+        final double[] dy = myDY;
+
+        for (int i = 0; i < dy.length; i++) {
+            if (myUppers[i] == POSITIVE_INFINITY) {
+                dy[i] = Math.min(dy[i], ZERO);
+            }
+            if (myLowers[i] == NEGATIVE_INFINITY) {
+                dy[i] = Math.max(dy[i], ZERO);
+            }
+        }
+
+        final double norm = ADMMSolver.infinityNorm(dy);
+        if (norm <= MACHINE_EPSILON) {
+            return false;
+        }
+
+        double support = ZERO;
+        for (int i = 0; i < dy.length; i++) {
+            if (dy[i] > ZERO) {
+                support += myUppers[i] * dy[i];
+            } else if (dy[i] < ZERO) {
+                support += myLowers[i] * dy[i];
+            }
+        }
+        if (support >= -INFEASIBILITY * norm) {
+            return false;
+        }
+
+        this.multiplyTransposed(dy, myATY);
+
+        return ADMMSolver.infinityNorm(myATY) <= INFEASIBILITY * norm;
+    }
+
+    /**
+     * Dual infeasibility (unboundedness) certificate: [Q]&delta;[X] == 0, -[C]<sup>T</sup>&delta;[X] &lt; 0
+     * and [A]&delta;[X] in the recession cone of the constraints
+     */
+    private boolean isUnbounded() {
+
+        final double[] dx = myDX;
+
+        final double norm = ADMMSolver.infinityNorm(dx);
+        if (norm <= MACHINE_EPSILON) {
+            return false;
+        }
+        final double limit = INFEASIBILITY * norm;
+
+        double slope = ZERO;
+        for (int j = 0; j < dx.length; j++) {
+            slope += myLinear[j] * dx[j];
+        }
+        if (slope >= -limit) {
+            return false;
+        }
+
+        this.multiplyQ(dx, myQX);
+        if (ADMMSolver.infinityNorm(myQX) > limit) {
+            return false;
+        }
+
+        this.multiply(dx, myAX);
+        for (int i = 0; i < myAX.length; i++) {
+            if (((myUppers[i] != POSITIVE_INFINITY) && (myAX[i] > limit)) || ((myLowers[i] != NEGATIVE_INFINITY) && (myAX[i] < -limit))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * [A][X]
+     */
+    private void multiply(final double[] x, final double[] result) {
+        for (int i = 0; i < result.length; i++) {
+            double sum = ZERO;
+            for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++) {
+                sum += myElements[k] * x[myColumns[k]];
+            }
+            result[i] = sum;
+        }
+    }
+
+    private void multiplyQ(final double[] x, final double[] result) {
+        for (int j = 0; j < result.length; j++) {
+            result[j] = myHessianDiagonal[j] * x[j];
+        }
+        for (int h = 0; h < myHessianRows.length; h++) {
+            final int row = myHessianRows[h];
+            final int col = myHessianColumns[h];
+            result[row] += myHessianValues[h] * x[col];
+            result[col] += myHessianValues[h] * x[row];
+        }
+    }
+
+    /**
+     * [A]<sup>T</sup>[Y]
+     */
+    private void multiplyTransposed(final double[] y, final double[] result) {
+        for (int j = 0; j < result.length; j++) {
+            result[j] = ZERO;
+        }
+        for (int i = 0; i < y.length; i++) {
+            final double value = y[i];
+            if (value != ZERO) {
+                for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++) {
+                    result[myColumns[k]] += myElements[k] * value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Equality constraints get a larger &rho; than inequalities (they are always active).
+     */
+    private double rho(final int row) {
+        return row < myNumberOfEqualities ? EQUALITY * myRho : myRho;
+    }
+
+    @Override
+    protected MatrixStore<Double> extractSolution() {
+
+        final PhysicalStore<Double> solution = this.getSolutionX();
+        for (int j = 0; j < myX.length; j++) {
+            solution.set(j, myX[j]);
+        }
+
+        return super.extractSolution();
+    }
+
+    /**
+     * The KKT system is factorised in sparse form; this is the unconstrained part of it
+     */
+    @Override
+    protected MatrixStore<Double> getIterationKKT() {
+        return this.getMatrixQ();
+    }
+
+    @Override
+    protected MatrixStore<Double> getIterationRHS() {
+        return this.getMatrixC();
+    }
+
+    @Override
+    protected boolean initialise(final Result kickStarter) {
+
+        final int numbVars = myX.length;
+        final int numbEqus = myNumberOfEqualities;
+
+        final MatrixStore<Double> mtrxC = this.getMatrixC();
+        for (int j = 0; j < numbVars; j++) {
+            myLinear[j] = -mtrxC.doubleValue(j);
+        }
+        for (int i = 0; i < numbEqus; i++) {
+            myLowers[i] = myUppers[i] = this.getMatrixBE().doubleValue(i);
+        }
+        for (int i = numbEqus; i < myUppers.length; i++) {
+            myLowers[i] = NEGATIVE_INFINITY;
+            myUppers[i] = this.getMatrixBI(i - numbEqus);
+        }
+
+        if (!myFactorised) {
+            this.factorise();
+        }
+
+        if ((kickStarter != null) && kickStarter.getState().isApproximate() && (kickStarter.count() == numbVars)) {
+            for (int j = 0; j < numbVars; j++) {
+                myX[j] = kickStarter.doubleValue(j);
+            }
+            this.multiply(myX, myZ);
+            for (int i = 0; i < myZ.length; i++) {
+                myZ[i] = Math.min(Math.max(myZ[i], myLowers[i]), myUppers[i]);
+            }
+        } else if (!myWarm) {
+            for (int j = 0; j < numbVars; j++) {
+                myX[j] = ZERO;
+            }
+            for (int i = 0; i < myZ.length; i++) {
+                myY[i] = ZERO;
+                myZ[i] = ZERO;
+            }
+        }
+        // Otherwise warm start from the previous solution
+
+        myWarm = true;
+
+        this.setState(State.APPROXIMATE);
+
+        return true;
+    }
+
+    @Override
+    protected boolean needsAnotherIteration() {
+
+        final int iterations = this.countIterations();
+
+        if ((iterations % CHECK) != 0) {
+            return true;
+        }
+
+        final double tolerance = options.convex_tolerance;
+
+        this.multiply(myX, myAX);
+        this.multiplyQ(myX, myQX);
+        this.multiplyTransposed(myY, myATY);
+
+        double residualPrimal = ZERO;
+        double scalePrimal = ZERO;
+        for (int i = 0; i < myAX.length; i++) {
+            residualPrimal = Math.max(residualPrimal, Math.abs(myAX[i] - myZ[i]));
+            scalePrimal = Math.max(scalePrimal, Math.max(Math.abs(myAX[i]), Math.abs(myZ[i])));
+        }
+
+        double residualDual = ZERO;
+        double scaleDual = ZERO;
+        for (int j = 0; j < myX.length; j++) {
+            residualDual = Math.max(residualDual, Math.abs(myQX[j] + myLinear[j] + myATY[j]));
+            scaleDual = Math.max(scaleDual, Math.max(Math.abs(myQX[j]), Math.max(Math.abs(myATY[j]), Math.abs(myLinear[j]))));
+        }
+
+        if ((residualPrimal <= (tolerance + (tolerance * scalePrimal))) && (residualDual <= (tolerance + (tolerance * scaleDual)))) {
+            this.setState(State.OPTIMAL);
+            return false;
+        }
+
+        if (this.isPrimalInfeasible()) {
+            this.setState(State.INFEASIBLE);
+            return false;
+        }
+
+        if (this.isUnbounded()) {
+            this.setState(State.UNBOUNDED);
+            return false;
+        }
+
+        if (iterations >= ITERATIONS) {
+            if (this.isDebug()) {
+                this.log("ADMM: no convergence after {} iterations", iterations);
+            }
+            return false;
+        }
+
+        // Adapt the step size to balance the (relative) residuals
+        final double ratio = (residualPrimal / Math.max(scalePrimal, MACHINE_EPSILON)) / (residualDual / Math.max(scaleDual, MACHINE_EPSILON));
+        final double rho = Math.min(Math.max(myRho * Math.sqrt(ratio), RHO_MIN), RHO_MAX);
+        if ((rho > (FIVE * myRho)) || ((FIVE * rho) < myRho)) {
+            myRho = rho;
+            this.factorise();
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void performIteration() {
+
+        final int numbVars = myX.length;
+        final double[] work = myWork;
+
+        for (int j = 0; j < numbVars; j++) {
+            work[j] = (SIGMA * myX[j]) - myLinear[j];
+        }
+        for (int i = 0; i < myZ.length; i++) {
+            work[numbVars + i] = myZ[i] - (myY[i] / this.rho(i));
+        }
+
+        myKKT.solve(work);
+
+        for (int j = 0; j < numbVars; j++) {
+            final double x = (ALPHA * work[j]) + ((ONE - ALPHA) * myX[j]);
+            myDX[j] = x - myX[j];
+            myX[j] = x;
+        }
+
+        for (int i = 0; i < myZ.length; i++) {
+            final double rho = this.rho(i);
+            final double tilde = myZ[i] + ((work[numbVars + i] - myY[i]) / rho);
+            final double relaxed = (ALPHA * tilde) + ((ONE - ALPHA) * myZ[i]);
+            final double z = Math.min(Math.max(relaxed + (myY[i] / rho), myLowers[i]), myUppers[i]);
+            final double y = myY[i] + (rho * (relaxed - z));
+            myDY[i] = y - myY[i];
+            myY[i] = y;
+            myZ[i] = z;
+        }
+    }
+
+}
@@ -0,0 +1,805 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.GenericSolver;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D.IntRowColumn;
+
+/**
+ * Primal-dual (infeasible start) interior point method, with Mehrotra's predictor-corrector, for large sparse
+ * convex QP:s. Unlike the {@link ConvexSolver} subclasses it never forms any dense matrices - the problem is
+ * taken directly from the {@link ExpressionsBasedModel}, and each iteration solves the (regularised,
+ * quasi-definite) augmented KKT system
+ * <p>
+ * [-([Q] + [D] + &rho;[I]) [A]<sup>T</sup>]<br>
+ * [[A] &delta;[I]]
+ * </p>
+ * using a sparse [L][D][L]<sup>T</sup> factorisation ({@link SparseLDL}), followed by iterative refinement
+ * against the unregularised system.
+ * <p>
+ * The model's constraints become the rows of [A]. Inequality constraints get a slack variable each, with the
+ * constraint's limits, and all variable limits are handled implicitly (with a dual variable per finite limit).
+ * <p>
+ * Convex (quadratic objective, linear constraints) models with at least
+ * {@link Optimisation.Options#convex_interior} variables are solved with this solver - by default none are,
+ * it has to be opted in to. If it doesn't converge,
+ * which is also the case with infeasible or unbounded problems, the model is instead (re)solved using the
+ * {@link ConvexSolver} builder.
+ *
+ * @author apete
+ */
+public final class ConvexInteriorPointSolver extends GenericSolver {
+
+    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<ConvexInteriorPointSolver> {
+
+        public ConvexInteriorPointSolver build(final ExpressionsBasedModel model) {
+            return new ConvexInteriorPointSolver(model, model.options);
+        }
+
+        public boolean isCapable(final ExpressionsBasedModel model) {
+            return !model.isAnyVariableInteger() && model.isAnyObjectiveQuadratic() && !model.isAnyConstraintQuadratic()
+                    && (model.options.convex_algorithm != ConvexSolver.Algorithm.ADMM) && (model.countVariables() >= model.options.convex_interior);
+        }
+
+        @Override
+        protected boolean isSolutionMapped() {
+            return true;
+        }
+
+    }
+
+    /**
+     * Any (primal or dual) variable larger than this, and the method is considered to diverge
+     */
+    private static final double DIVERGENCE = 1E30;
+    private static final int ITERATIONS = 200;
+    private static final int REFINEMENTS = 2;
+    private static final double REGULARISATION = 1E-9;
+    private static final double STEP = 0.99995;
+    private static final double TOLERANCE = 1E-9;
+
+    private static double step(final double[] values, final double[] directions, final boolean[] included, final double step) {
+        double retVal = step;
+        for (int j = 0; j < values.length; j++) {
+            if (included[j] && (directions[j] < ZERO)) {
+                retVal = Math.min(retVal, -values[j] / directions[j]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * [A] by row, in compressed form
+     */
+    private final int[] myColumns;
+    private final double[] myComplementarityV;
+    private final double[] myComplementarityZ;
+    private final double[] myCosts;
+    private final double[] myDV;
+    private final double[] myDW;
+    private final double[] myDX;
+    private final double[] myDY;
+    private final double[] myDZ;
+    private final double[] myElements;
+    /**
+     * The KKT matrix entries: the diagonal, then the off-diagonal elements of [Q], then the elements of [A]
+     */
+    private final double[] myEntries;
+    private final boolean[] myHasLower;
+    private final boolean[] myHasUpper;
+    /**
+     * The off-diagonal elements of [Q] (each representing 2 symmetric elements)
+     */
+    private final int[] myHessianColumns;
+    private final double[] myHessianDiagonal;
+    private final int[] myHessianRows;
+    private final double[] myHessianValues;
+    private final SparseLDL myKKT;
+    private final double[] myLowers;
+    private final ExpressionsBasedModel myModel;
+    private double myMu = ZERO;
+    private int myNumberOfPairs = 0;
+    private final int myNumberOfVariables;
+    private final double[] myReducedResiduals;
+    private final double[] myResidualsB;
+    private final double[] myResidualsC;
+    private final double[] myResidualsU;
+    private final double[] myRHS;
+    private final int[] myRowPointers;
+    private final double[] mySlacksS;
+    private final double[] mySlacksW;
+    private final double[] mySolution;
+    private final double[] myTheta;
+    private final double[] myUppers;
+    private final double[] myV;
+    private final double[] myWork;
+    private final double[] myX;
+    private final double[] myY;
+    private final double[] myZ;
+
+    ConvexInteriorPointSolver(final ExpressionsBasedModel model, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        myModel = model;
+
+        final List<Variable> freeVariables = model.getFreeVariables();
+        final Set<IntIndex> fixedVariables = model.getFixedVariables();
+
+        final int numbModelVars = freeVariables.size();
+        myNumberOfVariables = numbModelVars;
+
+        final List<Expression> constraints = model.constraints().map(c -> c.compensate(fixedVariables)).collect(Collectors.toList());
+        final int numbConstr = constraints.size();
+
+        int numbSlacks = 0;
+        for (final Expression constraint : constraints) {
+            if (!constraint.isEqualityConstraint()) {
+                numbSlacks++;
+            }
+        }
+        final int numbVars = numbModelVars + numbSlacks;
+
+        myCosts = new double[numbVars];
+        myLowers = new double[numbVars];
+        myUppers = new double[numbVars];
+        myRHS = new double[numbConstr];
+
+        for (int j = 0; j < numbModelVars; j++) {
+            final Variable variable = freeVariables.get(j);
+            myLowers[j] = variable.getUnadjustedLowerLimit();
+            myUppers[j] = variable.getUnadjustedUpperLimit();
+        }
+
+        myRowPointers = new int[numbConstr + 1];
+        for (int i = 0; i < numbConstr; i++) {
+            final Expression constraint = constraints.get(i);
+            myRowPointers[i + 1] = myRowPointers[i] + constraint.getLinearKeySet().size() + (constraint.isEqualityConstraint() ? 0 : 1);
+        }
+        myColumns = new int[myRowPointers[numbConstr]];
+        myElements = new double[myRowPointers[numbConstr]];
+        int element = 0;
+        int slack = numbModelVars;
+        for (int i = 0; i < numbConstr; i++) {
+            final Expression constraint = constraints.get(i);
+            for (final IntIndex key : constraint.getLinearKeySet()) {
+                myColumns[element] = model.indexOfFreeVariable(key.index);
+                myElements[element++] = constraint.getAdjustedLinearFactor(key);
+            }
+            if (constraint.isEqualityConstraint()) {
+                myRHS[i] = constraint.getAdjustedUpperLimit();
+            } else {
+                myColumns[element] = slack;
+                myElements[element++] = NEG;
+                myLowers[slack] = constraint.getAdjustedLowerLimit();
+                myUppers[slack] = constraint.getAdjustedUpperLimit();
+                slack++;
+            }
+        }
+
+        final Expression objective = model.objective().compensate(fixedVariables);
+        final double sign = model.isMaximisation() ? NEG : ONE;
+
+        for (final IntIndex key : objective.getLinearKeySet()) {
+            final int index = model.indexOfFreeVariable(key.index);
+            if (index >= 0) {
+                myCosts[index] = sign * objective.getAdjustedLinearFactor(key);
+            }
+        }
+
+        myHessianDiagonal = new double[numbVars];
+        final List<IntRowColumn> offDiagonal = new ArrayList<>();
+        final List<Double> offDiagonalValues = new ArrayList<>();
+        for (final IntRowColumn key : objective.getQuadraticKeySet()) {
+            final int row = model.indexOfFreeVariable(key.row);
+            final int col = model.indexOfFreeVariable(key.column);
+            if ((row >= 0) && (col >= 0)) {
+                final double factor = sign * objective.getAdjustedQuadraticFactor(key);
+                if (row == col) {
+                    myHessianDiagonal[row] += TWO * factor;
+                } else {
+                    offDiagonal.add(new IntRowColumn(Math.max(row, col), Math.min(row, col)));
+                    offDiagonalValues.add(factor);
+                }
+            }
+        }
+        myHessianRows = new int[offDiagonal.size()];
+        myHessianColumns = new int[offDiagonal.size()];
+        myHessianValues = new double[offDiagonal.size()];
+        for (int h = 0; h < myHessianRows.length; h++) {
+            myHessianRows[h] = offDiagonal.get(h).row;
+            myHessianColumns[h] = offDiagonal.get(h).column;
+            myHessianValues[h] = offDiagonalValues.get(h);
+        }
+
+        final int dim = numbVars + numbConstr;
+        final int numbEntries = dim + myHessianRows.length + myColumns.length;
+        final int[] entryRows = new int[numbEntries];
+        final int[] entryColumns = new int[numbEntries];
+        int entry = 0;
+        for (int d = 0; d < dim; d++, entry++) {
+            entryRows[entry] = d;
+            entryColumns[entry] = d;
+        }
+        for (int h = 0; h < myHessianRows.length; h++, entry++) {
+            entryRows[entry] = myHessianRows[h];
+            entryColumns[entry] = myHessianColumns[h];
+        }
+        for (int i = 0; i < numbConstr; i++) {
+            for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++, entry++) {
+                entryRows[entry] = numbVars + i;
+                entryColumns[entry] = myColumns[k];
+            }
+        }
+        myEntries = new double[numbEntries];
+        myKKT = new SparseLDL(dim, entryRows, entryColumns);
+
+        myHasLower = new boolean[numbVars];
+        myHasUpper = new boolean[numbVars];
+
+        myX = new double[numbVars];
+        mySlacksS = new double[numbVars];
+        mySlacksW = new double[numbVars];
+        myY = new double[numbConstr];
+        myZ = new double[numbVars];
+        myV = new double[numbVars];
+
+        myDX = new double[numbVars];
+        myDW = new double[numbVars];
+        myDY = new double[numbConstr];
+        myDZ = new double[numbVars];
+        myDV = new double[numbVars];
+
+        myResidualsB = new double[numbConstr];
+        myResidualsC = new double[numbVars];
+        myResidualsU = new double[numbVars];
+        myComplementarityZ = new double[numbVars];
+        myComplementarityV = new double[numbVars];
+        myReducedResiduals = new double[numbVars];
+        myTheta = new double[numbVars];
+
+        mySolution = new double[dim];
+        myWork = new double[dim];
+    }
+
+    public Optimisation.Result solve(final Optimisation.Result kickStarter) {
+
+        final Optimisation.Result result = this.solveWithoutFallback(kickStarter);
+
+        if (result.getState().isOptimal()) {
+            return result;
+        }
+
+        if (this.isDebug()) {
+            this.log("No convergence after {} iterations - switching to the active set solver", this.countIterations());
+        }
+
+        final ConvexSolver.Builder builder = ConvexSolver.getBuilder();
+        ConvexSolver.copy(myModel, builder);
+        return builder.build(options).solve(kickStarter);
+    }
+
+    /**
+     * Residuals, and the average complementarity product &mu;
+     */
+    private void calculateResiduals() {
+
+        final int numbVars = myX.length;
+
+        this.multiplyA(myX, myResidualsB);
+        for (int i = 0; i < myResidualsB.length; i++) {
+            myResidualsB[i] = myRHS[i] - myResidualsB[i];
+        }
+
+        this.multiplyQ(myX, myResidualsC);
+        this.multiplyAt(myY, myWork);
+
+        double complementarity = ZERO;
+
+        for (int j = 0; j < numbVars; j++) {
+            myResidualsC[j] += myCosts[j] - myWork[j];
+            if (myHasLower[j]) {
+                myResidualsC[j] -= myZ[j];
+                complementarity += mySlacksS[j] * myZ[j];
+            }
+            if (myHasUpper[j]) {
+                myResidualsC[j] += myV[j];
+                myResidualsU[j] = myUppers[j] - myX[j] - mySlacksW[j];
+                complementarity += mySlacksW[j] * myV[j];
+            }
+        }
+
+        myMu = myNumberOfPairs > 0 ? complementarity / myNumberOfPairs : ZERO;
+    }
+
+    /**
+     * Solves for the search direction, given the complementarity (right hand side) terms
+     */
+    private void direction() {
+
+        final int numbVars = myX.length;
+
+        for (int j = 0; j < numbVars; j++) {
+            double reduced = myResidualsC[j];
+            if (myHasLower[j]) {
+                reduced -= myComplementarityZ[j] / mySlacksS[j];
+            }
+            if (myHasUpper[j]) {
+                reduced += (myComplementarityV[j] - (myV[j] * myResidualsU[j])) / mySlacksW[j];
+            }
+            myReducedResiduals[j] = reduced;
+        }
+
+        this.solveKKT(myReducedResiduals, myResidualsB, myDX, myDY, true);
+
+        for (int j = 0; j < numbVars; j++) {
+            final double dx = myDX[j];
+            if (myHasLower[j]) {
+                myDZ[j] = (myComplementarityZ[j] - (myZ[j] * dx)) / mySlacksS[j];
+            }
+            if (myHasUpper[j]) {
+                final double dw = myResidualsU[j] - dx;
+                myDW[j] = dw;
+                myDV[j] = (myComplementarityV[j] - (myV[j] * dw)) / mySlacksW[j];
+            }
+        }
+    }
+
+    /**
+     * Factorise the regularised KKT matrix, with [D] = [&Theta;]<sup>-1</sup>
+     *
+     * @param hessian Include [Q], or not
+     */
+    private void factorise(final boolean hessian) {
+
+        final int numbVars = myX.length;
+        final int numbConstr = myY.length;
+
+        int entry = 0;
+        for (int j = 0; j < numbVars; j++, entry++) {
+            myEntries[entry] = -((hessian ? myHessianDiagonal[j] : ZERO) + myTheta[j] + REGULARISATION);
+        }
+        for (int i = 0; i < numbConstr; i++, entry++) {
+            myEntries[entry] = REGULARISATION;
+        }
+        for (int h = 0; h < myHessianValues.length; h++, entry++) {
+            myEntries[entry] = hessian ? -myHessianValues[h] : ZERO;
+        }
+        System.arraycopy(myElements, 0, myEntries, entry, myElements.length);
+
+        myKKT.factorise(myEntries);
+    }
+
+    private boolean isConverged() {
+
+        double normB = ZERO;
+        double residualB = ZERO;
+        for (int i = 0; i < myResidualsB.length; i++) {
+            normB = Math.max(normB, Math.abs(myRHS[i]));
+            residualB = Math.max(residualB, Math.abs(myResidualsB[i]));
+        }
+
+        double normC = ZERO;
+        double normU = ZERO;
+        double residualC = ZERO;
+        double residualU = ZERO;
+        for (int j = 0; j < myX.length; j++) {
+            normC = Math.max(normC, Math.abs(myCosts[j]));
+            residualC = Math.max(residualC, Math.abs(myResidualsC[j]));
+            if (myHasUpper[j]) {
+                normU = Math.max(normU, Math.abs(myUppers[j]));
+                residualU = Math.max(residualU, Math.abs(myResidualsU[j]));
+            }
+        }
+
+        final double objective = this.objective(myX);
+
+        final double primal = Math.max(residualB / (ONE + normB), residualU / (ONE + normU));
+        final double dual = residualC / (ONE + normC);
+        final double gap = (myMu * myNumberOfPairs) / (ONE + Math.abs(objective));
+
+        if (this.isDebug()) {
+            this.log("Iteration {}: primal {}, dual {}, gap {}, objective {}", this.countIterations(), primal, dual, gap, objective);
+        }
+
+        return (primal <= TOLERANCE) && (dual <= TOLERANCE) && (gap <= TOLERANCE);
+    }
+
+    private boolean isDiverging() {
+        for (int j = 0; j < myX.length; j++) {
+            if (!(Math.abs(myX[j]) < DIVERGENCE) || !(Math.abs(myZ[j]) < DIVERGENCE) || !(Math.abs(myV[j]) < DIVERGENCE)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < myY.length; i++) {
+            if (!(Math.abs(myY[i]) < DIVERGENCE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mehrotra's starting point: least squares (minimum norm) solutions to the primal and dual equality
+     * constraints, shifted to be (sufficiently) positive.
+     */
+    private void initialise() {
+
+        final int numbVars = myX.length;
+
+        myNumberOfPairs = 0;
+        for (int j = 0; j < numbVars; j++) {
+            myHasLower[j] = !Double.isInfinite(myLowers[j]);
+            myHasUpper[j] = !Double.isInfinite(myUppers[j]);
+            myNumberOfPairs += (myHasLower[j] ? 1 : 0) + (myHasUpper[j] ? 1 : 0);
+            myX[j] = myHasLower[j] ? myLowers[j] : (myHasUpper[j] ? myUppers[j] : ZERO);
+        }
+
+        // Without [Q] and with [D] = [I] the KKT system gives the least squares solutions
+        Arrays.fill(myTheta, ONE);
+        this.factorise(false);
+
+        this.multiplyA(myX, myResidualsB);
+        for (int i = 0; i < myResidualsB.length; i++) {
+            myResidualsB[i] = myRHS[i] - myResidualsB[i];
+        }
+        Arrays.fill(myReducedResiduals, ZERO);
+        this.solveKKT(myReducedResiduals, myResidualsB, myDX, myDY, false);
+        for (int j = 0; j < numbVars; j++) {
+            myX[j] += myDX[j];
+        }
+
+        this.multiplyQ(myX, myReducedResiduals);
+        for (int j = 0; j < numbVars; j++) {
+            myReducedResiduals[j] += myCosts[j];
+        }
+        Arrays.fill(myResidualsB, ZERO);
+        this.solveKKT(myReducedResiduals, myResidualsB, myDX, myY, false);
+
+        double primalShift = ZERO;
+        double dualShift = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            // The reduced cost, [c] + [Q][x] - [A]<sup>T</sup>[y]
+            final double reduced = -myDX[j];
+            myZ[j] = ZERO;
+            myV[j] = ZERO;
+            if (myHasLower[j]) {
+                mySlacksS[j] = myX[j] - myLowers[j];
+                primalShift = Math.min(primalShift, mySlacksS[j]);
+                myZ[j] = myHasUpper[j] ? Math.max(reduced, ZERO) : reduced;
+                dualShift = Math.min(dualShift, myZ[j]);
+            }
+            if (myHasUpper[j]) {
+                mySlacksW[j] = myUppers[j] - myX[j];
+                primalShift = Math.min(primalShift, mySlacksW[j]);
+                myV[j] = myHasLower[j] ? Math.max(-reduced, ZERO) : -reduced;
+                dualShift = Math.min(dualShift, myV[j]);
+            }
+        }
+        primalShift *= -1.5;
+        dualShift *= -1.5;
+
+        double complementarity = ZERO;
+        double sumPrimal = ZERO;
+        double sumDual = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (myHasLower[j]) {
+                final double s = mySlacksS[j] + primalShift;
+                final double z = myZ[j] + dualShift;
+                complementarity += s * z;
+                sumPrimal += s;
+                sumDual += z;
+            }
+            if (myHasUpper[j]) {
+                final double w = mySlacksW[j] + primalShift;
+                final double v = myV[j] + dualShift;
+                complementarity += w * v;
+                sumPrimal += w;
+                sumDual += v;
+            }
+        }
+        if (complementarity > ZERO) {
+            primalShift += HALF * (complementarity / sumDual);
+            dualShift += HALF * (complementarity / sumPrimal);
+        }
+        if (!(primalShift > ZERO)) {
+            primalShift = ONE;
+        }
+        if (!(dualShift > ZERO)) {
+            dualShift = ONE;
+        }
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myHasLower[j]) {
+                mySlacksS[j] += primalShift;
+                myX[j] = myLowers[j] + mySlacksS[j];
+                myZ[j] += dualShift;
+            }
+            if (myHasUpper[j]) {
+                mySlacksW[j] += primalShift;
+                myV[j] += dualShift;
+            }
+        }
+    }
+
+    /**
+     * [A][x]
+     */
+    private void multiplyA(final double[] x, final double[] result) {
+        for (int i = 0; i < myY.length; i++) {
+            double value = ZERO;
+            for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++) {
+                value += myElements[k] * x[myColumns[k]];
+            }
+            result[i] = value;
+        }
+    }
+
+    /**
+     * [A]<sup>T</sup>[y]
+     */
+    private void multiplyAt(final double[] y, final double[] result) {
+        Arrays.fill(result, 0, myX.length, ZERO);
+        for (int i = 0; i < y.length; i++) {
+            final double value = y[i];
+            if (value != ZERO) {
+                for (int k = myRowPointers[i]; k < myRowPointers[i + 1]; k++) {
+                    result[myColumns[k]] += myElements[k] * value;
+                }
+            }
+        }
+    }
+
+    /**
+     * [Q][x]
+     */
+    private void multiplyQ(final double[] x, final double[] result) {
+        for (int j = 0; j < myX.length; j++) {
+            result[j] = myHessianDiagonal[j] * x[j];
+        }
+        for (int h = 0; h < myHessianValues.length; h++) {
+            final int row = myHessianRows[h];
+            final int col = myHessianColumns[h];
+            result[row] += myHessianValues[h] * x[col];
+            result[col] += myHessianValues[h] * x[row];
+        }
+    }
+
+    private boolean needsAnotherIteration() {
+
+        this.calculateResiduals();
+
+        if (this.isConverged()) {
+            this.setState(State.OPTIMAL);
+            return false;
+        }
+
+        if (!this.isIterationAllowed() || (this.countIterations() >= ITERATIONS) || this.isDiverging()) {
+            this.setState(State.FAILED);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 1/2 [x]<sup>T</sup>[Q][x] + [c]<sup>T</sup>[x]
+     */
+    private double objective(final double[] x) {
+        double retVal = ZERO;
+        for (int j = 0; j < x.length; j++) {
+            retVal += ((HALF * myHessianDiagonal[j] * x[j]) + myCosts[j]) * x[j];
+        }
+        for (int h = 0; h < myHessianValues.length; h++) {
+            retVal += myHessianValues[h] * x[myHessianRows[h]] * x[myHessianColumns[h]];
+        }
+        return retVal;
+    }
+
+    /**
+     * Mehrotra's predictor-corrector step. With a quadratic objective the primal and dual step lengths are the
+     * same.
+     */
+    private void performIteration() {
+
+        final int numbVars = myX.length;
+
+        for (int j = 0; j < numbVars; j++) {
+            double inverse = ZERO;
+            if (myHasLower[j]) {
+                inverse += myZ[j] / mySlacksS[j];
+            }
+            if (myHasUpper[j]) {
+                inverse += myV[j] / mySlacksW[j];
+            }
+            myTheta[j] = inverse;
+        }
+        this.factorise(true);
+
+        // Predictor (affine scaling) direction
+
+        for (int j = 0; j < numbVars; j++) {
+            myComplementarityZ[j] = -mySlacksS[j] * myZ[j];
+            myComplementarityV[j] = -mySlacksW[j] * myV[j];
+        }
+        this.direction();
+
+        final double affine = Math.min(this.stepPrimal(ONE), this.stepDual(ONE));
+
+        double complementarity = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (myHasLower[j]) {
+                complementarity += (mySlacksS[j] + (affine * myDX[j])) * (myZ[j] + (affine * myDZ[j]));
+            }
+            if (myHasUpper[j]) {
+                complementarity += (mySlacksW[j] + (affine * myDW[j])) * (myV[j] + (affine * myDV[j]));
+            }
+        }
+        final double ratio = complementarity / (myNumberOfPairs * myMu);
+        final double target = ratio * ratio * ratio * myMu;
+
+        // Corrector (and centering) direction
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myHasLower[j]) {
+                myComplementarityZ[j] = target - (mySlacksS[j] * myZ[j]) - (myDX[j] * myDZ[j]);
+            }
+            if (myHasUpper[j]) {
+                myComplementarityV[j] = target - (mySlacksW[j] * myV[j]) - (myDW[j] * myDV[j]);
+            }
+        }
+        this.direction();
+
+        final double step = STEP * Math.min(this.stepPrimal(ONE / STEP), this.stepDual(ONE / STEP));
+
+        for (int j = 0; j < numbVars; j++) {
+            myX[j] += step * myDX[j];
+            if (myHasLower[j]) {
+                mySlacksS[j] = myX[j] - myLowers[j];
+                myZ[j] += step * myDZ[j];
+            }
+            if (myHasUpper[j]) {
+                mySlacksW[j] += step * myDW[j];
+                myV[j] += step * myDV[j];
+            }
+        }
+        for (int i = 0; i < myY.length; i++) {
+            myY[i] += step * myDY[i];
+        }
+    }
+
+    /**
+     * Solve the KKT system, using the current factorisation and iterative refinement. The unregularised
+     * system is
+     * <p>
+     * -([Q] + [D])[dx] + [A]<sup>T</sup>[dy] = [r]<br>
+     * [A][dx] = [b]
+     * </p>
+     *
+     * @param hessian Include [Q], or not - must match the factorisation
+     */
+    private void solveKKT(final double[] r, final double[] b, final double[] dx, final double[] dy, final boolean hessian) {
+
+        final int numbVars = myX.length;
+        final int numbConstr = myY.length;
+
+        final double[] solution = mySolution;
+
+        System.arraycopy(r, 0, solution, 0, numbVars);
+        System.arraycopy(b, 0, solution, numbVars, numbConstr);
+        myKKT.solve(solution);
+        System.arraycopy(solution, 0, dx, 0, numbVars);
+        System.arraycopy(solution, numbVars, dy, 0, numbConstr);
+
+        for (int refinement = 0; refinement < REFINEMENTS; refinement++) {
+
+            // The residual of the unregularised system
+            if (hessian) {
+                this.multiplyQ(dx, solution);
+            } else {
+                Arrays.fill(solution, 0, numbVars, ZERO);
+            }
+            this.multiplyAt(dy, myWork);
+            for (int j = 0; j < numbVars; j++) {
+                solution[j] = r[j] + solution[j] + (myTheta[j] * dx[j]) - myWork[j];
+            }
+            this.multiplyA(dx, myWork);
+            for (int i = 0; i < numbConstr; i++) {
+                solution[numbVars + i] = b[i] - myWork[i];
+            }
+
+            myKKT.solve(solution);
+            for (int j = 0; j < numbVars; j++) {
+                dx[j] += solution[j];
+            }
+            for (int i = 0; i < numbConstr; i++) {
+                dy[i] += solution[numbVars + i];
+            }
+        }
+    }
+
+    private double stepDual(final double step) {
+        return Math.min(ConvexInteriorPointSolver.step(myZ, myDZ, myHasLower, step), ConvexInteriorPointSolver.step(myV, myDV, myHasUpper, step));
+    }
+
+    private double stepPrimal(final double step) {
+        return Math.min(ConvexInteriorPointSolver.step(mySlacksS, myDX, myHasLower, step), ConvexInteriorPointSolver.step(mySlacksW, myDW, myHasUpper, step));
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        final double[] x = new double[myX.length];
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            x[j] = solution.doubleValue(j);
+        }
+        return this.objective(x);
+    }
+
+    @Override
+    protected MatrixStore<Double> extractSolution() {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(myNumberOfVariables, 1);
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            retVal.set(j, Math.min(Math.max(myX[j], myLowers[j]), myUppers[j]));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The interior point iterations only - if they don't converge the returned state is not optimal, and the
+     * problem is not (re)solved using the active set solver.
+     */
+    Optimisation.Result solveWithoutFallback(final Optimisation.Result kickStarter) {
+
+        this.resetIterationsCount();
+
+        this.initialise();
+
+        while (this.needsAnotherIteration()) {
+
+            this.performIteration();
+
+            this.incrementIterationsCount();
+        }
+
+        return this.buildResult();
+    }
+
+}
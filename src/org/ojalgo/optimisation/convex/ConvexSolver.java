@@ -91,6 +91,22 @@ import org.ojalgo.type.context.NumberContext;
  */
 public abstract class ConvexSolver extends GenericSolver implements UpdatableSolver {
 
+    /**
+     * @see Optimisation.Options#convex_algorithm
+     */
+    public static enum Algorithm {
+
+        /**
+         * {@link IterativeASS}, {@link QPESolver} or {@link UnconstrainedSolver} - whichever fits the problem
+         */
+        ACTIVE_SET,
+        /**
+         * {@link ADMMSolver}
+         */
+        ADMM;
+
+    }
+
     public static final class Builder extends GenericSolver.Builder<ConvexSolver.Builder, ConvexSolver> {
 
         private static final NumberContext NC = NumberContext.getGeneral(12);
@@ -419,7 +435,9 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
 
             this.validate();
 
-            if (this.hasInequalityConstraints()) {
+            if (options.convex_algorithm == Algorithm.ADMM) {
+                return new ADMMSolver(this, options);
+            } else if (this.hasInequalityConstraints()) {
                 return new IterativeASS(this, options);
             } else if (this.hasEqualityConstraints()) {
                 return new QPESolver(this, options);
@@ -26,11 +26,13 @@ import static org.ojalgo.function.PrimitiveFunction.*;
 import java.util.Arrays;
 
 import org.ojalgo.constant.PrimitiveMath;
-import org.ojalgo.matrix.store.ElementsSupplier;
 import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
 
 /**
  * Solves optimisation problems of the form:
@@ -40,16 +42,268 @@ import org.ojalgo.optimisation.Optimisation;
  * and [AI][X] &lt;= [BI]
  * </p>
  * Where [AE] and [BE] are optinal.
+ * <p>
+ * The (negated) Schur complement [A][Q]<sup>-1</sup>[A]<sup>T</sup> of the working set is kept as a
+ * Cholesky factorisation that is updated, rather than recalculated, when a constraint enters (a row is
+ * appended) or leaves (a row is removed and the factor restored using Givens rotations) the working set. The
+ * columns [Q]<sup>-1</sup>[a] are cached per constraint. That makes each iteration O(n<sup>2</sup>) rather
+ * than O(n<sup>3</sup>).
  *
  * @author apete
  */
 final class DirectASS extends ActiveSetSolver {
 
+    /**
+     * A new row of the factor with a (squared) diagonal element this small, relative to the Schur complement
+     * diagonal element, means the constraint is (close to) linearly dependent on the working set. The
+     * iteration then falls back to the full KKT system (and, if that fails, a smaller working set).
+     */
+    private static final double DEPENDENT = 1E-12;
+
+    /**
+     * [Q]<sup>-1</sup>[a] for each constraint, equalities first, calculated as needed
+     */
+    private final PrimitiveDenseStore[] myColumns;
+    /**
+     * The lower triangular Cholesky factor, by row
+     */
+    private final double[][] myFactor;
+    /**
+     * The constraints in the factor, in factor order
+     */
+    private final int[] myOrder;
+    /**
+     * Constraint index to (factor) position, or -1
+     */
+    private final int[] myPositions;
+    private int mySize = 0;
+
     DirectASS(final ConvexSolver.Builder matrices, final Optimisation.Options solverOptions) {
+
         super(matrices, solverOptions);
+
+        final int numbConstr = this.countEqualityConstraints() + this.countInequalityConstraints();
+
+        myColumns = new PrimitiveDenseStore[numbConstr];
+        myFactor = new double[numbConstr][];
+        myOrder = new int[numbConstr];
+        myPositions = new int[numbConstr];
+        Arrays.fill(myPositions, -1);
+    }
+
+    /**
+     * Append a constraint to the factor
+     *
+     * @return false if the constraint is (close to) linearly dependent on those already in the factor
+     */
+    private boolean append(final int constraint) {
+
+        final PrimitiveDenseStore column = this.getColumn(constraint);
+
+        final double[] row = new double[mySize + 1];
+
+        for (int r = 0; r < mySize; r++) {
+            double value = this.dot(myOrder[r], column);
+            final double[] factorRow = myFactor[r];
+            for (int c = 0; c < r; c++) {
+                value -= factorRow[c] * row[c];
+            }
+            row[r] = value / factorRow[r];
+        }
+
+        final double diagonal = this.dot(constraint, column);
+        double remaining = diagonal;
+        for (int c = 0; c < mySize; c++) {
+            remaining -= row[c] * row[c];
+        }
+        if (!(remaining > (DEPENDENT * diagonal))) {
+            return false;
+        }
+        row[mySize] = Math.sqrt(remaining);
+
+        myFactor[mySize] = row;
+        myOrder[mySize] = constraint;
+        myPositions[constraint] = mySize;
+        mySize++;
+
+        return true;
+    }
+
+    /**
+     * [Y] += a * [constraint body]<sup>T</sup>
+     */
+    private void axpy(final int constraint, final double a, final PrimitiveDenseStore y) {
+
+        final int numbEqus = this.countEqualityConstraints();
+
+        if (constraint < numbEqus) {
+            final MatrixStore<Double> mtrxAE = this.getMatrixAE();
+            for (int j = 0, limit = this.countVariables(); j < limit; j++) {
+                y.add(j, a * mtrxAE.doubleValue(constraint, j));
+            }
+        } else {
+            this.getMatrixAI(constraint - numbEqus).axpy(a, y);
+        }
+    }
+
+    private double dot(final int constraint, final Access1D<?> vector) {
+
+        final int numbEqus = this.countEqualityConstraints();
+
+        if (constraint < numbEqus) {
+            final MatrixStore<Double> mtrxAE = this.getMatrixAE();
+            double retVal = PrimitiveMath.ZERO;
+            for (int j = 0, limit = this.countVariables(); j < limit; j++) {
+                retVal += mtrxAE.doubleValue(constraint, j) * vector.doubleValue(j);
+            }
+            return retVal;
+        } else {
+            return this.getMatrixAI(constraint - numbEqus).dot(vector);
+        }
+    }
+
+    private PrimitiveDenseStore getColumn(final int constraint) {
+
+        PrimitiveDenseStore retVal = myColumns[constraint];
+
+        if (retVal == null) {
+
+            final int numbEqus = this.countEqualityConstraints();
+
+            final Access1D<?> body = constraint < numbEqus ? this.getMatrixAE().sliceRow(constraint) : this.getMatrixAI(constraint - numbEqus);
+
+            retVal = PrimitiveDenseStore.FACTORY.makeZero(this.countVariables(), 1);
+            this.getSolutionQ(Access2D.newPrimitiveColumnCollectable(body), retVal);
+
+            myColumns[constraint] = retVal;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Remove a constraint from the factor. The rows below it get one element too many (above the diagonal)
+     * that is eliminated using Givens rotations of the factor's columns - [L][L]<sup>T</sup> is unchanged.
+     */
+    private void remove(final int constraint) {
+
+        final int position = myPositions[constraint];
+        myPositions[constraint] = -1;
+
+        for (int r = position; r < (mySize - 1); r++) {
+            myFactor[r] = myFactor[r + 1];
+            myOrder[r] = myOrder[r + 1];
+            myPositions[myOrder[r]] = r;
+        }
+        mySize--;
+        myFactor[mySize] = null;
+
+        for (int c = position; c < mySize; c++) {
+
+            final double a = myFactor[c][c];
+            final double b = myFactor[c][c + 1];
+            final double hypot = HYPOT.invoke(a, b);
+            final double cos = a / hypot;
+            final double sin = b / hypot;
+
+            for (int r = c; r < mySize; r++) {
+                final double[] factorRow = myFactor[r];
+                final double first = factorRow[c];
+                final double second = factorRow[c + 1];
+                factorRow[c] = (cos * first) + (sin * second);
+                factorRow[c + 1] = (cos * second) - (sin * first);
+            }
+
+            myFactor[c] = Arrays.copyOf(myFactor[c], c + 1);
+        }
+    }
+
+    private void reset() {
+        for (int r = 0; r < mySize; r++) {
+            myPositions[myOrder[r]] = -1;
+            myFactor[r] = null;
+        }
+        mySize = 0;
+    }
+
+    /**
+     * Update the factor to match the current working set, and use it to solve for the Lagrange multipliers
+     * and [X].
+     *
+     * @return false if the factor could not be updated
+     */
+    private boolean solveIncrementally(final int[] included, final PrimitiveDenseStore iterX, final PrimitiveDenseStore iterL) {
+
+        final int numbEqus = this.countEqualityConstraints();
+
+        final boolean[] wanted = new boolean[myPositions.length];
+        Arrays.fill(wanted, 0, numbEqus, true);
+        for (int i = 0; i < included.length; i++) {
+            wanted[numbEqus + included[i]] = true;
+        }
+
+        for (int r = mySize - 1; r >= 0; r--) {
+            if (!wanted[myOrder[r]]) {
+                this.remove(myOrder[r]);
+            }
+        }
+
+        for (int constraint = 0; constraint < wanted.length; constraint++) {
+            if (wanted[constraint] && (myPositions[constraint] < 0) && !this.append(constraint)) {
+                this.reset();
+                return false;
+            }
+        }
+
+        final MatrixStore<Double> invQC = this.getInvQC();
+
+        final double[] multipliers = new double[mySize];
+        for (int r = 0; r < mySize; r++) {
+            final int constraint = myOrder[r];
+            final double rhs = constraint < numbEqus ? this.getMatrixBE().doubleValue(constraint) : this.getMatrixBI(constraint - numbEqus);
+            double value = this.dot(constraint, invQC) - rhs;
+            final double[] factorRow = myFactor[r];
+            for (int c = 0; c < r; c++) {
+                value -= factorRow[c] * multipliers[c];
+            }
+            multipliers[r] = value / factorRow[r];
+        }
+        for (int r = mySize - 1; r >= 0; r--) {
+            double value = multipliers[r];
+            for (int c = r + 1; c < mySize; c++) {
+                value -= myFactor[c][r] * multipliers[c];
+            }
+            multipliers[r] = value / myFactor[r][r];
+        }
+
+        final PrimitiveDenseStore rhs = PrimitiveDenseStore.FACTORY.copy(this.getIterationC());
+        for (int r = 0; r < mySize; r++) {
+            this.axpy(myOrder[r], -multipliers[r], rhs);
+        }
+        this.getSolutionQ(rhs, iterX);
+
+        for (int i = 0; i < numbEqus; i++) {
+            iterL.set(i, multipliers[myPositions[i]]);
+        }
+        for (int i = 0; i < included.length; i++) {
+            iterL.set(numbEqus + i, multipliers[myPositions[numbEqus + included[i]]]);
+        }
+
+        return true;
+    }
+
+    @Override
+    protected boolean computeQ(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        final boolean retVal = super.computeQ(matrix);
+
+        // [Q] (may have) changed, and with it all cached columns
+        Arrays.fill(myColumns, null);
+        this.reset();
+
+        return retVal;
     }
 
-    @SuppressWarnings("deprecation")
     @Override
     protected void performIteration() {
 
@@ -83,33 +337,7 @@ final class DirectASS extends ActiveSetSolver {
             } else {
                 // Actual/normal optimisation problem
 
-                final MatrixStore<Double> iterA = this.getIterationA();
-                final MatrixStore<Double> iterB = this.getIterationB();
-                final MatrixStore<Double> iterC = this.getIterationC();
-
-                final MatrixStore<Double> tmpInvQAT = this.getSolutionQ(iterA.transpose());
-                // TODO Only 1 column change inbetween active set iterations (add or remove 1 column)
-                // BasicLogger.debug("tmpInvQAT", tmpInvQAT);
-
-                // Negated Schur complement
-                final ElementsSupplier<Double> tmpS = tmpInvQAT.premultiply(iterA);
-                // TODO Symmetric, only need to calculate half the Schur complement, and only 1 row/column changes per iteration
-
-                if (this.isDebug()) {
-                    BasicLogger.debug("Negated Schur complement: " + Arrays.toString(incl), tmpS.get());
-                }
-
-                if (solved = this.computeGeneral(tmpS)) {
-
-                    this.getSolutionGeneral(this.getInvQC().premultiply(iterA).operateOnMatching(SUBTRACT, iterB), iterL);
-
-                    if (this.isDebug()) {
-                        this.log("Relative error {} in solution for L={}", PrimitiveMath.NaN, iterL);
-                    }
-
-                    final ElementsSupplier<Double> tmpRHS = iterL.premultiply(iterA.transpose()).operateOnMatching(iterC, SUBTRACT);
-                    this.getSolutionQ(tmpRHS, iterX);
-                }
+                solved = this.solveIncrementally(incl, iterX, iterL);
             }
         }
 
@@ -0,0 +1,369 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A sparse [L][D][L]<sup>T</sup> factorisation of a symmetric matrix, without pivoting. Intended for
+ * (regularised) KKT systems that are quasi-definite - any symmetric permutation of such a matrix has a stable
+ * [L][D][L]<sup>T</sup> factorisation, with [D] diagonal and a mix of positive and negative pivots.
+ * <p>
+ * The nonzero pattern is specified once, as a list of entries (any triangle, duplicates are summed). The
+ * symbolic work - a minimum degree ordering (by explicit elimination) and the nonzero pattern of [L] - is
+ * done in the constructor. Each numeric factorisation then assembles the entry values directly in the storage
+ * of [L] and factorises it left-looking, column by column. Pivots that are (relatively) too small are
+ * replaced by huge values, with the same sign.
+ *
+ * @author apete
+ */
+final class SparseLDL {
+
+    private static final double HUGE = 1E128;
+    private static final double SINGULARITY = 1E-30;
+
+    /**
+     * Minimum degree ordering by explicit elimination. The neighbours of the node eliminated at step k, when
+     * it is eliminated, are the (off-diagonal) nonzeros of column k of [L].
+     *
+     * @param adjacency Modified (destroyed) by this method
+     * @param order Filled with the node eliminated at each step
+     * @return The (original) indices of the off-diagonal nonzeros of each column of [L]
+     */
+    private static int[][] eliminate(final int[][] adjacency, final int[] order) {
+
+        final int dim = adjacency.length;
+
+        final int[][] retVal = new int[dim][];
+
+        final boolean[] eliminated = new boolean[dim];
+        final int[] degrees = new int[dim];
+        final int[] marks = new int[dim];
+        Arrays.fill(marks, -1);
+
+        final PriorityQueue<Long> queue = new PriorityQueue<>(Math.max(1, dim));
+        for (int i = 0; i < dim; i++) {
+            degrees[i] = adjacency[i].length;
+            queue.add(SparseLDL.key(degrees[i], i));
+        }
+
+        int[] work = new int[8];
+
+        for (int k = 0; k < dim; k++) {
+
+            int p;
+            do {
+                final long key = queue.poll();
+                p = (int) key;
+                if (eliminated[p] || (degrees[p] != (int) (key >>> 32))) {
+                    p = -1;
+                }
+            } while (p < 0);
+
+            eliminated[p] = true;
+            order[k] = p;
+
+            final int[] neighbours = adjacency[p];
+            retVal[k] = neighbours;
+            adjacency[p] = null;
+
+            for (final int q : neighbours) {
+
+                int count = 0;
+                marks[q] = q;
+                for (final int r : adjacency[q]) {
+                    if (!eliminated[r] && (marks[r] != q)) {
+                        marks[r] = q;
+                        if (count == work.length) {
+                            work = Arrays.copyOf(work, count + count);
+                        }
+                        work[count++] = r;
+                    }
+                }
+                for (final int r : neighbours) {
+                    if (marks[r] != q) {
+                        marks[r] = q;
+                        if (count == work.length) {
+                            work = Arrays.copyOf(work, count + count);
+                        }
+                        work[count++] = r;
+                    }
+                }
+                marks[q] = -1;
+                for (int c = 0; c < count; c++) {
+                    marks[work[c]] = -1;
+                }
+
+                adjacency[q] = Arrays.copyOf(work, count);
+                if (degrees[q] != count) {
+                    degrees[q] = count;
+                    queue.add(SparseLDL.key(count, q));
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private static long key(final int degree, final int index) {
+        return ((long) degree << 32) | index;
+    }
+
+    private final double[] myDiagonal;
+    private final int myDim;
+    /**
+     * For each entry, its position in {@link #myValues}
+     */
+    private final int[] myEntries;
+    private final int[] myFirst;
+    private final int[] myHeads;
+    /**
+     * The nonzeros of [L], column by column. The first element of each column is the diagonal (the assembled
+     * matrix element, until it is factorised), then the off-diagonal elements in increasing (permuted) row
+     * order.
+     */
+    private final int[] myIndices;
+    private final int[] myLinks;
+    /**
+     * Original index to (permuted) position in [L]
+     */
+    private final int[] myPermutation;
+    private final double[] myPivots;
+    private final int[] myPointers;
+    private final double[] myValues;
+    private final double[] myWork;
+
+    /**
+     * @param dim The size of the (square) matrix
+     * @param rows The row indices of the entries
+     * @param columns The column indices of the entries
+     */
+    SparseLDL(final int dim, final int[] rows, final int[] columns) {
+
+        super();
+
+        myDim = dim;
+
+        final int[] counts = new int[dim];
+        for (int e = 0; e < rows.length; e++) {
+            if (rows[e] != columns[e]) {
+                counts[rows[e]]++;
+                counts[columns[e]]++;
+            }
+        }
+        final int[][] adjacency = new int[dim][];
+        for (int i = 0; i < dim; i++) {
+            adjacency[i] = new int[counts[i]];
+        }
+        Arrays.fill(counts, 0);
+        for (int e = 0; e < rows.length; e++) {
+            final int row = rows[e];
+            final int col = columns[e];
+            if (row != col) {
+                adjacency[row][counts[row]++] = col;
+                adjacency[col][counts[col]++] = row;
+            }
+        }
+        final int[] marks = new int[dim];
+        Arrays.fill(marks, -1);
+        for (int i = 0; i < dim; i++) {
+            int count = 0;
+            final int[] neighbours = adjacency[i];
+            for (final int n : neighbours) {
+                if (marks[n] != i) {
+                    marks[n] = i;
+                    neighbours[count++] = n;
+                }
+            }
+            adjacency[i] = Arrays.copyOf(neighbours, count);
+        }
+
+        final int[] order = new int[dim];
+        final int[][] columnsL = SparseLDL.eliminate(adjacency, order);
+
+        myPermutation = new int[dim];
+        for (int k = 0; k < dim; k++) {
+            myPermutation[order[k]] = k;
+        }
+
+        myPointers = new int[dim + 1];
+        for (int k = 0; k < dim; k++) {
+            myPointers[k + 1] = myPointers[k] + 1 + columnsL[k].length;
+        }
+
+        myIndices = new int[myPointers[dim]];
+        myValues = new double[myPointers[dim]];
+        for (int k = 0; k < dim; k++) {
+            final int start = myPointers[k];
+            myIndices[start] = k;
+            final int[] nonzeros = columnsL[k];
+            for (int c = 0; c < nonzeros.length; c++) {
+                myIndices[start + 1 + c] = myPermutation[nonzeros[c]];
+            }
+            Arrays.sort(myIndices, start + 1, myPointers[k + 1]);
+        }
+
+        myEntries = new int[rows.length];
+        for (int e = 0; e < rows.length; e++) {
+            final int permRow = myPermutation[rows[e]];
+            final int permCol = myPermutation[columns[e]];
+            final int col = Math.min(permRow, permCol);
+            final int row = Math.max(permRow, permCol);
+            myEntries[e] = row == col ? myPointers[col] : Arrays.binarySearch(myIndices, myPointers[col] + 1, myPointers[col + 1], row);
+        }
+
+        myDiagonal = new double[dim];
+        myPivots = new double[dim];
+        myFirst = new int[dim];
+        myHeads = new int[dim];
+        myLinks = new int[dim];
+        myWork = new double[dim];
+    }
+
+    /**
+     * @return The number of nonzeros in [L]
+     */
+    int countNonzeros() {
+        return myIndices.length;
+    }
+
+    /**
+     * @param entries The values of the entries, in the same order as the row and column indices given to the
+     *        constructor
+     */
+    void factorise(final double[] entries) {
+
+        final double[] values = myValues;
+        final int[] indices = myIndices;
+        final int[] pointers = myPointers;
+
+        Arrays.fill(values, ZERO);
+        for (int e = 0; e < entries.length; e++) {
+            values[myEntries[e]] += entries[e];
+        }
+
+        final double[] work = myWork;
+        final double[] pivots = myPivots;
+        final int[] heads = myHeads;
+        final int[] links = myLinks;
+        final int[] first = myFirst;
+        Arrays.fill(heads, -1);
+
+        for (int j = 0; j < myDim; j++) {
+
+            final int start = pointers[j];
+            final int end = pointers[j + 1];
+
+            for (int p = start; p < end; p++) {
+                work[indices[p]] = values[p];
+            }
+            myDiagonal[j] = values[start];
+
+            // Subtract the contributions of the previous columns k that have a nonzero in row j
+            int k = heads[j];
+            while (k >= 0) {
+                final int next = links[k];
+                final int from = first[k];
+                final int to = pointers[k + 1];
+                final double multiplier = values[from] * pivots[k];
+                for (int p = from; p < to; p++) {
+                    work[indices[p]] -= values[p] * multiplier;
+                }
+                this.link(k, from + 1, to);
+                k = next;
+            }
+
+            double pivot = work[j];
+            work[j] = ZERO;
+            if (Math.abs(pivot) <= (SINGULARITY + (MACHINE_EPSILON * Math.abs(myDiagonal[j])))) {
+                pivot = myDiagonal[j] < ZERO ? -HUGE : HUGE;
+            }
+            pivots[j] = pivot;
+            values[start] = ONE;
+
+            for (int p = start + 1; p < end; p++) {
+                final int i = indices[p];
+                values[p] = work[i] / pivot;
+                work[i] = ZERO;
+            }
+
+            this.link(j, start + 1, end);
+        }
+    }
+
+    /**
+     * Solve [L][D][L]<sup>T</sup>[x] = [b], in place, with [x] and [b] in the original order.
+     */
+    void solve(final double[] rhs) {
+
+        final double[] work = myWork;
+        final double[] values = myValues;
+        final int[] indices = myIndices;
+        final int[] pointers = myPointers;
+
+        for (int i = 0; i < myDim; i++) {
+            work[myPermutation[i]] = rhs[i];
+        }
+
+        for (int j = 0; j < myDim; j++) {
+            final double value = work[j];
+            if (value != ZERO) {
+                for (int p = pointers[j] + 1, end = pointers[j + 1]; p < end; p++) {
+                    work[indices[p]] -= values[p] * value;
+                }
+            }
+        }
+
+        for (int j = 0; j < myDim; j++) {
+            work[j] /= myPivots[j];
+        }
+
+        for (int j = myDim - 1; j >= 0; j--) {
+            double value = work[j];
+            for (int p = pointers[j] + 1, end = pointers[j + 1]; p < end; p++) {
+                value -= values[p] * work[indices[p]];
+            }
+            work[j] = value;
+        }
+
+        for (int i = 0; i < myDim; i++) {
+            rhs[i] = work[myPermutation[i]];
+            work[myPermutation[i]] = ZERO;
+        }
+    }
+
+    /**
+     * Column k is next needed when column indices[from] is factorised
+     */
+    private void link(final int k, final int from, final int to) {
+        myFirst[k] = from;
+        if (from < to) {
+            final int row = myIndices[from];
+            myLinks[k] = myHeads[row];
+            myHeads[row] = k;
+        }
+    }
+
+}
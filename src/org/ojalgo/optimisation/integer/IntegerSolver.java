@@ -25,22 +25,35 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 import static org.ojalgo.function.PrimitiveFunction.*;
 
 import java.math.BigDecimal;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.ojalgo.function.PrimitiveFunction;
-import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.multiary.MultiaryFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.netio.CharacterRing;
 import org.ojalgo.netio.CharacterRing.PrinterBuffer;
+import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.GenericSolver;
 import org.ojalgo.optimisation.Optimisation;
@@ -50,6 +63,37 @@ import org.ojalgo.type.TypeUtils;
 
 public final class IntegerSolver extends GenericSolver {
 
+    /**
+     * How the next branch-and-bound node to evaluate is selected from the pool of open nodes.
+     *
+     * @see Optimisation.Options#mip_selection
+     */
+    public static enum NodeSelection {
+
+        /**
+         * The node with the best bound (its parent's objective function value) is always evaluated next. Keeps
+         * the global bound moving and proves optimality with the fewest nodes, but finds integer solutions
+         * late.
+         */
+        BEST_BOUND,
+        /**
+         * The node with the best estimated integer solution value (the bound degraded by the fractional parts
+         * of the integer variables) is evaluated next.
+         */
+        BEST_ESTIMATE,
+        /**
+         * The deepest node is evaluated next, and each worker dives directly into one of the branches of the
+         * node it just evaluated. Finds integer solutions quickly.
+         */
+        DEPTH_FIRST,
+        /**
+         * Depth first plunging, as {@link #DEPTH_FIRST}, but after a number of plunged nodes the worker jumps
+         * to the best bound node in the pool.
+         */
+        HYBRID;
+
+    }
+
     public static final class ModelIntegration extends ExpressionsBasedModel.Integration<IntegerSolver> {
 
         public IntegerSolver build(final ExpressionsBasedModel model) {
@@ -104,23 +148,7 @@ public final class IntegerSolver extends GenericSolver {
         @Override
         protected Boolean compute() {
 
-            final ExpressionsBasedModel nodeModel = IntegerSolver.this.getNodeModel();
-            myKey.setNodeState(nodeModel, IntegerSolver.this.getIntegerIndices());
-
-            if (IntegerSolver.this.isIntegerSolutionFound()) {
-
-                final double bestIntegerSolutionValue = IntegerSolver.this.getBestResultSoFar().getValue();
-
-                double nudge = MAX.invoke(ABS.invoke(bestIntegerSolutionValue) * options.mip_gap, options.mip_gap);
-
-                if (nodeModel.isMinimisation()) {
-                    final BigDecimal upper = TypeUtils.toBigDecimal(bestIntegerSolutionValue - nudge, options.feasibility);
-                    nodeModel.limitObjective(null, upper);
-                } else {
-                    final BigDecimal lower = TypeUtils.toBigDecimal(bestIntegerSolutionValue + nudge, options.feasibility);
-                    nodeModel.limitObjective(lower, null);
-                }
-            }
+            final ExpressionsBasedModel nodeModel = IntegerSolver.this.getNodeModel(myKey);
 
             final Boolean retVal = IntegerSolver.this.compute(myKey, nodeModel.prepare(), myPrinter);
 
@@ -135,6 +163,51 @@ public final class IntegerSolver extends GenericSolver {
 
     }
 
+    final class HeuristicTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 6561421677675056737L;
+
+        private final AtomicBoolean myClaimed = new AtomicBoolean();
+        private volatile boolean myFinished = false;
+        private final NodeKey myKey;
+        private final Optimisation.Result myNodeResult;
+
+        HeuristicTask(final NodeKey key, final Optimisation.Result nodeResult) {
+
+            super();
+
+            myKey = key;
+            myNodeResult = nodeResult;
+        }
+
+        @Override
+        protected void compute() {
+            this.attempt();
+        }
+
+        /**
+         * Runs the heuristics, unless some other (idle) worker already did
+         */
+        void attempt() {
+            if (myClaimed.compareAndSet(false, true)) {
+                try {
+                    IntegerSolver.this.runHeuristics(myKey, myNodeResult);
+                } finally {
+                    myFinished = true;
+                }
+            }
+        }
+
+        boolean isClaimed() {
+            return myClaimed.get();
+        }
+
+        boolean isFinished() {
+            return myFinished;
+        }
+
+    }
+
     static final class NodeStatistics {
 
         private final AtomicInteger myAbandoned = new AtomicInteger();
@@ -226,10 +299,130 @@ public final class IntegerSolver extends GenericSolver {
 
     }
 
+    final class NodeWorker extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 3551793871565563694L;
+
+        private final PrinterBuffer myPrinter = IntegerSolver.this.isDebug() ? new CharacterRing().asPrinter() : null;
+
+        NodeWorker() {
+            super();
+        }
+
+        @Override
+        protected Boolean compute() {
+
+            NodeKey nodeKey;
+            while ((nodeKey = this.take()) != null) {
+
+                final boolean explored = !IntegerSolver.this.isGoodEnoughToContinueBranching(nodeKey.objective)
+                        || IntegerSolver.this.explore(nodeKey, myPrinter);
+
+                synchronized (myNodePool) {
+                    if (!explored) {
+                        myPoolAborted = true;
+                    }
+                    if ((--myPoolWorkers == 0) || myPoolAborted) {
+                        myNodePool.notifyAll();
+                    }
+                }
+            }
+
+            return !myPoolAborted;
+        }
+
+        /**
+         * Blocks until there is an open node to explore. While waiting any pending heuristics task is run.
+         *
+         * @return The node, or null when there are no open nodes and no other worker that could create any
+         *         (or when the search was aborted).
+         */
+        private NodeKey take() {
+
+            while (true) {
+
+                final HeuristicTask heuristic;
+
+                synchronized (myNodePool) {
+
+                    if (myPoolAborted) {
+                        return null;
+                    }
+
+                    final NodeKey nodeKey = myNodePool.poll();
+                    if (nodeKey != null) {
+                        myPoolWorkers++;
+                        return nodeKey;
+                    } else if (myPoolWorkers == 0) {
+                        return null;
+                    }
+
+                    heuristic = myHeuristicTask.get();
+                    if ((heuristic == null) || heuristic.isClaimed()) {
+                        try {
+                            myNodePool.wait();
+                        } catch (final InterruptedException cause) {
+                            myPoolAborted = true;
+                            myNodePool.notifyAll();
+                            Thread.currentThread().interrupt();
+                        }
+                        continue;
+                    }
+                }
+
+                heuristic.attempt();
+            }
+        }
+
+    }
+
+    /**
+     * The number of consecutive cutting plane rounds a cut may be non-binding before it is aged out of the
+     * cut pool
+     */
+    private static final int AGE = 3;
+    /**
+     * The (max) number of nodes evaluated in each epoch of the deterministic mode. Must not depend on the
+     * number of threads - that would make the results depend on it.
+     */
+    private static final int EPOCH = 32;
+    private static final PrimalHeuristic[] HEURISTICS = { PrimalHeuristic.ROUNDING, PrimalHeuristic.DIVING, PrimalHeuristic.FEASIBILITY_PUMP,
+            PrimalHeuristic.RINS };
+    private static final NodeKey[] NO_BRANCHES = new NodeKey[0];
+    /**
+     * The max number of consecutive nodes a {@link NodeSelection#HYBRID} worker plunges before jumping to the
+     * best bound node
+     */
+    private static final int PLUNGE = 16;
+    /**
+     * The max number of strong branching candidates evaluated per node
+     */
+    private static final int STRONG = 8;
+
     public static IntegerSolver make(final ExpressionsBasedModel model) {
         return new IntegerSolver(model, model.options);
     }
 
+    private static Comparator<NodeKey> comparator(final NodeSelection selection, final boolean minimisation, final boolean deterministic) {
+
+        final Comparator<NodeKey> bound = minimisation ? Comparator.comparingDouble(key -> key.objective)
+                : Comparator.comparingDouble(key -> -key.objective);
+        final Comparator<NodeKey> estimate = minimisation ? Comparator.comparingDouble(key -> key.estimate)
+                : Comparator.comparingDouble(key -> -key.estimate);
+        final Comparator<NodeKey> deepest = Comparator.comparingInt(key -> -key.depth);
+        final Comparator<NodeKey> displacement = Comparator.comparingDouble(key -> key.displacement);
+        final Comparator<NodeKey> tiebreak = deterministic ? NodeKey::compareBounds : Comparator.comparingLong(key -> -key.sequence);
+
+        switch (selection) {
+        case BEST_ESTIMATE:
+            return estimate.thenComparing(bound).thenComparing(displacement).thenComparing(tiebreak);
+        case DEPTH_FIRST:
+            return deepest.thenComparing(displacement).thenComparing(tiebreak);
+        default:
+            return bound.thenComparing(deepest).thenComparing(displacement).thenComparing(tiebreak);
+        }
+    }
+
     static void flush(PrinterBuffer buffer, BasicLogger.Printer receiver) {
         if ((buffer != null) && (receiver != null)) {
             buffer.flush(receiver);
@@ -238,16 +431,31 @@ public final class IntegerSolver extends GenericSolver {
 
     private volatile Optimisation.Result myBestResultSoFar = null;
     private final Queue<NodeKey> myDeferredNodes = new ConcurrentLinkedQueue<>();
+    /**
+     * Only used in deterministic mode - the integer solutions found during the current epoch
+     */
+    private final List<Entry<NodeKey, Optimisation.Result>> myDeferredSolutions;
     private final MultiaryFunction.TwiceDifferentiable<Double> myFunction;
+    private final AtomicReference<HeuristicTask> myHeuristicTask = new AtomicReference<>();
     /**
      * One entry per integer variable, the entry is the global index of that integer variable
      */
     private final int[] myIntegerIndices;
     private final ExpressionsBasedModel myIntegerModel;
-    private final double[] myIntegerSignificances;
     private final AtomicInteger myIntegerSolutionsCount = new AtomicInteger();
     private final boolean myMinimisation;
+    private final PriorityBlockingQueue<NodeKey> myNodePool;
     private final NodeStatistics myNodeStatistics = new NodeStatistics();
+    /**
+     * Set while holding the node pool's monitor (as is {@link #myPoolWorkers}). Idle workers wait on that
+     * monitor, and are notified when nodes are added, when a worker finishes or when the search is aborted.
+     */
+    private volatile boolean myPoolAborted = false;
+    /**
+     * The number of workers currently exploring a node
+     */
+    private int myPoolWorkers = 0;
+    private final PseudoCosts myPseudoCosts;
 
     protected IntegerSolver(final ExpressionsBasedModel model, final Options solverOptions) {
 
@@ -258,22 +466,29 @@ public final class IntegerSolver extends GenericSolver {
 
         myMinimisation = myIntegerModel.isMinimisation();
 
+        NodeSelection selection = solverOptions.mip_selection;
+        if ((selection == null) && solverOptions.mip_deterministic) {
+            selection = NodeSelection.BEST_BOUND;
+        }
+        if (selection != null) {
+            myNodePool = new PriorityBlockingQueue<>(64, IntegerSolver.comparator(selection, myMinimisation, solverOptions.mip_deterministic));
+        } else {
+            myNodePool = null;
+        }
+        myDeferredSolutions = solverOptions.mip_deterministic ? new ArrayList<>() : null;
+
         final List<Variable> integerVariables = myIntegerModel.getIntegerVariables();
         myIntegerIndices = new int[integerVariables.size()];
         for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
             myIntegerIndices[i] = myIntegerModel.indexOf(integerVariables.get(i));
         }
 
-        myIntegerSignificances = new double[myIntegerIndices.length];
-        Arrays.fill(myIntegerSignificances, ONE);
+        final double[] prior = new double[myIntegerIndices.length];
         final MatrixStore<Double> gradient = this.getGradient(Access1D.asPrimitive1D(model.getVariableValues()));
-        final double largest = gradient.aggregateAll(Aggregator.LARGEST);
-        if (largest > ZERO) {
-            for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
-                final int globalIndex = myIntegerIndices[i];
-                this.addIntegerSignificance(i, gradient.doubleValue(globalIndex) / largest);
-            }
+        for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
+            prior[i] = ABS.invoke(gradient.doubleValue(myIntegerIndices[i]));
         }
+        myPseudoCosts = new PseudoCosts(prior, solverOptions.mip_deterministic);
     }
 
     public Result solve(final Result kickStarter) {
@@ -282,20 +497,76 @@ public final class IntegerSolver extends GenericSolver {
         // The kickStarter may be user-supplied
         if ((kickStarter != null) && kickStarter.getState().isFeasible() && this.getIntegerModel().validate(kickStarter)) {
             this.markInteger(null, null, kickStarter);
+            this.commitEpoch();
         }
 
         this.resetIterationsCount();
 
-        final BranchAndBoundNodeTask rootNodeTask = new BranchAndBoundNodeTask();
+        if (options.mip_cuts > 0) {
+            this.generateCuts();
+        }
+
+        boolean normalExit = true;
+
+        // Without parallelism there is no thread pool - everything is done in the calling thread
+        final ForkJoinPool executor = options.mip_parallelism > 1 ? new ForkJoinPool(options.mip_parallelism) : null;
+
+        try {
+
+            if (options.mip_deterministic) {
+
+                normalExit = this.solveInEpochs(executor);
+
+            } else if (myNodePool != null) {
+
+                myNodePool.offer(new NodeKey(this.getIntegerModel()));
+                myPoolAborted = false;
+
+                if (executor != null) {
+                    final List<NodeWorker> workers = new ArrayList<>();
+                    for (int w = 0, limit = executor.getParallelism(); w < limit; w++) {
+                        workers.add(new NodeWorker());
+                    }
+                    for (final NodeWorker worker : workers) {
+                        executor.execute(worker);
+                    }
+                    for (final NodeWorker worker : workers) {
+                        normalExit &= worker.join().booleanValue();
+                    }
+                } else {
+                    normalExit = new NodeWorker().invoke().booleanValue();
+                }
+
+            } else {
+
+                final BranchAndBoundNodeTask rootNodeTask = new BranchAndBoundNodeTask();
+
+                normalExit = (executor != null ? executor.invoke(rootNodeTask) : rootNodeTask.invoke()).booleanValue();
+                while (normalExit && (myDeferredNodes.size() > 0)) {
+                    NodeKey nodeKey = myDeferredNodes.poll();
+                    if (this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
+                        final BranchAndBoundNodeTask deferredNodeTask = new BranchAndBoundNodeTask(nodeKey);
+                        normalExit &= (executor != null ? executor.invoke(deferredNodeTask) : deferredNodeTask.invoke()).booleanValue();
+                    }
+                }
+            }
+
+            final HeuristicTask heuristic = myHeuristicTask.getAndSet(null);
+            if (heuristic != null) {
+                heuristic.join();
+            }
+
+        } finally {
+
+            if (executor != null) {
+                executor.shutdown();
+            }
 
-        boolean normalExit = ForkJoinPool.commonPool().invoke(rootNodeTask).booleanValue();
-        while (normalExit && (myDeferredNodes.size() > 0)) {
-            NodeKey nodeKey = myDeferredNodes.poll();
-            if (this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
-                normalExit &= ForkJoinPool.commonPool().invoke(new BranchAndBoundNodeTask(nodeKey)).booleanValue();
+            if (myNodePool != null) {
+                myNodePool.clear();
             }
+            myDeferredNodes.clear();
         }
-        myDeferredNodes.clear();
 
         final Optimisation.Result bestSolutionFound = this.getBestResultSoFar();
 
@@ -321,148 +592,53 @@ public final class IntegerSolver extends GenericSolver {
 
     protected Boolean compute(NodeKey nodeKey, final ExpressionsBasedModel.Intermediate nodeModel, PrinterBuffer nodePrinter) {
 
-        if (this.isDebug()) {
-            nodePrinter.println();
-            nodePrinter.println("Branch&Bound Node");
-            nodePrinter.println(nodeKey.toString());
-            nodePrinter.println(this.toString());
-        }
+        final NodeKey[] branches = this.evaluate(nodeKey, nodeModel, nodePrinter);
 
-        if (!this.isIterationAllowed() || !this.isIterationNecessary()) {
-            if (this.isDebug()) {
-                nodePrinter.println("Reached iterations or time limit - stop!");
-                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
-            }
+        if (branches == null) {
             return false;
+        } else if (branches.length == 0) {
+            return true;
         }
 
-        if (nodeKey.index >= 0) {
-            nodeKey.enforceBounds(nodeModel, this.getIntegerIndices());
-        }
-
-        final Optimisation.Result bestResultSoFar = this.getBestResultSoFar();
-        final Optimisation.Result nodeResult = nodeModel.solve(bestResultSoFar);
-
-        // Increment when/if an iteration was actually performed
-        this.incrementIterationsCount();
-
-        if (this.isDebug()) {
-            nodePrinter.println("Node Result: {}", nodeResult);
-        }
-
-        if (nodeResult.getState().isOptimal()) {
-            if (this.isDebug()) {
-                nodePrinter.println("Node solved to optimality!");
-            }
-
-            if (options.validate && !nodeModel.validate(nodeResult, nodePrinter)) {
-                // This should not be possible. There is a bug somewhere.
-                nodePrinter.println("Node solution marked as OPTIMAL, but is actually INVALID/INFEASIBLE/FAILED. Stop this branch!");
-                nodePrinter.println("Integer indices: {}", Arrays.toString(this.getIntegerIndices()));
-                nodePrinter.println("Lower bounds: {}", Arrays.toString(nodeKey.getLowerBounds()));
-                nodePrinter.println("Upper bounds: {}", Arrays.toString(nodeKey.getUpperBounds()));
+        final NodeKey lowerBranch = branches[0];
+        final NodeKey upperBranch = branches[1];
 
-                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+        final NodeKey nextTask;
+        final BranchAndBoundNodeTask forkedTask;
 
-                return false;
+        if (upperBranch.displacement <= HALF) {
+            nextTask = upperBranch;
+            if (lowerBranch.displacement < options.mip_defer) {
+                forkedTask = new BranchAndBoundNodeTask(lowerBranch);
+            } else {
+                forkedTask = null;
+                myDeferredNodes.offer(lowerBranch);
             }
-
-            final int branchIntegerIndex = this.identifyNonIntegerVariable(nodeResult, nodeKey);
-            final double tmpSolutionValue = this.evaluateFunction(nodeResult);
-
-            if (branchIntegerIndex == -1) {
-                if (this.isDebug()) {
-                    nodePrinter.println("Integer solution! Store it among the others, and stop this branch!");
-                }
-
-                final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, nodeResult);
-
-                this.markInteger(nodeKey, null, tmpIntegerSolutionResult);
-
-                if (this.isDebug()) {
-                    nodePrinter.println(this.getBestResultSoFar().toString());
-                    BasicLogger.debug();
-                    BasicLogger.debug(this.toString());
-                    // BasicLogger.debug(DaemonPoolExecutor.INSTANCE.toString());
-                    IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
-                }
-
-                nodeModel.dispose();
-                return true;
-
+        } else {
+            nextTask = lowerBranch;
+            if (upperBranch.displacement < options.mip_defer) {
+                forkedTask = new BranchAndBoundNodeTask(upperBranch);
             } else {
-                if (this.isDebug()) {
-                    nodePrinter.println("Not an Integer Solution: " + tmpSolutionValue);
-                }
-
-                final double variableValue = nodeResult.doubleValue(this.getGlobalIndex(branchIntegerIndex));
-
-                if (this.isGoodEnoughToContinueBranching(tmpSolutionValue)) {
-
-                    if (this.isDebug()) {
-                        nodePrinter.println("Still hope, branching on {} @ {} >>> {}", branchIntegerIndex, variableValue,
-                                nodeModel.getVariable(this.getGlobalIndex(branchIntegerIndex)));
-                        IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
-                    }
-
-                    // this.generateCuts(nodeModel);
-
-                    final NodeKey lowerBranch = nodeKey.createLowerBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
-                    final NodeKey upperBranch = nodeKey.createUpperBranch(branchIntegerIndex, variableValue, tmpSolutionValue);
-
-                    final NodeKey nextTask;
-                    final BranchAndBoundNodeTask forkedTask;
-
-                    if (upperBranch.displacement <= HALF) {
-                        nextTask = upperBranch;
-                        if (lowerBranch.displacement < options.mip_defer) {
-                            forkedTask = new BranchAndBoundNodeTask(lowerBranch);
-                        } else {
-                            forkedTask = null;
-                            myDeferredNodes.offer(lowerBranch);
-                        }
-                    } else {
-                        nextTask = lowerBranch;
-                        if (upperBranch.displacement < options.mip_defer) {
-                            forkedTask = new BranchAndBoundNodeTask(upperBranch);
-                        } else {
-                            forkedTask = null;
-                            myDeferredNodes.offer(upperBranch);
-                        }
-                    }
-
-                    if (forkedTask != null) {
-
-                        forkedTask.fork();
+                forkedTask = null;
+                myDeferredNodes.offer(upperBranch);
+            }
+        }
 
-                        return this.compute(nextTask, nodeModel, nodePrinter) && forkedTask.join();
+        if ((forkedTask != null) && (options.mip_parallelism > 1)) {
 
-                    } else {
+            forkedTask.fork();
 
-                        return this.compute(nextTask, nodeModel, nodePrinter);
-                    }
+            return this.compute(nextTask, nodeModel, nodePrinter) && forkedTask.join();
 
-                } else {
-                    if (this.isDebug()) {
-                        nodePrinter.println("Can't find better integer solutions - stop this branch!");
-                        IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
-                    }
+        } else if (forkedTask != null) {
 
-                    nodeModel.dispose();
-                    return true;
-                }
-            }
+            // No thread pool - explore the other branch afterwards, in the same order a single worker would
+            return this.compute(nextTask, nodeModel, nodePrinter) && forkedTask.invoke();
 
         } else {
-            if (this.isDebug()) {
-                nodePrinter.println("Failed to solve node problem - stop this branch!");
-                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
-            }
 
-            nodeModel.dispose();
-            return true;
+            return this.compute(nextTask, nodeModel, nodePrinter);
         }
-
     }
 
     protected int countIntegerSolutions() {
@@ -558,48 +734,18 @@ public final class IntegerSolver extends GenericSolver {
 
     protected synchronized void markInteger(final NodeKey key, final ExpressionsBasedModel model, final Optimisation.Result result) {
 
-        if (this.isProgress()) {
-            this.log("New integer solution {}", result);
-            this.log("\t@ node {}", key);
+        if (myDeferredSolutions != null) {
+            // Deterministic mode - the solution is marked at the end of the epoch
+            myDeferredSolutions.add(new SimpleImmutableEntry<>(key, result));
+            return;
         }
 
-        final Optimisation.Result currentlyTheBest = myBestResultSoFar;
-
-        if (currentlyTheBest == null) {
-
-            myBestResultSoFar = result;
-
-        } else if (myMinimisation && (result.getValue() < currentlyTheBest.getValue())) {
+        this.mark(key, result);
+    }
 
-            myBestResultSoFar = result;
-
-        } else if (!myMinimisation && (result.getValue() > currentlyTheBest.getValue())) {
-
-            myBestResultSoFar = result;
-
-        } else {
-
-            if (this.isDebug()) {
-                this.log("Previously best {}", myBestResultSoFar);
-            }
-        }
-
-        if ((currentlyTheBest != null) && options.solution.isDifferent(currentlyTheBest.getValue(), result.getValue())) {
-            for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
-                final int globalIndex = myIntegerIndices[i];
-                final double varDiff = result.doubleValue(globalIndex) - currentlyTheBest.doubleValue(globalIndex);
-                if (!options.feasibility.isZero(varDiff)) {
-                    this.addIntegerSignificance(i, ONE / varDiff);
-                }
-            }
-        }
-
-        myIntegerSolutionsCount.incrementAndGet();
-    }
-
-    protected void recycleNodeModel(ExpressionsBasedModel model) {
-        //  myModelPool.giveBack(model);
-    }
+    protected void recycleNodeModel(ExpressionsBasedModel model) {
+        //  myModelPool.giveBack(model);
+    }
 
     /**
      * Should validate the solver data/input/structue. Even "expensive" validation can be performed as the
@@ -633,13 +779,556 @@ public final class IntegerSolver extends GenericSolver {
         return retVal;
     }
 
-    void addIntegerSignificance(final int index, final double significance) {
-        myIntegerSignificances[index] = HYPOT.invoke(myIntegerSignificances[index], significance);
+    /**
+     * Deterministic mode: Marks the integer solutions found during the epoch, best first (ties broken by
+     * comparing the solutions), and applies the pseudo-cost observations.
+     */
+    private synchronized void commitEpoch() {
+
+        myPseudoCosts.commit();
+
+        if (myDeferredSolutions != null) {
+
+            final Comparator<Entry<NodeKey, Optimisation.Result>> byValue = Comparator
+                    .comparingDouble(entry -> myMinimisation ? entry.getValue().getValue() : -entry.getValue().getValue());
+            final Comparator<Entry<NodeKey, Optimisation.Result>> bySolution = (entry1, entry2) -> {
+                final Optimisation.Result solution1 = entry1.getValue();
+                final Optimisation.Result solution2 = entry2.getValue();
+                for (long i = 0L, limit = Math.min(solution1.count(), solution2.count()); i < limit; i++) {
+                    final int comparison = Double.compare(solution1.doubleValue(i), solution2.doubleValue(i));
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return 0;
+            };
+
+            myDeferredSolutions.sort(byValue.thenComparing(bySolution));
+            for (final Entry<NodeKey, Optimisation.Result> entry : myDeferredSolutions) {
+                this.mark(entry.getKey(), entry.getValue());
+            }
+            myDeferredSolutions.clear();
+        }
+    }
+
+    private double estimate(final NodeKey nodeKey, final Optimisation.Result nodeResult, final double nodeValue) {
+
+        final MatrixStore<Double> gradient = this.getGradient(Access1D.asPrimitive1D(nodeResult));
+
+        double degradation = ZERO;
+        for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
+            final int globalIndex = myIntegerIndices[i];
+            degradation += nodeKey.getFraction(i, nodeResult.doubleValue(globalIndex)) * ABS.invoke(gradient.doubleValue(globalIndex));
+        }
+
+        return myMinimisation ? nodeValue + degradation : nodeValue - degradation;
+    }
+
+    /**
+     * Solves a child node problem, for strong branching. The child gets a node model of its own - (re)solving
+     * the parent's node model with tightened and then restored bounds is not safe. Presolve may tighten other
+     * bounds, that are not restored.
+     *
+     * @return The objective function degradation, infinite if the child is infeasible (or can't improve on
+     *         the best integer solution found so far) and NaN if it could not be solved.
+     */
+    private double evaluateBranch(final NodeKey child, final Optimisation.Result nodeResult, final double nodeValue) {
+
+        final ExpressionsBasedModel childModel = this.getNodeModel(child);
+        final Optimisation.Result childResult = childModel.prepare().solve(nodeResult);
+        this.recycleNodeModel(childModel);
+
+        if (childResult.getState().isOptimal()) {
+
+            final double degradation = ABS.invoke(this.evaluateFunction(childResult) - nodeValue);
+            if (child.displacement > ZERO) {
+                myPseudoCosts.update(child.index, child.direction > 0, degradation / child.displacement);
+            }
+            return degradation;
+
+        } else if (childResult.getState() == State.INFEASIBLE) {
+
+            return POSITIVE_INFINITY;
+
+        } else {
+
+            return NaN;
+        }
+    }
+
+    /**
+     * Evaluates the node, and then either plunges into one of its branches (putting the other in the node
+     * pool) or puts both branches in the pool, depending on the node selection strategy.
+     */
+    private boolean explore(final NodeKey key, final PrinterBuffer printer) {
+
+        final NodeSelection selection = options.mip_selection;
+
+        final ExpressionsBasedModel nodeModel = this.getNodeModel(key);
+        final ExpressionsBasedModel.Intermediate intermediate = nodeModel.prepare();
+
+        NodeKey nodeKey = key;
+        for (int plunged = 0; nodeKey != null; plunged++) {
+
+            final NodeKey[] branches = this.evaluate(nodeKey, intermediate, printer);
+
+            if (branches == null) {
+
+                this.recycleNodeModel(nodeModel);
+                return false;
+
+            } else if (branches.length == 0) {
+
+                nodeKey = null;
+
+            } else {
+
+                final NodeKey preferred = branches[1].displacement <= HALF ? branches[1] : branches[0];
+                this.offer(preferred == branches[1] ? branches[0] : branches[1]);
+
+                if ((selection == NodeSelection.DEPTH_FIRST) || ((selection == NodeSelection.HYBRID) && (plunged < PLUNGE))) {
+                    nodeKey = preferred;
+                } else {
+                    this.offer(preferred);
+                    intermediate.dispose();
+                    nodeKey = null;
+                }
+            }
+        }
+
+        this.recycleNodeModel(nodeModel);
+        return true;
+    }
+
+    /**
+     * Reliability branching: Candidates whose pseudo-costs are not yet reliable are evaluated by strong
+     * branching (actually solving both child node problems), at most {@link #STRONG} of them per node and in
+     * order of their pseudo-cost scores. The strong branching results also update the pseudo-costs.
+     */
+    private int identifyReliableBranchingVariable(final Optimisation.Result nodeResult, final NodeKey nodeKey, final double nodeValue) {
+
+        final List<Integer> candidates = new ArrayList<>();
+        final double[] scores = new double[myIntegerIndices.length];
+        for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
+            final double value = nodeResult.doubleValue(myIntegerIndices[i]);
+            if (!options.feasibility.isZero(nodeKey.getFraction(i, value))) {
+                candidates.add(i);
+                scores[i] = myPseudoCosts.score(i, value - FLOOR.invoke(value));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(i -> -scores[i]));
+
+        int retVal = -1;
+        double maxScore = ZERO;
+        int strong = 0;
+
+        for (final int i : candidates) {
+
+            double score = scores[i];
+
+            if ((strong < STRONG) && !myPseudoCosts.isReliable(i, options.mip_reliability)) {
+
+                final double value = nodeResult.doubleValue(myIntegerIndices[i]);
+
+                strong++;
+
+                final double down = this.evaluateBranch(nodeKey.createLowerBranch(i, value, nodeValue, NaN), nodeResult, nodeValue);
+                final double up = this.evaluateBranch(nodeKey.createUpperBranch(i, value, nodeValue, NaN), nodeResult, nodeValue);
+
+                if (!Double.isNaN(down) && !Double.isNaN(up)) {
+                    score = PseudoCosts.score(down, up);
+                }
+            }
+
+            if ((retVal == -1) || (score > maxScore)) {
+                retVal = i;
+                maxScore = score;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Root node cutting plane rounds. Cuts are separated from the integer model's (original) constraints at
+     * the relaxed solution, and added to the integer model. The cuts make up a pool where a cut that has not
+     * been binding for {@link #AGE} consecutive rounds is aged out (removed from the integer model again).
+     * Stops when no more cuts are found, when the relaxed objective function value stalls, or after
+     * {@linkplain Optimisation.Options#mip_cuts} rounds.
+     */
+    private void generateCuts() {
+
+        final ExpressionsBasedModel integerModel = this.getIntegerModel();
+
+        final List<Expression> constraints = integerModel.constraints().collect(Collectors.toList());
+        final Map<Expression, Integer> pool = new LinkedHashMap<>();
+
+        double previous = NaN;
+
+        for (int round = 0; round < options.mip_cuts; round++) {
+
+            final Optimisation.Result relaxed = integerModel.relax(false).prepare().solve(null);
+            if (!relaxed.getState().isOptimal()) {
+                break;
+            }
+
+            final double value = this.evaluateFunction(relaxed);
+            if (!Double.isNaN(previous) && !(ABS.invoke(value - previous) > (options.mip_gap * MAX.invoke(ONE, ABS.invoke(value))))) {
+                break;
+            }
+            previous = value;
+
+            for (final Iterator<Entry<Expression, Integer>> iterator = pool.entrySet().iterator(); iterator.hasNext();) {
+                final Entry<Expression, Integer> entry = iterator.next();
+                final Expression cut = entry.getKey();
+                if (options.feasibility.isDifferent(cut.getUpperLimit().doubleValue(), cut.evaluate(relaxed).doubleValue())) {
+                    if (entry.getValue() >= AGE) {
+                        integerModel.removeExpression(cut.getName());
+                        iterator.remove();
+                    } else {
+                        entry.setValue(entry.getValue() + 1);
+                    }
+                } else {
+                    entry.setValue(0);
+                }
+            }
+
+            int added = 0;
+            for (final Expression constraint : constraints) {
+                final Expression cut = integerModel.generateCut(constraint, relaxed);
+                if (cut != null) {
+                    pool.put(cut, 0);
+                    added++;
+                }
+            }
+
+            if (this.isProgress()) {
+                this.log("Cutting plane round {}: relaxed value {}, {} new cuts, {} in the pool", round, value, added, pool.size());
+            }
+
+            if (added == 0) {
+                break;
+            }
+        }
+    }
+
+    private void mark(final NodeKey key, final Optimisation.Result result) {
+
+        if (this.isProgress()) {
+            this.log("New integer solution {}", result);
+            this.log("\t@ node {}", key);
+        }
+
+        final Optimisation.Result currentlyTheBest = myBestResultSoFar;
+
+        if (currentlyTheBest == null) {
+
+            myBestResultSoFar = result;
+
+        } else if (myMinimisation && (result.getValue() < currentlyTheBest.getValue())) {
+
+            myBestResultSoFar = result;
+
+        } else if (!myMinimisation && (result.getValue() > currentlyTheBest.getValue())) {
+
+            myBestResultSoFar = result;
+
+        } else {
+
+            if (this.isDebug()) {
+                this.log("Previously best {}", myBestResultSoFar);
+            }
+        }
+
+        myIntegerSolutionsCount.incrementAndGet();
+    }
+
+    /**
+     * Adds an open node to the pool, and wakes up a waiting (idle) worker
+     */
+    private void offer(final NodeKey nodeKey) {
+        synchronized (myNodePool) {
+            myNodePool.offer(nodeKey);
+            myNodePool.notify();
+        }
+    }
+
+    /**
+     * Runs the primal heuristics, in turn, and marks any (better) integer solution found.
+     */
+    private void runHeuristics(final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+        for (final PrimalHeuristic heuristic : HEURISTICS) {
+
+            if (!this.isIterationAllowed() || !this.isIterationNecessary()) {
+                return;
+            }
+
+            final Optimisation.Result candidate = heuristic.search(this, nodeKey, nodeResult);
+
+            if ((candidate != null) && this.getIntegerModel().validate(candidate)) {
+
+                final double value = this.evaluateFunction(candidate);
+
+                if (this.isGoodEnoughToContinueBranching(value)) {
+
+                    if (this.isProgress()) {
+                        this.log("{} heuristic found {}", heuristic, value);
+                    }
+
+                    this.markInteger(nodeKey, null, new Optimisation.Result(State.FEASIBLE, value, candidate));
+                }
+            }
+        }
     }
 
+    /**
+     * Heuristics are used at the root node, and then at every n:th node. Normally a heuristics task is forked
+     * off, for any spare (idle) worker to pick up, unless the previous one is still pending or running. In
+     * deterministic mode the heuristics are instead run directly, at a reproducible selection (based on the
+     * node's bounds) of about every n:th node. Without a thread pool there are no other workers, and the
+     * heuristics are also run directly.
+     */
+    private void scheduleHeuristics(final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+        if (options.mip_deterministic) {
+
+            if ((nodeKey.index < 0) || (Math.floorMod(nodeKey.hashCode(), options.mip_heuristics) == 0)) {
+                this.runHeuristics(nodeKey, nodeResult);
+            }
+
+        } else if ((nodeKey.index < 0) || ((this.countIterations() % options.mip_heuristics) == 0)) {
+
+            if (options.mip_parallelism <= 1) {
+                this.runHeuristics(nodeKey, nodeResult);
+                return;
+            }
+
+            final HeuristicTask previous = myHeuristicTask.get();
+
+            if ((previous == null) || previous.isFinished()) {
+
+                final HeuristicTask heuristic = new HeuristicTask(nodeKey, nodeResult);
+
+                if (myHeuristicTask.compareAndSet(previous, heuristic)) {
+                    heuristic.fork();
+                    if (myNodePool != null) {
+                        synchronized (myNodePool) {
+                            myNodePool.notify();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deterministic mode: Evaluates a batch of the best open nodes in parallel (in turn, if there is no
+     * executor), then merges the results (new nodes, integer solutions and pseudo-costs) in a well defined
+     * order, before selecting the next batch.
+     */
+    private boolean solveInEpochs(final ForkJoinPool executor) {
+
+        final List<NodeKey> batch = new ArrayList<>(EPOCH);
+        final List<ForkJoinTask<NodeKey[]>> tasks = new ArrayList<>(EPOCH);
+
+        myNodePool.offer(new NodeKey(this.getIntegerModel()));
+
+        while (!myNodePool.isEmpty()) {
+
+            // Never more nodes than there are iterations left - the limit is then hit at the same node every time
+            final int limit = Math.max(1, Math.min(EPOCH, options.iterations_abort - this.countIterations()));
+
+            batch.clear();
+            while ((batch.size() < limit) && !myNodePool.isEmpty()) {
+                final NodeKey nodeKey = myNodePool.poll();
+                if (this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
+                    batch.add(nodeKey);
+                }
+            }
+
+            tasks.clear();
+            for (final NodeKey nodeKey : batch) {
+                final PrinterBuffer printer = this.isDebug() ? new CharacterRing().asPrinter() : null;
+                final ForkJoinTask<NodeKey[]> task = ForkJoinTask.adapt(() -> this.evaluate(nodeKey, this.getNodeModel(nodeKey).prepare(), printer));
+                if (executor != null) {
+                    executor.execute(task);
+                } else {
+                    task.invoke();
+                }
+                tasks.add(task);
+            }
+
+            boolean normalExit = true;
+            for (final ForkJoinTask<NodeKey[]> task : tasks) {
+                final NodeKey[] branches = task.join();
+                if (branches != null) {
+                    for (final NodeKey branch : branches) {
+                        myNodePool.offer(branch);
+                    }
+                } else {
+                    normalExit = false;
+                }
+            }
+
+            this.commitEpoch();
+
+            if (!normalExit) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of evaluated nodes (one iteration per node)
+     */
     int countExploredNodes() {
-        // return myExploredNodes.size();
-        return 0;
+        return this.countIterations();
+    }
+
+    /**
+     * @return The time (ms) left before {@link Optimisation.Options#time_abort} is reached
+     */
+    long countRemainingTime() {
+        return Math.max(options.time_abort - this.countTime(), 0L);
+    }
+
+    /**
+     * Solves the node problem and decides what to do with the node.
+     *
+     * @return The (lower and upper) branches to continue with, an empty array if this branch is done, or
+     *         null if the calculations should stop (iterations or time limit reached, or failure).
+     */
+    NodeKey[] evaluate(final NodeKey nodeKey, final ExpressionsBasedModel.Intermediate nodeModel, final PrinterBuffer nodePrinter) {
+
+        if (this.isDebug()) {
+            nodePrinter.println();
+            nodePrinter.println("Branch&Bound Node");
+            nodePrinter.println(nodeKey.toString());
+            nodePrinter.println(this.toString());
+        }
+
+        if (!this.isIterationAllowed() || !this.isIterationNecessary()) {
+            if (this.isDebug()) {
+                nodePrinter.println("Reached iterations or time limit - stop!");
+                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+            }
+            return null;
+        }
+
+        if (nodeKey.index >= 0) {
+            nodeKey.enforceBounds(nodeModel, this.getIntegerIndices());
+        }
+
+        final Optimisation.Result bestResultSoFar = this.getBestResultSoFar();
+        final Optimisation.Result nodeResult = nodeModel.solve(bestResultSoFar);
+
+        // Increment when/if an iteration was actually performed
+        this.incrementIterationsCount();
+
+        if (this.isDebug()) {
+            nodePrinter.println("Node Result: {}", nodeResult);
+        }
+
+        if (nodeResult.getState().isOptimal()) {
+            if (this.isDebug()) {
+                nodePrinter.println("Node solved to optimality!");
+            }
+
+            if (options.validate && !nodeModel.validate(nodeResult, nodePrinter)) {
+                // This should not be possible. There is a bug somewhere.
+                nodePrinter.println("Node solution marked as OPTIMAL, but is actually INVALID/INFEASIBLE/FAILED. Stop this branch!");
+                nodePrinter.println("Integer indices: {}", Arrays.toString(this.getIntegerIndices()));
+                nodePrinter.println("Lower bounds: {}", Arrays.toString(nodeKey.getLowerBounds()));
+                nodePrinter.println("Upper bounds: {}", Arrays.toString(nodeKey.getUpperBounds()));
+
+                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+
+                return null;
+            }
+
+            final int branchIntegerIndex = this.identifyNonIntegerVariable(nodeResult, nodeKey);
+            final double tmpSolutionValue = this.evaluateFunction(nodeResult);
+
+            if ((nodeKey.index >= 0) && (nodeKey.displacement > ZERO) && !Double.isNaN(nodeKey.objective)) {
+                final double degradation = ABS.invoke(tmpSolutionValue - nodeKey.objective);
+                myPseudoCosts.update(nodeKey.index, nodeKey.direction > 0, degradation / nodeKey.displacement);
+            }
+
+            if (branchIntegerIndex == -1) {
+                if (this.isDebug()) {
+                    nodePrinter.println("Integer solution! Store it among the others, and stop this branch!");
+                }
+
+                final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, nodeResult);
+
+                this.markInteger(nodeKey, null, tmpIntegerSolutionResult);
+
+                if (this.isDebug()) {
+                    nodePrinter.println(this.getBestResultSoFar().toString());
+                    BasicLogger.debug();
+                    BasicLogger.debug(this.toString());
+                    // BasicLogger.debug(DaemonPoolExecutor.INSTANCE.toString());
+                    IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+                }
+
+                nodeModel.dispose();
+                return NO_BRANCHES;
+
+            } else {
+                if (this.isDebug()) {
+                    nodePrinter.println("Not an Integer Solution: " + tmpSolutionValue);
+                }
+
+                if (this.isGoodEnoughToContinueBranching(tmpSolutionValue)) {
+
+                    final int branchOn = options.mip_reliability > 0 ? this.identifyReliableBranchingVariable(nodeResult, nodeKey, tmpSolutionValue)
+                            : branchIntegerIndex;
+                    final double variableValue = nodeResult.doubleValue(this.getGlobalIndex(branchOn));
+
+                    if (this.isDebug()) {
+                        nodePrinter.println("Still hope, branching on {} @ {} >>> {}", branchOn, variableValue,
+                                nodeModel.getVariable(this.getGlobalIndex(branchOn)));
+                        IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+                    }
+
+                    // this.generateCuts(nodeModel);
+
+                    final double estimate = options.mip_selection == NodeSelection.BEST_ESTIMATE ? this.estimate(nodeKey, nodeResult, tmpSolutionValue)
+                            : NaN;
+
+                    final NodeKey lowerBranch = nodeKey.createLowerBranch(branchOn, variableValue, tmpSolutionValue, estimate);
+                    final NodeKey upperBranch = nodeKey.createUpperBranch(branchOn, variableValue, tmpSolutionValue, estimate);
+
+                    if (options.mip_heuristics > 0) {
+                        this.scheduleHeuristics(nodeKey, nodeResult);
+                    }
+
+                    return new NodeKey[] { lowerBranch, upperBranch };
+
+                } else {
+                    if (this.isDebug()) {
+                        nodePrinter.println("Can't find better integer solutions - stop this branch!");
+                        IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+                    }
+
+                    nodeModel.dispose();
+                    return NO_BRANCHES;
+                }
+            }
+
+        } else {
+            if (this.isDebug()) {
+                nodePrinter.println("Failed to solve node problem - stop this branch!");
+                IntegerSolver.flush(nodePrinter, this.getIntegerModel().options.logger_appender);
+            }
+
+            nodeModel.dispose();
+            return NO_BRANCHES;
+        }
+
     }
 
     int getGlobalIndex(final int integerIndex) {
@@ -650,48 +1339,55 @@ public final class IntegerSolver extends GenericSolver {
         return myIntegerIndices;
     }
 
-    double getIntegerSignificance(final int index) {
-        return myIntegerSignificances[index];
+    /**
+     * A node model with the node's bounds set, and the objective limited by the best integer solution found
+     * so far.
+     */
+    ExpressionsBasedModel getNodeModel(final NodeKey key) {
+
+        final ExpressionsBasedModel retVal = this.getNodeModel();
+        key.setNodeState(retVal, this.getIntegerIndices());
+
+        if (this.isIntegerSolutionFound()) {
+
+            final double bestIntegerSolutionValue = this.getBestResultSoFar().getValue();
+
+            double nudge = MAX.invoke(ABS.invoke(bestIntegerSolutionValue) * options.mip_gap, options.mip_gap);
+
+            if (retVal.isMinimisation()) {
+                final BigDecimal upper = TypeUtils.toBigDecimal(bestIntegerSolutionValue - nudge, options.feasibility);
+                retVal.limitObjective(null, upper);
+            } else {
+                final BigDecimal lower = TypeUtils.toBigDecimal(bestIntegerSolutionValue + nudge, options.feasibility);
+                retVal.limitObjective(lower, null);
+            }
+        }
+
+        return retVal;
     }
 
     /**
      * Should return the index of the (best) integer variable to branch on. Returning a negative index means
      * an integer solution has been found (no further branching). Does NOT return a global variable index -
-     * it's the index among the ineteger variable.
+     * it's the index among the ineteger variable. The variable with the largest pseudo-cost score (the
+     * product of the estimated down and up degradations) is selected.
      */
     int identifyNonIntegerVariable(final Optimisation.Result nodeResult, final NodeKey nodeKey) {
 
         int retVal = -1;
-
-        double fraction;
-        double compareFraction = ZERO;
-        double maxFraction = ZERO;
+        double maxScore = ZERO;
 
         for (int i = 0, limit = myIntegerIndices.length; i < limit; i++) {
 
-            fraction = nodeKey.getFraction(i, nodeResult.doubleValue(myIntegerIndices[i]));
-            // [0, 0.5]
+            final double value = nodeResult.doubleValue(myIntegerIndices[i]);
 
-            if (!options.feasibility.isZero(fraction)) {
+            if (!options.feasibility.isZero(nodeKey.getFraction(i, value))) {
 
-                if (this.isIntegerSolutionFound()) {
-                    // If an integer solution is already found
-                    // then scale the fraction by its significance
-
-                    compareFraction = fraction * this.getIntegerSignificance(i);
-
-                } else {
-                    // If not yet found integer solution
-                    // then compare the remaining/reversed (larger) fraction
-
-                    compareFraction = ONE - fraction;
-                    //compareFraction = fraction;
-                    // [0.5, 1.0)
-                }
+                final double score = myPseudoCosts.score(i, value - FLOOR.invoke(value));
 
-                if (compareFraction > maxFraction) {
+                if ((retVal == -1) || (score > maxScore)) {
                     retVal = i;
-                    maxFraction = compareFraction;
+                    maxScore = score;
                 }
             }
         }
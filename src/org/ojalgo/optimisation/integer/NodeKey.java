@@ -48,11 +48,25 @@ final class NodeKey implements Comparable<NodeKey> {
     private final boolean mySignChanged;
     private final int[] myUpperBounds;
 
+    /**
+     * The number of branchings from the root node to this node.
+     */
+    final int depth;
+    /**
+     * -1 if the branched on variable was rounded down (got a new upper bound) to create this node, +1 if it was
+     * rounded up (got a new lower bound), and 0 for the root node.
+     */
+    final int direction;
     /**
      * How much the branched on variable must be displaced because of the new constraint introduced with this
      * node (each node introduces precisely 1 new upper or lower bound).
      */
     final double displacement;
+    /**
+     * An estimate of the objective function value of the best integer solution in this branch, only
+     * calculated when using {@link IntegerSolver.NodeSelection#BEST_ESTIMATE}.
+     */
+    final double estimate;
     /**
      * The index of the branched on variable.
      */
@@ -71,7 +85,8 @@ final class NodeKey implements Comparable<NodeKey> {
     final long sequence = GENERATOR.getAndIncrement();
 
     private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int integerIndexBranchedOn,
-            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, boolean signChanged) {
+            final int branchDirection, final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final double parentEstimate,
+            final int nodeDepth, boolean signChanged) {
 
         super();
 
@@ -80,8 +95,11 @@ final class NodeKey implements Comparable<NodeKey> {
 
         parent = parentSequenceNumber;
         index = integerIndexBranchedOn;
+        direction = branchDirection;
         displacement = branchVariableDisplacement;
         objective = parentObjectiveFunctionValue;
+        estimate = parentEstimate;
+        depth = nodeDepth;
 
         mySignChanged = signChanged;
     }
@@ -116,8 +134,11 @@ final class NodeKey implements Comparable<NodeKey> {
 
         parent = sequence;
         index = -1;
+        direction = 0;
         displacement = PrimitiveMath.NaN;
         objective = PrimitiveMath.NaN;
+        estimate = PrimitiveMath.NaN;
+        depth = 0;
 
         mySignChanged = false;
     }
@@ -245,7 +266,28 @@ final class NodeKey implements Comparable<NodeKey> {
         return retVal;
     }
 
-    NodeKey createLowerBranch(final int branchIntegerIndex, final double value, final double objective) {
+    /**
+     * Lexicographic comparison of the lower, and then upper, bounds. Within a branch&bound tree the bounds
+     * uniquely identify a node, and (unlike the sequence number) they do not depend on the order in which
+     * the nodes were created.
+     */
+    int compareBounds(final NodeKey ref) {
+        for (int i = 0; i < myLowerBounds.length; i++) {
+            final int comparison = Integer.compare(myLowerBounds[i], ref.myLowerBounds[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        for (int i = 0; i < myUpperBounds.length; i++) {
+            final int comparison = Integer.compare(myUpperBounds[i], ref.myUpperBounds[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    NodeKey createLowerBranch(final int branchIntegerIndex, final double value, final double objective, final double estimate) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -266,10 +308,10 @@ final class NodeKey implements Comparable<NodeKey> {
 
         final boolean changed = (oldVal > 0) && (newVal <= 0);
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, value - tmpFloor, objective, changed);
+        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, -1, value - tmpFloor, objective, estimate, depth + 1, changed);
     }
 
-    NodeKey createUpperBranch(final int branchIntegerIndex, final double value, final double objective) {
+    NodeKey createUpperBranch(final int branchIntegerIndex, final double value, final double objective, final double estimate) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -290,7 +332,7 @@ final class NodeKey implements Comparable<NodeKey> {
 
         final boolean changed = (oldVal < 0) && (newVal >= 0);
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, tmpCeil - value, objective, changed);
+        return new NodeKey(tmpLBs, tmpUBs, sequence, branchIntegerIndex, 1, tmpCeil - value, objective, estimate, depth + 1, changed);
     }
 
     void enforceBounds(final ExpressionsBasedModel model, final int integerIndex, final int[] integerToGlobalTranslator) {
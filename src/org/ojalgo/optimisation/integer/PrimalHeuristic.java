@@ -0,0 +1,347 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+import static org.ojalgo.function.PrimitiveFunction.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Primal heuristics try to find (good) integer solutions early, based on a node's relaxed solution, so that
+ * the branch-and-bound search has an incumbent to prune with. A heuristic returns a candidate solution, or
+ * null if it failed. The candidate is not necessarily feasible - the caller validates it.
+ *
+ * @author apete
+ */
+enum PrimalHeuristic {
+
+    /**
+     * Repeatedly bounds one fractional variable, and re-solves the (in-place updated) node problem, until the
+     * solution is integer or the node problem becomes infeasible. Picks the variable closest to an integer
+     * value and rounds it in the direction of the best integer solution found so far (guided diving), or to
+     * the nearest integer if there is no such solution yet (fractional diving). If that makes the node problem
+     * infeasible the variable is instead rounded in the other direction, re-solving a fresh node model with the
+     * dive's bounds so far - there is no further backtracking.
+     */
+    DIVING {
+
+        @Override
+        Optimisation.Result search(final IntegerSolver solver, final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+            final int[] integerIndices = solver.getIntegerIndices();
+            final Optimisation.Result incumbent = solver.isIntegerSolutionFound() ? solver.getBestResultSoFar() : null;
+
+            NodeKey diveKey = nodeKey;
+            ExpressionsBasedModel model = solver.getNodeModel(diveKey);
+            ExpressionsBasedModel.Intermediate intermediate = model.prepare();
+
+            Optimisation.Result current = nodeResult;
+
+            for (int dive = 0, limit = integerIndices.length; dive <= limit; dive++) {
+
+                int branchIndex = -1;
+                double target = NaN;
+                double minDistance = POSITIVE_INFINITY;
+
+                for (int i = 0; i < integerIndices.length; i++) {
+
+                    final double value = current.doubleValue(integerIndices[i]);
+                    final double rounded = RINT.invoke(value);
+
+                    if (!solver.options.feasibility.isZero(value - rounded)) {
+
+                        double candidate = rounded;
+                        if (incumbent != null) {
+                            candidate = incumbent.doubleValue(integerIndices[i]) > value ? CEIL.invoke(value) : FLOOR.invoke(value);
+                        }
+
+                        final double distance = ABS.invoke(value - candidate);
+                        if (distance < minDistance) {
+                            branchIndex = i;
+                            target = candidate;
+                            minDistance = distance;
+                        }
+                    }
+                }
+
+                if (branchIndex == -1) {
+                    return current;
+                } else if (dive == limit) {
+                    return null;
+                }
+
+                final double value = current.doubleValue(integerIndices[branchIndex]);
+                final boolean up = target > value;
+
+                NodeKey child = up ? diveKey.createUpperBranch(branchIndex, value, NaN, NaN) : diveKey.createLowerBranch(branchIndex, value, NaN, NaN);
+
+                if (child.isSignChanged()) {
+                    // The solver has to be re-generated anyway
+                    model = solver.getNodeModel(child);
+                    intermediate = model.prepare();
+                } else {
+                    final Variable variable = model.getVariable(integerIndices[branchIndex]);
+                    final BigDecimal bound = BigDecimal.valueOf((long) target);
+                    if (up) {
+                        variable.lower(bound);
+                    } else {
+                        variable.upper(bound);
+                    }
+                    intermediate.update(variable);
+                }
+
+                Optimisation.Result next = intermediate.solve(current);
+
+                if (!next.getState().isOptimal()) {
+                    // Backtrack once - presolve may have tightened the model based on the failed rounding, so
+                    // round in the other direction on a fresh node model
+                    child = up ? diveKey.createLowerBranch(branchIndex, value, NaN, NaN) : diveKey.createUpperBranch(branchIndex, value, NaN, NaN);
+                    model = solver.getNodeModel(child);
+                    intermediate = model.prepare();
+                    next = intermediate.solve(current);
+                }
+
+                if (!next.getState().isOptimal()) {
+                    return null;
+                }
+
+                diveKey = child;
+                current = next;
+            }
+
+            return null;
+        }
+
+    },
+
+    /**
+     * Alternates between rounding the relaxed solution and solving an LP that minimises the distance to that
+     * rounded point (the original objective function is ignored) - until the two coincide. When the rounding
+     * cycles the most distant variables are flipped. The rounded point is represented by (fixed) target
+     * variables, so that the same node solver is updated in-place and warm started at each iteration. Only
+     * applicable when all integer variables are binary, and only used until there is an integer solution.
+     */
+    FEASIBILITY_PUMP {
+
+        @Override
+        Optimisation.Result search(final IntegerSolver solver, final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+            if (solver.isIntegerSolutionFound()) {
+                return null;
+            }
+
+            final int[] integerIndices = solver.getIntegerIndices();
+
+            for (int i = 0; i < integerIndices.length; i++) {
+                if (!solver.getIntegerModel().getVariable(integerIndices[i]).isBinary()) {
+                    return null;
+                }
+            }
+
+            // Not a work copy - variables and constraints are added
+            final ExpressionsBasedModel model = solver.getNodeModel(nodeKey).copy();
+
+            for (final Variable variable : model.getVariables()) {
+                variable.weight(null);
+            }
+            for (final Expression expression : model.getExpressions()) {
+                if (expression.isObjective()) {
+                    expression.weight(null);
+                }
+            }
+
+            // distance >= |variable - target| with a fixed (unit) weight - only the targets change
+            final Variable[] targets = new Variable[integerIndices.length];
+            for (int i = 0; i < integerIndices.length; i++) {
+                final Variable variable = model.getVariable(integerIndices[i]);
+                final Variable target = model.addVariable("Pump target " + i).lower(ZERO).upper(ONE);
+                final Variable distance = model.addVariable("Pump distance " + i).lower(ZERO).weight(ONE);
+                model.addExpression("Pump above " + i).set(distance, ONE).set(variable, NEG).set(target, ONE).lower(ZERO);
+                model.addExpression("Pump below " + i).set(distance, ONE).set(variable, ONE).set(target, NEG).lower(ZERO);
+                targets[i] = target;
+            }
+            model.setMinimisation();
+
+            final ExpressionsBasedModel.Intermediate intermediate = model.prepare();
+            // Build the solver while the targets are still free, so that fixing them is an in-place update
+            intermediate.solve(null);
+
+            final double[] rounded = new double[integerIndices.length];
+            final double[] previous = new double[integerIndices.length];
+            final double[] distances = new double[integerIndices.length];
+
+            Optimisation.Result current = nodeResult;
+
+            for (int iteration = 0; iteration < PUMP; iteration++) {
+
+                boolean integer = true;
+                for (int i = 0; i < integerIndices.length; i++) {
+                    final double value = current.doubleValue(integerIndices[i]);
+                    rounded[i] = RINT.invoke(value);
+                    distances[i] = ABS.invoke(value - rounded[i]);
+                    integer &= solver.options.feasibility.isZero(distances[i]);
+                }
+
+                if (integer) {
+                    return PrimalHeuristic.fixAndSolve(solver, nodeKey, rounded);
+                }
+
+                if ((iteration > 0) && Arrays.equals(rounded, previous)) {
+                    IntStream.range(0, integerIndices.length).boxed().filter(i -> distances[i] > ZERO)
+                            .sorted(Comparator.comparingDouble(i -> -distances[i])).limit(FLIP).forEach(i -> rounded[i] = ONE - rounded[i]);
+                }
+                System.arraycopy(rounded, 0, previous, 0, rounded.length);
+
+                for (int i = 0; i < integerIndices.length; i++) {
+                    targets[i].level(BigDecimal.valueOf((long) rounded[i]));
+                    intermediate.update(targets[i]);
+                }
+
+                current = intermediate.solve(null);
+
+                if (!current.getState().isOptimal()) {
+                    return null;
+                }
+            }
+
+            return null;
+        }
+
+    },
+
+    /**
+     * Relaxation Induced Neighbourhood Search: Fixes the integer variables where the relaxed solution and the
+     * best integer solution found so far agree, and solves the resulting (much smaller) sub-MIP with a node
+     * limit, and using at most half of the remaining time. Only used when there is an integer solution.
+     */
+    RINS {
+
+        @Override
+        Optimisation.Result search(final IntegerSolver solver, final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+            if (!solver.isIntegerSolutionFound()) {
+                return null;
+            }
+
+            final int[] integerIndices = solver.getIntegerIndices();
+            final Optimisation.Result incumbent = solver.getBestResultSoFar();
+
+            final ExpressionsBasedModel subModel = solver.getIntegerModel().copy();
+
+            int fixed = 0;
+            for (int i = 0; i < integerIndices.length; i++) {
+                final double value = incumbent.doubleValue(integerIndices[i]);
+                if (solver.options.feasibility.isZero(nodeResult.doubleValue(integerIndices[i]) - value)) {
+                    subModel.getVariable(integerIndices[i]).level(BigDecimal.valueOf((long) RINT.invoke(value)));
+                    fixed++;
+                }
+            }
+
+            if ((fixed == integerIndices.length) || ((2 * fixed) < integerIndices.length)) {
+                return null;
+            }
+
+            final Optimisation.Options subOptions = new Optimisation.Options();
+            subOptions.feasibility = solver.options.feasibility;
+            subOptions.solution = solver.options.solution;
+            subOptions.time_abort = solver.countRemainingTime() / 2L;
+            subOptions.mip_gap = solver.options.mip_gap;
+            subOptions.iterations_abort = SUB_MIP_NODES;
+            subOptions.mip_cuts = 0;
+            subOptions.mip_heuristics = 0;
+            subOptions.mip_parallelism = 1;
+
+            final Optimisation.Result retVal = new IntegerSolver(subModel, subOptions).solve(incumbent);
+
+            return retVal.getState().isFeasible() ? retVal : null;
+        }
+
+    },
+
+    /**
+     * Rounds all integer variables to the nearest integer, and re-solves the node problem for the other
+     * variables.
+     */
+    ROUNDING {
+
+        @Override
+        Optimisation.Result search(final IntegerSolver solver, final NodeKey nodeKey, final Optimisation.Result nodeResult) {
+
+            final int[] integerIndices = solver.getIntegerIndices();
+
+            final double[] rounded = new double[integerIndices.length];
+            for (int i = 0; i < integerIndices.length; i++) {
+                rounded[i] = RINT.invoke(nodeResult.doubleValue(integerIndices[i]));
+            }
+
+            return PrimalHeuristic.fixAndSolve(solver, nodeKey, rounded);
+        }
+
+    };
+
+    /**
+     * The max number of variables flipped when the feasibility pump cycles
+     */
+    private static final int FLIP = 10;
+    /**
+     * The max number of feasibility pump iterations
+     */
+    private static final int PUMP = 20;
+    /**
+     * The max number of nodes evaluated when solving a RINS sub-MIP
+     */
+    private static final int SUB_MIP_NODES = 500;
+
+    /**
+     * Fixes the integer variables to the supplied values, and solves the node problem for the other
+     * variables.
+     */
+    static Optimisation.Result fixAndSolve(final IntegerSolver solver, final NodeKey nodeKey, final double[] values) {
+
+        final int[] integerIndices = solver.getIntegerIndices();
+
+        final ExpressionsBasedModel model = solver.getNodeModel(nodeKey);
+
+        for (int i = 0; i < integerIndices.length; i++) {
+            model.getVariable(integerIndices[i]).level(BigDecimal.valueOf((long) values[i]));
+        }
+
+        final Optimisation.Result retVal = model.prepare().solve(null);
+
+        return retVal.getState().isFeasible() ? retVal : null;
+    }
+
+    /**
+     * @return A candidate integer solution, or null
+     */
+    abstract Optimisation.Result search(IntegerSolver solver, NodeKey nodeKey, Optimisation.Result nodeResult);
+
+}
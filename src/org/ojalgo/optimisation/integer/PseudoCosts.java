@@ -0,0 +1,151 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per integer variable, the average objective function degradation per unit change of the variable, when
+ * branching down and up respectively. Learnt from the solved child nodes (and any strong branching). Until a
+ * variable has any observations in a direction the average of the other variables' pseudo-costs, in that
+ * direction, is used - or the prior (the objective function gradient) if there are no observations at all.
+ * <p>
+ * When deferred, new observations are only collected, and then applied by {@link #commit()} in a well
+ * defined order (regardless of the order they were collected in).
+ *
+ * @author apete
+ */
+final class PseudoCosts {
+
+    /**
+     * Used in the product score so that a zero degradation in one direction does not hide the other.
+     */
+    private static final double MINIMUM = 1.0E-6;
+    private static final Comparator<double[]> ORDER = Comparator.<double[]> comparingDouble(obs -> obs[0]).thenComparingDouble(obs -> obs[1])
+            .thenComparingDouble(obs -> obs[2]);
+
+    static double score(final double downDegradation, final double upDegradation) {
+        return Math.max(downDegradation, MINIMUM) * Math.max(upDegradation, MINIMUM);
+    }
+
+    private final List<double[]> myDeferred;
+    private final int[] myDownCount;
+    private final double[] myDownSum;
+    private final double[] myPrior;
+    private int myTotalDownCount = 0;
+    private double myTotalDownSum = ZERO;
+    private int myTotalUpCount = 0;
+    private double myTotalUpSum = ZERO;
+    private final int[] myUpCount;
+    private final double[] myUpSum;
+
+    PseudoCosts(final double[] prior, final boolean deferred) {
+
+        super();
+
+        myPrior = prior;
+        myDeferred = deferred ? new ArrayList<>() : null;
+
+        myDownCount = new int[prior.length];
+        myDownSum = new double[prior.length];
+        myUpCount = new int[prior.length];
+        myUpSum = new double[prior.length];
+    }
+
+    private void apply(final int index, final boolean up, final double degradation) {
+        if (up) {
+            myUpSum[index] += degradation;
+            myUpCount[index]++;
+            myTotalUpSum += degradation;
+            myTotalUpCount++;
+        } else {
+            myDownSum[index] += degradation;
+            myDownCount[index]++;
+            myTotalDownSum += degradation;
+            myTotalDownCount++;
+        }
+    }
+
+    /**
+     * Applies the deferred observations
+     */
+    synchronized void commit() {
+        if (myDeferred != null) {
+            myDeferred.sort(ORDER);
+            for (final double[] observation : myDeferred) {
+                this.apply((int) observation[0], observation[1] > ZERO, observation[2]);
+            }
+            myDeferred.clear();
+        }
+    }
+
+    synchronized double getDown(final int index) {
+        if (myDownCount[index] > 0) {
+            return myDownSum[index] / myDownCount[index];
+        } else if (myTotalDownCount > 0) {
+            return myTotalDownSum / myTotalDownCount;
+        } else {
+            return myPrior[index];
+        }
+    }
+
+    synchronized double getUp(final int index) {
+        if (myUpCount[index] > 0) {
+            return myUpSum[index] / myUpCount[index];
+        } else if (myTotalUpCount > 0) {
+            return myTotalUpSum / myTotalUpCount;
+        } else {
+            return myPrior[index];
+        }
+    }
+
+    /**
+     * @return true if there are at least reliability observations in both directions
+     */
+    synchronized boolean isReliable(final int index, final int reliability) {
+        return (myDownCount[index] >= reliability) && (myUpCount[index] >= reliability);
+    }
+
+    /**
+     * @param fraction The variable's fractional part, how much it must change when branching down
+     */
+    double score(final int index, final double fraction) {
+        return PseudoCosts.score(fraction * this.getDown(index), (ONE - fraction) * this.getUp(index));
+    }
+
+    /**
+     * @param up Was the variable branched up (or down)?
+     * @param degradation Objective function degradation per unit change of the variable
+     */
+    synchronized void update(final int index, final boolean up, final double degradation) {
+        if (myDeferred != null) {
+            myDeferred.add(new double[] { index, up ? ONE : ZERO, degradation });
+        } else {
+            this.apply(index, up, degradation);
+        }
+    }
+
+}
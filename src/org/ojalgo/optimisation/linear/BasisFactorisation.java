@@ -0,0 +1,471 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * A sparse LU factorisation of the simplex basis, with product form (eta) updates. The LU factorisation is
+ * left-looking (Gilbert-Peierls), processing the basis columns in order of increasing number of nonzeros and
+ * using threshold partial pivoting that prefers rows with few nonzeros. Each basis change adds an eta matrix,
+ * and when there are too many of those the basis is refactorised from scratch.
+ * <p>
+ * Basis column k is either structural, variable j &gt;= 0 of the {@link SimplexDictionary}, or artificial,
+ * encoded as -1-i for the (signed) unit column of row i.
+ *
+ * @author apete
+ */
+final class BasisFactorisation {
+
+    private static final double PIVOT_THRESHOLD = 0.1;
+    /**
+     * The maximum number of eta matrices (basis changes) before the basis is refactorised
+     */
+    private static final int REFACTORISATION = 64;
+    private static final double SINGULARITY = 1E-11;
+
+    private static int[] grow(final int[] array, final int minCapacity) {
+        return Arrays.copyOf(array, Math.max(minCapacity, array.length + array.length));
+    }
+
+    private static double[] grow(final double[] array, final int minCapacity) {
+        return Arrays.copyOf(array, Math.max(minCapacity, array.length + array.length));
+    }
+
+    private final double[] myDiagonal;
+    private final SimplexDictionary myDictionary;
+    private final int myDim;
+    private int myEtaCount = 0;
+    private int[] myEtaPointers = new int[8];
+    private int[] myEtaPositions = new int[8];
+    private double[] myEtaPivots = new double[8];
+    private int[] myEtaIndices = new int[64];
+    private double[] myEtaValues = new double[64];
+
+    /**
+     * Lower/upper factor columns, per step, in compressed form. L has row indices, U has step indices.
+     */
+    private final int[] myLowerPointers;
+    private int[] myLowerIndices = new int[64];
+    private double[] myLowerValues = new double[64];
+    private final int[] myUpperPointers;
+    private int[] myUpperIndices = new int[64];
+    private double[] myUpperValues = new double[64];
+
+    private final int[] myPivotRows;
+    private final int[] myPositions;
+    private final int[] myRowSteps;
+
+    private final int[] myMarks;
+    private int myStamp = 0;
+    private final int[] myStack;
+    private final int[] myStackNext;
+    private final int[] myReach;
+    private final double[] myWork;
+
+    BasisFactorisation(final SimplexDictionary dictionary) {
+
+        super();
+
+        myDictionary = dictionary;
+        myDim = dictionary.countConstraints();
+
+        myDiagonal = new double[myDim];
+        myLowerPointers = new int[myDim + 1];
+        myUpperPointers = new int[myDim + 1];
+        myPivotRows = new int[myDim];
+        myPositions = new int[myDim];
+        myRowSteps = new int[myDim];
+
+        myMarks = new int[myDim];
+        myStack = new int[myDim];
+        myStackNext = new int[myDim];
+        myReach = new int[myDim];
+        myWork = new double[myDim];
+    }
+
+    /**
+     * [B]<sup>T</sup>[y] = [c], with [c] indexed by basis position and the solution [y] indexed by row.
+     */
+    void btran(final double[] positionValues, final double[] rowValues) {
+
+        for (int e = myEtaCount - 1; e >= 0; e--) {
+            final int p = myEtaPositions[e];
+            double sum = positionValues[p];
+            for (int k = myEtaPointers[e], limit = myEtaPointers[e + 1]; k < limit; k++) {
+                sum -= myEtaValues[k] * positionValues[myEtaIndices[k]];
+            }
+            positionValues[p] = sum / myEtaPivots[e];
+        }
+
+        final double[] work = myWork;
+
+        for (int s = 0; s < myDim; s++) {
+            double sum = positionValues[myPositions[s]];
+            for (int k = myUpperPointers[s], limit = myUpperPointers[s + 1]; k < limit; k++) {
+                sum -= myUpperValues[k] * work[myUpperIndices[k]];
+            }
+            work[s] = sum / myDiagonal[s];
+        }
+
+        for (int s = myDim - 1; s >= 0; s--) {
+            double sum = work[s];
+            for (int k = myLowerPointers[s], limit = myLowerPointers[s + 1]; k < limit; k++) {
+                sum -= myLowerValues[k] * rowValues[myLowerIndices[k]];
+            }
+            rowValues[myPivotRows[s]] = sum;
+        }
+    }
+
+    int countUpdates() {
+        return myEtaCount;
+    }
+
+    /**
+     * Factorise the basis from scratch. Basis columns that turn out to be (numerically) linearly dependent on
+     * the others are replaced by artificial columns, modifying the basis array.
+     *
+     * @return true if the basis had to be modified
+     */
+    boolean factorise(final int[] basis) {
+
+        final int dim = myDim;
+
+        myEtaCount = 0;
+
+        Arrays.fill(myRowSteps, -1);
+
+        final int[] rowCounts = new int[dim];
+        final int[] columnCounts = new int[dim];
+        int maxCount = 0;
+        for (int p = 0; p < dim; p++) {
+            final int j = basis[p];
+            if (j >= 0) {
+                final int[] indices = myDictionary.getIndices(j);
+                final int count = myDictionary.countNonzeros(j);
+                for (int k = 0; k < count; k++) {
+                    rowCounts[indices[k]]++;
+                }
+                columnCounts[p] = count;
+            } else {
+                rowCounts[-1 - j]++;
+                columnCounts[p] = 1;
+            }
+            maxCount = Math.max(maxCount, columnCounts[p]);
+        }
+
+        // Counting sort of the basis positions by column count
+        final int[] order = new int[dim];
+        final int[] offsets = new int[maxCount + 2];
+        for (int p = 0; p < dim; p++) {
+            offsets[columnCounts[p] + 1]++;
+        }
+        for (int c = 1; c < offsets.length; c++) {
+            offsets[c] += offsets[c - 1];
+        }
+        for (int p = 0; p < dim; p++) {
+            order[offsets[columnCounts[p]]++] = p;
+        }
+
+        int nnzL = 0;
+        int nnzU = 0;
+        int step = 0;
+
+        final boolean[] singular = new boolean[dim];
+        boolean retVal = false;
+
+        for (int o = 0; o < dim; o++) {
+
+            final int p = order[o];
+
+            final int pivotRow = this.eliminate(basis[p], step, rowCounts, nnzL, nnzU);
+
+            if (pivotRow >= 0) {
+                nnzL = myLowerPointers[step + 1];
+                nnzU = myUpperPointers[step + 1];
+                myPositions[step] = p;
+                step++;
+            } else {
+                singular[p] = true;
+                retVal = true;
+            }
+        }
+
+        if (retVal) {
+            int row = 0;
+            for (int p = 0; p < dim; p++) {
+                if (singular[p]) {
+                    while (myRowSteps[row] >= 0) {
+                        row++;
+                    }
+                    basis[p] = -1 - row;
+                    this.eliminate(basis[p], step, rowCounts, nnzL, nnzU);
+                    nnzL = myLowerPointers[step + 1];
+                    nnzU = myUpperPointers[step + 1];
+                    myPositions[step] = p;
+                    step++;
+                }
+            }
+        }
+
+        myEtaPointers[0] = 0;
+        return retVal;
+    }
+
+    /**
+     * [B][x] = [a], with [a] indexed by row and the solution [x] indexed by basis position. The input array is
+     * used as workspace and its contents destroyed.
+     */
+    void ftran(final double[] rowValues, final double[] positionValues) {
+
+        for (int s = 0; s < myDim; s++) {
+            final double value = rowValues[myPivotRows[s]];
+            if (value != ZERO) {
+                for (int k = myLowerPointers[s], limit = myLowerPointers[s + 1]; k < limit; k++) {
+                    rowValues[myLowerIndices[k]] -= myLowerValues[k] * value;
+                }
+            }
+        }
+
+        for (int s = myDim - 1; s >= 0; s--) {
+            final double value = rowValues[myPivotRows[s]] / myDiagonal[s];
+            positionValues[myPositions[s]] = value;
+            if (value != ZERO) {
+                for (int k = myUpperPointers[s], limit = myUpperPointers[s + 1]; k < limit; k++) {
+                    rowValues[myPivotRows[myUpperIndices[k]]] -= myUpperValues[k] * value;
+                }
+            }
+        }
+
+        for (int e = 0; e < myEtaCount; e++) {
+            final int p = myEtaPositions[e];
+            final double value = positionValues[p] / myEtaPivots[e];
+            positionValues[p] = value;
+            if (value != ZERO) {
+                for (int k = myEtaPointers[e], limit = myEtaPointers[e + 1]; k < limit; k++) {
+                    positionValues[myEtaIndices[k]] -= myEtaValues[k] * value;
+                }
+            }
+        }
+    }
+
+    /**
+     * When there are too many eta matrices, or they contain more nonzeros than the LU factors, it's time to
+     * refactorise.
+     */
+    boolean isRefactorisationNeeded() {
+        return (myEtaCount >= REFACTORISATION) || (myEtaPointers[myEtaCount] > (myDim + myLowerPointers[myDim] + myUpperPointers[myDim]));
+    }
+
+    /**
+     * Basis position p is replaced by the column that gave the (ftran) direction
+     */
+    void update(final int p, final double[] direction) {
+
+        final int e = myEtaCount;
+
+        if ((e + 1) >= myEtaPointers.length) {
+            myEtaPointers = BasisFactorisation.grow(myEtaPointers, e + 2);
+            myEtaPositions = BasisFactorisation.grow(myEtaPositions, e + 1);
+            myEtaPivots = BasisFactorisation.grow(myEtaPivots, e + 1);
+        }
+
+        int nnz = myEtaPointers[e];
+        for (int i = 0; i < myDim; i++) {
+            final double value = direction[i];
+            if ((i != p) && (value != ZERO)) {
+                if (nnz == myEtaIndices.length) {
+                    myEtaIndices = BasisFactorisation.grow(myEtaIndices, nnz + 1);
+                    myEtaValues = BasisFactorisation.grow(myEtaValues, nnz + 1);
+                }
+                myEtaIndices[nnz] = i;
+                myEtaValues[nnz] = value;
+                nnz++;
+            }
+        }
+
+        myEtaPositions[e] = p;
+        myEtaPivots[e] = direction[p];
+        myEtaPointers[e + 1] = nnz;
+        myEtaCount = e + 1;
+    }
+
+    /**
+     * Left-looking elimination of one basis column: sparse triangular solve with the L columns found so far,
+     * then pivot selection among the rows not yet pivoted on.
+     *
+     * @return The pivot row, or -1 if the column is (numerically) dependent on the previous ones
+     */
+    private int eliminate(final int column, final int step, final int[] rowCounts, final int nnzL, final int nnzU) {
+
+        final double[] work = myWork;
+
+        int reach = 0;
+        myStamp++;
+
+        if (column >= 0) {
+            final int[] indices = myDictionary.getIndices(column);
+            final double[] values = myDictionary.getValues(column);
+            for (int k = 0, limit = myDictionary.countNonzeros(column); k < limit; k++) {
+                reach = this.reach(indices[k], reach);
+            }
+            for (int k = 0, limit = myDictionary.countNonzeros(column); k < limit; k++) {
+                work[indices[k]] = values[k];
+            }
+        } else {
+            reach = this.reach(-1 - column, reach);
+            work[-1 - column] = myDictionary.getArtificial(-1 - column);
+        }
+
+        // The reach is in reverse topological order
+        for (int r = reach - 1; r >= 0; r--) {
+            final int row = myReach[r];
+            final int s = myRowSteps[row];
+            if (s >= 0) {
+                final double value = work[row];
+                if (value != ZERO) {
+                    for (int k = myLowerPointers[s], limit = myLowerPointers[s + 1]; k < limit; k++) {
+                        work[myLowerIndices[k]] -= myLowerValues[k] * value;
+                    }
+                }
+            }
+        }
+
+        double largest = ZERO;
+        for (int r = 0; r < reach; r++) {
+            final int row = myReach[r];
+            if (myRowSteps[row] < 0) {
+                largest = Math.max(largest, Math.abs(work[row]));
+            }
+        }
+
+        int pivotRow = -1;
+
+        if (largest > SINGULARITY) {
+
+            int fewest = Integer.MAX_VALUE;
+            for (int r = 0; r < reach; r++) {
+                final int row = myReach[r];
+                if ((myRowSteps[row] < 0) && (Math.abs(work[row]) >= (PIVOT_THRESHOLD * largest)) && (rowCounts[row] < fewest)) {
+                    fewest = rowCounts[row];
+                    pivotRow = row;
+                }
+            }
+
+            final double pivot = work[pivotRow];
+
+            int nnz = nnzL;
+            int nnzUpper = nnzU;
+
+            for (int r = 0; r < reach; r++) {
+                final int row = myReach[r];
+                final double value = work[row];
+                if ((row != pivotRow) && (value != ZERO)) {
+                    final int s = myRowSteps[row];
+                    if (s >= 0) {
+                        if (nnzUpper == myUpperIndices.length) {
+                            myUpperIndices = BasisFactorisation.grow(myUpperIndices, nnzUpper + 1);
+                            myUpperValues = BasisFactorisation.grow(myUpperValues, nnzUpper + 1);
+                        }
+                        myUpperIndices[nnzUpper] = s;
+                        myUpperValues[nnzUpper] = value;
+                        nnzUpper++;
+                    } else {
+                        if (nnz == myLowerIndices.length) {
+                            myLowerIndices = BasisFactorisation.grow(myLowerIndices, nnz + 1);
+                            myLowerValues = BasisFactorisation.grow(myLowerValues, nnz + 1);
+                        }
+                        myLowerIndices[nnz] = row;
+                        myLowerValues[nnz] = value / pivot;
+                        nnz++;
+                    }
+                }
+            }
+
+            myLowerPointers[step] = nnzL;
+            myLowerPointers[step + 1] = nnz;
+            myUpperPointers[step] = nnzU;
+            myUpperPointers[step + 1] = nnzUpper;
+
+            myDiagonal[step] = pivot;
+            myPivotRows[step] = pivotRow;
+            myRowSteps[pivotRow] = step;
+        }
+
+        for (int r = 0; r < reach; r++) {
+            work[myReach[r]] = ZERO;
+        }
+
+        return pivotRow;
+    }
+
+    /**
+     * Depth first search from row, over the graph defined by the L columns, appending the rows reached to
+     * myReach in (reverse topological) post order.
+     */
+    private int reach(final int row, final int reach) {
+
+        if (myMarks[row] == myStamp) {
+            return reach;
+        }
+
+        int retVal = reach;
+
+        int top = 0;
+        myStack[top] = row;
+        myMarks[row] = myStamp;
+        myStackNext[top] = myRowSteps[row] >= 0 ? myLowerPointers[myRowSteps[row]] : 0;
+
+        while (top >= 0) {
+
+            final int current = myStack[top];
+            final int s = myRowSteps[current];
+
+            boolean descended = false;
+
+            if (s >= 0) {
+                final int limit = myLowerPointers[s + 1];
+                while (myStackNext[top] < limit) {
+                    final int child = myLowerIndices[myStackNext[top]++];
+                    if (myMarks[child] != myStamp) {
+                        myMarks[child] = myStamp;
+                        top++;
+                        myStack[top] = child;
+                        myStackNext[top] = myRowSteps[child] >= 0 ? myLowerPointers[myRowSteps[child]] : 0;
+                        descended = true;
+                        break;
+                    }
+                }
+            }
+
+            if (!descended) {
+                myReach[retVal++] = current;
+                top--;
+            }
+        }
+
+        return retVal;
+    }
+
+}
@@ -0,0 +1,571 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Primal-dual (infeasible start) interior point method, with Mehrotra's predictor-corrector, for the same LP
+ * standard form problems as the {@link RevisedSimplexSolver}. Each iteration solves the normal equations
+ * [A][&Theta;][A]<sup>T</sup> twice, using the same sparse Cholesky factorisation ({@link NormalEquations}).
+ * The number of iterations hardly grows with the size of the problem, and for large sparse problems this is
+ * typically much faster than any simplex method.
+ * <p>
+ * Variable limits are handled implicitly: lower limits by the (primal) slack x - l, and finite upper limits by
+ * an additional slack u - x, each with its own dual variable. Variables with equal lower and upper limits are
+ * kept fixed.
+ * <p>
+ * The solution is optimal (within tolerance) but, unlike that of a simplex method, generally not a vertex.
+ * Infeasible and unbounded problems are not detected as such - if the method doesn't converge the problem is
+ * instead (re)solved using the {@link RevisedSimplexSolver}.
+ * <p>
+ * Linear models with at least {@link Optimisation.Options#linear_interior} variables are solved with this
+ * solver, or any size if {@link Optimisation.Options#linear_algorithm} is {@link LinearSolver.Algorithm#INTERIOR}.
+ *
+ * @author apete
+ */
+public final class InteriorPointSolver extends LinearSolver {
+
+    public static final class ModelIntegration extends LinearSolver.ModelIntegration {
+
+        @Override
+        public LinearSolver build(final ExpressionsBasedModel model) {
+            return new InteriorPointSolver(LinearSolver.dictionary(model), model.options);
+        }
+
+        /**
+         * Linear models that are not branch&amp;bound nodes (work copies), and have at least
+         * {@link Optimisation.Options#linear_interior} variables
+         */
+        @Override
+        public boolean isCapable(final ExpressionsBasedModel model) {
+            return super.isCapable(model) && !model.isWorkCopy() && (model.countVariables() >= model.options.linear_interior);
+        }
+
+    }
+
+    /**
+     * Any (primal or dual) variable larger than this, and the method is considered to diverge
+     */
+    private static final double DIVERGENCE = 1E30;
+    private static final int ITERATIONS = 200;
+    /**
+     * Variables with a (lower to upper limit) range less than this are fixed
+     */
+    private static final double RANGE = 1E-12;
+    private static final double STEP = 0.99995;
+    private static final double TOLERANCE = 1E-9;
+
+    private static double step(final double[] values, final double[] directions, final boolean[] included, final double step) {
+        double retVal = step;
+        for (int j = 0; j < values.length; j++) {
+            if (included[j] && (directions[j] < ZERO)) {
+                retVal = Math.min(retVal, -values[j] / directions[j]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * The variable has a finite upper limit (and is not fixed)
+     */
+    private final boolean[] myBounded;
+    private final double[] myComplementarityZ;
+    private final double[] myComplementarityV;
+    private final SimplexDictionary myDictionary;
+    private final double[] myDV;
+    private final double[] myDW;
+    private final double[] myDX;
+    private final double[] myDY;
+    private final double[] myDZ;
+    private final NormalEquations myEquations;
+    /**
+     * The variable is not fixed
+     */
+    private final boolean[] myMovable;
+    private double myMu = ZERO;
+    private int myNumberOfPairs = 0;
+    private final double[] myReducedResiduals;
+    private final double[] myResidualsB;
+    private final double[] myResidualsC;
+    private final double[] myResidualsU;
+    private final double[] mySlacksS;
+    private final double[] mySlacksW;
+    private final double[] myTheta;
+    private final double[] myV;
+    private final double[] myX;
+    private final double[] myY;
+    private final double[] myZ;
+
+    InteriorPointSolver(final SimplexDictionary dictionary, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        myDictionary = dictionary;
+
+        final int numbConstr = dictionary.countConstraints();
+        final int numbVars = dictionary.countVariables();
+
+        myMovable = new boolean[numbVars];
+        myBounded = new boolean[numbVars];
+
+        myX = new double[numbVars];
+        mySlacksS = new double[numbVars];
+        mySlacksW = new double[numbVars];
+        myY = new double[numbConstr];
+        myZ = new double[numbVars];
+        myV = new double[numbVars];
+
+        myDX = new double[numbVars];
+        myDW = new double[numbVars];
+        myDY = new double[numbConstr];
+        myDZ = new double[numbVars];
+        myDV = new double[numbVars];
+
+        myResidualsB = new double[numbConstr];
+        myResidualsC = new double[numbVars];
+        myResidualsU = new double[numbVars];
+        myComplementarityZ = new double[numbVars];
+        myComplementarityV = new double[numbVars];
+        myReducedResiduals = new double[numbVars];
+        myTheta = new double[numbVars];
+
+        myEquations = new NormalEquations(dictionary);
+    }
+
+    public boolean fixVariable(final int index, final double value) {
+        return this.updateRange(index, value, value);
+    }
+
+    public Result solve(final Result kickStarter) {
+
+        final Result retVal = this.solveWithoutFallback(kickStarter);
+
+        if (retVal.getState().isOptimal()) {
+            return retVal;
+        }
+
+        if (this.isDebug()) {
+            this.log("No convergence after {} iterations - switching to the revised simplex", this.countIterations());
+        }
+
+        return new RevisedSimplexSolver(myDictionary, options).solve(kickStarter);
+    }
+
+    public boolean updateRange(final int index, final double lower, final double upper) {
+        return myDictionary.updateRange(index, lower, upper);
+    }
+
+    /**
+     * Residuals, and the average complementarity product &mu;
+     */
+    private void calculateResiduals() {
+
+        final int numbVars = myDictionary.countVariables();
+
+        for (int i = 0; i < myResidualsB.length; i++) {
+            myResidualsB[i] = myDictionary.getRHS(i);
+        }
+
+        double complementarity = ZERO;
+
+        for (int j = 0; j < numbVars; j++) {
+
+            final double x = myX[j];
+            if (x != ZERO) {
+                final int[] indices = myDictionary.getIndices(j);
+                final double[] values = myDictionary.getValues(j);
+                for (int k = 0, limit = myDictionary.countNonzeros(j); k < limit; k++) {
+                    myResidualsB[indices[k]] -= values[k] * x;
+                }
+            }
+
+            if (myMovable[j]) {
+                myResidualsC[j] = (myDictionary.getCost(j) - myDictionary.dot(j, myY) - myZ[j]) + myV[j];
+                complementarity += mySlacksS[j] * myZ[j];
+                if (myBounded[j]) {
+                    myResidualsU[j] = myDictionary.getUpper(j) - x - mySlacksW[j];
+                    complementarity += mySlacksW[j] * myV[j];
+                }
+            }
+        }
+
+        myMu = myNumberOfPairs > 0 ? complementarity / myNumberOfPairs : ZERO;
+    }
+
+    /**
+     * Solves for the search direction, given the complementarity (right hand side) terms
+     */
+    private void direction() {
+
+        final int numbVars = myDictionary.countVariables();
+
+        System.arraycopy(myResidualsB, 0, myDY, 0, myDY.length);
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                double reduced = myResidualsC[j] - (myComplementarityZ[j] / mySlacksS[j]);
+                if (myBounded[j]) {
+                    reduced += (myComplementarityV[j] - (myV[j] * myResidualsU[j])) / mySlacksW[j];
+                }
+                myReducedResiduals[j] = reduced;
+                final double scaled = myTheta[j] * reduced;
+                if (scaled != ZERO) {
+                    final int[] indices = myDictionary.getIndices(j);
+                    final double[] values = myDictionary.getValues(j);
+                    for (int k = 0, limit = myDictionary.countNonzeros(j); k < limit; k++) {
+                        myDY[indices[k]] += values[k] * scaled;
+                    }
+                }
+            }
+        }
+
+        myEquations.solve(myDY);
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                final double dx = myTheta[j] * (myDictionary.dot(j, myDY) - myReducedResiduals[j]);
+                myDX[j] = dx;
+                myDZ[j] = (myComplementarityZ[j] - (myZ[j] * dx)) / mySlacksS[j];
+                if (myBounded[j]) {
+                    final double dw = myResidualsU[j] - dx;
+                    myDW[j] = dw;
+                    myDV[j] = (myComplementarityV[j] - (myV[j] * dw)) / mySlacksW[j];
+                }
+            }
+        }
+    }
+
+    private boolean isConverged() {
+
+        final int numbVars = myDictionary.countVariables();
+
+        double normB = ZERO;
+        double residualB = ZERO;
+        for (int i = 0; i < myResidualsB.length; i++) {
+            normB = Math.max(normB, Math.abs(myDictionary.getRHS(i)));
+            residualB = Math.max(residualB, Math.abs(myResidualsB[i]));
+        }
+
+        double normC = ZERO;
+        double normU = ZERO;
+        double residualC = ZERO;
+        double residualU = ZERO;
+        double objective = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            objective += myDictionary.getCost(j) * myX[j];
+            if (myMovable[j]) {
+                normC = Math.max(normC, Math.abs(myDictionary.getCost(j)));
+                residualC = Math.max(residualC, Math.abs(myResidualsC[j]));
+                if (myBounded[j]) {
+                    normU = Math.max(normU, Math.abs(myDictionary.getUpper(j)));
+                    residualU = Math.max(residualU, Math.abs(myResidualsU[j]));
+                }
+            }
+        }
+
+        final double primal = Math.max(residualB / (ONE + normB), residualU / (ONE + normU));
+        final double dual = residualC / (ONE + normC);
+        final double gap = (myMu * myNumberOfPairs) / (ONE + Math.abs(objective));
+
+        if (this.isDebug()) {
+            this.log("Iteration {}: primal {}, dual {}, gap {}, objective {}", this.countIterations(), primal, dual, gap, objective);
+        }
+
+        return (primal <= TOLERANCE) && (dual <= TOLERANCE) && (gap <= TOLERANCE);
+    }
+
+    private boolean isDiverging() {
+        for (int j = 0; j < myX.length; j++) {
+            if (!(Math.abs(myX[j]) < DIVERGENCE) || !(Math.abs(myZ[j]) < DIVERGENCE) || !(Math.abs(myV[j]) < DIVERGENCE)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < myY.length; i++) {
+            if (!(Math.abs(myY[i]) < DIVERGENCE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mehrotra's predictor-corrector step
+     */
+    private void performIteration() {
+
+        final int numbVars = myDictionary.countVariables();
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                double inverse = myZ[j] / mySlacksS[j];
+                if (myBounded[j]) {
+                    inverse += myV[j] / mySlacksW[j];
+                }
+                myTheta[j] = ONE / inverse;
+            }
+        }
+        myEquations.factorise(myTheta, ZERO);
+
+        // Predictor (affine scaling) direction
+
+        for (int j = 0; j < numbVars; j++) {
+            myComplementarityZ[j] = -mySlacksS[j] * myZ[j];
+            myComplementarityV[j] = -mySlacksW[j] * myV[j];
+        }
+        this.direction();
+
+        final double primalAffine = Math.min(InteriorPointSolver.step(mySlacksS, myDX, myMovable, ONE),
+                InteriorPointSolver.step(mySlacksW, myDW, myBounded, ONE));
+        final double dualAffine = Math.min(InteriorPointSolver.step(myZ, myDZ, myMovable, ONE), InteriorPointSolver.step(myV, myDV, myBounded, ONE));
+
+        double complementarity = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                complementarity += (mySlacksS[j] + (primalAffine * myDX[j])) * (myZ[j] + (dualAffine * myDZ[j]));
+                if (myBounded[j]) {
+                    complementarity += (mySlacksW[j] + (primalAffine * myDW[j])) * (myV[j] + (dualAffine * myDV[j]));
+                }
+            }
+        }
+        // Without any complementarity pairs (all variables fixed) there is nothing to centre
+        final double ratio = ((myNumberOfPairs > 0) && (myMu > ZERO)) ? complementarity / (myNumberOfPairs * myMu) : ZERO;
+        final double target = ratio * ratio * ratio * myMu;
+
+        // Corrector (and centering) direction
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                myComplementarityZ[j] = target - (mySlacksS[j] * myZ[j]) - (myDX[j] * myDZ[j]);
+                if (myBounded[j]) {
+                    myComplementarityV[j] = target - (mySlacksW[j] * myV[j]) - (myDW[j] * myDV[j]);
+                }
+            }
+        }
+        this.direction();
+
+        final double primalStep = STEP
+                * Math.min(InteriorPointSolver.step(mySlacksS, myDX, myMovable, ONE / STEP), InteriorPointSolver.step(mySlacksW, myDW, myBounded, ONE / STEP));
+        final double dualStep = STEP
+                * Math.min(InteriorPointSolver.step(myZ, myDZ, myMovable, ONE / STEP), InteriorPointSolver.step(myV, myDV, myBounded, ONE / STEP));
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                myX[j] += primalStep * myDX[j];
+                mySlacksS[j] = myX[j] - myDictionary.getLower(j);
+                myZ[j] += dualStep * myDZ[j];
+                if (myBounded[j]) {
+                    mySlacksW[j] += primalStep * myDW[j];
+                    myV[j] += dualStep * myDV[j];
+                }
+            }
+        }
+        for (int i = 0; i < myY.length; i++) {
+            myY[i] += dualStep * myDY[i];
+        }
+    }
+
+    @Override
+    protected Result buildResult() {
+        return super.buildResult().multipliers(Primitive64Array.wrap(myY.clone()));
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        double retVal = ZERO;
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            retVal += myDictionary.getCost(j) * solution.doubleValue(j);
+        }
+        return retVal;
+    }
+
+    @Override
+    protected PhysicalStore<Double> extractSolution() {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(myDictionary.countVariables(), 1);
+
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            retVal.set(j, Math.min(Math.max(myX[j], myDictionary.getLower(j)), myDictionary.getUpper(j)));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Mehrotra's starting point: the least squares solutions of [A][x] = [b] and [A]<sup>T</sup>[y] + [z] =
+     * [c], shifted to be (sufficiently) positive.
+     */
+    @Override
+    protected boolean initialise(final Result kickStarter) {
+
+        final int numbVars = myDictionary.countVariables();
+
+        myNumberOfPairs = 0;
+        for (int j = 0; j < numbVars; j++) {
+            final double lower = myDictionary.getLower(j);
+            final double upper = myDictionary.getUpper(j);
+            myMovable[j] = (upper - lower) > RANGE;
+            myBounded[j] = myMovable[j] && !Double.isInfinite(upper);
+            myTheta[j] = myMovable[j] ? ONE : ZERO;
+            myX[j] = lower;
+            myZ[j] = ZERO;
+            myV[j] = ZERO;
+            mySlacksW[j] = ZERO;
+            myNumberOfPairs += myMovable[j] ? (myBounded[j] ? 2 : 1) : 0;
+        }
+        myEquations.factorise(myTheta, ZERO);
+
+        Arrays.fill(myY, ZERO);
+        this.calculateResiduals();
+        myEquations.solve(myResidualsB);
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                myX[j] += myDictionary.dot(j, myResidualsB);
+            }
+        }
+
+        for (int j = 0; j < numbVars; j++) {
+            final double cost = myMovable[j] ? myDictionary.getCost(j) : ZERO;
+            if (cost != ZERO) {
+                final int[] indices = myDictionary.getIndices(j);
+                final double[] values = myDictionary.getValues(j);
+                for (int k = 0, limit = myDictionary.countNonzeros(j); k < limit; k++) {
+                    myY[indices[k]] += values[k] * cost;
+                }
+            }
+        }
+        myEquations.solve(myY);
+
+        double primalShift = ZERO;
+        double dualShift = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                mySlacksS[j] = myX[j] - myDictionary.getLower(j);
+                primalShift = Math.min(primalShift, mySlacksS[j]);
+                final double reduced = myDictionary.getCost(j) - myDictionary.dot(j, myY);
+                if (myBounded[j]) {
+                    mySlacksW[j] = myDictionary.getUpper(j) - myX[j];
+                    primalShift = Math.min(primalShift, mySlacksW[j]);
+                    myZ[j] = Math.max(reduced, ZERO);
+                    myV[j] = Math.max(-reduced, ZERO);
+                } else {
+                    myZ[j] = reduced;
+                    dualShift = Math.min(dualShift, reduced);
+                }
+            }
+        }
+        primalShift *= -1.5;
+        dualShift *= -1.5;
+
+        double complementarity = ZERO;
+        double sumPrimal = ZERO;
+        double sumDual = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                final double s = mySlacksS[j] + primalShift;
+                final double z = myZ[j] + dualShift;
+                complementarity += s * z;
+                sumPrimal += s;
+                sumDual += z;
+                if (myBounded[j]) {
+                    final double w = mySlacksW[j] + primalShift;
+                    final double v = myV[j] + dualShift;
+                    complementarity += w * v;
+                    sumPrimal += w;
+                    sumDual += v;
+                }
+            }
+        }
+        if (complementarity > ZERO) {
+            primalShift += HALF * (complementarity / sumDual);
+            dualShift += HALF * (complementarity / sumPrimal);
+        }
+        if (!(primalShift > ZERO)) {
+            primalShift = ONE;
+        }
+        if (!(dualShift > ZERO)) {
+            dualShift = ONE;
+        }
+
+        for (int j = 0; j < numbVars; j++) {
+            if (myMovable[j]) {
+                mySlacksS[j] += primalShift;
+                myX[j] = myDictionary.getLower(j) + mySlacksS[j];
+                myZ[j] += dualShift;
+                if (myBounded[j]) {
+                    mySlacksW[j] += primalShift;
+                    myV[j] += dualShift;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    protected boolean needsAnotherIteration() {
+
+        this.calculateResiduals();
+
+        if (this.isConverged()) {
+            this.setState(State.OPTIMAL);
+            return false;
+        }
+
+        if (!this.isIterationAllowed() || (this.countIterations() >= ITERATIONS) || this.isDiverging()) {
+            this.setState(State.FAILED);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * The interior point iterations only - if they don't converge the returned state is
+     * {@link Optimisation.State#FAILED}, and the problem is not (re)solved using the revised simplex.
+     */
+    Result solveWithoutFallback(final Result kickStarter) {
+
+        this.resetIterationsCount();
+
+        this.initialise(kickStarter);
+
+        while (this.needsAnotherIteration()) {
+
+            this.performIteration();
+
+            this.incrementIterationsCount();
+        }
+
+        return this.buildResult();
+    }
+
+}
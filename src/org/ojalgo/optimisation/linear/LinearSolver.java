@@ -25,6 +25,7 @@ import java.math.BigDecimal;
 import java.util.List;
 
 import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.constant.PrimitiveMath;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
@@ -39,6 +40,55 @@ import org.ojalgo.structure.Structure1D.IntIndex;
 
 public abstract class LinearSolver extends GenericSolver implements UpdatableSolver {
 
+    /**
+     * @see Optimisation.Options#linear_algorithm
+     */
+    public static enum Algorithm {
+
+        /**
+         * {@link InteriorPointSolver}
+         */
+        INTERIOR,
+        /**
+         * {@link RevisedSimplexSolver}
+         */
+        REVISED,
+        /**
+         * {@link SimplexSolver}
+         */
+        TABLEAU;
+
+    }
+
+    /**
+     * How the entering variable (and, for the dual simplex, the leaving variable) is selected.
+     *
+     * @see Optimisation.Options#linear_pricing
+     */
+    public static enum Pricing {
+
+        /**
+         * The most negative reduced cost
+         */
+        DANTZIG,
+        /**
+         * Reduced costs scaled by approximate steepest edge (reference framework) weights, that are updated
+         * using the pivot row of each iteration
+         */
+        DEVEX,
+        /**
+         * Dantzig pricing of one section of the columns at the time, continuing where the previous iteration
+         * stopped. For problems with many more columns than rows.
+         */
+        PARTIAL,
+        /**
+         * Reduced costs scaled by the (exact) norms of the edge directions. The {@link RevisedSimplexSolver}
+         * also uses dual steepest edge weights to select the leaving row in its dual simplex phase.
+         */
+        STEEPEST_EDGE;
+
+    }
+
     public static final class Builder extends GenericSolver.Builder<LinearSolver.Builder, LinearSolver> {
 
         private final ConvexSolver.Builder myDelegate;
@@ -93,6 +143,37 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
         @Override
         protected LinearSolver doBuild(final Optimisation.Options options) {
 
+            if (options.linear_algorithm != Algorithm.TABLEAU) {
+
+                final MatrixStore<Double> mtrxAE = this.getAE();
+                final MatrixStore<Double> mtrxBE = this.getBE();
+                final MatrixStore<Double> mtrxC = this.getC();
+
+                final int numbConstr = this.countConstraints();
+                final int numbVars = this.countVariables();
+
+                final SimplexDictionary dictionary = new SimplexDictionary(numbConstr, numbVars, 0);
+
+                for (int j = 0; j < numbVars; j++) {
+                    dictionary.objective().set(j, mtrxC.doubleValue(j));
+                    for (int i = 0; i < numbConstr; i++) {
+                        final double value = mtrxAE.doubleValue(i, j);
+                        if (value != PrimitiveMath.ZERO) {
+                            dictionary.constraintsBody().set(i, j, value);
+                        }
+                    }
+                }
+                for (int i = 0; i < numbConstr; i++) {
+                    dictionary.constraintsRHS().set(i, mtrxBE.doubleValue(i));
+                }
+
+                if (options.linear_algorithm == Algorithm.INTERIOR) {
+                    return new InteriorPointSolver(dictionary, options);
+                } else {
+                    return new RevisedSimplexSolver(dictionary, options);
+                }
+            }
+
             final SimplexTableau tableau = new DenseTableau(this);
 
             return new SimplexSolver(tableau, options);
@@ -100,17 +181,20 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
 
     }
 
-    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<LinearSolver> {
+    public static class ModelIntegration extends ExpressionsBasedModel.Integration<LinearSolver> {
 
         public LinearSolver build(final ConvexSolver.Builder convexBuilder, final Optimisation.Options options) {
-
-            final SimplexTableau tableau = SimplexSolver.build(convexBuilder);
-
-            return new SimplexSolver(tableau, options);
+            return LinearSolver.make(convexBuilder, options);
         }
 
         public LinearSolver build(final ExpressionsBasedModel model) {
 
+            if (model.options.linear_algorithm == Algorithm.INTERIOR) {
+                return new InteriorPointSolver(LinearSolver.dictionary(model), model.options);
+            } else if (model.options.linear_algorithm == Algorithm.REVISED) {
+                return new RevisedSimplexSolver(LinearSolver.dictionary(model), model.options);
+            }
+
             final SimplexTableau tableau = SimplexSolver.build(model);
 
             return new SimplexSolver(tableau, model.options);
@@ -178,10 +262,11 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
             int retVal = -1;
 
             BigDecimal value = variable.getValue();
+            final int signum = value != null ? value.signum() : 0;
 
-            if ((value.signum() >= 0) && ((retVal = model.indexOfPositiveVariable(variable)) >= 0)) {
+            if ((signum >= 0) && ((retVal = model.indexOfPositiveVariable(variable)) >= 0)) {
                 return retVal;
-            } else if ((value.signum() <= 0) && ((retVal = model.indexOfNegativeVariable(variable)) >= 0)) {
+            } else if ((signum <= 0) && ((retVal = model.indexOfNegativeVariable(variable)) >= 0)) {
                 retVal += model.getPositiveVariables().size();
                 return retVal;
             }
@@ -196,6 +281,37 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
 
     }
 
+    /**
+     * When the entering variable's Devex weight grows beyond this the reference framework is reset
+     */
+    static final double DEVEX_RESET = 1E6;
+    /**
+     * Partial pricing looks at one of (about) this many sections of the columns at the time...
+     */
+    static final int PARTIAL_SECTIONS = 8;
+    /**
+     * ...but never fewer columns than this
+     */
+    static final int PARTIAL_SIZE = 32;
+
+    /**
+     * The model as a {@link SimplexDictionary}, with the positive and negative parts of the model variables
+     * paired
+     */
+    static SimplexDictionary dictionary(final ExpressionsBasedModel model) {
+
+        final SimplexDictionary retVal = SimplexSolver.build(model, SimplexDictionary::new, true);
+
+        final int numbPositives = model.getPositiveVariables().size();
+        final List<Variable> negatives = model.getNegativeVariables();
+        retVal.setNumberOfPositiveVariables(numbPositives);
+        for (int n = 0; n < negatives.size(); n++) {
+            retVal.pair(model.indexOfPositiveVariable(negatives.get(n)), numbPositives + n);
+        }
+
+        return retVal;
+    }
+
     public static LinearSolver.Builder getBuilder() {
         return new LinearSolver.Builder();
     }
@@ -204,13 +320,21 @@ public abstract class LinearSolver extends GenericSolver implements UpdatableSol
         return LinearSolver.getBuilder().objective(C);
     }
 
+    static LinearSolver make(final ConvexSolver.Builder convex, final Optimisation.Options options) {
+        if (options.linear_algorithm == Algorithm.INTERIOR) {
+            return new InteriorPointSolver(SimplexSolver.build(convex, SimplexDictionary::new), options);
+        } else if (options.linear_algorithm == Algorithm.REVISED) {
+            return new RevisedSimplexSolver(SimplexSolver.build(convex, SimplexDictionary::new), options);
+        } else {
+            return new SimplexSolver(SimplexSolver.build(convex), options);
+        }
+    }
+
     public static Optimisation.Result solve(final ConvexSolver.Builder convex, final Optimisation.Options options) {
 
         final int numbVars = convex.countVariables();
 
-        final SimplexTableau tableau = SimplexSolver.build(convex);
-
-        final LinearSolver solver = new SimplexSolver(tableau, options);
+        final LinearSolver solver = LinearSolver.make(convex, options);
 
         final Result result = solver.solve();
 
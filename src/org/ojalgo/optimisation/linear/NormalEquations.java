@@ -0,0 +1,414 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A sparse Cholesky factorisation of the normal equations matrix [A][&Theta;][A]<sup>T</sup> of a
+ * {@link SimplexDictionary}, for any (nonnegative) diagonal [&Theta;]. The symbolic work is done once: a
+ * minimum degree ordering of the rows (found by explicit elimination on the graph of
+ * [A][A]<sup>T</sup>), that also gives the nonzero pattern of [L], and the positions in [L] of every
+ * product of two elements in the same column of [A]. Each numeric factorisation then just assembles the
+ * matrix in the storage of [L] and factorises it left-looking, column by column.
+ * <p>
+ * Pivots that are (relatively) too small, as happens with linearly dependent rows, are replaced by a huge
+ * value. That effectively removes the corresponding row from the solution.
+ *
+ * @author apete
+ */
+final class NormalEquations {
+
+    private static final double HUGE = 1E128;
+    private static final double SINGULARITY = 1E-30;
+
+    /**
+     * @return The neighbours of each row, in the graph of [A][A]<sup>T</sup>
+     */
+    private static int[][] adjacency(final SimplexDictionary dictionary) {
+
+        final int numbConstr = dictionary.countConstraints();
+        final int numbVars = dictionary.countVariables();
+
+        final int[] counts = new int[numbConstr];
+        for (int j = 0; j < numbVars; j++) {
+            final int[] indices = dictionary.getIndices(j);
+            for (int k = 0, limit = dictionary.countNonzeros(j); k < limit; k++) {
+                counts[indices[k]]++;
+            }
+        }
+        final int[][] columns = new int[numbConstr][];
+        for (int i = 0; i < numbConstr; i++) {
+            columns[i] = new int[counts[i]];
+        }
+        Arrays.fill(counts, 0);
+        for (int j = 0; j < numbVars; j++) {
+            final int[] indices = dictionary.getIndices(j);
+            for (int k = 0, limit = dictionary.countNonzeros(j); k < limit; k++) {
+                final int i = indices[k];
+                columns[i][counts[i]++] = j;
+            }
+        }
+
+        final int[][] retVal = new int[numbConstr][];
+
+        final int[] marks = new int[numbConstr];
+        Arrays.fill(marks, -1);
+        int[] work = new int[8];
+
+        for (int i = 0; i < numbConstr; i++) {
+            marks[i] = i;
+            int count = 0;
+            for (final int j : columns[i]) {
+                final int[] indices = dictionary.getIndices(j);
+                for (int k = 0, limit = dictionary.countNonzeros(j); k < limit; k++) {
+                    final int r = indices[k];
+                    if (marks[r] != i) {
+                        marks[r] = i;
+                        if (count == work.length) {
+                            work = Arrays.copyOf(work, count + count);
+                        }
+                        work[count++] = r;
+                    }
+                }
+            }
+            retVal[i] = Arrays.copyOf(work, count);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Minimum degree ordering by explicit elimination. The neighbours of the row eliminated at step k, when it
+     * is eliminated, are the (off-diagonal) nonzeros of column k of [L].
+     *
+     * @param adjacency Modified (destroyed) by this method
+     * @param order Filled with the row eliminated at each step
+     * @return The (original) row indices of the off-diagonal nonzeros of each column of [L]
+     */
+    private static int[][] eliminate(final int[][] adjacency, final int[] order) {
+
+        final int dim = adjacency.length;
+
+        final int[][] retVal = new int[dim][];
+
+        final boolean[] eliminated = new boolean[dim];
+        final int[] degrees = new int[dim];
+        final int[] marks = new int[dim];
+        Arrays.fill(marks, -1);
+
+        final PriorityQueue<Long> queue = new PriorityQueue<>(Math.max(1, dim));
+        for (int i = 0; i < dim; i++) {
+            degrees[i] = adjacency[i].length;
+            queue.add(NormalEquations.key(degrees[i], i));
+        }
+
+        int[] work = new int[8];
+
+        for (int k = 0; k < dim; k++) {
+
+            int p;
+            do {
+                final long key = queue.poll();
+                p = (int) key;
+                if (eliminated[p] || (degrees[p] != (int) (key >>> 32))) {
+                    p = -1;
+                }
+            } while (p < 0);
+
+            eliminated[p] = true;
+            order[k] = p;
+
+            final int[] neighbours = adjacency[p];
+            retVal[k] = neighbours;
+            adjacency[p] = null;
+
+            for (final int q : neighbours) {
+
+                int count = 0;
+                marks[q] = q;
+                for (final int r : adjacency[q]) {
+                    if (!eliminated[r] && (marks[r] != q)) {
+                        marks[r] = q;
+                        if (count == work.length) {
+                            work = Arrays.copyOf(work, count + count);
+                        }
+                        work[count++] = r;
+                    }
+                }
+                for (final int r : neighbours) {
+                    if (marks[r] != q) {
+                        marks[r] = q;
+                        if (count == work.length) {
+                            work = Arrays.copyOf(work, count + count);
+                        }
+                        work[count++] = r;
+                    }
+                }
+                marks[q] = -1;
+                for (int c = 0; c < count; c++) {
+                    marks[work[c]] = -1;
+                }
+
+                adjacency[q] = Arrays.copyOf(work, count);
+                if (degrees[q] != count) {
+                    degrees[q] = count;
+                    queue.add(NormalEquations.key(count, q));
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private static long key(final int degree, final int index) {
+        return ((long) degree << 32) | index;
+    }
+
+    private final double[] myDiagonal;
+    private final SimplexDictionary myDictionary;
+    private final int myDim;
+    private final int[] myFirst;
+    private final int[] myHeads;
+    /**
+     * The nonzeros of [L], column by column. The first element of each column is the diagonal, then the
+     * off-diagonal elements in increasing (permuted) row order.
+     */
+    private final int[] myIndices;
+    private final int[] myLinks;
+    /**
+     * For each column of [A], the positions in {@link #myValues} of the products of its nonzero elements
+     */
+    private final int[] myPairs;
+    private final int[] myPairPointers;
+    /**
+     * Original row index to (permuted) position in [L]
+     */
+    private final int[] myPermutation;
+    private final int[] myPointers;
+    private final double[] myValues;
+    private final double[] myWork;
+
+    NormalEquations(final SimplexDictionary dictionary) {
+
+        super();
+
+        myDictionary = dictionary;
+
+        final int numbConstr = dictionary.countConstraints();
+        final int numbVars = dictionary.countVariables();
+
+        myDim = numbConstr;
+
+        final int[] order = new int[numbConstr];
+        final int[][] columns = NormalEquations.eliminate(NormalEquations.adjacency(dictionary), order);
+
+        myPermutation = new int[numbConstr];
+        for (int k = 0; k < numbConstr; k++) {
+            myPermutation[order[k]] = k;
+        }
+
+        myPointers = new int[numbConstr + 1];
+        for (int k = 0; k < numbConstr; k++) {
+            myPointers[k + 1] = myPointers[k] + 1 + columns[k].length;
+        }
+
+        myIndices = new int[myPointers[numbConstr]];
+        myValues = new double[myPointers[numbConstr]];
+        for (int k = 0; k < numbConstr; k++) {
+            final int start = myPointers[k];
+            myIndices[start] = k;
+            final int[] rows = columns[k];
+            for (int c = 0; c < rows.length; c++) {
+                myIndices[start + 1 + c] = myPermutation[rows[c]];
+            }
+            Arrays.sort(myIndices, start + 1, myPointers[k + 1]);
+        }
+
+        myPairPointers = new int[numbVars + 1];
+        for (int j = 0; j < numbVars; j++) {
+            final int count = dictionary.countNonzeros(j);
+            myPairPointers[j + 1] = myPairPointers[j] + ((count * (count + 1)) / 2);
+        }
+        myPairs = new int[myPairPointers[numbVars]];
+        for (int j = 0; j < numbVars; j++) {
+            final int[] indices = dictionary.getIndices(j);
+            int pair = myPairPointers[j];
+            for (int a = 0, limit = dictionary.countNonzeros(j); a < limit; a++) {
+                final int rowA = myPermutation[indices[a]];
+                for (int b = a; b < limit; b++) {
+                    final int rowB = myPermutation[indices[b]];
+                    final int col = Math.min(rowA, rowB);
+                    final int row = Math.max(rowA, rowB);
+                    myPairs[pair++] = row == col ? myPointers[col] : Arrays.binarySearch(myIndices, myPointers[col] + 1, myPointers[col + 1], row);
+                }
+            }
+        }
+
+        myDiagonal = new double[numbConstr];
+        myFirst = new int[numbConstr];
+        myHeads = new int[numbConstr];
+        myLinks = new int[numbConstr];
+        myWork = new double[numbConstr];
+    }
+
+    /**
+     * @return The number of nonzeros in [L]
+     */
+    int countNonzeros() {
+        return myIndices.length;
+    }
+
+    /**
+     * Assemble and factorise [A][&Theta;][A]<sup>T</sup> + &delta;[I]
+     *
+     * @param theta The diagonal of [&Theta;], one element per dictionary variable
+     * @param regularisation &delta;
+     */
+    void factorise(final double[] theta, final double regularisation) {
+
+        final double[] values = myValues;
+        final int[] indices = myIndices;
+        final int[] pointers = myPointers;
+
+        Arrays.fill(values, ZERO);
+        for (int k = 0; k < myDim; k++) {
+            values[pointers[k]] = regularisation;
+        }
+
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            final double weight = theta[j];
+            if (weight != ZERO) {
+                final double[] column = myDictionary.getValues(j);
+                int pair = myPairPointers[j];
+                for (int a = 0, count = myDictionary.countNonzeros(j); a < count; a++) {
+                    final double scaled = column[a] * weight;
+                    for (int b = a; b < count; b++) {
+                        values[myPairs[pair++]] += scaled * column[b];
+                    }
+                }
+            }
+        }
+
+        final double[] work = myWork;
+        final int[] heads = myHeads;
+        final int[] links = myLinks;
+        final int[] first = myFirst;
+        Arrays.fill(heads, -1);
+
+        for (int j = 0; j < myDim; j++) {
+
+            final int start = pointers[j];
+            final int end = pointers[j + 1];
+
+            for (int p = start; p < end; p++) {
+                work[indices[p]] = values[p];
+            }
+            myDiagonal[j] = values[start];
+
+            // Subtract the contributions of the previous columns k that have a nonzero in row j
+            int k = heads[j];
+            while (k >= 0) {
+                final int next = links[k];
+                final int from = first[k];
+                final int to = pointers[k + 1];
+                final double multiplier = values[from];
+                for (int p = from; p < to; p++) {
+                    work[indices[p]] -= values[p] * multiplier;
+                }
+                this.link(k, from + 1, to);
+                k = next;
+            }
+
+            double pivot = work[j];
+            work[j] = ZERO;
+            if (pivot <= (SINGULARITY + (MACHINE_EPSILON * myDiagonal[j]))) {
+                pivot = HUGE;
+            }
+            pivot = Math.sqrt(pivot);
+            values[start] = pivot;
+
+            for (int p = start + 1; p < end; p++) {
+                final int i = indices[p];
+                values[p] = work[i] / pivot;
+                work[i] = ZERO;
+            }
+
+            this.link(j, start + 1, end);
+        }
+    }
+
+    /**
+     * Solve [L][L]<sup>T</sup>[x] = [b], in place, with [x] and [b] in the original row order.
+     */
+    void solve(final double[] rhs) {
+
+        final double[] work = myWork;
+        final double[] values = myValues;
+        final int[] indices = myIndices;
+        final int[] pointers = myPointers;
+
+        for (int i = 0; i < myDim; i++) {
+            work[myPermutation[i]] = rhs[i];
+        }
+
+        for (int j = 0; j < myDim; j++) {
+            final int start = pointers[j];
+            final double value = work[j] /= values[start];
+            if (value != ZERO) {
+                for (int p = start + 1, end = pointers[j + 1]; p < end; p++) {
+                    work[indices[p]] -= values[p] * value;
+                }
+            }
+        }
+
+        for (int j = myDim - 1; j >= 0; j--) {
+            final int start = pointers[j];
+            double value = work[j];
+            for (int p = start + 1, end = pointers[j + 1]; p < end; p++) {
+                value -= values[p] * work[indices[p]];
+            }
+            work[j] = value / values[start];
+        }
+
+        for (int i = 0; i < myDim; i++) {
+            rhs[i] = work[myPermutation[i]];
+            work[myPermutation[i]] = ZERO;
+        }
+    }
+
+    /**
+     * Column k is next needed when column indices[from] is factorised
+     */
+    private void link(final int k, final int from, final int to) {
+        myFirst[k] = from;
+        if (from < to) {
+            final int row = myIndices[from];
+            myLinks[k] = myHeads[row];
+            myHeads[row] = k;
+        }
+    }
+
+}
@@ -0,0 +1,819 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Revised (two phase, primal) simplex. Solves the same LP standard form problems as the
+ * {@link SimplexSolver}, but instead of pivoting on an explicit tableau it keeps the problem data
+ * ({@link SimplexDictionary}) unmodified and maintains a factorisation of the basis
+ * ({@link BasisFactorisation}). Each iteration does one btran (to price) and one ftran (for the ratio test).
+ * Memory use is proportional to the number of nonzeros rather than rows x columns.
+ * <p>
+ * Variable limits are handled implicitly (bounded simplex), rather than as constraint rows. Nonbasic variables
+ * are at either their lower or upper limit, and if the entering variable reaches its other limit before any
+ * basic variable blocks, it just flips from one limit to the other without a basis change. The ratio test
+ * is a Harris two-pass test, and if there are many consecutive degenerate iterations pricing switches to
+ * Bland's rule until progress is made.
+ * <p>
+ * Pricing is configurable ({@link Optimisation.Options#linear_pricing}). The Devex and (exact, primal)
+ * steepest edge weights are updated with the pivot row, rather than recalculated, at each basis change. With
+ * steepest edge the dual simplex selects the leaving row using dual steepest edge weights.
+ * <p>
+ * Variable limits can be updated in-place ({@link #updateRange(int, double, double)}), as is done between
+ * branch&amp;bound nodes. The solver then restarts from the previous optimal basis, that is still dual
+ * feasible (possibly after moving some nonbasic variables to their other limit), and a dual simplex phase
+ * restores primal feasibility - typically in just a few iterations.
+ *
+ * @author apete
+ */
+public final class RevisedSimplexSolver extends LinearSolver {
+
+    /**
+     * The number of consecutive degenerate iterations allowed before switching to Bland's rule
+     */
+    private static final int DEGENERATE_LIMIT = 50;
+    private static final double HARRIS = 1E-9;
+    private static final double PIVOT = 1E-9;
+
+    /**
+     * Nonbasic variables are at their lower limit, unless this is true
+     */
+    private final boolean[] myAtUpper;
+    private final int[] myBasis;
+    private final double[] myDirection;
+    private final SimplexDictionary myDictionary;
+    private boolean myDual = false;
+    private final double[] myDuals;
+    /**
+     * Dual steepest edge weights, per basis position
+     */
+    private final double[] myDualWeights;
+    private int myEntering = -1;
+    private final BasisFactorisation myFactorisation;
+    private int myLeaving = -1;
+    private int myPartialOffset = 0;
+    private boolean myPhase1 = true;
+    private final double[] myPivotRow;
+    private final int[] myPositions;
+    private final double[] myPositionWork;
+    private final double[] myRowWork;
+    private int myStalled = 0;
+    private final double[] myTau;
+    /**
+     * The change in value of the entering variable
+     */
+    private double myStep = ZERO;
+    /**
+     * The leaving variable becomes nonbasic at its upper (rather than lower) limit
+     */
+    private boolean myToUpper = false;
+    private boolean myUpdated = false;
+    private final double[] myValues;
+    /**
+     * Primal Devex or steepest edge weights, per variable
+     */
+    private final double[] myWeights;
+
+    RevisedSimplexSolver(final SimplexDictionary dictionary, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        myDictionary = dictionary;
+
+        final int numbConstr = dictionary.countConstraints();
+        final int numbVars = dictionary.countVariables();
+
+        myBasis = new int[numbConstr];
+        myPositions = new int[numbVars];
+        myAtUpper = new boolean[numbVars];
+
+        myValues = new double[numbConstr];
+        myDuals = new double[numbConstr];
+        myDirection = new double[numbConstr];
+        myPositionWork = new double[numbConstr];
+        myRowWork = new double[numbConstr];
+        myPivotRow = new double[numbConstr];
+        myTau = new double[numbConstr];
+        myDualWeights = new double[numbConstr];
+        myWeights = new double[numbVars];
+
+        myFactorisation = new BasisFactorisation(dictionary);
+
+        this.reset();
+    }
+
+    public boolean fixVariable(final int index, final double value) {
+        return this.updateRange(index, value, value);
+    }
+
+    /**
+     * The kickStarter is ignored. This solver instead warm starts from its own previous basis, after
+     * {@link #updateRange(int, double, double)} or {@link #fixVariable(int, double)}.
+     */
+    public Result solve(final Result kickStarter) {
+
+        this.resetIterationsCount();
+
+        if (myUpdated) {
+            myUpdated = false;
+            this.restart();
+        }
+
+        while (this.needsAnotherIteration()) {
+
+            this.performIteration();
+
+            this.incrementIterationsCount();
+        }
+
+        return this.buildResult();
+    }
+
+    public boolean updateRange(final int index, final double lower, final double upper) {
+        if (myDictionary.updateRange(index, lower, upper)) {
+            myUpdated = true;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * The lower limit of the basic variable at position p
+     */
+    private double basicLower(final int p) {
+        final int j = myBasis[p];
+        return j >= 0 ? myDictionary.getLower(j) : ZERO;
+    }
+
+    /**
+     * The upper limit of the basic variable at position p. Artificial variables have to be zero in phase 2.
+     */
+    private double basicUpper(final int p) {
+        final int j = myBasis[p];
+        return j >= 0 ? myDictionary.getUpper(j) : (myPhase1 ? POSITIVE_INFINITY : ZERO);
+    }
+
+    private void calculateDuals(final boolean phase1) {
+
+        for (int p = 0; p < myBasis.length; p++) {
+            final int j = myBasis[p];
+            if (j >= 0) {
+                myPositionWork[p] = phase1 ? ZERO : myDictionary.getCost(j);
+            } else {
+                myPositionWork[p] = phase1 ? ONE : ZERO;
+            }
+        }
+
+        myFactorisation.btran(myPositionWork, myDuals);
+    }
+
+    /**
+     * [b] - [N][x<sub>N</sub>] to myRowWork
+     */
+    private void calculateResidual() {
+
+        for (int i = 0; i < myRowWork.length; i++) {
+            myRowWork[i] = myDictionary.getRHS(i);
+        }
+
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            if (myPositions[j] < 0) {
+                final double value = this.value(j);
+                if (value != ZERO) {
+                    final int[] indices = myDictionary.getIndices(j);
+                    final double[] values = myDictionary.getValues(j);
+                    for (int k = 0, count = myDictionary.countNonzeros(j); k < count; k++) {
+                        myRowWork[indices[k]] -= values[k] * value;
+                    }
+                }
+            }
+        }
+    }
+
+    private double countInfeasibility() {
+        double retVal = ZERO;
+        for (int p = 0; p < myBasis.length; p++) {
+            if (myBasis[p] < 0) {
+                retVal += Math.abs(myValues[p]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Dual (Harris two-pass) ratio test along row p of [B]<sup>-1</sup>[A], given by myRowWork, to keep the
+     * reduced costs of variables at their lower limit nonnegative, and at their upper limit nonpositive.
+     */
+    private int findDualEntering(final int p) {
+
+        final double[] row = myRowWork;
+        // Leaving at its upper limit (decreasing), or at its lower limit (increasing)
+        final double sign = myToUpper ? ONE : NEG;
+
+        final int numbVars = myDictionary.countVariables();
+
+        double bound = MACHINE_LARGEST;
+        for (int j = 0; j < numbVars; j++) {
+            if ((myPositions[j] < 0) && this.isMovable(j)) {
+                final double alpha = (myAtUpper[j] ? -sign : sign) * myDictionary.dot(j, row);
+                if (alpha > PIVOT) {
+                    final double ratio = (this.reduced(j) + HARRIS) / alpha;
+                    if (ratio < bound) {
+                        bound = ratio;
+                    }
+                }
+            }
+        }
+
+        int retVal = -1;
+        double largest = ZERO;
+        for (int j = 0; j < numbVars; j++) {
+            if ((myPositions[j] < 0) && this.isMovable(j)) {
+                final double alpha = (myAtUpper[j] ? -sign : sign) * myDictionary.dot(j, row);
+                if ((alpha > PIVOT) && (alpha > largest) && ((this.reduced(j) / alpha) <= bound)) {
+                    largest = alpha;
+                    retVal = j;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Dual simplex pricing: the basic variable with the largest primal infeasibility (limit violation).
+     * Artificial variables are infeasible if they are nonzero.
+     */
+    private int findDualLeaving() {
+
+        final double tolerance = options.feasibility.epsilon();
+        final boolean steepest = options.linear_pricing == Pricing.STEEPEST_EDGE;
+
+        int retVal = -1;
+        double largest = ZERO;
+
+        for (int p = 0; p < myBasis.length; p++) {
+            final double value = myValues[p];
+            final double infeasibility = Math.max(this.basicLower(p) - value, value - this.basicUpper(p));
+            if (infeasibility > tolerance) {
+                final double score = steepest ? (infeasibility * infeasibility) / myDualWeights[p] : infeasibility;
+                if (score > largest) {
+                    largest = score;
+                    retVal = p;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private int findEntering() {
+
+        final double tolerance = options.feasibility.epsilon();
+        final boolean bland = myStalled > DEGENERATE_LIMIT;
+        final Pricing pricing = bland ? Pricing.DANTZIG : options.linear_pricing;
+        final boolean weighted = (pricing == Pricing.DEVEX) || (pricing == Pricing.STEEPEST_EDGE);
+
+        final int numbVars = myDictionary.countVariables();
+        final int offset = pricing == Pricing.PARTIAL ? myPartialOffset : 0;
+        final int section = pricing == Pricing.PARTIAL ? Math.max(PARTIAL_SIZE, numbVars / PARTIAL_SECTIONS) : numbVars;
+
+        int retVal = -1;
+        double largest = ZERO;
+
+        int count = 0;
+        while (count < numbVars) {
+
+            final int j = (offset + count) % numbVars;
+            count++;
+
+            if ((myPositions[j] < 0) && this.isMovable(j)) {
+                double reduced = (myPhase1 ? ZERO : myDictionary.getCost(j)) - myDictionary.dot(j, myDuals);
+                if (myAtUpper[j]) {
+                    // Profitable to decrease
+                    reduced = -reduced;
+                }
+                if (reduced < -tolerance) {
+                    final double score = weighted ? (reduced * reduced) / myWeights[j] : -reduced;
+                    if (score > largest) {
+                        retVal = j;
+                        if (bland) {
+                            break;
+                        }
+                        largest = score;
+                    }
+                }
+            }
+
+            if ((retVal >= 0) && ((count % section) == 0)) {
+                break;
+            }
+        }
+
+        if (pricing == Pricing.PARTIAL) {
+            myPartialOffset = (offset + count) % numbVars;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Harris two-pass ratio test, with the basic variables blocking at either of their limits. Artificial
+     * variables still basic in phase 2 (at zero level) must leave as soon as the direction has a nonzero
+     * element in their position. Sets myStep and myToUpper, and returns -1 if no basic variable blocks.
+     */
+    private int findLeaving() {
+
+        final double[] direction = myDirection;
+        final boolean bland = myStalled > DEGENERATE_LIMIT;
+        // The entering variable increases from its lower limit, or decreases from its upper
+        final double sign = myAtUpper[myEntering] ? NEG : ONE;
+
+        double bound = MACHINE_LARGEST;
+        for (int p = 0; p < myBasis.length; p++) {
+            final double d = sign * direction[p];
+            if (!myPhase1 && (myBasis[p] < 0) && (Math.abs(d) > PIVOT)) {
+                myStep = ZERO;
+                myToUpper = false;
+                return p;
+            }
+            if (Math.abs(d) > PIVOT) {
+                final double ratio = ((bland ? ZERO : HARRIS) + this.slack(p, d)) / Math.abs(d);
+                if (ratio < bound) {
+                    bound = ratio;
+                }
+            }
+        }
+
+        int retVal = -1;
+        double largest = ZERO;
+        for (int p = 0; p < myBasis.length; p++) {
+            final double d = sign * direction[p];
+            if ((Math.abs(d) > PIVOT) && ((this.slack(p, d) / Math.abs(d)) <= bound)) {
+                if (bland) {
+                    if ((retVal < 0) || (myBasis[p] < myBasis[retVal])) {
+                        retVal = p;
+                    }
+                } else if (Math.abs(d) > largest) {
+                    largest = Math.abs(d);
+                    retVal = p;
+                }
+            }
+        }
+
+        if (retVal >= 0) {
+            final double d = sign * direction[retVal];
+            myStep = (sign * this.slack(retVal, d)) / Math.abs(d);
+            myToUpper = d < ZERO;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The entering column, in terms of the current basis, to myDirection
+     */
+    private void ftranEntering() {
+        Arrays.fill(myRowWork, ZERO);
+        final int[] indices = myDictionary.getIndices(myEntering);
+        final double[] values = myDictionary.getValues(myEntering);
+        for (int k = 0, limit = myDictionary.countNonzeros(myEntering); k < limit; k++) {
+            myRowWork[indices[k]] = values[k];
+        }
+        myFactorisation.ftran(myRowWork, myDirection);
+    }
+
+    /**
+     * Variables with equal lower and upper limits can never change value
+     */
+    private boolean isMovable(final int j) {
+        return myDictionary.getUpper(j) > myDictionary.getLower(j);
+    }
+
+    private double objective() {
+        double retVal = ZERO;
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            final int p = myPositions[j];
+            retVal += myDictionary.getCost(j) * (p >= 0 ? myValues[p] : this.value(j));
+        }
+        return retVal;
+    }
+
+    private void performIteration() {
+
+        final int p = myLeaving;
+        final double[] direction = myDirection;
+        final double step = myStep;
+
+        for (int i = 0; i < myBasis.length; i++) {
+            if (i != p) {
+                myValues[i] -= step * direction[i];
+            }
+        }
+
+        if (step == ZERO) {
+            myStalled++;
+        } else {
+            myStalled = 0;
+        }
+
+        if (p < 0) {
+
+            // Bound flip, no basis change
+            myAtUpper[myEntering] = !myAtUpper[myEntering];
+
+            if (this.isDebug()) {
+                this.log("Iteration {}: Phase={} Flip={} Step={} Objective={}", this.countIterations(), myPhase1 ? 1 : 2, myEntering, step, this.objective());
+            }
+
+            return;
+        }
+
+        this.updateWeights(p);
+
+        myValues[p] = this.value(myEntering) + step;
+
+        final int leaving = myBasis[p];
+        if (leaving >= 0) {
+            myPositions[leaving] = -1;
+            myAtUpper[leaving] = myToUpper;
+        }
+        myBasis[p] = myEntering;
+        myPositions[myEntering] = p;
+        myAtUpper[myEntering] = false;
+
+        if (this.isDebug()) {
+            this.log("Iteration {}: Phase={} Enter={} Leave={} Step={} Objective={}", this.countIterations(), myDual ? "D" : (myPhase1 ? 1 : 2), myEntering,
+                    leaving, step, this.objective());
+        }
+
+        if (myFactorisation.isRefactorisationNeeded()) {
+            this.refactorise();
+            if (!myPhase1 && !myDual && !options.feasibility.isZero(this.countInfeasibility())) {
+                // Singular basis, and the replacement artificials are not at zero level
+                myPhase1 = true;
+            }
+        } else {
+            myFactorisation.update(p, direction);
+        }
+    }
+
+    /**
+     * The reduced cost of nonbasic variable j, negated for variables at their upper limit, and truncated to
+     * be nonnegative (as it should be when dual feasible)
+     */
+    private double reduced(final int j) {
+        final double reduced = myDictionary.getCost(j) - myDictionary.dot(j, myDuals);
+        return Math.max(myAtUpper[j] ? -reduced : reduced, ZERO);
+    }
+
+    /**
+     * Refactorise the basis and recalculate the basic variable values (from scratch, to get rid of
+     * accumulated errors).
+     */
+    private void refactorise() {
+
+        if (myFactorisation.factorise(myBasis)) {
+            Arrays.fill(myPositions, -1);
+            for (int p = 0; p < myBasis.length; p++) {
+                if (myBasis[p] >= 0) {
+                    myPositions[myBasis[p]] = p;
+                }
+            }
+        }
+
+        this.calculateResidual();
+        myFactorisation.ftran(myRowWork, myValues);
+    }
+
+    /**
+     * Start over from the all artificial basis, with all other variables at their lower limits
+     */
+    private void reset() {
+
+        Arrays.fill(myPositions, -1);
+        Arrays.fill(myAtUpper, false);
+
+        this.calculateResidual();
+
+        for (int i = 0; i < myBasis.length; i++) {
+            myBasis[i] = -1 - i;
+            myDictionary.setArtificial(i, myRowWork[i] < ZERO ? NEG : ONE);
+            myValues[i] = Math.abs(myRowWork[i]);
+        }
+
+        myFactorisation.factorise(myBasis);
+
+        // Exact for the (signed unit) artificial basis
+        Arrays.fill(myDualWeights, ONE);
+        for (int j = 0; j < myWeights.length; j++) {
+            double weight = ONE;
+            if (options.linear_pricing == Pricing.STEEPEST_EDGE) {
+                final double[] values = myDictionary.getValues(j);
+                for (int k = 0, limit = myDictionary.countNonzeros(j); k < limit; k++) {
+                    weight += values[k] * values[k];
+                }
+            }
+            myWeights[j] = weight;
+        }
+
+        myPhase1 = true;
+        myDual = false;
+        myStalled = 0;
+    }
+
+    /**
+     * After the variable limits have been updated, continue from the current basis if it is (still) primal
+     * or dual feasible - otherwise start over. Nonbasic variables are moved to whichever limit makes them
+     * dual feasible, if that limit is finite.
+     */
+    private void restart() {
+
+        if (myPhase1) {
+            this.reset();
+            return;
+        }
+
+        this.calculateDuals(false);
+
+        final double tolerance = options.feasibility.epsilon();
+
+        boolean dualFeasible = true;
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            if (myPositions[j] < 0) {
+                final double reduced = myDictionary.getCost(j) - myDictionary.dot(j, myDuals);
+                final boolean bounded = !Double.isInfinite(myDictionary.getUpper(j));
+                if ((reduced < -tolerance) && bounded) {
+                    myAtUpper[j] = true;
+                } else if ((reduced > tolerance) || !bounded) {
+                    myAtUpper[j] = false;
+                }
+                if ((reduced < -tolerance) && !bounded) {
+                    dualFeasible = false;
+                }
+            }
+        }
+
+        this.refactorise();
+        myStalled = 0;
+
+        if (dualFeasible) {
+            myDual = true;
+        } else if (this.findDualLeaving() >= 0) {
+            // Neither primal nor dual feasible
+            this.reset();
+        }
+    }
+
+    /**
+     * How far the basic variable at position p can move before reaching a limit, when it changes in the
+     * direction opposite to the sign of d
+     */
+    private double slack(final int p, final double d) {
+        final double slack = d > ZERO ? myValues[p] - this.basicLower(p) : this.basicUpper(p) - myValues[p];
+        return Math.max(slack, ZERO);
+    }
+
+    /**
+     * Update the Devex or steepest edge weights for the basis change where the entering variable replaces
+     * the one at position p. Uses the pivot row, and with steepest edge also [B]<sup>-T</sup> of the
+     * direction, and [B]<sup>-1</sup> of the pivot row (for the dual weights).
+     */
+    private void updateWeights(final int p) {
+
+        final Pricing pricing = options.linear_pricing;
+        final boolean steepest = pricing == Pricing.STEEPEST_EDGE;
+
+        if (!steepest && (pricing != Pricing.DEVEX)) {
+            return;
+        }
+
+        final double[] direction = myDirection;
+        final double pivot = direction[p];
+
+        double weight = myWeights[myEntering];
+        if (steepest) {
+            weight = ONE;
+            for (int i = 0; i < direction.length; i++) {
+                weight += direction[i] * direction[i];
+            }
+            System.arraycopy(direction, 0, myPositionWork, 0, direction.length);
+            myFactorisation.btran(myPositionWork, myRowWork);
+        } else if (weight > DEVEX_RESET) {
+            Arrays.fill(myWeights, ONE);
+            return;
+        }
+
+        Arrays.fill(myPositionWork, ZERO);
+        myPositionWork[p] = ONE;
+        myFactorisation.btran(myPositionWork, myPivotRow);
+
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            if ((myPositions[j] < 0) && (j != myEntering)) {
+                final double alpha = myDictionary.dot(j, myPivotRow);
+                if (alpha != ZERO) {
+                    final double ratio = alpha / pivot;
+                    if (steepest) {
+                        final double updated = (myWeights[j] - (TWO * ratio * myDictionary.dot(j, myRowWork))) + (ratio * ratio * weight);
+                        myWeights[j] = Math.max(updated, ONE + (ratio * ratio));
+                    } else {
+                        myWeights[j] = Math.max(myWeights[j], ratio * ratio * weight);
+                    }
+                }
+            }
+        }
+
+        final int leaving = myBasis[p];
+        if (leaving >= 0) {
+            myWeights[leaving] = Math.max(weight / (pivot * pivot), ONE);
+        }
+
+        if (steepest) {
+
+            double norm = ZERO;
+            for (int i = 0; i < myPivotRow.length; i++) {
+                norm += myPivotRow[i] * myPivotRow[i];
+            }
+
+            myFactorisation.ftran(myPivotRow, myTau);
+
+            for (int i = 0; i < myBasis.length; i++) {
+                final double ratio = direction[i] / pivot;
+                if ((i != p) && (ratio != ZERO)) {
+                    final double updated = (myDualWeights[i] - (TWO * ratio * myTau[i])) + (ratio * ratio * norm);
+                    myDualWeights[i] = Math.max(updated, ratio * ratio);
+                }
+            }
+            myDualWeights[p] = norm / (pivot * pivot);
+        }
+    }
+
+    /**
+     * The value of nonbasic variable j
+     */
+    private double value(final int j) {
+        return myAtUpper[j] ? myDictionary.getUpper(j) : myDictionary.getLower(j);
+    }
+
+    @Override
+    protected Result buildResult() {
+
+        this.calculateDuals(false);
+
+        return super.buildResult().multipliers(Primitive64Array.wrap(myDuals.clone()));
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        return this.objective();
+    }
+
+    @Override
+    protected PhysicalStore<Double> extractSolution() {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(myDictionary.countVariables(), 1);
+
+        for (int j = 0, limit = myDictionary.countVariables(); j < limit; j++) {
+            final int p = myPositions[j];
+            if (p >= 0) {
+                retVal.set(j, Math.min(Math.max(myValues[p], myDictionary.getLower(j)), myDictionary.getUpper(j)));
+            } else {
+                retVal.set(j, this.value(j));
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected boolean initialise(final Result kickStarter) {
+        return false;
+    }
+
+    @Override
+    protected boolean needsAnotherIteration() {
+
+        if (!this.isIterationAllowed()) {
+            this.setState((myPhase1 || myDual) ? State.FAILED : State.FEASIBLE);
+            return false;
+        }
+
+        if (myDual) {
+
+            myLeaving = this.findDualLeaving();
+
+            if (myLeaving >= 0) {
+
+                myToUpper = myValues[myLeaving] > this.basicUpper(myLeaving);
+
+                this.calculateDuals(false);
+
+                Arrays.fill(myPositionWork, ZERO);
+                myPositionWork[myLeaving] = ONE;
+                myFactorisation.btran(myPositionWork, myRowWork);
+
+                myEntering = this.findDualEntering(myLeaving);
+
+                if (myEntering < 0) {
+                    this.setState(State.INFEASIBLE);
+                    return false;
+                }
+
+                this.ftranEntering();
+
+                // The leaving variable goes to the limit it violates
+                final double limit = myToUpper ? this.basicUpper(myLeaving) : this.basicLower(myLeaving);
+                myStep = (myValues[myLeaving] - limit) / myDirection[myLeaving];
+
+                return true;
+
+            } else {
+
+                if (this.isDebug()) {
+                    this.log("Dual phase done after {} iterations", this.countIterations());
+                }
+
+                myDual = false;
+                myStalled = 0;
+            }
+        }
+
+        if (myPhase1) {
+
+            boolean artificials = false;
+            for (int p = 0; !artificials && (p < myBasis.length); p++) {
+                artificials = myBasis[p] < 0;
+            }
+
+            if (!artificials || options.feasibility.isZero(this.countInfeasibility())) {
+
+                if (this.isDebug()) {
+                    this.log("Switching to phase 2 after {} iterations", this.countIterations());
+                }
+
+                myPhase1 = false;
+                myStalled = 0;
+            }
+        }
+
+        this.calculateDuals(myPhase1);
+
+        myEntering = this.findEntering();
+
+        if (myEntering < 0) {
+            this.setState(myPhase1 ? State.INFEASIBLE : State.OPTIMAL);
+            return false;
+        }
+
+        this.ftranEntering();
+
+        myLeaving = this.findLeaving();
+
+        final double range = myDictionary.getUpper(myEntering) - myDictionary.getLower(myEntering);
+
+        if ((myLeaving < 0) || (range <= Math.abs(myStep))) {
+
+            if (Double.isInfinite(range)) {
+                this.setState(myPhase1 ? State.INFEASIBLE : State.UNBOUNDED);
+                return false;
+            }
+
+            // The entering variable reaches its other limit first
+            myLeaving = -1;
+            myStep = myAtUpper[myEntering] ? -range : range;
+        }
+
+        return true;
+    }
+
+}
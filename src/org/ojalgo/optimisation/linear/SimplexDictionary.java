@@ -21,8 +21,335 @@
  */
 package org.ojalgo.optimisation.linear;
 
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
 import org.ojalgo.optimisation.linear.SimplexSolver.AlgorithmStore;
+import org.ojalgo.structure.Mutate1D;
+import org.ojalgo.structure.Mutate2D;
+
+/**
+ * The LP standard form data [A], [b] and [c], stored column-wise (sparse), for the
+ * {@link RevisedSimplexSolver}. Contrary to the {@link SimplexTableau} this is never modified by the solver.
+ * The variables may have (column) lower and upper limits, [l] &lt;= [x] &lt;= [u], rather than just being
+ * nonnegative. The lower limits are always finite and nonnegative. Artificial variables are not stored;
+ * they are implicit unit columns, negated as decided by the solver, so that the initial (artificial) basis
+ * is feasible.
+ *
+ * @author apete
+ */
+final class SimplexDictionary implements AlgorithmStore {
+
+    private final double[] myArtificials;
+    private Mutate2D myConstraintsBody = null;
+    private Mutate1D myConstraintsRHS = null;
+    private final int[] myCounts;
+    private final int[][] myIndices;
+    private final double[] myLowers;
+    private final int myNumberOfConstraints;
+    /**
+     * The problem variables are the positive parts of the model variables followed by the negative parts.
+     */
+    private int myNumberOfPositiveVariables;
+    private final int myNumberOfProblemVariables;
+    private final int myNumberOfSlackVariables;
+    private final double[] myObjective;
+    private Mutate1D myObjectiveMutator = null;
+    /**
+     * The other (negative or positive) part of the same model variable, or -1
+     */
+    private final int[] myPartners;
+    private final double[] myRHS;
+    private final double[] myUppers;
+    private final double[][] myValues;
+
+    SimplexDictionary(final int numberOfConstraints, final int numberOfProblemVariables, final int numberOfSlackVariables) {
+
+        super();
+
+        myNumberOfConstraints = numberOfConstraints;
+        myNumberOfProblemVariables = numberOfProblemVariables;
+        myNumberOfPositiveVariables = numberOfProblemVariables;
+        myNumberOfSlackVariables = numberOfSlackVariables;
+
+        final int numbVars = numberOfProblemVariables + numberOfSlackVariables;
+
+        myObjective = new double[numbVars];
+        myRHS = new double[numberOfConstraints];
+
+        myCounts = new int[numbVars];
+        myIndices = new int[numbVars][];
+        myValues = new double[numbVars][];
+
+        myLowers = new double[numbVars];
+        myUppers = new double[numbVars];
+        Arrays.fill(myUppers, POSITIVE_INFINITY);
+        myPartners = new int[numberOfProblemVariables];
+        Arrays.fill(myPartners, -1);
+        myArtificials = new double[numberOfConstraints];
+        Arrays.fill(myArtificials, ONE);
+    }
+
+    public Mutate2D constraintsBody() {
+        if (myConstraintsBody == null) {
+            myConstraintsBody = new Mutate2D() {
+
+                public void add(final long row, final long col, final double addend) {
+                    final int index = SimplexDictionary.this.index((int) row, (int) col);
+                    myValues[(int) col][index] += addend;
+                }
+
+                public void add(final long row, final long col, final Number addend) {
+                    this.add(row, col, addend.doubleValue());
+                }
+
+                public long countColumns() {
+                    return SimplexDictionary.this.countVariables();
+                }
+
+                public long countRows() {
+                    return SimplexDictionary.this.countConstraints();
+                }
+
+                public void set(final long row, final long col, final double value) {
+                    final int index = SimplexDictionary.this.index((int) row, (int) col);
+                    myValues[(int) col][index] = value;
+                }
+
+                public void set(final long row, final long col, final Number value) {
+                    this.set(row, col, value.doubleValue());
+                }
+
+            };
+        }
+        return myConstraintsBody;
+    }
+
+    public Mutate1D constraintsRHS() {
+        if (myConstraintsRHS == null) {
+            myConstraintsRHS = new Mutate1D() {
+
+                public void add(final long index, final double addend) {
+                    myRHS[(int) index] += addend;
+                }
+
+                public void add(final long index, final Number addend) {
+                    this.add(index, addend.doubleValue());
+                }
+
+                public long count() {
+                    return myRHS.length;
+                }
+
+                public void set(final long index, final double value) {
+                    myRHS[(int) index] = value;
+                }
+
+                public void set(final long index, final Number value) {
+                    this.set(index, value.doubleValue());
+                }
+
+            };
+        }
+        return myConstraintsRHS;
+    }
+
+    public void limits(final int column, final double lower, final double upper) {
+        myLowers[column] = lower;
+        myUppers[column] = upper;
+    }
+
+    public Mutate1D objective() {
+        if (myObjectiveMutator == null) {
+            myObjectiveMutator = new Mutate1D() {
+
+                public void add(final long index, final double addend) {
+                    myObjective[(int) index] += addend;
+                }
+
+                public void add(final long index, final Number addend) {
+                    this.add(index, addend.doubleValue());
+                }
+
+                public long count() {
+                    return myObjective.length;
+                }
+
+                public void set(final long index, final double value) {
+                    myObjective[(int) index] = value;
+                }
+
+                public void set(final long index, final Number value) {
+                    this.set(index, value.doubleValue());
+                }
+
+            };
+        }
+        return myObjectiveMutator;
+    }
+
+    private int index(final int row, final int col) {
+
+        final int count = myCounts[col];
+        int[] indices = myIndices[col];
+
+        if ((count > 0) && (indices[count - 1] == row)) {
+            return count - 1;
+        }
+        if ((count == 0) || (indices[count - 1] < row)) {
+            if ((indices == null) || (count == indices.length)) {
+                final int capacity = indices == null ? 2 : count + count;
+                myIndices[col] = indices = indices == null ? new int[capacity] : Arrays.copyOf(indices, capacity);
+                myValues[col] = myValues[col] == null ? new double[capacity] : Arrays.copyOf(myValues[col], capacity);
+            }
+            indices[count] = row;
+            myValues[col][count] = ZERO;
+            myCounts[col] = count + 1;
+            return count;
+        }
+
+        int retVal = Arrays.binarySearch(indices, 0, count, row);
+        if (retVal < 0) {
+            // Keep the row indices sorted
+            retVal = -(retVal + 1);
+            if (count == indices.length) {
+                myIndices[col] = indices = Arrays.copyOf(indices, count + count);
+                myValues[col] = Arrays.copyOf(myValues[col], count + count);
+            }
+            final double[] values = myValues[col];
+            System.arraycopy(indices, retVal, indices, retVal + 1, count - retVal);
+            System.arraycopy(values, retVal, values, retVal + 1, count - retVal);
+            indices[retVal] = row;
+            values[retVal] = ZERO;
+            myCounts[col] = count + 1;
+        }
+        return retVal;
+    }
+
+    int countConstraints() {
+        return myNumberOfConstraints;
+    }
+
+    /**
+     * @return The number of nonzero elements in column j of [A]
+     */
+    int countNonzeros(final int j) {
+        return myCounts[j];
+    }
+
+    int countProblemVariables() {
+        return myNumberOfProblemVariables;
+    }
+
+    int countSlackVariables() {
+        return myNumberOfSlackVariables;
+    }
+
+    /**
+     * problem + slack
+     */
+    int countVariables() {
+        return myNumberOfProblemVariables + myNumberOfSlackVariables;
+    }
+
+    /**
+     * @return [a<sub>j</sub>]<sup>T</sup>[y]
+     */
+    double dot(final int j, final double[] y) {
+        double retVal = ZERO;
+        final int[] indices = myIndices[j];
+        final double[] values = myValues[j];
+        for (int k = 0, limit = myCounts[j]; k < limit; k++) {
+            retVal += values[k] * y[indices[k]];
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The only nonzero element of the artificial column of row i
+     */
+    double getArtificial(final int i) {
+        return myArtificials[i];
+    }
+
+    double getCost(final int j) {
+        return myObjective[j];
+    }
+
+    /**
+     * @return The row indices of the nonzero elements of column j (only the first {@link #countNonzeros(int)}
+     *         are valid)
+     */
+    int[] getIndices(final int j) {
+        return myIndices[j];
+    }
+
+    double getLower(final int j) {
+        return myLowers[j];
+    }
+
+    double getRHS(final int i) {
+        return myRHS[i];
+    }
+
+    double getUpper(final int j) {
+        return myUppers[j];
+    }
+
+    /**
+     * @return The nonzero values of column j (only the first {@link #countNonzeros(int)} are valid)
+     */
+    double[] getValues(final int j) {
+        return myValues[j];
+    }
+
+    /**
+     * Problem variables positive and negative are the two parts of the same model variable.
+     */
+    void pair(final int positive, final int negative) {
+        if (positive >= 0) {
+            myPartners[positive] = negative;
+            myPartners[negative] = positive;
+        }
+    }
+
+    void setArtificial(final int i, final double sign) {
+        myArtificials[i] = sign;
+    }
+
+    void setNumberOfPositiveVariables(final int numberOfPositiveVariables) {
+        myNumberOfPositiveVariables = numberOfPositiveVariables;
+    }
+
+    /**
+     * Change the lower/upper limits of (the model variable of) problem variable j. If the model variable is
+     * split in a positive and a negative part both columns are updated.
+     *
+     * @return false if the new limits can't be represented by the existing columns
+     */
+    boolean updateRange(final int j, final double lower, final double upper) {
+
+        if ((j < 0) || (j >= myNumberOfProblemVariables) || (lower > upper)) {
+            return false;
+        }
+
+        final boolean positive = j < myNumberOfPositiveVariables;
+        final int pos = positive ? j : myPartners[j];
+        final int neg = positive ? myPartners[j] : j;
+
+        if (((pos < 0) && (upper > ZERO)) || ((neg < 0) && (lower < ZERO))) {
+            return false;
+        }
+
+        if (pos >= 0) {
+            this.limits(pos, Math.max(lower, ZERO), Math.max(upper, ZERO));
+        }
+        if (neg >= 0) {
+            this.limits(neg, Math.max(-upper, ZERO), Math.max(-lower, ZERO));
+        }
 
-abstract class SimplexDictionary implements AlgorithmStore {
+        return true;
+    }
 
 }
@@ -82,17 +82,46 @@ import org.ojalgo.type.context.NumberContext;
  */
 public final class SimplexSolver extends LinearSolver {
 
+    /**
+     * The (LP standard form) data of the problem, written to before the solver starts.
+     */
     interface AlgorithmStore {
 
+        @FunctionalInterface
+        interface Factory<S extends AlgorithmStore> {
+
+            S make(int numberOfConstraints, int numberOfProblemVariables, int numberOfSlackVariables);
+
+        }
+
+        Mutate2D constraintsBody();
+
+        Mutate1D constraintsRHS();
+
+        /**
+         * Only called when the store is built "bounded" - the variable limits are then column limits rather
+         * than constraint rows. The limits are in (unscaled) variable units, and the lower limit is always
+         * finite and nonnegative.
+         */
+        default void limits(final int column, final double lower, final double upper) {
+            ;
+        }
+
+        Mutate1D objective();
+
     }
 
     static SimplexTableau build(final ConvexSolver.Builder convex) {
+        return SimplexSolver.build(convex, SimplexTableau::make);
+    }
+
+    static <S extends AlgorithmStore> S build(final ConvexSolver.Builder convex, final AlgorithmStore.Factory<S> factory) {
 
         final int numbVars = convex.countVariables();
         final int numbEqus = convex.countEqualityConstraints();
         final int numbInes = convex.countInequalityConstraints();
 
-        final SimplexTableau retVal = SimplexTableau.make(numbEqus + numbInes, numbVars + numbVars, numbInes);
+        final S retVal = factory.make(numbEqus + numbInes, numbVars + numbVars, numbInes);
 
         final Mutate1D obj = retVal.objective();
 
@@ -140,6 +169,24 @@ public final class SimplexSolver extends LinearSolver {
 
     static SimplexTableau build(final ExpressionsBasedModel model) {
 
+        final SimplexTableau retVal = SimplexSolver.build(model, SimplexTableau::make, false);
+
+        //        BasicLogger.DEBUG.printmtrx("Sparse", retVal);
+        //        BasicLogger.DEBUG.printmtrx("Dense", retVal.toDense());
+
+        if (retVal.getOvercapacity() <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L)) {
+            return retVal.toDense();
+        } else {
+            return retVal;
+        }
+    }
+
+    /**
+     * @param bounded If true the variable limits are passed on as column limits
+     *        ({@link AlgorithmStore#limits(int, double, double)}) rather than being constraint rows.
+     */
+    static <S extends AlgorithmStore> S build(final ExpressionsBasedModel model, final AlgorithmStore.Factory<S> factory, final boolean bounded) {
+
         final List<Variable> tmpPosVariables = model.getPositiveVariables();
         final List<Variable> tmpNegVariables = model.getNegativeVariables();
         final Set<IntIndex> tmpFixVariables = model.getFixedVariables();
@@ -163,17 +210,41 @@ public final class SimplexSolver extends LinearSolver {
         final List<Variable> tmpVarsNegUp = model.bounds().filter(v -> v.isNegative() && v.isUpperConstraint() && (v.getUpperLimit().signum() < 0))
                 .collect(Collectors.toList());
 
+        if (bounded) {
+            tmpVarsPosLo.clear();
+            tmpVarsPosUp.clear();
+            tmpVarsNegLo.clear();
+            tmpVarsNegUp.clear();
+        }
+
         final int tmpConstraiCount = tmpExprsEq.size() + tmpExprsLo.size() + tmpExprsUp.size() + tmpVarsPosLo.size() + tmpVarsPosUp.size() + tmpVarsNegLo.size()
                 + tmpVarsNegUp.size();
         final int tmpProblVarCount = tmpPosVariables.size() + tmpNegVariables.size();
         final int tmpSlackVarCount = tmpExprsLo.size() + tmpExprsUp.size() + tmpVarsPosLo.size() + tmpVarsPosUp.size() + tmpVarsNegLo.size()
                 + tmpVarsNegUp.size();
-        final SimplexTableau retVal = SimplexTableau.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount);
+        final S retVal = factory.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount);
 
         final int tmpPosVarsBaseIndex = 0;
         final int tmpNegVarsBaseIndex = tmpPosVarsBaseIndex + tmpPosVariables.size();
         final int tmpSlaVarsBaseIndex = tmpNegVarsBaseIndex + tmpNegVariables.size();
 
+        if (bounded) {
+
+            for (int p = 0; p < tmpPosVariables.size(); p++) {
+                final Variable tmpVar = tmpPosVariables.get(p);
+                final double tmpLower = tmpVar.isLowerLimitSet() ? Math.max(tmpVar.getLowerLimit().doubleValue(), ZERO) : ZERO;
+                final double tmpUpper = tmpVar.isUpperLimitSet() ? tmpVar.getUpperLimit().doubleValue() : POSITIVE_INFINITY;
+                retVal.limits(tmpPosVarsBaseIndex + p, tmpLower, tmpUpper);
+            }
+
+            for (int n = 0; n < tmpNegVariables.size(); n++) {
+                final Variable tmpVar = tmpNegVariables.get(n);
+                final double tmpLower = tmpVar.isUpperLimitSet() ? Math.max(-tmpVar.getUpperLimit().doubleValue(), ZERO) : ZERO;
+                final double tmpUpper = tmpVar.isLowerLimitSet() ? -tmpVar.getLowerLimit().doubleValue() : POSITIVE_INFINITY;
+                retVal.limits(tmpNegVarsBaseIndex + n, tmpLower, tmpUpper);
+            }
+        }
+
         for (final IntIndex tmpKey : tmpObjFunc.getLinearKeySet()) {
 
             final double tmpFactor = model.isMaximisation() ? -tmpObjFunc.getAdjustedLinearFactor(tmpKey) : tmpObjFunc.getAdjustedLinearFactor(tmpKey);
@@ -437,20 +508,30 @@ public final class SimplexSolver extends LinearSolver {
         }
         tmpConstrBaseIndex += tmpVarsNegUpLength;
 
-        //        BasicLogger.DEBUG.printmtrx("Sparse", retVal);
-        //        BasicLogger.DEBUG.printmtrx("Dense", retVal.toDense());
-
-        if (retVal.getOvercapacity() <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L)) {
-            return retVal.toDense();
-        } else {
-            return retVal;
-        }
+        return retVal;
     }
 
     private final IterationPoint myPoint;
 
     private final SimplexTableau myTableau;
     private LongToNumberMap<Double> myFixedVariables = null;
+    private int myPartialOffset = 0;
+    /**
+     * Work array for the pivot column, used to update the steepest edge weights
+     */
+    private final double[] myPivotColumn;
+    /**
+     * Work array for the (Harris) ratio test
+     */
+    private final double[] myRatios;
+    /**
+     * Devex reference framework weights, or (exact) steepest edge weights
+     */
+    private final double[] myWeights;
+    /**
+     * Steepest edge weights are (re)calculated from scratch when this is false
+     */
+    private boolean myWeightsExact = false;
 
     SimplexSolver(final SimplexTableau tableau, final Optimisation.Options solverOptions) {
 
@@ -460,6 +541,11 @@ public final class SimplexSolver extends LinearSolver {
 
         myPoint = new IterationPoint();
 
+        myPivotColumn = new double[tableau.countConstraints()];
+        myRatios = new double[tableau.countConstraints()];
+        myWeights = new double[tableau.countVariables()];
+        Arrays.fill(myWeights, ONE);
+
         if (this.isDebug() && this.isTableauPrintable()) {
             this.logDebugTableau("Tableau Created");
         }
@@ -479,6 +565,7 @@ public final class SimplexSolver extends LinearSolver {
             }
             myFixedVariables.put(index, value);
             myPoint.returnToPhase1();
+            myWeightsExact = false;
         }
 
         return retVal;
@@ -523,6 +610,83 @@ public final class SimplexSolver extends LinearSolver {
         return myPoint.isPhase2() ? 2 : 1;
     }
 
+    /**
+     * How attractive it is to let column col enter the basis, given its (negative) reduced cost
+     */
+    private double score(final int col, final double reduced) {
+
+        switch (options.linear_pricing) {
+
+        case DEVEX:
+        case STEEPEST_EDGE:
+
+            return (reduced * reduced) / myWeights[col];
+
+        default:
+
+            return -reduced;
+        }
+    }
+
+    /**
+     * Goldfarb-Reid steepest edge weight updates, must be called before the pivot. With explicit tableau
+     * columns the weights could be calculated exactly at any time, but updating is cheaper - columns with a
+     * zero in the pivot row are not affected.
+     */
+    private void updateEdgeWeights(final int row, final int entering, final int leaving) {
+
+        final int numberOfConstraints = myTableau.countConstraints();
+
+        // The entering column's weight is recalculated exactly - any error in it would be amplified by the updates
+        double weight = ONE;
+        for (int i = 0; i < numberOfConstraints; i++) {
+            myPivotColumn[i] = myTableau.doubleValue(i, entering);
+            weight += myPivotColumn[i] * myPivotColumn[i];
+        }
+
+        final double pivot = myPivotColumn[row];
+
+        for (final int col : myTableau.getExcluded()) {
+            if (col != entering) {
+                final double ratio = myTableau.doubleValue(row, col) / pivot;
+                if (ratio != ZERO) {
+                    double dot = ZERO;
+                    for (int i = 0; i < numberOfConstraints; i++) {
+                        dot += myTableau.doubleValue(i, col) * myPivotColumn[i];
+                    }
+                    myWeights[col] = Math.max(myWeights[col] - (TWO * ratio * dot) + (ratio * ratio * weight), ONE + (ratio * ratio));
+                }
+            }
+        }
+
+        if (leaving >= 0) {
+            myWeights[leaving] = Math.max(weight / (pivot * pivot), ONE);
+        }
+    }
+
+    /**
+     * Devex weight updates using the pivot row (after the pivot it holds the ratios to the pivot element).
+     */
+    private void updateWeights(final int row, final int entering, final int leaving) {
+
+        final double weight = myWeights[entering];
+
+        if (weight > DEVEX_RESET) {
+            Arrays.fill(myWeights, ONE);
+            return;
+        }
+
+        for (final int col : myTableau.getExcluded()) {
+            final double ratio = myTableau.doubleValue(row, col);
+            final double candidate = ratio * ratio * weight;
+            if (col == leaving) {
+                myWeights[col] = Math.max(candidate, ONE);
+            } else if (candidate > myWeights[col]) {
+                myWeights[col] = candidate;
+            }
+        }
+    }
+
     @Override
     protected Result buildResult() {
         return super.buildResult().multipliers(myTableau.sliceDualVariables());
@@ -661,25 +825,55 @@ public final class SimplexSolver extends LinearSolver {
             }
         }
 
+        if ((options.linear_pricing == Pricing.STEEPEST_EDGE) && !myWeightsExact) {
+            // The tableau column is the edge direction - its norm is readily available
+            for (final int tmpCol : tmpExcluded) {
+                double tmpNorm = ONE;
+                for (int i = 0, limit = myTableau.countConstraints(); i < limit; i++) {
+                    final double tmpValue = myTableau.doubleValue(i, tmpCol);
+                    tmpNorm += tmpValue * tmpValue;
+                }
+                myWeights[tmpCol] = tmpNorm;
+            }
+            myWeightsExact = true;
+        }
+
         int retVal = -1;
 
-        double tmpVal;
-        double tmpMinVal = myPoint.isPhase2() ? -options.feasibility.epsilon() : ZERO;
-        //double tmpMinVal = ZERO;
+        final double tmpThreshold = (myPoint.isPhase2() || (options.linear_pricing != Pricing.DANTZIG)) ? -options.feasibility.epsilon() : ZERO;
+        double tmpMaxScore = ZERO;
+
+        final int tmpLength = tmpExcluded.length;
+        final boolean tmpPartial = options.linear_pricing == Pricing.PARTIAL;
+        final int tmpSection = tmpPartial ? Math.max(PARTIAL_SIZE, tmpLength / PARTIAL_SECTIONS) : tmpLength;
 
-        int tmpCol;
+        int tmpCount = 0;
+        while (tmpCount < tmpLength) {
+
+            final int tmpCol = tmpExcluded[(myPartialOffset + tmpCount) % tmpLength];
+            tmpCount++;
 
-        for (int e = 0; e < tmpExcluded.length; e++) {
-            tmpCol = tmpExcluded[e];
             // tmpVal = myTransposedTableau.doubleValue(tmpCol, myPoint.getRowObjective());
-            tmpVal = myTableau.doubleValue(this.getRowObjective(), tmpCol);
-            if (tmpVal < tmpMinVal) {
-                retVal = tmpCol;
-                tmpMinVal = tmpVal;
-                if (this.isDebug()) {
-                    this.log("Col: {}\t=>\tReduced Contribution Weight: {}.", tmpCol, tmpVal);
+            final double tmpVal = myTableau.doubleValue(this.getRowObjective(), tmpCol);
+            if (tmpVal < tmpThreshold) {
+                final double tmpScore = this.score(tmpCol, tmpVal);
+                if (tmpScore > tmpMaxScore) {
+                    retVal = tmpCol;
+                    tmpMaxScore = tmpScore;
+                    if (this.isDebug()) {
+                        this.log("Col: {}\t=>\tReduced Contribution Weight: {}.", tmpCol, tmpVal);
+                    }
                 }
             }
+
+            if ((retVal >= 0) && ((tmpCount % tmpSection) == 0)) {
+                // Good enough, continue from here next iteration
+                break;
+            }
+        }
+
+        if (tmpPartial && (tmpLength > 0)) {
+            myPartialOffset = (myPartialOffset + tmpCount) % tmpLength;
         }
 
         return retVal;
@@ -706,11 +900,20 @@ public final class SimplexSolver extends LinearSolver {
         int retVal = -1;
         double tmpNumer = NaN, tmpDenom = NaN, tmpRatio = NaN;
         double tmpMinRatio = MACHINE_LARGEST;
+        double tmpMaxDenom = ZERO;
 
         final int tmpConstraintsCount = myTableau.countConstraints();
 
         final boolean tmpPhase2 = myPoint.isPhase2();
 
+        // The weighted pricing strategies need the stability of a Harris (two-pass) ratio test
+        final boolean tmpHarris = (options.linear_pricing == Pricing.DEVEX) || (options.linear_pricing == Pricing.STEEPEST_EDGE);
+        // With the default (Dantzig) pricing ties are broken as they always were - first row wins
+        final boolean tmpLargestPivot = options.linear_pricing != Pricing.DANTZIG;
+        final double tmpTolerance = options.feasibility.epsilon();
+        final double[] tmpRatios = myRatios;
+        double tmpBound = MACHINE_LARGEST;
+
         for (int i = 0; i < tmpConstraintsCount; i++) {
 
             // Phase 2 with artificials still in the basis
@@ -740,17 +943,42 @@ public final class SimplexSolver extends LinearSolver {
                 }
             }
 
-            if ((tmpSpecialCase || (tmpDenom > ZERO)) && (tmpRatio >= ZERO) && (tmpRatio < tmpMinRatio)) {
+            if ((tmpSpecialCase || (tmpDenom > ZERO)) && (tmpRatio >= ZERO)) {
 
-                retVal = i;
-                tmpMinRatio = tmpRatio;
+                tmpRatios[i] = tmpRatio;
 
-                if (this.isDebug()) {
-                    this.log("Row: {}\t=>\tRatio: {},\tNumerator/RHS: {}, \tDenominator/Pivot: {}.", i, tmpRatio, tmpNumer, tmpDenom);
+                if (tmpHarris) {
+                    tmpBound = Math.min(tmpBound, tmpSpecialCase ? tmpRatio : (tmpNumer + tmpTolerance) / tmpDenom);
+                } else if ((tmpRatio < tmpMinRatio) || (tmpLargestPivot && (tmpRatio == tmpMinRatio) && (PrimitiveFunction.ABS.invoke(tmpDenom) > tmpMaxDenom))) {
+                    // Ties (degenerate rows) are broken in favour of the largest pivot element
+                    retVal = i;
+                    tmpMinRatio = tmpRatio;
+                    tmpMaxDenom = PrimitiveFunction.ABS.invoke(tmpDenom);
+                }
+
+            } else {
+
+                tmpRatios[i] = NaN;
+            }
+        }
+
+        if (tmpHarris) {
+            // Among the rows within the relaxed bound pick the one with the largest pivot element
+            for (int i = 0; i < tmpConstraintsCount; i++) {
+                if (tmpRatios[i] <= tmpBound) {
+                    tmpDenom = PrimitiveFunction.ABS.invoke(myTableau.doubleValue(i, tmpDenomCol));
+                    if ((retVal < 0) || (tmpDenom > tmpMaxDenom)) {
+                        retVal = i;
+                        tmpMaxDenom = tmpDenom;
+                    }
                 }
             }
         }
 
+        if (this.isDebug() && (retVal >= 0)) {
+            this.log("Row: {}\t=>\tRatio: {},\tDenominator/Pivot: {}.", retVal, tmpRatios[retVal], myTableau.doubleValue(retVal, tmpDenomCol));
+        }
+
         return retVal;
     }
 
@@ -759,9 +987,18 @@ public final class SimplexSolver extends LinearSolver {
         final double tmpPivotElement = myTableau.doubleValue(pivot.row, pivot.col);
         final int tmpColRHS = myTableau.countConstraints() + myTableau.countVariables();
         final double tmpPivotRHS = myTableau.doubleValue(pivot.row, tmpColRHS);
+        final int tmpLeaving = myTableau.getBasisColumnIndex(pivot.row);
+
+        if (options.linear_pricing == Pricing.STEEPEST_EDGE) {
+            this.updateEdgeWeights(pivot.row, pivot.col, tmpLeaving);
+        }
 
         myTableau.pivot(pivot);
 
+        if (options.linear_pricing == Pricing.DEVEX) {
+            this.updateWeights(pivot.row, pivot.col, tmpLeaving);
+        }
+
         if (this.isDebug()) {
             this.log("Iteration Point <{},{}>\tPivot: {} => {}\tRHS: {} => {}.", pivot.row, pivot.col, tmpPivotElement,
                     myTableau.doubleValue(pivot.row, pivot.col), tmpPivotRHS, myTableau.doubleValue(pivot.row, tmpColRHS));
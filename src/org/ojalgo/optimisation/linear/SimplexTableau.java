@@ -898,14 +898,14 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         myBasis = BasicArray.makeIncreasingRange(-numberOfConstraints, numberOfConstraints);
     }
 
-    protected final Mutate2D constraintsBody() {
+    public final Mutate2D constraintsBody() {
         if (myConstraintsBody == null) {
             myConstraintsBody = this.newConstraintsBody();
         }
         return myConstraintsBody;
     }
 
-    protected final Mutate1D constraintsRHS() {
+    public final Mutate1D constraintsRHS() {
         if (myConstraintsRHS == null) {
             myConstraintsRHS = this.newConstraintsRHS();
         }
@@ -996,7 +996,7 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         return false;
     }
 
-    protected final Mutate1D objective() {
+    public final Mutate1D objective() {
         if (myObjective == null) {
             myObjective = this.newObjective();
         }
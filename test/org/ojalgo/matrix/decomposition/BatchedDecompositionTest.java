@@ -0,0 +1,124 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Uniform;
+
+/**
+ * @author apete
+ */
+public class BatchedDecompositionTest {
+
+    private static void doTest(final BatchedDecomposition batch, final boolean spd) {
+
+        final int dim = batch.getDim();
+        final int size = batch.getBatchSize();
+
+        final PrimitiveDenseStore[] bodies = new PrimitiveDenseStore[size];
+        final PrimitiveDenseStore[] rhss = new PrimitiveDenseStore[size];
+
+        final double[] data = new double[dim * dim * size];
+        final double[] rhs = new double[dim * size];
+
+        final Uniform random = new Uniform(-1.0, 2.0);
+        random.setSeed(dim);
+
+        for (int b = 0; b < size; b++) {
+
+            // Diagonally dominant, and therefore well conditioned
+            final PrimitiveDenseStore body = PrimitiveDenseStore.FACTORY.makeFilled(dim, dim, random);
+            for (int ij = 0; ij < dim; ij++) {
+                body.add(ij, ij, dim);
+            }
+            if (spd) {
+                bodies[b] = PrimitiveDenseStore.FACTORY.copy(body.multiply(body.transpose()).add(MatrixStore.PRIMITIVE.makeIdentity(dim).get()));
+            } else {
+                bodies[b] = body;
+            }
+            rhss[b] = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1, random);
+
+            for (int j = 0; j < dim; j++) {
+                for (int i = 0; i < dim; i++) {
+                    data[batch.index(b, i, j)] = bodies[b].doubleValue(i, j);
+                }
+                rhs[b + (j * size)] = rhss[b].doubleValue(j);
+            }
+        }
+
+        TestUtils.assertTrue(batch.decompose(data));
+        batch.solve(data, rhs);
+
+        for (int b = 0; b < size; b++) {
+
+            final LU<Double> reference = LU.PRIMITIVE.make(bodies[b]);
+            reference.decompose(bodies[b]);
+
+            final PrimitiveDenseStore solution = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+            for (int i = 0; i < dim; i++) {
+                solution.set(i, rhs[b + (i * size)]);
+            }
+
+            TestUtils.assertEquals(reference.getSolution(rhss[b]), solution);
+            TestUtils.assertEquals(reference.getDeterminant(), batch.getDeterminant(data, b), 1E-10 * Math.abs(reference.getDeterminant()));
+        }
+    }
+
+    @Test
+    public void testCholesky() {
+        for (int dim = 3; dim <= 12; dim++) {
+            BatchedDecompositionTest.doTest(BatchedDecomposition.makeCholesky(dim, 300), true);
+        }
+    }
+
+    @Test
+    public void testLU() {
+        for (int dim = 3; dim <= 12; dim++) {
+            BatchedDecompositionTest.doTest(BatchedDecomposition.makeLU(dim, 300), false);
+        }
+    }
+
+    @Test
+    public void testSingular() {
+
+        final BatchedDecomposition batch = BatchedDecomposition.makeLU(3, 2);
+
+        final double[] data = new double[18];
+        final double[] rhs = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0 };
+        for (int ij = 0; ij < 3; ij++) {
+            data[batch.index(0, ij, ij)] = 2.0;
+        }
+
+        TestUtils.assertFalse(batch.decompose(data));
+        TestUtils.assertEquals(1, batch.countSolvable());
+        TestUtils.assertTrue(batch.isSolvable(0));
+        TestUtils.assertFalse(batch.isSolvable(1));
+
+        batch.solve(data, rhs);
+        TestUtils.assertEquals(0.5, rhs[0]);
+        TestUtils.assertTrue(Double.isNaN(rhs[1]));
+    }
+
+}
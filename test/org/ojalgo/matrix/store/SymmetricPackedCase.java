@@ -0,0 +1,79 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.MatrixUtils;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.decomposition.Eigenvalue;
+import org.ojalgo.random.Uniform;
+
+public class SymmetricPackedCase extends MatrixStoreTests {
+
+    @Test
+    public void testDecompositions() {
+
+        final PrimitiveDenseStore dense = MatrixUtils.makeSPD(9);
+        final SymmetricPackedStore packed = SymmetricPackedStore.copy(dense);
+
+        final Cholesky<Double> expectedCholesky = Cholesky.PRIMITIVE.make(dense);
+        expectedCholesky.decompose(dense);
+        final Cholesky<Double> actualCholesky = Cholesky.PRIMITIVE.make(packed);
+        actualCholesky.decompose(packed);
+        TestUtils.assertEquals(expectedCholesky.getL(), actualCholesky.getL());
+
+        final Eigenvalue<Double> expectedEvD = Eigenvalue.PRIMITIVE.make(dense, true);
+        expectedEvD.decompose(dense);
+        final Eigenvalue<Double> actualEvD = Eigenvalue.PRIMITIVE.make(packed, true);
+        actualEvD.decompose(packed);
+        TestUtils.assertEquals(expectedEvD.getEigenvalues(), actualEvD.getEigenvalues());
+    }
+
+    @Test
+    public void testElementsAndMultiplication() {
+
+        final int dim = 7;
+
+        final PrimitiveDenseStore dense = MatrixUtils.makeSPD(dim);
+        final SymmetricPackedStore packed = SymmetricPackedStore.make(dim);
+        for (int j = 0; j < dim; j++) {
+            for (int i = j; i < dim; i++) {
+                packed.set(j, i, dense.doubleValue(i, j));
+            }
+        }
+
+        TestUtils.assertEquals(dense, packed);
+
+        final PrimitiveDenseStore right = PrimitiveDenseStore.FACTORY.makeFilled(dim, 5, new Uniform());
+        TestUtils.assertEquals(dense.multiply(right), packed.multiply(right));
+
+        final PrimitiveDenseStore vector = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1, new Uniform());
+        TestUtils.assertEquals(dense.multiplyBoth(vector), packed.multiplyBoth(vector));
+        TestUtils.assertEquals(dense.multiply(vector), packed.multiply(vector));
+
+        final RawStore raw = new RawStore(dim, dim);
+        packed.supplyTo(raw);
+        TestUtils.assertEquals(dense, raw);
+    }
+
+}
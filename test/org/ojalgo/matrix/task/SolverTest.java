@@ -21,6 +21,8 @@
  */
 package org.ojalgo.matrix.task;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -28,17 +30,195 @@ import org.junit.jupiter.api.Test;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.TestUtils;
 import org.ojalgo.matrix.MatrixUtils;
+import org.ojalgo.matrix.decomposition.Eigenvalue;
+import org.ojalgo.matrix.decomposition.LU;
 import org.ojalgo.matrix.decomposition.MatrixDecomposition;
 import org.ojalgo.matrix.decomposition.MatrixDecompositionTests;
+import org.ojalgo.matrix.store.BandedStore;
+import org.ojalgo.matrix.store.BlockDiagonalStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.AlgebraicMultigridSolver;
+import org.ojalgo.matrix.task.iterative.BiCGStabSolver;
+import org.ojalgo.matrix.task.iterative.BlockConjugateGradientSolver;
 import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
 import org.ojalgo.matrix.task.iterative.GaussSeidelSolver;
 import org.ojalgo.matrix.task.iterative.JacobiSolver;
+import org.ojalgo.matrix.task.iterative.KrylovSubspaceSolver;
+import org.ojalgo.matrix.task.iterative.LinearOperator;
+import org.ojalgo.matrix.task.iterative.ParallelGaussSeidelSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
 import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
 
 public final class SolverTest extends MatrixTaskTests {
 
+    @Test
+    public void testAlgebraicMultigrid() {
+
+        final int side = 30;
+        final int dim = side * side;
+
+        final SparseStore<Double> tmpLaplacian = SparseStore.PRIMITIVE.make(dim, dim);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final int ij = i + (j * side);
+                tmpLaplacian.set(ij, ij, 4.0);
+                if (i > 0) {
+                    tmpLaplacian.set(ij, ij - 1, -1.0);
+                }
+                if (i < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + 1, -1.0);
+                }
+                if (j > 0) {
+                    tmpLaplacian.set(ij, ij - side, -1.0);
+                }
+                if (j < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + side, -1.0);
+                }
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpLaplacian);
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpDense);
+        tmpLU.decompose(tmpDense);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        final AlgebraicMultigridSolver tmpMultigrid = new AlgebraicMultigridSolver();
+        tmpMultigrid.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(100);
+        TestUtils.assertEquals(tmpExpected, tmpMultigrid.solve(tmpLaplacian, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+
+        final ConjugateGradientSolver tmpPreconditioned = new ConjugateGradientSolver();
+        tmpPreconditioned.configurator().preconditioner(Preconditioner.newAlgebraicMultigrid()).accuracy(NumberContext.getGeneral(12, 14)).iterations(50);
+        TestUtils.assertEquals(tmpExpected, tmpPreconditioned.solve(tmpLaplacian, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+    }
+
+    @Test
+    public void testBanded() {
+
+        final int dim = 30;
+
+        final BandedStore<Double> tmpGeneral = MatrixStore.PRIMITIVE.makeBanded(dim, dim, 2, 1);
+        final BandedStore<Double> tmpTridiagonal = MatrixStore.PRIMITIVE.makeBanded(dim, dim, 1, 1);
+
+        final Uniform tmpUniform = new Uniform(-1.0, 2.0);
+        for (int i = 0; i < dim; i++) {
+            for (int j = Math.max(0, i - 2); j < Math.min(dim, i + 2); j++) {
+                tmpGeneral.set(i, j, tmpUniform.doubleValue());
+            }
+            tmpTridiagonal.set(i, i, 2.0);
+            if (i > 0) {
+                tmpTridiagonal.set(i, i - 1, -1.0);
+                tmpTridiagonal.set(i - 1, i, -1.0);
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 2L, new Uniform());
+
+        try {
+
+            final PrimitiveDenseStore tmpDenseGeneral = PrimitiveDenseStore.FACTORY.copy(tmpGeneral);
+            TestUtils.assertEquals(tmpDenseGeneral.multiply(tmpRHS), tmpGeneral.multiply(tmpRHS));
+
+            final SolverTask<Double> tmpLU = SolverTask.PRIMITIVE.make(tmpGeneral, tmpRHS, false, false);
+            TestUtils.assertTrue(tmpLU instanceof BandedSolver);
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDenseGeneral).solve(tmpDenseGeneral, tmpRHS), tmpLU.solve(tmpGeneral, tmpRHS));
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDenseGeneral).solve(tmpDenseGeneral, tmpRHS), tmpLU.solve(tmpDenseGeneral, tmpRHS));
+
+            final SolverTask<Double> tmpCholesky = SolverTask.PRIMITIVE.make(tmpTridiagonal, tmpRHS, true, true);
+            final PrimitiveDenseStore tmpDenseTridiagonal = PrimitiveDenseStore.FACTORY.copy(tmpTridiagonal);
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDenseTridiagonal).solve(tmpDenseTridiagonal, tmpRHS), tmpCholesky.solve(tmpTridiagonal, tmpRHS));
+
+        } catch (final RecoverableCondition exception) {
+            TestUtils.fail(exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testBlockDiagonal() {
+
+        final BlockDiagonalStore<Double> tmpBlocks = BlockDiagonalStore.of(this.makeSPD(3), this.makeSPD(1), this.makeSPD(5), this.makeSPD(4));
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpBlocks);
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(13, 2L, new Uniform());
+
+        TestUtils.assertEquals(tmpDense.multiply(tmpRHS), tmpBlocks.multiply(tmpRHS));
+
+        try {
+
+            final SolverTask<Double> tmpSolver = SolverTask.PRIMITIVE.make(tmpBlocks, tmpRHS, true, true);
+            TestUtils.assertTrue(tmpSolver instanceof BlockDiagonalTask);
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDense).solve(tmpDense, tmpRHS), tmpSolver.solve(tmpBlocks, tmpRHS));
+
+            final InverterTask<Double> tmpInverter = InverterTask.PRIMITIVE.make(tmpBlocks, true, true);
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDense).invert(tmpDense), tmpInverter.invert(tmpBlocks));
+
+            final DeterminantTask<Double> tmpDeterminator = DeterminantTask.PRIMITIVE.make(tmpBlocks, true, true);
+            TestUtils.assertEquals(LU.PRIMITIVE.make(tmpDense).calculateDeterminant(tmpDense), tmpDeterminator.calculateDeterminant(tmpBlocks));
+
+            final Eigenvalue<Double> tmpEvD = Eigenvalue.PRIMITIVE.make(tmpDense, true);
+            tmpEvD.decompose(tmpDense);
+            final double[] tmpExpected = tmpEvD.getEigenvalues().toRawCopy1D();
+            final double[] tmpActual = new BlockDiagonalTask(true, true).calculateEigenvalues(tmpBlocks).toRawCopy1D();
+            Arrays.sort(tmpExpected);
+            Arrays.sort(tmpActual);
+            TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.columns(tmpExpected), PrimitiveDenseStore.FACTORY.columns(tmpActual));
+
+        } catch (final RecoverableCondition exception) {
+            TestUtils.fail(exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testBlockKrylov() {
+
+        final int side = 20;
+        final int dim = side * side;
+
+        final SparseStore<Double> tmpLaplacian = SparseStore.PRIMITIVE.make(dim, dim);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final int ij = i + (j * side);
+                tmpLaplacian.set(ij, ij, 4.0);
+                if (i > 0) {
+                    tmpLaplacian.set(ij, ij - 1, -1.0);
+                }
+                if (i < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + 1, -1.0);
+                }
+                if (j > 0) {
+                    tmpLaplacian.set(ij, ij - side, -1.0);
+                }
+                if (j < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + side, -1.0);
+                }
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 8L, new Uniform());
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpLaplacian);
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpDense);
+        tmpLU.decompose(tmpDense);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        final KrylovSubspaceSolver[] tmpSolvers = { new BlockConjugateGradientSolver(), new ConjugateGradientSolver(), new GMRESSolver() };
+        for (final KrylovSubspaceSolver tmpSolver : tmpSolvers) {
+            tmpSolver.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(dim);
+            TestUtils.assertEquals(tmpSolver.getClass().getSimpleName(), tmpExpected, tmpSolver.solve(tmpLaplacian, tmpRHS).get(),
+                    NumberContext.getGeneral(8, 10));
+        }
+
+        final BlockConjugateGradientSolver tmpSingle = new BlockConjugateGradientSolver();
+        tmpSingle.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(dim);
+        TestUtils.assertEquals(tmpExpected.logical().column(3).get(), tmpSingle.solve(tmpLaplacian, tmpRHS.logical().column(3).get()).get(),
+                NumberContext.getGeneral(8, 10));
+    }
+
     @Test
     public void testExampleWikipediA() {
 
@@ -53,8 +233,222 @@ public final class SolverTest extends MatrixTaskTests {
         final GaussSeidelSolver tmpGaussSeidelSolver = new GaussSeidelSolver();
         TestUtils.assertEquals(tmpExpected, tmpGaussSeidelSolver.solve(tmpA, tmpB).get());
 
+        final ParallelGaussSeidelSolver tmpParallelGaussSeidelSolver = new ParallelGaussSeidelSolver();
+        TestUtils.assertEquals(tmpExpected, tmpParallelGaussSeidelSolver.solve(tmpA, tmpB).get());
+
         final ConjugateGradientSolver tmpConjugateGradientSolver = new ConjugateGradientSolver();
         TestUtils.assertEquals(tmpExpected, tmpConjugateGradientSolver.solve(tmpA, tmpB).get());
+
+        final GMRESSolver tmpGMRESSolver = new GMRESSolver();
+        TestUtils.assertEquals(tmpExpected, tmpGMRESSolver.solve(tmpA, tmpB).get());
+
+        final BiCGStabSolver tmpBiCGStabSolver = new BiCGStabSolver();
+        TestUtils.assertEquals(tmpExpected, tmpBiCGStabSolver.solve(tmpA, tmpB).get());
+    }
+
+    @Test
+    public void testMatrixFree() {
+
+        final int side = 10;
+        final int dim = side * side;
+
+        // The 2D Laplacian as a Kronecker sum - never materialised
+        final LinearOperator tmpOperator = (x, product) -> {
+            for (int j = 0; j < side; j++) {
+                for (int i = 0; i < side; i++) {
+                    final int ij = i + (j * side);
+                    double tmpValue = 4.0 * x.doubleValue(ij);
+                    if (i > 0) {
+                        tmpValue -= x.doubleValue(ij - 1);
+                    }
+                    if (i < (side - 1)) {
+                        tmpValue -= x.doubleValue(ij + 1);
+                    }
+                    if (j > 0) {
+                        tmpValue -= x.doubleValue(ij - side);
+                    }
+                    if (j < (side - 1)) {
+                        tmpValue -= x.doubleValue(ij + side);
+                    }
+                    product.set(ij, tmpValue);
+                }
+            }
+        };
+
+        final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+        final PrimitiveDenseStore tmpColumn = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+        for (int j = 0; j < dim; j++) {
+            tmpOperator.apply(MatrixStore.PRIMITIVE.makeIdentity(dim).get().sliceColumn(j), tmpColumn);
+            tmpBody.fillColumn(0, j, tmpColumn);
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpBody);
+        tmpLU.decompose(tmpBody);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        for (final KrylovSubspaceSolver tmpSolver : new KrylovSubspaceSolver[] { new ConjugateGradientSolver(), new GMRESSolver(), new BiCGStabSolver() }) {
+
+            tmpSolver.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(10 * dim);
+
+            final PrimitiveDenseStore tmpSolution = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+            tmpSolver.resolve(tmpOperator, tmpRHS, tmpSolution);
+
+            TestUtils.assertEquals(tmpExpected, tmpSolution, NumberContext.getGeneral(8, 10));
+        }
+    }
+
+    /**
+     * Prepared without any equations, as with a matrix-free {@link LinearOperator}, the built-in
+     * preconditioners must all act as the identity.
+     */
+    @Test
+    public void testMatrixFreePreconditioners() {
+
+        final int dim = 2000;
+
+        final MatrixStore<Double> tmpResidual = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+        final PrimitiveDenseStore tmpPreconditioned = PrimitiveDenseStore.FACTORY.makeZero(dim, 1L);
+
+        for (final Preconditioner tmpPreconditioner : new Preconditioner[] { Preconditioner.newJacobi(), Preconditioner.newSSOR(1.0),
+                Preconditioner.newIncompleteCholesky(), Preconditioner.newIncompleteLU(), Preconditioner.newAlgebraicMultigrid() }) {
+
+            tmpPreconditioner.prepare(Collections.emptyList(), dim);
+            tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
+
+            TestUtils.assertEquals(tmpResidual, tmpPreconditioned);
+        }
+    }
+
+    @Test
+    public void testNonSymmetricKrylov() {
+
+        final int side = 12;
+        final int dim = side * side;
+
+        // Convection-diffusion - upwind differences make it non-symmetric
+        final SparseStore<Double> tmpBody = SparseStore.PRIMITIVE.make(dim, dim);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final int ij = i + (j * side);
+                tmpBody.set(ij, ij, 5.0);
+                if (i > 0) {
+                    tmpBody.set(ij, ij - 1, -1.8);
+                }
+                if (i < (side - 1)) {
+                    tmpBody.set(ij, ij + 1, -0.2);
+                }
+                if (j > 0) {
+                    tmpBody.set(ij, ij - side, -1.5);
+                }
+                if (j < (side - 1)) {
+                    tmpBody.set(ij, ij + side, -0.5);
+                }
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpBody);
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpDense);
+        tmpLU.decompose(tmpDense);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        for (final Preconditioner tmpPreconditioner : new Preconditioner[] { Preconditioner.newJacobi(), Preconditioner.newIncompleteLU() }) {
+
+            final GMRESSolver tmpGMRES = new GMRESSolver(10);
+            tmpGMRES.configurator().preconditioner(tmpPreconditioner).accuracy(NumberContext.getGeneral(12, 14)).iterations(10 * dim);
+            TestUtils.assertEquals(tmpExpected, tmpGMRES.solve(tmpBody, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+
+            final BiCGStabSolver tmpBiCGStab = new BiCGStabSolver();
+            tmpBiCGStab.configurator().preconditioner(tmpPreconditioner).accuracy(NumberContext.getGeneral(12, 14)).iterations(dim);
+            TestUtils.assertEquals(tmpExpected, tmpBiCGStab.solve(tmpBody, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+        }
+    }
+
+    @Test
+    public void testParallelGaussSeidel() {
+
+        final int side = 20;
+        final int dim = side * side;
+
+        final SparseStore<Double> tmpBody = SparseStore.PRIMITIVE.make(dim, dim);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final int ij = i + (j * side);
+                tmpBody.set(ij, ij, 4.5);
+                if (i > 0) {
+                    tmpBody.set(ij, ij - 1, -1.0);
+                }
+                if (i < (side - 1)) {
+                    tmpBody.set(ij, ij + 1, -1.0);
+                }
+                if (j > 0) {
+                    tmpBody.set(ij, ij - side, -1.0);
+                }
+                if (j < (side - 1)) {
+                    tmpBody.set(ij, ij + side, -1.0);
+                }
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpBody);
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpDense);
+        tmpLU.decompose(tmpDense);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        final ParallelGaussSeidelSolver tmpSolver = new ParallelGaussSeidelSolver();
+        tmpSolver.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(10 * dim);
+        TestUtils.assertEquals(tmpExpected, tmpSolver.solve(tmpBody, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+
+        tmpSolver.setRelaxationFactor(1.5);
+        TestUtils.assertEquals(tmpExpected, tmpSolver.solve(tmpBody, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+    }
+
+    @Test
+    public void testPreconditioners() {
+
+        final int side = 15;
+        final int dim = side * side;
+
+        final SparseStore<Double> tmpLaplacian = SparseStore.PRIMITIVE.make(dim, dim);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final int ij = i + (j * side);
+                tmpLaplacian.set(ij, ij, 4.0);
+                if (i > 0) {
+                    tmpLaplacian.set(ij, ij - 1, -1.0);
+                }
+                if (i < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + 1, -1.0);
+                }
+                if (j > 0) {
+                    tmpLaplacian.set(ij, ij - side, -1.0);
+                }
+                if (j < (side - 1)) {
+                    tmpLaplacian.set(ij, ij + side, -1.0);
+                }
+            }
+        }
+
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpLaplacian);
+        final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpDense);
+        tmpLU.decompose(tmpDense);
+        final MatrixStore<Double> tmpExpected = tmpLU.getSolution(tmpRHS);
+
+        for (final Preconditioner tmpPreconditioner : new Preconditioner[] { Preconditioner.newJacobi(), Preconditioner.newSSOR(1.2),
+                Preconditioner.newIncompleteCholesky(), Preconditioner.newIncompleteLU() }) {
+
+            final ConjugateGradientSolver tmpSolver = new ConjugateGradientSolver();
+            tmpSolver.configurator().preconditioner(tmpPreconditioner).accuracy(NumberContext.getGeneral(12, 14)).iterations(dim);
+
+            TestUtils.assertEquals(tmpExpected, tmpSolver.solve(tmpLaplacian, tmpRHS).get(), NumberContext.getGeneral(8, 10));
+        }
     }
 
     @Test
@@ -93,6 +487,35 @@ public final class SolverTest extends MatrixTaskTests {
 
     }
 
+    @Test
+    public void testMixedPrecision() {
+
+        final int dim = 50;
+
+        final MatrixStore<Double> tmpBody = this.makeSPD(dim);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(dim, 3L, new Uniform());
+
+        try {
+
+            final MatrixStore<Double> tmpExpected = LU.PRIMITIVE.make(tmpBody).solve(tmpBody, tmpRHS);
+
+            final MixedPrecisionSolver tmpGeneral = new MixedPrecisionSolver(false);
+            TestUtils.assertEquals(tmpExpected, tmpGeneral.solve(tmpBody, tmpRHS));
+            TestUtils.assertTrue(tmpGeneral.getIterations() > 0);
+
+            final MixedPrecisionSolver tmpSPD = new MixedPrecisionSolver(true);
+            TestUtils.assertEquals(tmpExpected, tmpSPD.solve(tmpBody, tmpRHS));
+            TestUtils.assertTrue(tmpSPD.getIterations() > 0);
+
+            final MatrixStore<Double> tmpIndefinite = tmpBody.subtract(PrimitiveDenseStore.FACTORY.makeEye(dim, dim).multiply(dim * 10.0));
+            final MatrixStore<Double> tmpExpIndefinite = LU.PRIMITIVE.make(tmpIndefinite).solve(tmpIndefinite, tmpRHS);
+            TestUtils.assertEquals(tmpExpIndefinite, tmpSPD.solve(tmpIndefinite, tmpRHS));
+
+        } catch (final RecoverableCondition exception) {
+            TestUtils.fail(exception.getMessage());
+        }
+    }
+
     @Test
     public void testSymmetric1X1() {
         this.doCompare(AbstractSolver.FULL_1X1, 1);
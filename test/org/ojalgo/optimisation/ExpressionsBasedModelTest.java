@@ -23,15 +23,107 @@ package org.ojalgo.optimisation;
 
 import static org.ojalgo.constant.BigMath.*;
 
+import java.io.File;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.BigArray;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.type.context.NumberContext;
 
 public class ExpressionsBasedModelTest {
 
+    /**
+     * The generated cuts must be violated by the relaxed solution, but satisfied by every integer solution
+     * (here enumerated) – a knapsack cover (only binary variables) and an MIR cut (general integers).
+     */
+    @Test
+    public void testGenerateCut() {
+
+        final ExpressionsBasedModel tmpKnapsack = new ExpressionsBasedModel();
+        for (int i = 0; i < 4; i++) {
+            tmpKnapsack.addVariable(Variable.makeBinary("X" + i));
+        }
+        final Expression tmpCapacity = tmpKnapsack.addExpression("CAPACITY").upper(11);
+        for (int i = 0; i < 4; i++) {
+            tmpCapacity.set(i, 5 - i);
+        }
+
+        final Result tmpRelaxedKnapsack = new Result(Optimisation.State.OPTIMAL, Array1D.PRIMITIVE64.copy(new double[] { 1.0, 1.0, 2.0 / 3.0, 0.0 }));
+        final Expression tmpCover = tmpKnapsack.generateCut(tmpCapacity, tmpRelaxedKnapsack);
+        TestUtils.assertTrue(tmpCover != null);
+        TestUtils.assertTrue(tmpCover.evaluate(tmpRelaxedKnapsack).compareTo(tmpCover.getUpperLimit()) > 0);
+
+        for (int b = 0; b < 16; b++) {
+            final BigDecimal[] tmpPoint = new BigDecimal[4];
+            for (int i = 0; i < 4; i++) {
+                tmpPoint[i] = ((b >> i) & 1) == 1 ? ONE : ZERO;
+            }
+            if (tmpCapacity.evaluate(BigArray.wrap(tmpPoint)).compareTo(tmpCapacity.getUpperLimit()) <= 0) {
+                TestUtils.assertTrue(tmpCover.evaluate(BigArray.wrap(tmpPoint)).compareTo(tmpCover.getUpperLimit()) <= 0);
+            }
+        }
+
+        final ExpressionsBasedModel tmpGeneral = new ExpressionsBasedModel();
+        final Variable tmpX = tmpGeneral.addVariable("X").lower(ZERO).upper(TEN).integer(true);
+        final Variable tmpY = tmpGeneral.addVariable("Y").lower(ZERO).upper(TEN).integer(true);
+        final Variable tmpZ = tmpGeneral.addVariable("Z").lower(ZERO).upper(TEN);
+        final Expression tmpRow = tmpGeneral.addExpression("ROW").set(tmpX, TWO).set(tmpY, TWO).set(tmpZ, NEG).upper(THREE);
+
+        final Result tmpRelaxedGeneral = new Result(Optimisation.State.OPTIMAL, Array1D.PRIMITIVE64.copy(new double[] { 1.5, 0.0, 0.0 }));
+        final Expression tmpMIR = tmpGeneral.generateCut(tmpRow, tmpRelaxedGeneral);
+        TestUtils.assertTrue(tmpMIR != null);
+        TestUtils.assertTrue(tmpMIR.evaluate(tmpRelaxedGeneral).compareTo(tmpMIR.getUpperLimit()) > 0);
+
+        for (int x = 0; x <= 10; x++) {
+            for (int y = 0; y <= 10; y++) {
+                for (int z = 0; z <= 100; z++) {
+                    final BigArray tmpPoint = BigArray.wrap(new BigDecimal[] { new BigDecimal(x), new BigDecimal(y), new BigDecimal(z).divide(TEN) });
+                    if (tmpRow.evaluate(tmpPoint).compareTo(tmpRow.getUpperLimit()) <= 0) {
+                        TestUtils.assertTrue(tmpMIR.evaluate(tmpPoint).doubleValue() <= (tmpMIR.getUpperLimit().doubleValue() + 1.0E-9));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A range update that the solver can't do in-place re-generates the solver, but a later fixed variable
+     * must still be updated in-place.
+     */
+    @Test
+    public void testInPlaceUpdates() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        final Variable tmpX = tmpModel.addVariable("X").lower(ZERO).upper(TEN).weight(ONE);
+        final Variable tmpY = tmpModel.addVariable("Y").lower(ZERO).weight(TWO);
+        tmpModel.addExpression("SUM").set(tmpX, ONE).set(tmpY, ONE).upper(TWELVE);
+        tmpModel.setMaximisation();
+
+        final ExpressionsBasedModel.Intermediate tmpIntermediate = tmpModel.prepare();
+        TestUtils.assertStateNotLessThanOptimal(tmpIntermediate.solve(null));
+
+        tmpX.upper(FIVE);
+        tmpIntermediate.update(tmpX);
+        TestUtils.assertStateNotLessThanOptimal(tmpIntermediate.solve(null));
+
+        final Optimisation.Solver tmpSolver = tmpIntermediate.getSolver();
+
+        tmpY.level(TEN);
+        tmpIntermediate.update(tmpY);
+        final Result tmpResult = tmpIntermediate.solve(null);
+
+        TestUtils.assertTrue(tmpSolver == tmpIntermediate.getSolver());
+        TestUtils.assertStateNotLessThanOptimal(tmpResult);
+        TestUtils.assertEquals(TWO, tmpResult.get(0), new NumberContext(7, 6));
+        TestUtils.assertEquals(TEN, tmpResult.get(1), new NumberContext(7, 6));
+    }
+
     @Test
     public void testMPStestprob() {
 
@@ -90,4 +182,53 @@ public class ExpressionsBasedModelTest {
 
     }
 
+    /**
+     * Solving with scaling turned on must give the same results as without – LP:s, a badly scaled QP and a
+     * MIP (the branch-and-bound node models are scaled and updated in-place).
+     */
+    @Test
+    public void testScaling() {
+
+        final ExpressionsBasedModel tmpQP = new ExpressionsBasedModel();
+        final Variable tmpX = tmpQP.addVariable("X").lower(ZERO).upper(HUNDRED);
+        final Variable tmpY = tmpQP.addVariable("Y").lower(ZERO).upper(new BigDecimal("1E6"));
+        final Expression tmpObjective = tmpQP.addExpression("OBJECTIVE").weight(ONE);
+        tmpObjective.set(tmpX, tmpX, new BigDecimal("1E3"));
+        tmpObjective.set(tmpY, tmpY, new BigDecimal("1E-5"));
+        tmpObjective.set(tmpX, new BigDecimal("-7E3"));
+        tmpQP.addExpression("SUM").set(tmpX, new BigDecimal("1E2")).set(tmpY, new BigDecimal("1E-3")).lower(new BigDecimal("750"));
+
+        final ExpressionsBasedModel tmpMIP = new ExpressionsBasedModel();
+        final Variable tmpI = tmpMIP.addVariable("I").lower(ZERO).upper(HUNDRED).integer(true).weight(new BigDecimal("-1E3"));
+        final Variable tmpJ = tmpMIP.addVariable("J").lower(ZERO).upper(new BigDecimal("1E5")).integer(true).weight(new BigDecimal("-1E-2"));
+        final Variable tmpZ = tmpMIP.addVariable("Z").lower(ZERO).upper(new BigDecimal("1E4")).weight(new BigDecimal("-1E-4"));
+        tmpMIP.addExpression("CAPACITY").set(tmpI, new BigDecimal("1E2")).set(tmpJ, new BigDecimal("1E-3")).set(tmpZ, new BigDecimal("1E-5"))
+                .upper(new BigDecimal("750.5"));
+        tmpMIP.addExpression("BALANCE").set(tmpI, new BigDecimal("3E4")).set(tmpZ, new BigDecimal("-1E-1")).lower(new BigDecimal("1E3"));
+
+        final List<ExpressionsBasedModel> tmpModels = new ArrayList<>();
+        for (final String tmpName : new String[] { "blend.mps", "kb2.mps", "share2b.mps" }) {
+            tmpModels.add(MathProgSysModel.make(new File("./test/org/ojalgo/optimisation/linear/" + tmpName)).getExpressionsBasedModel());
+        }
+        tmpModels.add(tmpQP);
+        tmpModels.add(tmpMIP);
+
+        final NumberContext tmpPrecision = new NumberContext(7, 6);
+
+        for (final ExpressionsBasedModel tmpModel : tmpModels) {
+
+            final double tmpExpected = tmpModel.minimise().getValue();
+
+            for (final ExpressionsBasedModel.Scaling tmpScaling : ExpressionsBasedModel.Scaling.values()) {
+
+                tmpModel.options.scaling = tmpScaling;
+
+                final Result tmpResult = tmpModel.minimise();
+
+                TestUtils.assertEquals(tmpScaling.toString(), tmpExpected, tmpResult.getValue(), tmpPrecision);
+                TestUtils.assertTrue(tmpScaling.toString(), tmpModel.validate(tmpPrecision));
+            }
+        }
+    }
+
 }
@@ -204,6 +204,114 @@ public class ConvexProblems extends OptimisationConvexTests {
         OptimisationConvexTests.assertDirectAndIterativeEquals(tmpModel, tmpAccuracy);
     }
 
+    /**
+     * The ADMM solver should match the active set solver (to its tolerance), re-solve correctly when the
+     * (cached) solver is warm started with a modified linear objective, and recognise infeasibility.
+     */
+    @Test
+    public void testADMM() {
+
+        final int tmpNumberOfAssets = 60;
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpModel.addVariable(new Variable("W" + i).lower(ZERO).upper(new BigDecimal("0.1")).weight(BigDecimal.valueOf(-0.05 - ((i % 13) / 200.0))));
+        }
+
+        final Expression tmpVariance = tmpModel.addExpression("Variance").weight(TWO);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpVariance.set(i, i, 0.04 + ((i % 7) / 100.0));
+            if ((i + 1) < tmpNumberOfAssets) {
+                tmpVariance.set(i, i + 1, 0.01);
+            }
+        }
+
+        final Expression tmpBudget = tmpModel.addExpression("Budget").level(ONE);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpBudget.set(i, ONE);
+        }
+
+        final Result tmpActiveSet = tmpModel.minimise();
+
+        tmpModel.options.convex_algorithm = ConvexSolver.Algorithm.ADMM;
+        tmpModel.options.convex_tolerance = 1.0E-8;
+        final Result tmpADMM = tmpModel.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpActiveSet);
+        TestUtils.assertStateNotLessThanOptimal(tmpADMM);
+        TestUtils.assertEquals(tmpActiveSet.getValue(), tmpADMM.getValue(), new NumberContext(7, 6));
+        TestUtils.assertTrue(tmpModel.validate(tmpADMM, new NumberContext(7, 6)));
+
+        final Builder tmpBuilder = ConvexSolver.getBuilder();
+        ConvexSolver.copy(tmpModel, tmpBuilder);
+        final ConvexSolver tmpSolver = tmpBuilder.build(tmpModel.options);
+        TestUtils.assertTrue(tmpSolver instanceof ADMMSolver);
+        TestUtils.assertEquals(tmpADMM, tmpSolver.solve(), new NumberContext(7, 6));
+
+        final PhysicalStore<Double> tmpC = (PhysicalStore<Double>) tmpBuilder.getC();
+        for (int i = 0; i < tmpNumberOfAssets; i += 3) {
+            tmpC.set(i, tmpC.doubleValue(i) * 1.5);
+        }
+        final Result tmpWarm = tmpSolver.solve();
+
+        final Optimisation.Options tmpOptions = new Optimisation.Options();
+        final Result tmpExpected = tmpBuilder.build(tmpOptions).solve();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpWarm);
+        TestUtils.assertEquals(tmpExpected, tmpWarm, new NumberContext(7, 6));
+
+        final PrimitiveDenseStore tmpQ = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 2.0, 0.0 }, { 0.0, 2.0 } });
+        final PrimitiveDenseStore tmpAI = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1.0, 0.0 }, { 0.0, 1.0 }, { -1.0, -1.0 } });
+        final PrimitiveDenseStore tmpBI = PrimitiveDenseStore.FACTORY.columns(new double[] { 0.5, 0.5, -2.0 });
+        final Builder tmpInfeasible = ConvexSolver.getBuilder(tmpQ, PrimitiveDenseStore.FACTORY.makeZero(2, 1)).inequalities(tmpAI, tmpBI);
+
+        TestUtils.assertEquals(State.INFEASIBLE, tmpInfeasible.build(tmpModel.options).solve().getState());
+    }
+
+    /**
+     * Many constraints enter and leave the working set, and the DirectASS (incrementally updated Schur
+     * complement factorisation) should still match the IterativeASS.
+     */
+    @Test
+    public void testIncrementalSchurComplement() {
+
+        final int tmpNumberOfAssets = 80;
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpModel.addVariable(new Variable("W" + i).lower(ZERO).upper(new BigDecimal("0.04")).weight(BigDecimal.valueOf(-0.02 - ((i % 11) / 100.0))));
+        }
+
+        final Expression tmpVariance = tmpModel.addExpression("Variance").weight(ONE);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpVariance.set(i, i, 0.02 + ((i % 5) / 100.0));
+            if ((i + 1) < tmpNumberOfAssets) {
+                tmpVariance.set(i, i + 1, 0.005);
+            }
+        }
+
+        final Expression tmpBudget = tmpModel.addExpression("Budget").level(ONE);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpBudget.set(i, ONE);
+        }
+
+        for (int s = 0; s < tmpNumberOfAssets; s += 10) {
+            final Expression tmpSector = tmpModel.addExpression("Sector" + s).upper(new BigDecimal("0.15"));
+            for (int i = s; i < (s + 10); i++) {
+                tmpSector.set(i, ONE);
+            }
+        }
+
+        OptimisationConvexTests.assertDirectAndIterativeEquals(tmpModel, new NumberContext(7, 6));
+
+        final ConvexSolver.Builder tmpBuilder = ConvexSolver.getBuilder();
+        ConvexSolver.copy(tmpModel, tmpBuilder);
+        final Result tmpDirect = new DirectASS(tmpBuilder, new Optimisation.Options()).solve();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpDirect);
+        TestUtils.assertTrue(tmpModel.validate(tmpDirect, new NumberContext(7, 6)));
+    }
+
     /**
      * Just make sure an obviously infeasible problem is recognised as such - this has been a problem in the
      * past
@@ -246,6 +354,60 @@ public class ConvexProblems extends OptimisationConvexTests {
         OptimisationConvexTests.assertDirectAndIterativeEquals(tmpModel, null);
     }
 
+    /**
+     * A portfolio QP, with a sparse (banded) covariance matrix, sector constraints and position limits. Solved
+     * with the (sparse) interior point solver and with the active set solver the results should be the same.
+     * The interior point solver is called directly, and has to converge on its own - without falling back to
+     * the active set solver.
+     */
+    @Test
+    public void testInteriorPoint() {
+
+        final int tmpNumberOfAssets = 300;
+        final int tmpSectorSize = 20;
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpModel.addVariable(new Variable("W" + i).lower(ZERO).upper(new BigDecimal("0.05")).weight(BigDecimal.valueOf(-0.05 - ((i % 17) / 200.0))));
+        }
+
+        final Expression tmpVariance = tmpModel.addExpression("Variance").weight(TWO);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpVariance.set(i, i, 0.04 + ((i % 7) / 100.0));
+            if ((i + 1) < tmpNumberOfAssets) {
+                tmpVariance.set(i, i + 1, 0.01);
+            }
+            if ((i + 5) < tmpNumberOfAssets) {
+                tmpVariance.set(i, i + 5, -0.004);
+            }
+        }
+
+        final Expression tmpBudget = tmpModel.addExpression("Budget").level(ONE);
+        for (int i = 0; i < tmpNumberOfAssets; i++) {
+            tmpBudget.set(i, ONE);
+        }
+
+        for (int s = 0; s < tmpNumberOfAssets; s += tmpSectorSize) {
+            final Expression tmpSector = tmpModel.addExpression("Sector" + s).upper(new BigDecimal("0.08"));
+            for (int i = s; i < (s + tmpSectorSize); i++) {
+                tmpSector.set(i, ONE);
+            }
+        }
+
+        tmpModel.options.convex_interior = Integer.MAX_VALUE;
+        final Result tmpActiveSet = tmpModel.minimise();
+
+        tmpModel.setMinimisation();
+        final ConvexInteriorPointSolver tmpSolver = new ConvexInteriorPointSolver(tmpModel, tmpModel.options);
+        final Result tmpSolverState = tmpSolver.solveWithoutFallback(null);
+        final Result tmpInteriorPoint = new ConvexInteriorPointSolver.ModelIntegration().toModelState(tmpSolverState, tmpModel);
+
+        TestUtils.assertStateNotLessThanOptimal(tmpActiveSet);
+        TestUtils.assertEquals(State.OPTIMAL, tmpSolverState.getState());
+        TestUtils.assertEquals(tmpActiveSet.getValue(), tmpModel.objective().evaluate(tmpInteriorPoint).doubleValue(), new NumberContext(7, 6));
+        TestUtils.assertTrue(tmpModel.validate(tmpInteriorPoint, new NumberContext(7, 6)));
+    }
+
     /**
      * The ActiveSetSolver ended up in a loop activating/deactivating constraints. Eventually it returned
      * null, and that eventually resulted in a NullPointerException. Since Q is not positive semidefinite
@@ -38,6 +38,7 @@ import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.Optimisation.Result;
 import org.ojalgo.optimisation.Optimisation.State;
 import org.ojalgo.optimisation.Variable;
+import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.type.context.NumberContext;
 
 public class IntegerProblems {
@@ -430,6 +431,127 @@ public class IntegerProblems {
         TestUtils.assertStateAndSolution(nodeResult, fixedResult);
     }
 
+    /**
+     * Same as {@link #testP20140819fix3()} but with the revised simplex solver, that restarts from the parent's
+     * optimal basis (and does dual simplex iterations) when the variable is fixed in-place.
+     */
+    @Test
+    public void testP20140819warm() {
+
+        final ExpressionsBasedModel nodeModel = IntegerProblems.makeP20140819();
+        nodeModel.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+        int[] nodeLowerBounds = new int[] { 0, 0, 0, 0, 0, 2, 0, 1, 0, 0, 0, 0, 0, 7, 0, 0 };
+        int[] nodeUpperBounds = new int[] { 0, 0, 2, 0, 414, 414, 414, 414, 414, 5, 0, 0, 414, 7, 414, 414 };
+        for (int v = 0; v < nodeUpperBounds.length; v++) {
+            nodeModel.getVariable(v).integer(false).lower(nodeLowerBounds[v]).upper(nodeUpperBounds[v]);
+        }
+
+        final Result nodeResult = nodeModel.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(nodeResult);
+        TestUtils.assertTrue(nodeModel.validate(nodeResult, BasicLogger.DEBUG));
+
+        final ExpressionsBasedModel parentModel = IntegerProblems.makeP20140819();
+        parentModel.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+        int[] parentLowerBounds = new int[] { 0, 0, 0, 0, 0, 2, 0, 1, 0, 0, 0, 0, 0, 7, 0, 0 };
+        int[] parentUpperBounds = new int[] { 0, 0, 2, 0, 414, 414, 414, 414, 414, 5, 0, 0, 414, 8, 414, 414 };
+        for (int v = 0; v < parentUpperBounds.length; v++) {
+            parentModel.getVariable(v).integer(false).lower(parentLowerBounds[v]).upper(parentUpperBounds[v]);
+        }
+
+        parentModel.setMinimisation();
+        Intermediate intermediate = parentModel.prepare();
+        final Result parentResult = intermediate.solve();
+
+        TestUtils.assertStateNotLessThanOptimal(parentResult);
+        TestUtils.assertTrue(parentModel.validate(parentResult, BasicLogger.DEBUG));
+
+        Variable variableToFix = parentModel.getVariable(13);
+        variableToFix.lower(7).upper(7);
+        intermediate.update(variableToFix);
+
+        final Result fixedResult = intermediate.solve();
+
+        TestUtils.assertStateNotLessThanOptimal(fixedResult);
+        TestUtils.assertTrue(fixedResult.getValue() >= parentResult.getValue());
+        TestUtils.assertTrue(nodeModel.validate(fixedResult, BasicLogger.DEBUG));
+        TestUtils.assertStateAndSolution(nodeResult, fixedResult);
+
+        // Branch on variable 5 (=2.25), and compare with solving the node problems from scratch
+
+        Variable variableToBranch = parentModel.getVariable(5);
+
+        variableToBranch.upper(2);
+        intermediate.update(variableToBranch);
+
+        TestUtils.assertStateLessThanFeasible(intermediate.solve());
+        TestUtils.assertStateLessThanFeasible(parentModel.copy().minimise());
+
+        variableToBranch.lower(3).upper(414);
+        intermediate.update(variableToBranch);
+
+        final Result branchResult = intermediate.solve();
+
+        final ExpressionsBasedModel branchModel = parentModel.copy();
+        branchModel.options.linear_algorithm = LinearSolver.Algorithm.TABLEAU;
+        final Result expected = branchModel.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(branchResult);
+        TestUtils.assertTrue(parentModel.validate(branchResult, BasicLogger.DEBUG));
+        TestUtils.assertEquals(parentModel.objective().evaluate(expected).doubleValue(), parentModel.objective().evaluate(branchResult).doubleValue(), 1E-6);
+    }
+
+    /**
+     * The branch&bound node problems solved using the revised simplex solver, with in-place updates of the
+     * node solvers, must give the same result as when using the tableau simplex solver.
+     */
+    @Test
+    public void testP20140819revised() {
+
+        final ExpressionsBasedModel model = IntegerProblems.makeP20140819();
+
+        final Result tableau = model.minimise();
+
+        model.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+        final Result revised = model.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(revised);
+        TestUtils.assertTrue(model.validate(revised, BasicLogger.DEBUG));
+        TestUtils.assertEquals(tableau.getValue(), revised.getValue(), model.options.mip_gap * Math.abs(tableau.getValue()));
+    }
+
+    /**
+     * With Y fixed, presolve transfers the constraint's limit to X (X >= 3) and leaves the constraint out of
+     * the solver. Then setting X's limits in-place, as a branch&bound node does, must not loosen that.
+     */
+    @Test
+    public void testP20140819presolved() {
+
+        final ExpressionsBasedModel model = new ExpressionsBasedModel();
+        model.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+        final Variable x = model.addVariable("X").lower(0).upper(10).weight(1);
+        final Variable y = model.addVariable("Y").level(2).weight(1);
+        model.addExpression("C").set(x, 1).set(y, 1).lower(5);
+
+        model.setMinimisation();
+        final Intermediate intermediate = model.prepare();
+
+        TestUtils.assertStateNotLessThanOptimal(intermediate.solve());
+
+        x.lower(0).upper(8);
+        intermediate.update(x);
+
+        final Result nodeResult = intermediate.solve();
+
+        TestUtils.assertStateNotLessThanOptimal(nodeResult);
+        TestUtils.assertTrue(model.validate(nodeResult, BasicLogger.DEBUG));
+        TestUtils.assertEquals(5.0, model.objective().evaluate(nodeResult).doubleValue(), 1E-9);
+    }
+
     @Test
     public void testP20140819node() {
 
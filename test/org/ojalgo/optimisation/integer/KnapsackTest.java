@@ -31,6 +31,8 @@ import org.ojalgo.TestUtils;
 import org.ojalgo.constant.BigMath;
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.Optimisation.State;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.type.context.NumberContext;
 
@@ -80,6 +82,213 @@ public class KnapsackTest extends OptimisationIntegerTests {
 
     }
 
+    static ExpressionsBasedModel makeThirtyItemsModel() {
+
+        final KnapsackProblemBuilder builder = new KnapsackProblemBuilder(163d);
+        for (int i = 0; i < 30; i++) {
+            builder.addItem(5 + ((37 * i) % 23), 7 + ((53 * i) % 31));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Root node cutting planes must not change the optimal solution. The cuts are added, as constraints, to
+     * the solver's copy of the model - not to the model itself.
+     */
+    @Test
+    public void testCuttingPlanes() {
+
+        final ExpressionsBasedModel model = KnapsackTest.makeThirtyItemsModel();
+
+        final Result reference = model.maximise();
+
+        model.options.mip_cuts = 10;
+
+        final int expressions = model.countExpressions();
+
+        final IntegerSolver solver = IntegerSolver.make(model);
+        final Result result = solver.solve(null);
+
+        TestUtils.assertStateNotLessThanOptimal(result);
+        TestUtils.assertTrue(model.validate(result));
+        TestUtils.assertEquals(reference.getValue(), result.getValue(), model.options.mip_gap * Math.abs(reference.getValue()));
+
+        TestUtils.assertEquals(expressions, model.countExpressions());
+        TestUtils.assertTrue(solver.getIntegerModel().countExpressions() > expressions);
+        for (final Expression expression : solver.getIntegerModel().getExpressions()) {
+            TestUtils.assertTrue(expression.getName(), expression.isConstraint());
+        }
+    }
+
+    /**
+     * In deterministic mode repeated solves, also with different numbers of threads, must give identical
+     * results - exploring the same number of nodes. The nodes are evaluated in epochs, so that is not the
+     * same search as the default one.
+     */
+    @Test
+    public void testDeterministicMode() {
+
+        final ExpressionsBasedModel model = KnapsackTest.makeThirtyItemsModel();
+        model.options.mip_parallelism = 1;
+
+        final IntegerSolver referenceSolver = IntegerSolver.make(model);
+        final Result reference = referenceSolver.solve(null);
+
+        model.options.mip_deterministic = true;
+
+        final IntegerSolver firstSolver = IntegerSolver.make(model);
+        final Result first = firstSolver.solve(null);
+
+        TestUtils.assertStateNotLessThanOptimal(first);
+        TestUtils.assertTrue(model.validate(first));
+        TestUtils.assertEquals(reference.getValue(), first.getValue(), model.options.mip_gap * Math.abs(reference.getValue()));
+        TestUtils.assertTrue(firstSolver.countExploredNodes() != referenceSolver.countExploredNodes());
+
+        for (final int parallelism : new int[] { 1, 2, 4, 8, 4, 2, 1 }) {
+
+            model.options.mip_parallelism = parallelism;
+
+            final IntegerSolver solver = IntegerSolver.make(model);
+            final Result result = solver.solve(null);
+
+            TestUtils.assertEquals(first.getState(), result.getState());
+            TestUtils.assertTrue(Double.compare(first.getValue(), result.getValue()) == 0);
+            TestUtils.assertEquals(first, result);
+            TestUtils.assertEquals(firstSolver.countExploredNodes(), solver.countExploredNodes());
+        }
+    }
+
+    /**
+     * Exploring the branch&bound tree using the shared node pool, with any of the node selection strategies,
+     * must give the same result as the default recursive exploration. Best bound selection should need fewer
+     * nodes to prove optimality than the recursive (depth first) exploration.
+     */
+    @Test
+    public void testNodeSelection() {
+
+        final ExpressionsBasedModel model = KnapsackTest.makeThirtyItemsModel();
+        model.options.mip_parallelism = 1;
+
+        final IntegerSolver recursiveSolver = IntegerSolver.make(model);
+        final Result recursive = recursiveSolver.solve(null);
+
+        for (final IntegerSolver.NodeSelection selection : IntegerSolver.NodeSelection.values()) {
+
+            model.options.mip_selection = selection;
+
+            final IntegerSolver solver = IntegerSolver.make(model);
+            final Result pooled = solver.solve(null);
+
+            TestUtils.assertStateNotLessThanOptimal(pooled);
+            TestUtils.assertTrue(model.validate(pooled));
+            TestUtils.assertEquals(selection.name(), recursive.getValue(), pooled.getValue(), model.options.mip_gap * Math.abs(recursive.getValue()));
+            TestUtils.assertTrue(selection.name(), solver.countExploredNodes() > 1);
+
+            if (selection == IntegerSolver.NodeSelection.BEST_BOUND) {
+                TestUtils.assertTrue(solver.countExploredNodes() < recursiveSolver.countExploredNodes());
+            }
+        }
+    }
+
+    /**
+     * Each primal heuristic must find a valid integer solution from the root node's relaxed solution, and
+     * using them must not change the optimal solution. When the search is stopped after the first couple of
+     * nodes, only the heuristics can have found an integer solution.
+     */
+    @Test
+    public void testPrimalHeuristics() {
+
+        final ExpressionsBasedModel model = KnapsackTest.makeThirtyItemsModel();
+
+        final Result reference = model.maximise();
+
+        final IntegerSolver solver = IntegerSolver.make(model);
+        final NodeKey root = new NodeKey(solver.getIntegerModel());
+        final Result relaxed = solver.getNodeModel(root).prepare().solve(null);
+
+        TestUtils.assertStateNotLessThanOptimal(relaxed);
+        TestUtils.assertTrue(solver.identifyNonIntegerVariable(relaxed, root) >= 0);
+
+        Result incumbent = null;
+        for (final PrimalHeuristic heuristic : new PrimalHeuristic[] { PrimalHeuristic.DIVING, PrimalHeuristic.FEASIBILITY_PUMP }) {
+
+            final Result candidate = heuristic.search(solver, root, relaxed);
+
+            TestUtils.assertTrue(heuristic.toString(), candidate != null);
+            TestUtils.assertTrue(heuristic.toString(), solver.getIntegerModel().validate(candidate));
+
+            if ((incumbent == null) || (solver.evaluateFunction(candidate) > solver.evaluateFunction(incumbent))) {
+                incumbent = candidate;
+            }
+        }
+
+        final double incumbentValue = solver.evaluateFunction(incumbent);
+        solver.markInteger(root, null, new Result(State.FEASIBLE, incumbentValue, incumbent));
+
+        final Result improved = PrimalHeuristic.RINS.search(solver, root, relaxed);
+        if (improved != null) {
+            TestUtils.assertTrue(solver.getIntegerModel().validate(improved));
+            TestUtils.assertTrue(solver.evaluateFunction(improved) >= incumbentValue);
+        }
+
+        model.options.mip_heuristics = 1;
+        final Result result = model.maximise();
+
+        TestUtils.assertStateNotLessThanOptimal(result);
+        TestUtils.assertTrue(model.validate(result));
+        TestUtils.assertEquals(reference.getValue(), result.getValue(), model.options.mip_gap * Math.abs(reference.getValue()));
+
+        model.options.mip_parallelism = 1;
+        model.options.iterations_abort = 2;
+
+        model.options.mip_heuristics = 0;
+        TestUtils.assertFalse(IntegerSolver.make(model).solve(null).getState().isFeasible());
+
+        model.options.mip_heuristics = 1;
+        final Result early = IntegerSolver.make(model).solve(null);
+
+        TestUtils.assertTrue(early.getState().isFeasible());
+        TestUtils.assertTrue(model.validate(early));
+    }
+
+    /**
+     * Pure pseudo-cost branching, and reliability branching with different reliability thresholds (the
+     * largest meaning strong branching at every node), must all find the same optimal solution. With a second
+     * knapsack constraint the relaxed solutions have more than one fractional variable to branch on, and
+     * strong branching makes (some) other choices than pure pseudo-cost branching.
+     */
+    @Test
+    public void testReliabilityBranching() {
+
+        final ExpressionsBasedModel model = KnapsackTest.makeThirtyItemsModel();
+        final Expression volume = model.addExpression("Total Volume");
+        for (int i = 0; i < 30; i++) {
+            volume.set(i, 3 + ((11 * i) % 17));
+        }
+        volume.upper(new BigDecimal("117.5"));
+        model.options.mip_parallelism = 1;
+
+        final IntegerSolver referenceSolver = IntegerSolver.make(model);
+        final Result reference = referenceSolver.solve(null);
+
+        for (final int reliability : new int[] { 1, Integer.MAX_VALUE }) {
+
+            model.options.mip_reliability = reliability;
+
+            final IntegerSolver solver = IntegerSolver.make(model);
+            final Result result = solver.solve(null);
+
+            TestUtils.assertStateNotLessThanOptimal(result);
+            TestUtils.assertTrue(model.validate(result));
+            TestUtils.assertEquals(reference.getValue(), result.getValue(), model.options.mip_gap * Math.abs(reference.getValue()));
+
+            if (reliability == 1) {
+                TestUtils.assertTrue(solver.countExploredNodes() != referenceSolver.countExploredNodes());
+            }
+        }
+    }
+
     @Test
     public void testVaryingMaxWeight0() {
         ExpressionsBasedModel model = new KnapsackProblemBuilder(3d).addItem(20, 2).addItem(30, 4).build();
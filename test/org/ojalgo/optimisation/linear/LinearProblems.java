@@ -84,6 +84,47 @@ public class LinearProblems extends OptimisationLinearTests {
         TestUtils.assertStateAndSolution(result1, result2);
     }
 
+    /**
+     * Variables with all kinds of limits: positive lower, split (negative lower and positive upper), negative
+     * upper and no limits at all. The revised simplex handles these as column limits, without any extra
+     * constraint rows, and must get the same optimal value as the tableau.
+     */
+    @Test
+    public void testBoundedVariables() {
+
+        final ExpressionsBasedModel model = new ExpressionsBasedModel();
+
+        final Variable x1 = model.addVariable("x1").lower(2).upper(10).weight(3);
+        final Variable x2 = model.addVariable("x2").lower(-5).upper(3).weight(2);
+        final Variable x3 = model.addVariable("x3").lower(-8).upper(-1).weight(-1);
+        final Variable x4 = model.addVariable("x4").upper(6).weight(1);
+        final Variable x5 = model.addVariable("x5").lower(0).upper(4).weight(0.5);
+
+        final Expression sum = model.addExpression("sum").upper(12);
+        sum.set(x1, 1).set(x2, 1).set(x3, 1).set(x4, 1);
+
+        final Expression diff = model.addExpression("diff").lower(1);
+        diff.set(x1, 1).set(x2, -1).set(x5, 1);
+
+        final Expression link = model.addExpression("link").lower(-3);
+        link.set(x4, 1).set(x5, -1);
+
+        final SimplexDictionary dictionary = SimplexSolver.build(model, SimplexDictionary::new, true);
+        TestUtils.assertEquals(3, dictionary.countConstraints());
+        TestUtils.assertEquals(3, dictionary.countSlackVariables());
+
+        model.options.linear_algorithm = LinearSolver.Algorithm.TABLEAU;
+        final Result tableau = model.maximise();
+
+        model.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+        final Result revised = model.maximise();
+
+        TestUtils.assertStateNotLessThanOptimal(tableau);
+        TestUtils.assertStateNotLessThanOptimal(revised);
+        TestUtils.assertEquals(tableau.getValue(), revised.getValue(), 1E-8);
+        TestUtils.assertTrue(model.validate(revised));
+    }
+
     @Test
     public void testMath286() {
 
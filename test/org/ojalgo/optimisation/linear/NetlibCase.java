@@ -19,6 +19,8 @@ import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.MathProgSysModel;
+import org.ojalgo.optimisation.Optimisation.Result;
+import org.ojalgo.optimisation.Optimisation.State;
 import org.ojalgo.type.context.NumberContext;
 
 /**
@@ -28,9 +30,14 @@ import org.ojalgo.type.context.NumberContext;
  */
 public class NetlibCase extends OptimisationLinearTests {
 
+    /**
+     * The models, and their expected values, that are also solved with the alternative algorithms/options
+     */
+    private static final String[] FILES = { "blend.mps", "boeing2.mps", "kb2.mps", "sc50b.mps", "share2b.mps" };
     private static final String PATH = "./test/org/ojalgo/optimisation/linear/";
     private static final NumberContext PRECISION = new NumberContext(7, 6);
     private static final String SOLUTION_NOT_VALID = "Solution not valid!";
+    private static final String[] VALUES = { "-3.0812149846E+01", "-3.1501872802E+02", "-1.74990012991E+03", "-7.0000000000E+01", "-4.1573224074E+02" };
 
     /**
      * OK! 2010-04-19 lp_solve => -30.81214985
@@ -76,6 +83,82 @@ public class NetlibCase extends OptimisationLinearTests {
         this.assertMinMaxVal(tmpModel, new BigDecimal("-1.74990012991E+03"), null);
     }
 
+    /**
+     * Same models and expected values as the other tests, but using the interior point solver - chosen
+     * explicitly or automatically because of the size of the model. That solver falls back to the revised
+     * simplex if it doesn't converge, so it is also checked that the interior point method itself does.
+     */
+    @Test
+    public void testInteriorPoint() {
+
+        for (int m = 0; m < FILES.length; m++) {
+
+            final MathProgSysModel tmpMPS = MathProgSysModel.make(new File(PATH + FILES[m]));
+            final ExpressionsBasedModel tmpModel = tmpMPS.getExpressionsBasedModel();
+
+            tmpModel.options.linear_algorithm = LinearSolver.Algorithm.INTERIOR;
+
+            this.assertMinMaxVal(tmpModel, new BigDecimal(VALUES[m]), null);
+
+            final ExpressionsBasedModel tmpLarge = MathProgSysModel.make(new File(PATH + FILES[m])).getExpressionsBasedModel();
+
+            tmpLarge.options.linear_interior = tmpLarge.countVariables();
+
+            this.assertMinMaxVal(tmpLarge, new BigDecimal(VALUES[m]), null);
+
+            final ExpressionsBasedModel tmpDirect = MathProgSysModel.make(new File(PATH + FILES[m])).getExpressionsBasedModel();
+            tmpDirect.setMinimisation();
+
+            final InteriorPointSolver tmpSolver = new InteriorPointSolver(LinearSolver.dictionary(tmpDirect), tmpDirect.options);
+            final Result tmpSolverState = tmpSolver.solveWithoutFallback(null);
+            final Result tmpModelState = new InteriorPointSolver.ModelIntegration().toModelState(tmpSolverState, tmpDirect);
+
+            TestUtils.assertEquals(FILES[m], State.OPTIMAL, tmpSolverState.getState());
+            TestUtils.assertEquals(FILES[m], new BigDecimal(VALUES[m]).doubleValue(), tmpDirect.objective().evaluate(tmpModelState).doubleValue(), PRECISION);
+        }
+    }
+
+    /**
+     * Same models and expected values as the other tests, but with each of the pricing strategies and both
+     * simplex implementations.
+     */
+    @Test
+    public void testPricing() {
+
+        // Pricing does not apply to the interior point solver
+        for (final LinearSolver.Algorithm tmpAlgorithm : new LinearSolver.Algorithm[] { LinearSolver.Algorithm.REVISED, LinearSolver.Algorithm.TABLEAU }) {
+            for (final LinearSolver.Pricing tmpPricing : LinearSolver.Pricing.values()) {
+                for (int m = 0; m < FILES.length; m++) {
+
+                    final MathProgSysModel tmpMPS = MathProgSysModel.make(new File(PATH + FILES[m]));
+                    final ExpressionsBasedModel tmpModel = tmpMPS.getExpressionsBasedModel();
+
+                    tmpModel.options.linear_algorithm = tmpAlgorithm;
+                    tmpModel.options.linear_pricing = tmpPricing;
+
+                    this.assertMinMaxVal(tmpModel, new BigDecimal(VALUES[m]), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same models and expected values as the other tests, but using the revised simplex solver.
+     */
+    @Test
+    public void testRevisedSimplex() {
+
+        for (int m = 0; m < FILES.length; m++) {
+
+            final MathProgSysModel tmpMPS = MathProgSysModel.make(new File(PATH + FILES[m]));
+            final ExpressionsBasedModel tmpModel = tmpMPS.getExpressionsBasedModel();
+
+            tmpModel.options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+            this.assertMinMaxVal(tmpModel, new BigDecimal(VALUES[m]), null);
+        }
+    }
+
     /**
      * OK! 2010-04-19 lp_solve => -70.00000000
      */
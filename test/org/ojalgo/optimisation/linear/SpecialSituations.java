@@ -149,6 +149,40 @@ public class SpecialSituations {
         TestUtils.assertEquals(42.0, dense.doubleValue(2, 4 + 2));
     }
 
+    /**
+     * The same special situations solved with the revised simplex. With degeneracy and multiple optimal
+     * solutions it may end up at a different (but equally good) vertex.
+     */
+    @Test
+    public void testRevisedSimplex() {
+
+        final Optimisation.Options options = new Optimisation.Options();
+        options.linear_algorithm = LinearSolver.Algorithm.REVISED;
+
+        PrimitiveDenseStore c = PrimitiveDenseStore.FACTORY.columns(new double[] { -2, -1, 0, 0, 0 });
+        PrimitiveDenseStore A = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 4, 3, 1, 0, 0 }, { 4, 1, 0, 1, 0 }, { 4, 2, 0, 0, 1 } });
+        PrimitiveDenseStore b = PrimitiveDenseStore.FACTORY.columns(new double[] { 12, 8, 8 });
+
+        Result degeneracy = LinearSolver.getBuilder(c).equalities(A, b).build(options).solve();
+        TestUtils.assertEquals(Optimisation.State.OPTIMAL, degeneracy.getState());
+        TestUtils.assertEquals(-4.0, degeneracy.getValue());
+
+        c = PrimitiveDenseStore.FACTORY.columns(new double[] { -4, -14, 0, 0 });
+        A = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 2, 7, 1, 0 }, { 7, 2, 0, 1 } });
+        b = PrimitiveDenseStore.FACTORY.columns(new double[] { 21, 21 });
+
+        Result multiple = LinearSolver.getBuilder(c).equalities(A, b).build(options).solve();
+        TestUtils.assertEquals(Optimisation.State.OPTIMAL, multiple.getState());
+        TestUtils.assertEquals(-42.0, multiple.getValue());
+
+        c = PrimitiveDenseStore.FACTORY.columns(new double[] { -2, -1, 0, 0 });
+        A = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1, -1, 1, 0 }, { 2, -1, 0, 1 } });
+        b = PrimitiveDenseStore.FACTORY.columns(new double[] { 10, 40 });
+
+        Result unbounded = LinearSolver.getBuilder(c).equalities(A, b).build(options).solve();
+        TestUtils.assertEquals(Optimisation.State.UNBOUNDED, unbounded.getState());
+    }
+
     @Test
     public void testUnboundedness() {
 